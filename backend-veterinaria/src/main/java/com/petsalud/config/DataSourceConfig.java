@@ -0,0 +1,131 @@
+package com.petsalud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pools de conexiones separados por tipo de carga
+ * - OLTP: spring.datasource.hikari.* (atención, facturación, inventario).
+ * - Reportes: petsalud.datasource.reportes.hikari.*, con su propio tamaño y tiempo máximo por sentencia.
+ * Un reporte pesado agota a lo sumo el pool de reportes; la creación de órdenes sigue teniendo conexiones.
+ * Ambos pools usan la misma base (spring.datasource.url) y publican sus métricas (hikaricp.*).
+ * Réplicas de lectura (opcionales): petsalud.datasource.replicas.urls, una o más separadas por coma;
+ * reciben las transacciones readOnly del pool OLTP y las lecturas del pool de reportes
+ * (ver EnrutadorDataSource y MonitorReplicas).
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${petsalud.datasource.reportes.tiempo-maximo-segundos:60}")
+    private int tiempoMaximoReportes;
+
+    @Value("${petsalud.datasource.replicas.urls:}")
+    private String urlsReplicas;
+
+    // Vacíos = mismas credenciales que la base principal
+    @Value("${petsalud.datasource.replicas.usuario:}")
+    private String usuarioReplicas;
+
+    @Value("${petsalud.datasource.replicas.contrasena:}")
+    private String contrasenaReplicas;
+
+    @Value("${petsalud.datasource.replicas.maximo-conexiones:10}")
+    private int maximoConexionesReplica;
+
+    @Value("${petsalud.datasource.replicas.connection-timeout:2000}")
+    private long timeoutReplica;
+
+    @Value("${petsalud.datasource.replicas.ventana-escritura-ms:5000}")
+    private long ventanaEscrituraMs;
+
+    @Value("${petsalud.datasource.replicas.intervalo-ms:1000}")
+    private long intervaloVerificacionMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourceOltp(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("petsalud-oltp");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("petsalud.datasource.reportes.hikari")
+    public HikariDataSource dataSourceReportes(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("petsalud-reportes");
+        return dataSource;
+    }
+
+    /**
+     * Enrutador entre el pool OLTP, el de reportes y las réplicas de lectura
+     */
+    @Bean(destroyMethod = "cerrar")
+    public EnrutadorDataSource dataSourceEnrutador(@Qualifier("dataSourceOltp") DataSource oltp,
+                                                   @Qualifier("dataSourceReportes") DataSource reportes,
+                                                   DataSourceProperties propiedades,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(EnrutadorDataSource.POOL_OLTP, oltp);
+        destinos.put(EnrutadorDataSource.POOL_REPORTES, new TiempoLimiteDataSource(reportes, tiempoMaximoReportes));
+
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(
+                crearReplicas(propiedades, meterRegistry.getIfAvailable()), ventanaEscrituraMs);
+        enrutador.setTargetDataSources(destinos);
+        enrutador.setDefaultTargetDataSource(oltp);
+        enrutador.afterPropertiesSet();
+        return enrutador;
+    }
+
+    /**
+     * DataSource principal (JPA, JdbcTemplate)
+     * La conexión física se pide en la primera sentencia, cuando ya se sabe si la transacción es readOnly.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourceEnrutador") EnrutadorDataSource enrutador) {
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+
+    private List<EnrutadorDataSource.Replica> crearReplicas(DataSourceProperties propiedades, MeterRegistry meterRegistry) {
+        List<EnrutadorDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urlsReplicas.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String nombre = "petsalud-replica-" + (replicas.size() + 1);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(nombre);
+            // El driver se deduce de la URL (permite probar con MySQL o H2)
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(usuarioReplicas.isBlank() ? propiedades.determineUsername() : usuarioReplicas);
+            dataSource.setPassword(usuarioReplicas.isBlank() ? propiedades.determinePassword() : contrasenaReplicas);
+            dataSource.setMaximumPoolSize(maximoConexionesReplica);
+            dataSource.setMinimumIdle(1);
+            dataSource.setConnectionTimeout(timeoutReplica);
+            dataSource.setReadOnly(true);
+            if (meterRegistry != null) {
+                dataSource.setMetricRegistry(meterRegistry);
+            }
+            // Sin una verificación en tres intervalos la réplica deja de recibir lecturas
+            replicas.add(new EnrutadorDataSource.Replica(nombre, dataSource,
+                    new TiempoLimiteDataSource(dataSource, tiempoMaximoReportes), 3 * intervaloVerificacionMs));
+        }
+        return replicas;
+    }
+}
@@ -0,0 +1,249 @@
+package com.petsalud.config;
+
+import com.petsalud.service.TokenService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que elige el pool de conexiones según la carga del hilo actual
+ * - OLTP (por defecto): atención, facturación, inventario.
+ * - REPORTES: reportes, exportaciones y estadísticas (ver PoolReportes).
+ * - Réplicas de lectura: las transacciones readOnly del pool OLTP y las lecturas del pool de reportes
+ *   (readOnly o sin transacción), si hay réplicas disponibles. Los reportes usan la réplica con el
+ *   mismo tiempo máximo por sentencia que su pool; el límite de llamadas de PoolReportesAspect no cambia.
+ *
+ * Reglas para las réplicas:
+ * - Solo se usan réplicas marcadas disponibles por MonitorReplicas (responden y su retraso está bajo el máximo)
+ *   y verificadas hace poco: si el monitor deja de verificar, la réplica deja de recibir lecturas.
+ * - Si una réplica falla al entregar una conexión se marca caída y se usa la base principal
+ *   (el pool que corresponda: OLTP o reportes).
+ * - Lee lo que escribiste: tras una transacción de escritura, las lecturas del mismo cliente
+ *   (usuario del token o IP) van a la principal durante la ventana configurada.
+ * El pool se decide al pedir la conexión física; con LazyConnectionDataSourceProxy eso ocurre
+ * en la primera sentencia, cuando el carácter readOnly de la transacción ya se conoce.
+ */
+public class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrutadorDataSource.class);
+
+    public static final String POOL_OLTP = "OLTP";
+    public static final String POOL_REPORTES = "REPORTES";
+
+    private static final ThreadLocal<String> POOL_ACTUAL = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final long ventanaEscrituraMs;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    // cliente -> instante de su última transacción de escritura
+    private final Map<String, Long> ultimaEscritura = new ConcurrentHashMap<>();
+
+    public EnrutadorDataSource(List<Replica> replicas, long ventanaEscrituraMs) {
+        this.replicas = replicas;
+        this.ventanaEscrituraMs = ventanaEscrituraMs;
+    }
+
+    /**
+     * Usar el pool indicado en el hilo actual; retorna el pool anterior para restaurarlo
+     */
+    public static String usar(String pool) {
+        String anterior = POOL_ACTUAL.get();
+        POOL_ACTUAL.set(pool);
+        return anterior;
+    }
+
+    /**
+     * Restaurar el pool anterior (null = OLTP)
+     */
+    public static void restaurar(String anterior) {
+        if (anterior == null) {
+            POOL_ACTUAL.remove();
+        } else {
+            POOL_ACTUAL.set(anterior);
+        }
+    }
+
+    public static String poolActual() {
+        String pool = POOL_ACTUAL.get();
+        return pool != null ? pool : POOL_OLTP;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return poolActual();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = elegirReplica();
+        if (replica != null) {
+            try {
+                return POOL_REPORTES.equals(POOL_ACTUAL.get())
+                        ? replica.getDataSourceReportes().getConnection()
+                        : replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                replica.marcarCaida(e.getMessage());
+                logger.warn("Réplica {} no disponible, se usa la base principal: {}", replica.getNombre(), e.getMessage());
+            }
+        }
+        return super.getConnection();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Olvidar escrituras fuera de la ventana de lectura consistente
+     */
+    public void purgarEscrituras() {
+        long limite = System.currentTimeMillis() - ventanaEscrituraMs;
+        ultimaEscritura.values().removeIf(instante -> instante < limite);
+    }
+
+    /**
+     * Cerrar los pools de las réplicas al detener la aplicación
+     */
+    public void cerrar() {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    // ==================== Métodos internos ====================
+
+    private Replica elegirReplica() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        // OLTP: solo dentro de una transacción; reportes: también sus lecturas sin transacción
+        boolean enTransaccion = TransactionSynchronizationManager.isActualTransactionActive();
+        if (!enTransaccion && !POOL_REPORTES.equals(POOL_ACTUAL.get())) {
+            return null;
+        }
+        String cliente = clienteActual();
+        long ahora = System.currentTimeMillis();
+        if (enTransaccion && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (cliente != null) {
+                ultimaEscritura.put(cliente, ahora);
+            }
+            return null;
+        }
+        if (cliente != null) {
+            Long escritura = ultimaEscritura.get(cliente);
+            if (escritura != null && ahora - escritura < ventanaEscrituraMs) {
+                return null;
+            }
+        }
+        int total = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (replica.isDisponible()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String clienteActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof TokenService.Sesion sesion) {
+            return "U" + sesion.getIdUsuario();
+        }
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos instanceof ServletRequestAttributes servlet) {
+            return servlet.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    /**
+     * Réplica de lectura con su estado de salud
+     * El estado vale hasta 'vigenciaMs' después de la última verificación; pasado ese tiempo
+     * la réplica se considera no disponible aunque la última verificación haya sido correcta.
+     */
+    public static class Replica {
+        private final String nombre;
+        private final DataSource dataSource;
+        private final DataSource dataSourceReportes;
+        private final long vigenciaMs;
+        // Hasta la primera verificación del monitor no se usa
+        private volatile boolean disponible = false;
+        private volatile long retrasoMs = -1;
+        private volatile long verificada;
+        private volatile String error;
+
+        public Replica(String nombre, DataSource dataSource, DataSource dataSourceReportes, long vigenciaMs) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+            this.dataSourceReportes = dataSourceReportes;
+            this.vigenciaMs = vigenciaMs;
+        }
+
+        public void actualizar(boolean disponible, long retrasoMs) {
+            this.retrasoMs = retrasoMs;
+            this.error = null;
+            this.verificada = System.currentTimeMillis();
+            this.disponible = disponible;
+        }
+
+        public void marcarCaida(String error) {
+            this.disponible = false;
+            this.error = error;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        /**
+         * Conexiones para el pool de reportes (con su tiempo máximo por sentencia)
+         */
+        public DataSource getDataSourceReportes() {
+            return dataSourceReportes;
+        }
+
+        public boolean isDisponible() {
+            return disponible && System.currentTimeMillis() - verificada <= vigenciaMs;
+        }
+
+        /**
+         * Milisegundos desde la última verificación correcta (-1 si nunca se verificó)
+         */
+        public long getAntiguedadVerificacionMs() {
+            long instante = verificada;
+            return instante == 0 ? -1 : System.currentTimeMillis() - instante;
+        }
+
+        public long getRetrasoMs() {
+            return retrasoMs;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.petsalud.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigilancia del retraso de las réplicas de lectura
+ *
+ * Cada intervalo escribe un latido (milisegundos actuales) en latidos_replicacion de la base principal
+ * y lo lee en cada réplica:
+ * - Si la réplica ya tiene el último latido, su retraso es 0; si no, es la antigüedad del que tiene.
+ * - Una réplica con retraso mayor al máximo, o que no responde, deja de recibir lecturas hasta la
+ *   siguiente verificación correcta.
+ * No requiere permisos de replicación ni SHOW REPLICA STATUS: sirve igual con MySQL, MariaDB o H2.
+ * Corre en su propio hilo (no en el planificador de @Scheduled): una tarea larga no la retrasa y,
+ * si aun así se detiene, cada réplica vence sola a los tres intervalos sin verificación.
+ */
+@Component
+public class MonitorReplicas {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorReplicas.class);
+
+    private static final int ID_LATIDO = 1;
+
+    @Autowired
+    @Qualifier("dataSourceEnrutador")
+    private EnrutadorDataSource enrutador;
+
+    @Autowired
+    @Qualifier("dataSourceOltp")
+    private DataSource principal;
+
+    @Value("${petsalud.datasource.replicas.max-retraso-ms:3000}")
+    private long maxRetrasoMs;
+
+    @Value("${petsalud.datasource.replicas.intervalo-ms:1000}")
+    private long intervaloMs;
+
+    private volatile long ultimoLatido;
+
+    private ScheduledExecutorService planificador;
+
+    @PostConstruct
+    public void iniciar() {
+        if (enrutador.getReplicas().isEmpty()) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "monitor-replicas"));
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                verificar();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría las siguientes ejecuciones
+                logger.error("Error al verificar las réplicas", e);
+            }
+        }, 0, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+    }
+
+    /**
+     * Escribir el latido y actualizar el estado de cada réplica
+     */
+    public void verificar() {
+        if (enrutador.getReplicas().isEmpty()) {
+            return;
+        }
+        escribirLatido();
+        for (EnrutadorDataSource.Replica replica : enrutador.getReplicas()) {
+            try {
+                JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+                jdbc.setQueryTimeout(2);
+                List<Long> valores = jdbc.queryForList(
+                        "SELECT instante_ms FROM latidos_replicacion WHERE id = ?", Long.class, ID_LATIDO);
+                long ahora = System.currentTimeMillis();
+                long leido = valores.isEmpty() ? 0 : valores.get(0);
+                long retraso = leido >= ultimoLatido ? 0 : ahora - leido;
+                boolean disponible = !valores.isEmpty() && retraso <= maxRetrasoMs;
+                if (replica.isDisponible() && !disponible) {
+                    logger.warn("Réplica {} fuera de servicio: retraso {} ms", replica.getNombre(), retraso);
+                }
+                replica.actualizar(disponible, retraso);
+            } catch (RuntimeException e) {
+                if (replica.isDisponible()) {
+                    logger.warn("Réplica {} sin respuesta: {}", replica.getNombre(), e.getMessage());
+                }
+                replica.marcarCaida(e.getMessage());
+            }
+        }
+        enrutador.purgarEscrituras();
+    }
+
+    /**
+     * Estado de cada réplica
+     */
+    public List<Map<String, Object>> obtenerEstado() {
+        List<Map<String, Object>> estado = new ArrayList<>();
+        for (EnrutadorDataSource.Replica replica : enrutador.getReplicas()) {
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("nombre", replica.getNombre());
+            datos.put("disponible", replica.isDisponible());
+            datos.put("retrasoMs", replica.getRetrasoMs());
+            datos.put("verificadaHaceMs", replica.getAntiguedadVerificacionMs());
+            datos.put("error", replica.getError());
+            estado.add(datos);
+        }
+        return estado;
+    }
+
+    private void escribirLatido() {
+        long ahora = System.currentTimeMillis();
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(principal);
+            int filas = jdbc.update("UPDATE latidos_replicacion SET instante_ms = ? WHERE id = ?", ahora, ID_LATIDO);
+            if (filas == 0) {
+                jdbc.update("INSERT INTO latidos_replicacion (id, instante_ms) VALUES (?, ?)", ID_LATIDO, ahora);
+            }
+            ultimoLatido = ahora;
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo escribir el latido de replicación: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.petsalud.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ejecuta el método (o todos los de la clase) con el pool de conexiones de reportes
+ * Para trabajo de solo lectura pesado: reportes, exportaciones y estadísticas.
+ * Si ya hay una transacción abierta en otro pool, se sigue usando su conexión.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PoolReportes {
+}
@@ -0,0 +1,75 @@
+package com.petsalud.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica PoolReportes: enruta al pool de reportes y limita las llamadas simultáneas
+ * Se ejecuta antes que @Transactional (máxima precedencia) para que la transacción
+ * tome su conexión del pool de reportes.
+ * Si no hay lugar en el tiempo de espera configurado se rechaza (ReportesSaturadosException, 503)
+ * en lugar de encolar.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PoolReportesAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${petsalud.datasource.reportes.max-llamadas:4}")
+    private int maxLlamadas;
+
+    @Value("${petsalud.datasource.reportes.espera-ms:2000}")
+    private long esperaMs;
+
+    private Semaphore llamadas;
+    private Counter rechazadas;
+
+    @PostConstruct
+    public void init() {
+        llamadas = new Semaphore(Math.max(1, maxLlamadas), true);
+        rechazadas = Counter.builder("petsalud.datasource.reportes.rechazadas")
+                .description("Llamadas a reportes rechazadas por exceder el límite de concurrencia")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.datasource.reportes.en-curso", llamadas, s -> Math.max(1, maxLlamadas) - s.availablePermits())
+                .description("Llamadas en curso en el pool de reportes")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.datasource.reportes.en-espera", llamadas, Semaphore::getQueueLength)
+                .description("Llamadas esperando lugar en el pool de reportes")
+                .register(meterRegistry);
+    }
+
+    @Around("@within(com.petsalud.config.PoolReportes) || @annotation(com.petsalud.config.PoolReportes)")
+    public Object enrutar(ProceedingJoinPoint punto) throws Throwable {
+        // Llamadas anidadas ya tienen su lugar
+        if (EnrutadorDataSource.POOL_REPORTES.equals(EnrutadorDataSource.poolActual())) {
+            return punto.proceed();
+        }
+        if (!llamadas.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+            rechazadas.increment();
+            throw new ReportesSaturadosException("Hay demasiados reportes en curso, intente nuevamente en unos segundos");
+        }
+        String anterior = EnrutadorDataSource.usar(EnrutadorDataSource.POOL_REPORTES);
+        try {
+            return punto.proceed();
+        } finally {
+            EnrutadorDataSource.restaurar(anterior);
+            llamadas.release();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.petsalud.config;
+
+import com.petsalud.service.LimitadorConcurrencia;
+import com.petsalud.service.LimitadorTasa;
+import com.petsalud.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Protección de carga del API
+ *
+ * 1. Límite de tasa por cliente y grupo de rutas (LimitadorTasa): excedido -> 429 con Retry-After.
+ * 2. Límite adaptativo de concurrencia para reportes y exportaciones (LimitadorConcurrencia):
+ *    excedido -> 503 inmediato, en lugar de esperar una conexión del pool hasta el timeout de 30 s.
+ * El cliente es el usuario del token (si lo hay) o la IP de origen.
+ * Se ejecuta después de la cadena de Spring Security, con la sesión del token ya resuelta.
+ */
+@Component
+public class ProteccionCargaFilter extends OncePerRequestFilter {
+
+    private static final String GRUPO_LOGIN = "login";
+    private static final String GRUPO_REPORTES = "reportes";
+    private static final String GRUPO_EXPORTACIONES = "exportaciones";
+    private static final String GRUPO_GENERAL = "general";
+
+    @Autowired
+    private LimitadorTasa limitadorTasa;
+
+    @Autowired
+    private LimitadorConcurrencia limitadorConcurrencia;
+
+    @Value("${petsalud.limites.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${petsalud.limites.tasa.general.capacidad:120}")
+    private double generalCapacidad;
+
+    @Value("${petsalud.limites.tasa.general.por-segundo:20}")
+    private double generalPorSegundo;
+
+    @Value("${petsalud.limites.tasa.login.capacidad:10}")
+    private double loginCapacidad;
+
+    @Value("${petsalud.limites.tasa.login.por-segundo:0.5}")
+    private double loginPorSegundo;
+
+    @Value("${petsalud.limites.tasa.reportes.capacidad:10}")
+    private double reportesCapacidad;
+
+    @Value("${petsalud.limites.tasa.reportes.por-segundo:1}")
+    private double reportesPorSegundo;
+
+    @Value("${petsalud.limites.tasa.exportaciones.capacidad:5}")
+    private double exportacionesCapacidad;
+
+    @Value("${petsalud.limites.tasa.exportaciones.por-segundo:0.2}")
+    private double exportacionesPorSegundo;
+
+    @Value("${petsalud.limites.concurrencia.reportes.maximo:6}")
+    private int reportesMaximo;
+
+    @Value("${petsalud.limites.concurrencia.exportaciones.maximo:3}")
+    private int exportacionesMaximo;
+
+    @Value("${petsalud.limites.concurrencia.minimo:1}")
+    private int concurrenciaMinima;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado
+                || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String grupo = clasificar(request);
+
+        // 1. Tasa por cliente
+        long esperaMs = switch (grupo) {
+            case GRUPO_LOGIN -> limitadorTasa.intentar(cliente(request), grupo, loginCapacidad, loginPorSegundo);
+            case GRUPO_REPORTES -> limitadorTasa.intentar(cliente(request), grupo, reportesCapacidad, reportesPorSegundo);
+            case GRUPO_EXPORTACIONES -> limitadorTasa.intentar(cliente(request), grupo, exportacionesCapacidad, exportacionesPorSegundo);
+            default -> limitadorTasa.intentar(cliente(request), grupo, generalCapacidad, generalPorSegundo);
+        };
+        if (esperaMs > 0) {
+            rechazar(response, HttpStatus.TOO_MANY_REQUESTS, esperaMs,
+                    "Demasiadas solicitudes, intente nuevamente en unos segundos");
+            return;
+        }
+
+        // 2. Concurrencia de rutas costosas
+        int maximo = GRUPO_REPORTES.equals(grupo) ? reportesMaximo
+                : GRUPO_EXPORTACIONES.equals(grupo) ? exportacionesMaximo : 0;
+        if (maximo == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        LimitadorConcurrencia.Permiso permiso =
+                limitadorConcurrencia.adquirir(grupo, maximo, concurrenciaMinima, maximo);
+        if (permiso == null) {
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 1000,
+                    "Servicio ocupado, intente nuevamente en unos segundos");
+            return;
+        }
+        boolean exitosa = false;
+        boolean saturada = false;
+        try {
+            chain.doFilter(request, response);
+            saturada = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+            exitosa = response.getStatus() < 500;
+        } finally {
+            // Un 503 del pool de reportes es un rechazo, no una muestra de latencia ni un error
+            if (saturada) {
+                permiso.descartar();
+            } else {
+                permiso.liberar(exitosa);
+            }
+        }
+    }
+
+    private String clasificar(HttpServletRequest request) {
+        String ruta = request.getRequestURI();
+        if (ruta.startsWith("/api/usuarios/login")) {
+            return GRUPO_LOGIN;
+        }
+        if (ruta.startsWith("/api/reportes/")) {
+            return GRUPO_REPORTES;
+        }
+        if (ruta.contains("/export/") || ruta.endsWith("/pdf")) {
+            return GRUPO_EXPORTACIONES;
+        }
+        return GRUPO_GENERAL;
+    }
+
+    private String cliente(HttpServletRequest request) {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof TokenService.Sesion sesion) {
+            return "U" + sesion.getIdUsuario();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void rechazar(HttpServletResponse response, HttpStatus estado, long esperaMs, String mensaje)
+            throws IOException {
+        response.setStatus(estado.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (esperaMs + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"success\":false,\"message\":\"" + mensaje + "\"}");
+    }
+}
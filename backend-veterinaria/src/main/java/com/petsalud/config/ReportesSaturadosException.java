@@ -0,0 +1,16 @@
+package com.petsalud.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * El pool de reportes no tuvo lugar dentro del tiempo de espera (ver PoolReportesAspect)
+ * Se responde 503: es saturación temporal, no un error del reporte.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ReportesSaturadosException extends RuntimeException {
+
+    public ReportesSaturadosException(String mensaje) {
+        super(mensaje);
+    }
+}
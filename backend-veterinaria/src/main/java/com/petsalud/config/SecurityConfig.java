@@ -1,5 +1,7 @@
 package com.petsalud.config;
 
+import com.petsalud.service.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,6 +10,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Configuración de seguridad Spring Security
@@ -17,6 +20,9 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Autowired
+    private TokenService tokenService;
+
     /**
      * Configuración de la cadena de filtros de seguridad
      * IMPORTANTE: Esta configuración permite TODAS las peticiones sin autenticación
@@ -41,7 +47,11 @@ public class SecurityConfig {
             // Headers de seguridad
             .headers(headers -> headers
                 .frameOptions(frame -> frame.sameOrigin())
-            );
+            )
+
+            // Autenticación por token firmado (Authorization: Bearer)
+            .addFilterBefore(new TokenAutenticacionFilter(tokenService),
+                UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,61 @@
+package com.petsalud.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource que aplica un tiempo máximo a cada sentencia (Statement.setQueryTimeout)
+ * Funciona con cualquier driver JDBC (MySQL, MariaDB, H2), sin depender de variables de sesión.
+ * Las sentencias que ya traen su propio tiempo límite lo conservan.
+ */
+public class TiempoLimiteDataSource extends DelegatingDataSource {
+
+    private final int segundos;
+
+    public TiempoLimiteDataSource(DataSource destino, int segundos) {
+        super(destino);
+        this.segundos = segundos;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolver(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envolver(super.getConnection(username, password));
+    }
+
+    private Connection envolver(Connection conexion) {
+        if (segundos <= 0) {
+            return conexion;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    // Identidad del proxy (Spring compara la conexión al liberarla)
+                    if ("equals".equals(metodo.getName())) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(metodo.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    Object resultado;
+                    try {
+                        resultado = metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (resultado instanceof Statement sentencia && sentencia.getQueryTimeout() == 0) {
+                        sentencia.setQueryTimeout(segundos);
+                    }
+                    return resultado;
+                });
+    }
+}
@@ -0,0 +1,44 @@
+package com.petsalud.config;
+
+import com.petsalud.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Filtro que autentica las peticiones con "Authorization: Bearer <token>"
+ * Solo valida la firma del token (TokenService); no consulta la base de datos.
+ */
+public class TokenAutenticacionFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAutenticacionFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader("Authorization");
+        if (cabecera != null && cabecera.startsWith(PREFIJO)) {
+            TokenService.Sesion sesion = tokenService.validar(cabecera.substring(PREFIJO.length()).trim());
+            if (sesion != null) {
+                UsernamePasswordAuthenticationToken autenticacion = new UsernamePasswordAuthenticationToken(
+                        sesion, null, List.of(new SimpleGrantedAuthority("ROLE_" + sesion.getRol().toUpperCase())));
+                SecurityContextHolder.getContext().setAuthentication(autenticacion);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
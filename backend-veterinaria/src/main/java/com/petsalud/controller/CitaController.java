@@ -3,11 +3,14 @@ package com.petsalud.controller;
 import com.petsalud.model.Cita;
 import com.petsalud.service.CitaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestión de Citas
@@ -88,6 +91,15 @@ public class CitaController {
         return ResponseEntity.ok(citaService.obtenerCitasProximas());
     }
 
+    /**
+     * Obtener citas en las próximas 6 horas
+     * GET /api/citas/proximas-6h
+     */
+    @GetMapping("/proximas-6h")
+    public ResponseEntity<List<Cita>> obtenerCitasSeisHoras() {
+        return ResponseEntity.ok(citaService.obtenerCitasSeisHoras());
+    }
+
     /**
      * Obtener citas críticas (próxima hora)
      * GET /api/citas/criticas
@@ -115,6 +127,27 @@ public class CitaController {
         return ResponseEntity.ok(citaService.obtenerDashboardAlertas());
     }
 
+    /**
+     * Próximos horarios libres de un veterinario o de una especialidad
+     * GET /api/citas/horarios-libres?idVeterinario={id}&cantidad={n}
+     * GET /api/citas/horarios-libres?especialidad={especialidad}&cantidad={n}
+     */
+    @GetMapping("/horarios-libres")
+    public ResponseEntity<?> obtenerHorariosLibres(
+            @RequestParam(required = false) Long idVeterinario,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(defaultValue = "5") int cantidad,
+            @RequestParam(defaultValue = "30") int duracion) {
+        if (cantidad <= 0 || duracion <= 0) {
+            return ResponseEntity.badRequest().body("La cantidad y la duración deben ser mayores a 0");
+        }
+        if (idVeterinario != null) {
+            return ResponseEntity.ok(citaService.obtenerHorariosLibres(idVeterinario, desde, cantidad, duracion));
+        }
+        return ResponseEntity.ok(citaService.obtenerHorariosLibresPorEspecialidad(especialidad, desde, cantidad, duracion));
+    }
+
     /**
      * Crear nueva cita
      * POST /api/citas
@@ -203,6 +236,16 @@ public class CitaController {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Marcar varios recordatorios como enviados
+     * PATCH /api/citas/recordatorios-enviados
+     */
+    @PatchMapping("/recordatorios-enviados")
+    public ResponseEntity<Map<String, Object>> marcarRecordatoriosEnviados(@RequestBody List<Long> idsCitas) {
+        int actualizadas = citaService.marcarRecordatoriosEnviados(idsCitas);
+        return ResponseEntity.ok(Map.of("actualizadas", actualizadas));
+    }
+
     /**
      * Eliminar cita
      * DELETE /api/citas/{id}
@@ -0,0 +1,45 @@
+package com.petsalud.controller;
+
+import com.petsalud.service.ConciliacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para la conciliación de extractos
+ * Procesa los extractos de la carpeta de entrada y expone los últimos resultados
+ */
+@RestController
+@RequestMapping("/api/conciliacion")
+@CrossOrigin(origins = "http://localhost:4200")
+public class ConciliacionController {
+
+    @Autowired
+    private ConciliacionService conciliacionService;
+
+    /**
+     * Conciliar los extractos pendientes de la carpeta de entrada
+     * POST /api/conciliacion/procesar
+     */
+    @PostMapping("/procesar")
+    public ResponseEntity<?> procesar() {
+        try {
+            return ResponseEntity.ok(conciliacionService.procesarCarpeta());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Resultados de las últimas conciliaciones
+     * GET /api/conciliacion/resultados
+     */
+    @GetMapping("/resultados")
+    public ResponseEntity<List<Map<String, Object>>> listarResultados() {
+        return ResponseEntity.ok(conciliacionService.listarResultados());
+    }
+}
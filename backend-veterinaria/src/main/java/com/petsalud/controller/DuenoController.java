@@ -11,6 +11,7 @@ import org.springframework.http.HttpHeaders;
 
 import com.petsalud.dao.DuenoDAO;
 import com.petsalud.service.ExportService;
+import com.petsalud.config.PoolReportes;
 
 import java.util.List;
 
@@ -168,6 +169,7 @@ public ResponseEntity<?> estadisticasDuenosSP() {
 }
 
 // Export: Excel
+@PoolReportes
 @GetMapping(value = "/export/excel", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
 public ResponseEntity<byte[]> exportarExcel() {
     try {
@@ -182,6 +184,7 @@ public ResponseEntity<byte[]> exportarExcel() {
 }
 
 // Export: PDF
+@PoolReportes
 @GetMapping(value = "/export/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
 public ResponseEntity<byte[]> exportarPDF() {
     try {
@@ -196,6 +199,7 @@ public ResponseEntity<byte[]> exportarPDF() {
 }
 
 // Export: JSON
+@PoolReportes
 @GetMapping(value = "/export/json", produces = MediaType.APPLICATION_JSON_VALUE)
 public ResponseEntity<byte[]> exportarJSON() {
     try {
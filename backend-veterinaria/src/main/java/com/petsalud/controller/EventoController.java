@@ -0,0 +1,50 @@
+package com.petsalud.controller;
+
+import com.petsalud.service.EventoHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST para eventos en tiempo real (Server-Sent Events)
+ * Reemplaza el sondeo periódico de los tableros de alertas
+ */
+@RestController
+@RequestMapping("/api/eventos")
+@CrossOrigin(origins = "http://localhost:4200")
+public class EventoController {
+
+    @Autowired
+    private EventoHub eventoHub;
+
+    /**
+     * Suscribirse al flujo de eventos
+     * GET /api/eventos/stream?topicos=citas,ordenes,inventario
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir(@RequestParam(required = false) String topicos) {
+        Set<String> seleccion = topicos == null ? Set.of() : Arrays.stream(topicos.split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+        return eventoHub.suscribir(seleccion);
+    }
+
+    /**
+     * Estado del flujo de eventos
+     * GET /api/eventos/estado
+     */
+    @GetMapping("/estado")
+    public ResponseEntity<Map<String, Object>> estado() {
+        return ResponseEntity.ok(Map.of(
+                "clientesConectados", eventoHub.getClientesConectados(),
+                "topicos", EventoHub.TOPICOS));
+    }
+}
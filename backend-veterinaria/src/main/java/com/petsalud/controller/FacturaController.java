@@ -1,5 +1,6 @@
 package com.petsalud.controller;
 
+import com.petsalud.model.Dinero;
 import com.petsalud.model.Factura;
 import com.petsalud.service.FacturaService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestión de Facturas
@@ -143,9 +145,9 @@ public class FacturaController {
      * GET /api/facturas/ventas-dia?fecha=2025-01-15
      */
     @GetMapping("/ventas-dia")
-    public ResponseEntity<Double> calcularVentasDia(
+    public ResponseEntity<Dinero> calcularVentasDia(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
-        Double total = facturaService.calcularVentasDia(fecha);
+        Dinero total = facturaService.calcularVentasDia(fecha);
         return ResponseEntity.ok(total);
     }
 
@@ -154,23 +156,49 @@ public class FacturaController {
      * GET /api/facturas/ventas-mes?mes=1&anio=2025
      */
     @GetMapping("/ventas-mes")
-    public ResponseEntity<Double> calcularVentasMes(
+    public ResponseEntity<Dinero> calcularVentasMes(
             @RequestParam int mes,
             @RequestParam int anio) {
-        Double total = facturaService.calcularVentasMes(mes, anio);
+        Dinero total = facturaService.calcularVentasMes(mes, anio);
         return ResponseEntity.ok(total);
     }
 
+    /**
+     * Auditoría de la numeración de facturas (huecos en la serie)
+     * GET /api/facturas/numeracion/auditoria?anio=2025
+     */
+    @GetMapping("/numeracion/auditoria")
+    public ResponseEntity<Map<String, Object>> auditarNumeracion(@RequestParam(required = false) Integer anio) {
+        return ResponseEntity.ok(facturaService.auditarNumeracion(anio != null ? anio : LocalDate.now().getYear()));
+    }
+
     /**
      * Marcar factura como pagada
      * PATCH /api/facturas/{id}/pagar
      */
     @PatchMapping("/{id}/pagar")
-    public ResponseEntity<Factura> marcarComoPagada(@PathVariable Long id) {
-        Factura factura = facturaService.marcarComoPagada(id);
-        if (factura != null) {
-            return ResponseEntity.ok(factura);
+    public ResponseEntity<?> marcarComoPagada(@PathVariable Long id) {
+        try {
+            Factura factura = facturaService.marcarComoPagada(id);
+            if (factura != null) {
+                return ResponseEntity.ok(factura);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reservar el stock de los productos de una factura pendiente
+     * POST /api/facturas/{id}/reservar-stock?minutos=30
+     */
+    @PostMapping("/{id}/reservar-stock")
+    public ResponseEntity<?> reservarStock(@PathVariable Long id, @RequestParam(required = false) Integer minutos) {
+        try {
+            return ResponseEntity.ok(facturaService.reservarStock(id, minutos));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
-        return ResponseEntity.notFound().build();
     }
 }
\ No newline at end of file
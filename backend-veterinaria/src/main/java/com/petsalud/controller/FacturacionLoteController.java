@@ -0,0 +1,88 @@
+package com.petsalud.controller;
+
+import com.petsalud.model.LoteFacturacion;
+import com.petsalud.model.TarifaServicio;
+import com.petsalud.service.FacturacionLoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controlador REST para la facturación por lotes de órdenes completadas
+ * Sistema de facturación y cobros
+ */
+@RestController
+@RequestMapping("/api/facturas/lotes")
+@CrossOrigin(origins = "http://localhost:4200")
+public class FacturacionLoteController {
+
+    @Autowired
+    private FacturacionLoteService facturacionLoteService;
+
+    /**
+     * Iniciar (o reanudar) la facturación por lotes de un rango en segundo plano
+     * POST /api/facturas/lotes?desde=2025-01-01&hasta=2025-01-31
+     * Responde 202 con la corrida (idLote); el avance se consulta en GET /api/facturas/lotes/{id}
+     */
+    @PostMapping
+    public ResponseEntity<?> ejecutar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            LoteFacturacion lote = facturacionLoteService.iniciar(desde, hasta);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(lote);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Listar las últimas corridas
+     * GET /api/facturas/lotes
+     */
+    @GetMapping
+    public ResponseEntity<List<LoteFacturacion>> listarLotes() {
+        return ResponseEntity.ok(facturacionLoteService.listarLotes());
+    }
+
+    /**
+     * Obtener corrida por ID
+     * GET /api/facturas/lotes/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<LoteFacturacion> obtenerLote(@PathVariable Long id) {
+        LoteFacturacion lote = facturacionLoteService.obtenerLote(id);
+        if (lote != null) {
+            return ResponseEntity.ok(lote);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Listar el catálogo de tarifas
+     * GET /api/facturas/lotes/tarifas
+     */
+    @GetMapping("/tarifas")
+    public ResponseEntity<List<TarifaServicio>> listarTarifas() {
+        return ResponseEntity.ok(facturacionLoteService.listarTarifas());
+    }
+
+    /**
+     * Crear o actualizar una tarifa
+     * POST /api/facturas/lotes/tarifas
+     */
+    @PostMapping("/tarifas")
+    public ResponseEntity<?> guardarTarifa(@RequestBody TarifaServicio tarifa) {
+        try {
+            TarifaServicio guardada = facturacionLoteService.guardarTarifa(tarifa);
+            return ResponseEntity.status(HttpStatus.CREATED).body(guardada);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.petsalud.controller;
 
+import com.petsalud.model.Dinero;
 import com.petsalud.model.Inventario;
+import com.petsalud.model.LoteInventario;
+import com.petsalud.model.MovimientoInventario;
+import com.petsalud.model.ReservaStock;
+import com.petsalud.service.CatalogoPosCache;
 import com.petsalud.service.InventarioService;
+import com.petsalud.service.LoteInventarioService;
+import com.petsalud.service.MovimientoInventarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestión de Inventario
@@ -21,6 +31,15 @@ public class InventarioController {
     @Autowired
     private InventarioService inventarioService;
 
+    @Autowired
+    private MovimientoInventarioService movimientoInventarioService;
+
+    @Autowired
+    private LoteInventarioService loteInventarioService;
+
+    @Autowired
+    private CatalogoPosCache catalogoPos;
+
     /**
      * Listar todos los productos
      * GET /api/inventario
@@ -188,7 +207,7 @@ public class InventarioController {
      * GET /api/inventario/estadisticas/valor-total
      */
     @GetMapping("/estadisticas/valor-total")
-    public ResponseEntity<Double> calcularValorTotal() {
+    public ResponseEntity<Dinero> calcularValorTotal() {
         return ResponseEntity.ok(inventarioService.calcularValorTotal());
     }
 
@@ -200,4 +219,169 @@ public class InventarioController {
     public ResponseEntity<Long> contarActivos() {
         return ResponseEntity.ok(inventarioService.contarProductosActivos());
     }
-}
\ No newline at end of file
+
+    /**
+     * Reservar stock de varios productos (todo o nada)
+     * POST /api/inventario/reservas?referencia=F2025-000123&minutos=30
+     * Body: {"idInventario": cantidad, ...}
+     */
+    @PostMapping("/reservas")
+    public ResponseEntity<?> reservar(
+            @RequestParam String referencia,
+            @RequestParam(required = false) Integer minutos,
+            @RequestBody Map<Long, Integer> items) {
+        try {
+            return ResponseEntity.ok(inventarioService.reservar(referencia, items, minutos));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reservas de una referencia
+     * GET /api/inventario/reservas/{referencia}
+     */
+    @GetMapping("/reservas/{referencia}")
+    public ResponseEntity<List<ReservaStock>> listarReservas(@PathVariable String referencia) {
+        return ResponseEntity.ok(inventarioService.listarReservas(referencia));
+    }
+
+    /**
+     * Confirmar las reservas activas de una referencia
+     * POST /api/inventario/reservas/{referencia}/confirmar
+     */
+    @PostMapping("/reservas/{referencia}/confirmar")
+    public ResponseEntity<?> confirmarReservas(@PathVariable String referencia) {
+        try {
+            return ResponseEntity.ok(inventarioService.confirmarReservas(referencia));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Liberar las reservas activas de una referencia
+     * DELETE /api/inventario/reservas/{referencia}
+     */
+    @DeleteMapping("/reservas/{referencia}")
+    public ResponseEntity<List<ReservaStock>> liberarReservas(@PathVariable String referencia) {
+        return ResponseEntity.ok(inventarioService.liberarReservas(referencia));
+    }
+
+    /**
+     * Últimos movimientos de stock de un producto
+     * GET /api/inventario/{id}/movimientos
+     */
+    @GetMapping("/{id}/movimientos")
+    public ResponseEntity<List<MovimientoInventario>> listarMovimientos(@PathVariable Long id) {
+        return ResponseEntity.ok(movimientoInventarioService.listarMovimientos(id));
+    }
+
+    /**
+     * Stock de un producto en una fecha
+     * GET /api/inventario/{id}/stock-historico?fecha=2025-01-31T23:59:59
+     */
+    @GetMapping("/{id}/stock-historico")
+    public ResponseEntity<Map<String, Object>> obtenerStockHistorico(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(movimientoInventarioService.stockEn(id, fecha));
+    }
+
+    /**
+     * Tomar los snapshots de inventario
+     * POST /api/inventario/snapshots
+     */
+    @PostMapping("/snapshots")
+    public ResponseEntity<Integer> tomarSnapshots() {
+        return ResponseEntity.ok(movimientoInventarioService.tomarSnapshots());
+    }
+
+    /**
+     * Lotes de un producto en orden de vencimiento
+     * GET /api/inventario/{id}/lotes
+     */
+    @GetMapping("/{id}/lotes")
+    public ResponseEntity<List<LoteInventario>> listarLotes(@PathVariable Long id) {
+        return ResponseEntity.ok(loteInventarioService.listarPorProducto(id));
+    }
+
+    /**
+     * Ingresar un lote de un producto
+     * POST /api/inventario/{id}/lotes
+     * Body: {"codigoLote": "L2301", "fechaVencimiento": "2026-03-31", "cantidadInicial": 50}
+     */
+    @PostMapping("/{id}/lotes")
+    public ResponseEntity<?> ingresarLote(@PathVariable Long id, @RequestBody LoteInventario lote) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(inventarioService.ingresarLote(id, lote));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Dar de baja el saldo de un lote
+     * POST /api/inventario/lotes/{idLote}/baja
+     */
+    @PostMapping("/lotes/{idLote}/baja")
+    public ResponseEntity<?> darDeBajaLote(@PathVariable Long idLote) {
+        try {
+            return ResponseEntity.ok(inventarioService.darDeBajaLote(idLote));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Lotes con saldo próximos a vencer
+     * GET /api/inventario/lotes/proximos-vencer?dias=30&limite=100
+     */
+    @GetMapping("/lotes/proximos-vencer")
+    public ResponseEntity<List<LoteInventario>> obtenerLotesProximosAVencer(
+            @RequestParam(defaultValue = "30") int dias,
+            @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(loteInventarioService.obtenerProximosAVencer(dias, limite));
+    }
+
+    /**
+     * Lotes con saldo vencidos
+     * GET /api/inventario/lotes/vencidos?limite=100
+     */
+    @GetMapping("/lotes/vencidos")
+    public ResponseEntity<List<LoteInventario>> obtenerLotesVencidos(@RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(loteInventarioService.obtenerVencidos(limite));
+    }
+
+    /**
+     * Consulta de punto de venta por código de barras (catálogo en memoria)
+     * GET /api/inventario/pos/{codigo}
+     */
+    @GetMapping("/pos/{codigo}")
+    public ResponseEntity<CatalogoPosCache.ProductoPos> buscarPos(@PathVariable String codigo) {
+        CatalogoPosCache.ProductoPos producto = catalogoPos.buscar(codigo);
+        if (producto != null) {
+            return ResponseEntity.ok(producto);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Consultar un carrito completo en una sola llamada
+     * POST /api/inventario/pos/carrito
+     * Body: ["7750001000011", "7750001000011", "7750001000028"]
+     */
+    @PostMapping("/pos/carrito")
+    public ResponseEntity<Map<String, Object>> consultarCarrito(@RequestBody List<String> codigos) {
+        return ResponseEntity.ok(catalogoPos.consultarCarrito(codigos));
+    }
+
+    /**
+     * Aciertos, fallos y latencia del catálogo de punto de venta
+     * GET /api/inventario/pos/estadisticas
+     */
+    @GetMapping("/pos/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasPos() {
+        return ResponseEntity.ok(catalogoPos.obtenerEstadisticas());
+    }
+}
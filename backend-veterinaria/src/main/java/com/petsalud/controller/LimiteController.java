@@ -0,0 +1,37 @@
+package com.petsalud.controller;
+
+import com.petsalud.service.LimitadorConcurrencia;
+import com.petsalud.service.LimitadorTasa;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST para consultar el estado de los límites de carga del API
+ */
+@RestController
+@RequestMapping("/api/limites")
+@CrossOrigin(origins = "http://localhost:4200")
+public class LimiteController {
+
+    @Autowired
+    private LimitadorTasa limitadorTasa;
+
+    @Autowired
+    private LimitadorConcurrencia limitadorConcurrencia;
+
+    /**
+     * Cubetas activas y límite de concurrencia por grupo
+     * GET /api/limites/estado
+     */
+    @GetMapping("/estado")
+    public ResponseEntity<Map<String, Object>> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("cubetasActivas", limitadorTasa.contarCubetas());
+        estado.put("concurrencia", limitadorConcurrencia.obtenerEstado());
+        return ResponseEntity.ok(estado);
+    }
+}
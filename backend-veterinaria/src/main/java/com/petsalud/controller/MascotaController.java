@@ -12,6 +12,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.HttpHeaders;
 import com.petsalud.dao.MascotaDAO;
 import com.petsalud.service.ExportService;
+import com.petsalud.config.PoolReportes;
 import java.time.LocalDate;
 
 /**
@@ -192,6 +193,7 @@ public class MascotaController {
      * Exportar mascotas a Excel
      * GET /api/mascotas/export/excel
      */
+    @PoolReportes
     @GetMapping(value = "/export/excel", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<byte[]> exportarExcel() {
         try {
@@ -209,6 +211,7 @@ public class MascotaController {
      * Exportar mascotas a PDF
      * GET /api/mascotas/export/pdf
      */
+    @PoolReportes
     @GetMapping(value = "/export/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
     public ResponseEntity<byte[]> exportarPDF() {
         try {
@@ -226,6 +229,7 @@ public class MascotaController {
      * Exportar mascotas a JSON
      * GET /api/mascotas/export/json
      */
+    @PoolReportes
     @GetMapping(value = "/export/json", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<byte[]> exportarJSON() {
         try {
@@ -0,0 +1,103 @@
+package com.petsalud.controller;
+
+import com.petsalud.service.BuzonSimulado;
+import com.petsalud.service.CanalesNotificacion;
+import com.petsalud.service.NotificacionDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para el estado de los canales de notificación
+ * Incluye el buzón simulado y la corrida de carga por canal
+ */
+@RestController
+@RequestMapping("/api/notificaciones")
+@CrossOrigin(origins = "http://localhost:4200")
+public class NotificacionController {
+
+    @Autowired
+    private CanalesNotificacion canalesNotificacion;
+
+    @Autowired
+    private NotificacionDispatcher notificacionDispatcher;
+
+    @Autowired
+    private BuzonSimulado buzonSimulado;
+
+    @Value("${petsalud.notificaciones.simulador.enabled:false}")
+    private boolean simuladorHabilitado;
+
+    /**
+     * Estado de la bandeja de salida y de los canales
+     * GET /api/notificaciones/estado
+     */
+    @GetMapping("/estado")
+    public ResponseEntity<Map<String, Object>> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("pendientes", notificacionDispatcher.getPendientes());
+        estado.put("retrasoSegundos", notificacionDispatcher.getRetrasoSegundos());
+        estado.put("canales", canalesNotificacion.obtenerEstado());
+        return ResponseEntity.ok(estado);
+    }
+
+    /**
+     * Últimos mensajes del buzón simulado
+     * GET /api/notificaciones/buzon?limite=50
+     */
+    @GetMapping("/buzon")
+    public ResponseEntity<?> buzon(@RequestParam(defaultValue = "50") int limite) {
+        if (!simuladorHabilitado) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El buzón simulado no está habilitado");
+        }
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("totales", buzonSimulado.obtenerTotales());
+        respuesta.put("mensajes", buzonSimulado.obtenerRecientes(limite));
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Vaciar el buzón simulado
+     * DELETE /api/notificaciones/buzon
+     */
+    @DeleteMapping("/buzon")
+    public ResponseEntity<?> limpiarBuzon() {
+        if (!simuladorHabilitado) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El buzón simulado no está habilitado");
+        }
+        buzonSimulado.limpiar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Corrida de carga de un canal contra el buzón simulado (mensajes por segundo)
+     * POST /api/notificaciones/canales/{canal}/prueba-carga?cantidad=1000&hilos=8&segundos=10
+     * Los hilos se limitan a CanalesNotificacion.MAX_HILOS_PRUEBA y la duración a
+     * petsalud.notificaciones.prueba-carga.segundos-maximos; una corrida a la vez.
+     */
+    @PostMapping("/canales/{canal}/prueba-carga")
+    public ResponseEntity<?> pruebaCarga(@PathVariable String canal,
+                                         @RequestParam(defaultValue = "1000") int cantidad,
+                                         @RequestParam(defaultValue = "8") int hilos,
+                                         @RequestParam(required = false) Integer segundos) {
+        if (!simuladorHabilitado) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El buzón simulado no está habilitado");
+        }
+        try {
+            return ResponseEntity.ok(canalesNotificacion.medirRendimiento(canal, Math.min(cantidad, 100000), hilos, segundos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Corrida interrumpida");
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.petsalud.controller;
 
+import com.petsalud.model.DevengoInternamiento;
+import com.petsalud.model.Dinero;
+import com.petsalud.model.MovimientoPago;
 import com.petsalud.model.Pago;
+import com.petsalud.service.DevengoInternamientoService;
 import com.petsalud.service.PagoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -8,8 +12,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestión de Pagos
@@ -23,6 +29,9 @@ public class PagoController {
     @Autowired
     private PagoService pagoService;
 
+    @Autowired
+    private DevengoInternamientoService devengoInternamientoService;
+
     /**
      * Listar todos los pagos
      * GET /api/pagos
@@ -103,6 +112,28 @@ public class PagoController {
         return ResponseEntity.ok(pagoService.obtenerInternamientosActivos());
     }
 
+    /**
+     * Resumen de internamientos activos (costo acumulado al último devengo)
+     * GET /api/pagos/internamientos/resumen
+     */
+    @GetMapping("/internamientos/resumen")
+    public ResponseEntity<Map<String, Object>> obtenerResumenInternamientos() {
+        return ResponseEntity.ok(devengoInternamientoService.obtenerResumenActivos());
+    }
+
+    /**
+     * Ejecutar el devengo diario de internamientos
+     * POST /api/pagos/internamientos/devengar
+     */
+    @PostMapping("/internamientos/devengar")
+    public ResponseEntity<?> devengarInternamientos() {
+        try {
+            return ResponseEntity.ok(devengoInternamientoService.devengar());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
     /**
      * Crear nuevo pago
      * POST /api/pagos
@@ -143,16 +174,35 @@ public class PagoController {
     @PostMapping("/{id}/registrar-pago")
     public ResponseEntity<?> registrarPago(
             @PathVariable Long id,
-            @RequestParam Double montoPagado,
-            @RequestParam String metodoPago) {
+            @RequestParam BigDecimal montoPagado,
+            @RequestParam String metodoPago,
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
         try {
-            Pago pago = pagoService.registrarPago(id, montoPagado, metodoPago);
+            Pago pago = pagoService.registrarPago(id, Dinero.de(montoPagado), metodoPago, claveIdempotencia);
             return ResponseEntity.ok(pago);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    /**
+     * Abonos registrados sobre un pago
+     * GET /api/pagos/{id}/movimientos
+     */
+    @GetMapping("/{id}/movimientos")
+    public ResponseEntity<List<MovimientoPago>> listarMovimientos(@PathVariable Long id) {
+        return ResponseEntity.ok(pagoService.listarMovimientos(id));
+    }
+
+    /**
+     * Historial del devengo diario de un internamiento
+     * GET /api/pagos/{id}/devengos
+     */
+    @GetMapping("/{id}/devengos")
+    public ResponseEntity<List<DevengoInternamiento>> listarDevengos(@PathVariable Long id) {
+        return ResponseEntity.ok(devengoInternamientoService.listarPorPago(id));
+    }
+
     /**
      * Finalizar internamiento
      * POST /api/pagos/{id}/finalizar-internamiento
@@ -186,7 +236,7 @@ public class PagoController {
      * GET /api/pagos/dueno/{idDueno}/total-pendiente
      */
     @GetMapping("/dueno/{idDueno}/total-pendiente")
-    public ResponseEntity<Double> calcularTotalPendiente(@PathVariable Long idDueno) {
+    public ResponseEntity<Dinero> calcularTotalPendiente(@PathVariable Long idDueno) {
         return ResponseEntity.ok(pagoService.calcularTotalPendientePorDueno(idDueno));
     }
 
@@ -195,7 +245,7 @@ public class PagoController {
      * GET /api/pagos/estadisticas/total-cobrado?inicio=2025-01-01&fin=2025-01-31
      */
     @GetMapping("/estadisticas/total-cobrado")
-    public ResponseEntity<Double> calcularTotalCobrado(
+    public ResponseEntity<Dinero> calcularTotalCobrado(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
         return ResponseEntity.ok(pagoService.calcularTotalCobrado(inicio, fin));
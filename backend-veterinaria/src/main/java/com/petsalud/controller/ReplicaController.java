@@ -0,0 +1,30 @@
+package com.petsalud.controller;
+
+import com.petsalud.config.MonitorReplicas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para consultar el estado de las réplicas de lectura
+ */
+@RestController
+@RequestMapping("/api/replicas")
+@CrossOrigin(origins = "http://localhost:4200")
+public class ReplicaController {
+
+    @Autowired
+    private MonitorReplicas monitorReplicas;
+
+    /**
+     * Disponibilidad y retraso de cada réplica
+     * GET /api/replicas/estado
+     */
+    @GetMapping("/estado")
+    public ResponseEntity<List<Map<String, Object>>> obtenerEstado() {
+        return ResponseEntity.ok(monitorReplicas.obtenerEstado());
+    }
+}
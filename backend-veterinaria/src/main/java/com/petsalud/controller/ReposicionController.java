@@ -0,0 +1,57 @@
+package com.petsalud.controller;
+
+import com.petsalud.service.ReposicionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controlador REST para el pronóstico de reposición de inventario
+ * Expone las compras sugeridas por proveedor y la tasa de consumo de cada producto
+ */
+@RestController
+@RequestMapping("/api/inventario/reposicion")
+@CrossOrigin(origins = "http://localhost:4200")
+public class ReposicionController {
+
+    @Autowired
+    private ReposicionService reposicionService;
+
+    /**
+     * Compras sugeridas agrupadas por proveedor
+     * GET /api/inventario/reposicion/sugerencias
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<?> obtenerSugerencias() {
+        try {
+            return ResponseEntity.ok(reposicionService.obtenerSugerencias());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Incorporar los consumos pendientes y recalcular las sugerencias
+     * POST /api/inventario/reposicion/recalcular
+     */
+    @PostMapping("/recalcular")
+    public ResponseEntity<?> recalcular() {
+        try {
+            return ResponseEntity.ok(reposicionService.ejecutar());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Tasa de consumo diaria de un producto
+     * GET /api/inventario/reposicion/pronostico/{idInventario}
+     */
+    @GetMapping("/pronostico/{idInventario}")
+    public ResponseEntity<Map<String, Object>> obtenerPronostico(@PathVariable Long idInventario) {
+        return ResponseEntity.ok(reposicionService.obtenerPronostico(idInventario));
+    }
+}
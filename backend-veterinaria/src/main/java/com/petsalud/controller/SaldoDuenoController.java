@@ -0,0 +1,68 @@
+package com.petsalud.controller;
+
+import com.petsalud.model.SaldoDueno;
+import com.petsalud.service.SaldoDuenoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para cuentas por cobrar por dueño
+ * Saldos, antigüedad de deuda y lista de cobranza
+ */
+@RestController
+@RequestMapping("/api/saldos")
+@CrossOrigin(origins = "http://localhost:4200")
+public class SaldoDuenoController {
+
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
+    /**
+     * Saldo de un dueño con tramos de antigüedad
+     * GET /api/saldos/dueno/{idDueno}
+     */
+    @GetMapping("/dueno/{idDueno}")
+    public ResponseEntity<SaldoDueno> obtenerSaldo(@PathVariable Long idDueno) {
+        SaldoDueno saldo = saldoDuenoService.obtenerSaldo(idDueno);
+        if (saldo != null) {
+            return ResponseEntity.ok(saldo);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Estado de cuenta de un dueño (saldo y documentos pendientes)
+     * GET /api/saldos/dueno/{idDueno}/estado-cuenta
+     */
+    @GetMapping("/dueno/{idDueno}/estado-cuenta")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoCuenta(@PathVariable Long idDueno) {
+        return ResponseEntity.ok(saldoDuenoService.obtenerEstadoCuenta(idDueno));
+    }
+
+    /**
+     * Lista de cobranza (dueños con deuda vencida)
+     * GET /api/saldos/cobranza?limite=100
+     */
+    @GetMapping("/cobranza")
+    public ResponseEntity<List<SaldoDueno>> listarCobranza(@RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(saldoDuenoService.listarCobranza(limite));
+    }
+
+    /**
+     * Reconstruir los saldos desde las facturas y pagos pendientes
+     * POST /api/saldos/reconstruir
+     */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<?> reconstruir() {
+        try {
+            return ResponseEntity.ok(saldoDuenoService.reconstruir());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
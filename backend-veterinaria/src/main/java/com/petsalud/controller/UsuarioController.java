@@ -1,16 +1,20 @@
 package com.petsalud.controller;
 
 import com.petsalud.model.Usuario;
+import com.petsalud.service.TokenService;
 import com.petsalud.service.UsuarioService;
+import com.petsalud.service.VerificadorCredenciales;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST para gestión de Usuarios y Autenticación
@@ -25,7 +29,10 @@ public class UsuarioController {
     private UsuarioService usuarioService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private VerificadorCredenciales verificadorCredenciales;
+
+    @Autowired
+    private TokenService tokenService;
 
     /**
      * Listar todos los usuarios
@@ -79,10 +86,13 @@ public class UsuarioController {
      */
     @PostMapping
     public ResponseEntity<Usuario> crear(@RequestBody Usuario usuario) {
-        // Encriptar contraseña antes de guardar
-        usuario.setContrasena(passwordEncoder.encode(usuario.getContrasena()));
-        Usuario nuevoUsuario = usuarioService.guardar(usuario);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoUsuario);
+        // La contraseña se cifra en UsuarioService.guardar (pool de VerificadorCredenciales)
+        try {
+            Usuario nuevoUsuario = usuarioService.guardar(usuario);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoUsuario);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     /**
@@ -97,12 +107,16 @@ public class UsuarioController {
         }
         usuario.setIdUsuario(id);
         
-        // Si se envía nueva contraseña, encriptarla
-        if (usuario.getContrasena() != null && !usuario.getContrasena().isEmpty()) {
-            usuario.setContrasena(passwordEncoder.encode(usuario.getContrasena()));
-        } else {
-            // Mantener la contraseña existente
-            usuario.setContrasena(usuarioExistente.getContrasena());
+        // Si se envía nueva contraseña, encriptarla (pool acotado, fuera del hilo de Tomcat)
+        try {
+            if (usuario.getContrasena() != null && !usuario.getContrasena().isEmpty()) {
+                usuario.setContrasena(verificadorCredenciales.codificar(usuario.getContrasena()));
+            } else {
+                // Mantener la contraseña existente
+                usuario.setContrasena(usuarioExistente.getContrasena());
+            }
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
         
         Usuario usuarioActualizado = usuarioService.guardar(usuario);
@@ -144,21 +158,43 @@ public class UsuarioController {
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
         }
 
-        // Verificar contraseña
-        if (passwordEncoder.matches(password, usuario.getContrasena())) {
-            response.put("success", true);
-            response.put("message", "Login exitoso");
-            response.put("usuario", usuario);
-            response.put("rol", usuario.getRol());
-            return ResponseEntity.ok(response);
-        } else {
+        // Verificar contraseña (pool acotado de BCrypt) y emitir token de sesión
+        try {
+            if (usuarioService.verificarCredenciales(usuario, password)) {
+                response.put("success", true);
+                response.put("message", "Login exitoso");
+                response.put("usuario", usuario);
+                response.put("rol", usuario.getRol());
+                response.putAll(tokenService.emitir(usuario));
+                return ResponseEntity.ok(response);
+            }
             response.put("success", false);
             response.put("message", "Contraseña incorrecta");
-            // CORREGIDO: usar constructor en lugar de .body()
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        } catch (RejectedExecutionException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
         }
     }
 
+    /**
+     * Sesión del token enviado en Authorization: Bearer
+     * GET /api/usuarios/sesion
+     */
+    @GetMapping("/sesion")
+    public ResponseEntity<TokenService.Sesion> obtenerSesion() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof TokenService.Sesion sesion) {
+            return ResponseEntity.ok(sesion);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
     /**
      * Cambiar contraseña
      * POST /api/usuarios/{id}/cambiar-password
@@ -181,18 +217,20 @@ public class UsuarioController {
         String passwordActual = passwords.get("passwordActual");
         String passwordNueva = passwords.get("passwordNueva");
 
-        // Verificar contraseña actual
-        if (!passwordEncoder.matches(passwordActual, usuario.getContrasena())) {
+        // Verificar contraseña actual y actualizarla (revoca los tokens emitidos)
+        try {
+            if (!usuarioService.cambiarContrasena(id, passwordActual, passwordNueva)) {
+                response.put("success", false);
+                response.put("message", "Contraseña actual incorrecta");
+                // CORREGIDO: usar constructor en lugar de .body()
+                return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            }
+        } catch (RejectedExecutionException e) {
             response.put("success", false);
-            response.put("message", "Contraseña actual incorrecta");
-            // CORREGIDO: usar constructor en lugar de .body()
-            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
         }
 
-        // Actualizar contraseña
-        usuario.setContrasena(passwordEncoder.encode(passwordNueva));
-        usuarioService.guardar(usuario);
-
         response.put("success", true);
         response.put("message", "Contraseña actualizada exitosamente");
         return ResponseEntity.ok(response);
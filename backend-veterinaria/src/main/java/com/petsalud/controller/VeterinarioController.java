@@ -3,10 +3,12 @@ package com.petsalud.controller;
 import com.petsalud.model.Veterinario;
 import com.petsalud.service.VeterinarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -119,9 +121,18 @@ public class VeterinarioController {
     /**
      * Obtener veterinarios disponibles
      * GET /api/veterinarios/disponibles
+     * GET /api/veterinarios/disponibles?fechaHora={fechaHora}&duracion={minutos} - Libres en ese horario
      */
     @GetMapping("/disponibles")
-    public ResponseEntity<List<Veterinario>> obtenerDisponibles() {
+    public ResponseEntity<?> obtenerDisponibles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaHora,
+            @RequestParam(defaultValue = "30") int duracion) {
+        if (fechaHora != null) {
+            if (duracion <= 0) {
+                return ResponseEntity.badRequest().body("La duración debe ser mayor a 0");
+            }
+            return ResponseEntity.ok(veterinarioService.obtenerDisponiblesEn(fechaHora, duracion));
+        }
         List<Veterinario> veterinarios = veterinarioService.listarTodos();
         return ResponseEntity.ok(veterinarios);
     }
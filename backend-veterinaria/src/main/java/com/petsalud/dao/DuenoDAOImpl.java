@@ -1,5 +1,6 @@
 package com.petsalud.dao;
 
+import com.petsalud.config.PoolReportes;
 import com.petsalud.model.Dueno;
 import com.petsalud.model.Mascota;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -141,6 +142,7 @@ public class DuenoDAOImpl implements DuenoDAO {
     }
 
     @Override
+    @PoolReportes
     public Map<String, Object> obtenerEstadisticasDuenos() {
         Map<String, Object> result = estadisticasDuenosCall.execute();
         
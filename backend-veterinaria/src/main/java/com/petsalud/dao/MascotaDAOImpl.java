@@ -1,5 +1,6 @@
 package com.petsalud.dao;
 
+import com.petsalud.config.PoolReportes;
 import com.petsalud.model.Mascota;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -147,6 +148,7 @@ public class MascotaDAOImpl implements MascotaDAO {
     }
 
     @Override
+    @PoolReportes
     public Map<String, Object> obtenerEstadisticasMascotas() {
         Map<String, Object> result = estadisticasMascotasCall.execute();
         
@@ -1,5 +1,6 @@
 package com.petsalud.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
@@ -23,14 +24,22 @@ public class DetalleFactura {
     private Integer cantidad;
 
     @Column(name = "precio_unitario", nullable = false)
-    private Double precioUnitario;
+    private Dinero precioUnitario;
 
     @Column(name = "subtotal", nullable = false)
-    private Double subtotal;
+    private Dinero subtotal;
 
     @Column(name = "tipo_servicio", length = 100)
     private String tipoServicio; // EXAMEN, CONSULTA, MEDICAMENTO, VACUNA, CIRUGIA, etc.
 
+    // Producto del inventario vendido en esta línea (null para servicios)
+    @Column(name = "id_inventario")
+    private Long idInventario;
+
+    // Categoría de IGV de la línea: la del producto; los servicios están gravados
+    @Column(name = "categoria_igv", length = 20)
+    private String categoriaIgv = "GRAVADO"; // GRAVADO, EXONERADO, INAFECTO
+
     // Relación N:1 con Factura
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_factura", nullable = false)
@@ -41,12 +50,12 @@ public class DetalleFactura {
     public DetalleFactura() {
     }
 
-    public DetalleFactura(String descripcion, Integer cantidad, Double precioUnitario, String tipoServicio) {
+    public DetalleFactura(String descripcion, Integer cantidad, Dinero precioUnitario, String tipoServicio) {
         this.descripcion = descripcion;
         this.cantidad = cantidad;
         this.precioUnitario = precioUnitario;
         this.tipoServicio = tipoServicio;
-        this.subtotal = cantidad * precioUnitario;
+        this.subtotal = precioUnitario.multiplicar(cantidad);
     }
 
     // Getters y Setters
@@ -75,20 +84,20 @@ public class DetalleFactura {
         calcularSubtotal();
     }
 
-    public Double getPrecioUnitario() {
+    public Dinero getPrecioUnitario() {
         return precioUnitario;
     }
 
-    public void setPrecioUnitario(Double precioUnitario) {
+    public void setPrecioUnitario(Dinero precioUnitario) {
         this.precioUnitario = precioUnitario;
         calcularSubtotal();
     }
 
-    public Double getSubtotal() {
+    public Dinero getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(Double subtotal) {
+    public void setSubtotal(Dinero subtotal) {
         this.subtotal = subtotal;
     }
 
@@ -100,6 +109,28 @@ public class DetalleFactura {
         this.tipoServicio = tipoServicio;
     }
 
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public String getCategoriaIgv() {
+        return categoriaIgv;
+    }
+
+    public void setCategoriaIgv(String categoriaIgv) {
+        this.categoriaIgv = categoriaIgv;
+    }
+
+    // Solo las líneas exoneradas o inafectas dejan de pagar IGV; cualquier otro valor se considera gravado
+    @JsonIgnore
+    public boolean isGravado() {
+        return !"EXONERADO".equalsIgnoreCase(categoriaIgv) && !"INAFECTO".equalsIgnoreCase(categoriaIgv);
+    }
+
     public Factura getFactura() {
         return factura;
     }
@@ -111,7 +142,7 @@ public class DetalleFactura {
     // Método para calcular subtotal automáticamente
     private void calcularSubtotal() {
         if (cantidad != null && precioUnitario != null) {
-            this.subtotal = cantidad * precioUnitario;
+            this.subtotal = precioUnitario.multiplicar(cantidad);
         }
     }
 
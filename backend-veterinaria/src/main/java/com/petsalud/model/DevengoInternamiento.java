@@ -0,0 +1,90 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad DevengoInternamiento - Costo acumulado de un internamiento al cumplirse cada día
+ * Un registro por pago y día de internamiento (historial del devengo diario)
+ */
+@Entity
+@Table(name = "devengos_internamiento", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_devengo_pago_dia", columnNames = {"id_pago", "dia"})
+}, indexes = {
+        @Index(name = "idx_devengo_fecha", columnList = "fecha_registro")
+})
+public class DevengoInternamiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_devengo")
+    private Long idDevengo;
+
+    @Column(name = "id_pago", nullable = false)
+    private Long idPago;
+
+    @Column(name = "dia", nullable = false)
+    private Integer dia;
+
+    @Column(name = "costo_dia", nullable = false)
+    private Dinero costoDia;
+
+    @Column(name = "monto_acumulado", nullable = false)
+    private Dinero montoAcumulado;
+
+    @Column(name = "fecha_registro", nullable = false)
+    private LocalDateTime fechaRegistro;
+
+    // Constructores
+    public DevengoInternamiento() {
+    }
+
+    // Getters y Setters
+    public Long getIdDevengo() {
+        return idDevengo;
+    }
+
+    public void setIdDevengo(Long idDevengo) {
+        this.idDevengo = idDevengo;
+    }
+
+    public Long getIdPago() {
+        return idPago;
+    }
+
+    public void setIdPago(Long idPago) {
+        this.idPago = idPago;
+    }
+
+    public Integer getDia() {
+        return dia;
+    }
+
+    public void setDia(Integer dia) {
+        this.dia = dia;
+    }
+
+    public Dinero getCostoDia() {
+        return costoDia;
+    }
+
+    public void setCostoDia(Dinero costoDia) {
+        this.costoDia = costoDia;
+    }
+
+    public Dinero getMontoAcumulado() {
+        return montoAcumulado;
+    }
+
+    public void setMontoAcumulado(Dinero montoAcumulado) {
+        this.montoAcumulado = montoAcumulado;
+    }
+
+    public LocalDateTime getFechaRegistro() {
+        return fechaRegistro;
+    }
+
+    public void setFechaRegistro(LocalDateTime fechaRegistro) {
+        this.fechaRegistro = fechaRegistro;
+    }
+}
@@ -0,0 +1,241 @@
+package com.petsalud.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Valor monetario inmutable en céntimos (soles)
+ * Evita la deriva de redondeo de Double en IGV, totales y saldos.
+ *
+ * - Se persiste con DineroConverter (columna numérica en soles).
+ * - En JSON se publica como número con dos decimales, igual que antes.
+ * - Los redondeos son HALF_UP al céntimo.
+ */
+@JsonSerialize(using = Dinero.Serializador.class)
+@JsonDeserialize(using = Dinero.Deserializador.class)
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0L);
+
+    private final long centimos;
+
+    private Dinero(long centimos) {
+        this.centimos = centimos;
+    }
+
+    /**
+     * Crear a partir de céntimos
+     */
+    public static Dinero deCentimos(long centimos) {
+        return centimos == 0 ? CERO : new Dinero(centimos);
+    }
+
+    /**
+     * Crear a partir de soles (redondeando al céntimo)
+     */
+    public static Dinero de(double soles) {
+        return deCentimos(BigDecimal.valueOf(soles).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+    }
+
+    /**
+     * Crear a partir de soles; null se interpreta como cero
+     */
+    public static Dinero de(Double soles) {
+        return soles == null ? CERO : de(soles.doubleValue());
+    }
+
+    /**
+     * Crear a partir de soles (redondeando al céntimo)
+     */
+    public static Dinero de(BigDecimal soles) {
+        return soles == null ? CERO
+                : deCentimos(soles.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+    }
+
+    /**
+     * Crear a partir de texto ("12.50")
+     */
+    public static Dinero de(String soles) {
+        return de(new BigDecimal(soles.trim()));
+    }
+
+    // ==================== Aritmética ====================
+
+    public Dinero sumar(Dinero otro) {
+        return otro == null || otro.centimos == 0 ? this : deCentimos(Math.addExact(centimos, otro.centimos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return otro == null || otro.centimos == 0 ? this : deCentimos(Math.subtractExact(centimos, otro.centimos));
+    }
+
+    public Dinero multiplicar(long cantidad) {
+        return deCentimos(Math.multiplyExact(centimos, cantidad));
+    }
+
+    /**
+     * Aplicar una tasa en puntos porcentuales (p. ej. 18 para el IGV), redondeando al céntimo
+     */
+    public Dinero porcentaje(long puntos) {
+        return fraccion(puntos, 100);
+    }
+
+    /**
+     * Multiplicar por numerador/denominador con redondeo HALF_UP y sin pasar por double
+     */
+    public Dinero fraccion(long numerador, long denominador) {
+        long producto = Math.multiplyExact(centimos, numerador);
+        long cociente = producto / denominador;
+        long resto = producto % denominador;
+        if (Math.abs(resto) * 2 >= Math.abs(denominador)) {
+            cociente += Long.signum(producto) * Long.signum(denominador);
+        }
+        return deCentimos(cociente);
+    }
+
+    public Dinero negar() {
+        return deCentimos(-centimos);
+    }
+
+    public Dinero max(Dinero otro) {
+        return otro == null || compareTo(otro) >= 0 ? this : otro;
+    }
+
+    public Dinero min(Dinero otro) {
+        return otro == null || compareTo(otro) <= 0 ? this : otro;
+    }
+
+    // ==================== Comparación ====================
+
+    public boolean esCero() {
+        return centimos == 0;
+    }
+
+    public boolean esPositivo() {
+        return centimos > 0;
+    }
+
+    public boolean esNegativo() {
+        return centimos < 0;
+    }
+
+    public boolean esMayorOIgualQue(Dinero otro) {
+        return compareTo(otro) >= 0;
+    }
+
+    public boolean esMayorQue(Dinero otro) {
+        return compareTo(otro) > 0;
+    }
+
+    public boolean esMenorQue(Dinero otro) {
+        return compareTo(otro) < 0;
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centimos, otro == null ? 0 : otro.centimos);
+    }
+
+    // ==================== Conversión ====================
+
+    public long getCentimos() {
+        return centimos;
+    }
+
+    public double aDouble() {
+        return centimos / 100.0;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centimos, 2);
+    }
+
+    // ==================== Agregación ====================
+
+    /**
+     * Sumar los importes de una colección acumulando céntimos en un long
+     * (sin crear objetos intermedios ni autoboxing)
+     */
+    public static <T> Dinero sumar(Collection<T> elementos, Function<T, Dinero> importe) {
+        long total = 0;
+        for (T elemento : elementos) {
+            Dinero valor = importe.apply(elemento);
+            if (valor != null) {
+                total = Math.addExact(total, valor.centimos);
+            }
+        }
+        return deCentimos(total);
+    }
+
+    /**
+     * Acumulador mutable para sumas en bucles (p. ej. varios totales en una sola pasada)
+     */
+    public static final class Acumulador {
+        private long centimos;
+
+        public Acumulador agregar(Dinero valor) {
+            if (valor != null) {
+                centimos = Math.addExact(centimos, valor.centimos);
+            }
+            return this;
+        }
+
+        public Dinero total() {
+            return deCentimos(centimos);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Dinero)) return false;
+        return centimos == ((Dinero) o).centimos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString();
+    }
+
+    /**
+     * Serializa como número JSON con dos decimales (12.50)
+     */
+    public static class Serializador extends JsonSerializer<Dinero> {
+        @Override
+        public void serialize(Dinero valor, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(valor.aBigDecimal());
+        }
+    }
+
+    /**
+     * Acepta número o texto en soles
+     */
+    public static class Deserializador extends JsonDeserializer<Dinero> {
+        @Override
+        public Dinero deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                String texto = p.getText();
+                return texto == null || texto.isBlank() ? null : Dinero.de(texto);
+            }
+            return Dinero.de(p.getDecimalValue());
+        }
+    }
+}
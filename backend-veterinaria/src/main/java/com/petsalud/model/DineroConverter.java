@@ -0,0 +1,22 @@
+package com.petsalud.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte Dinero a la columna numérica existente (soles) y viceversa
+ * Se aplica automáticamente a todos los atributos de tipo Dinero.
+ */
+@Converter(autoApply = true)
+public class DineroConverter implements AttributeConverter<Dinero, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(Dinero valor) {
+        return valor == null ? null : valor.aDouble();
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(Double columna) {
+        return columna == null ? null : Dinero.de(columna.doubleValue());
+    }
+}
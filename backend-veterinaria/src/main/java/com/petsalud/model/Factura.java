@@ -14,6 +14,9 @@ import java.util.List;
 @Table(name = "facturas")
 public class Factura {
 
+    // Impuesto General a las Ventas (puntos porcentuales)
+    public static final int TASA_IGV = 18;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_factura")
@@ -29,13 +32,13 @@ public class Factura {
     private LocalDate fechaVencimiento;
 
     @Column(name = "subtotal", nullable = false)
-    private Double subtotal;
+    private Dinero subtotal;
 
     @Column(name = "igv")
-    private Double igv; // Impuesto General a las Ventas (18% en Perú)
+    private Dinero igv; // Impuesto General a las Ventas (18% en Perú)
 
     @Column(name = "total", nullable = false)
-    private Double total;
+    private Dinero total;
 
     @Column(name = "estado", length = 50)
     private String estado; // PENDIENTE, PAGADA, ANULADA
@@ -64,9 +67,9 @@ public class Factura {
     public Factura() {
         this.fechaEmision = LocalDate.now();
         this.estado = "PENDIENTE";
-        this.igv = 0.0;
-        this.subtotal = 0.0;
-        this.total = 0.0;
+        this.igv = Dinero.CERO;
+        this.subtotal = Dinero.CERO;
+        this.total = Dinero.CERO;
     }
 
     public Factura(String numeroFactura, Dueno dueno) {
@@ -108,27 +111,27 @@ public class Factura {
         this.fechaVencimiento = fechaVencimiento;
     }
 
-    public Double getSubtotal() {
+    public Dinero getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(Double subtotal) {
+    public void setSubtotal(Dinero subtotal) {
         this.subtotal = subtotal;
     }
 
-    public Double getIgv() {
+    public Dinero getIgv() {
         return igv;
     }
 
-    public void setIgv(Double igv) {
+    public void setIgv(Dinero igv) {
         this.igv = igv;
     }
 
-    public Double getTotal() {
+    public Dinero getTotal() {
         return total;
     }
 
-    public void setTotal(Double total) {
+    public void setTotal(Dinero total) {
         this.total = total;
     }
 
@@ -195,11 +198,10 @@ public class Factura {
 
     // Método para calcular totales automáticamente
     public void calcularTotales() {
-        this.subtotal = detalles.stream()
-                .mapToDouble(DetalleFactura::getSubtotal)
-                .sum();
-        this.igv = this.subtotal * 0.18; // 18% de IGV
-        this.total = this.subtotal + this.igv;
+        this.subtotal = Dinero.sumar(detalles, DetalleFactura::getSubtotal);
+        // IGV solo sobre las líneas gravadas (igual que el carrito del POS), redondeado al céntimo
+        this.igv = Dinero.sumar(detalles, d -> d.isGravado() ? d.getSubtotal() : Dinero.CERO).porcentaje(TASA_IGV);
+        this.total = this.subtotal.sumar(this.igv);
     }
 
     @Override
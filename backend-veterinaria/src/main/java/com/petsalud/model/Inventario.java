@@ -8,7 +8,9 @@ import java.time.LocalDate;
  * Control de stock y precios
  */
 @Entity
-@Table(name = "inventario")
+@Table(name = "inventario", indexes = {
+        @Index(name = "idx_inventario_vencimiento", columnList = "fecha_vencimiento")
+})
 public class Inventario {
 
     @Id
@@ -47,11 +49,14 @@ public class Inventario {
     private String unidadMedida; // Unidad, Caja, Frasco, ml, gr, etc.
 
     @Column(name = "fecha_vencimiento")
-    private LocalDate fechaVencimiento;
+    private LocalDate fechaVencimiento; // Con lotes: vencimiento del próximo lote con saldo
 
     @Column(name = "proveedor", length = 200)
     private String proveedor;
 
+    @Column(name = "categoria_igv", length = 20)
+    private String categoriaIgv = "GRAVADO"; // GRAVADO, EXONERADO, INAFECTO
+
     @Column(name = "activo")
     private Boolean activo = true;
 
@@ -183,6 +188,14 @@ public class Inventario {
         this.activo = activo;
     }
 
+    public String getCategoriaIgv() {
+        return categoriaIgv;
+    }
+
+    public void setCategoriaIgv(String categoriaIgv) {
+        this.categoriaIgv = categoriaIgv;
+    }
+
     public String getObservaciones() {
         return observaciones;
     }
@@ -0,0 +1,40 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad LatidoReplicacion - Marca de tiempo que se escribe periódicamente en la base principal
+ * Al leerla en una réplica se conoce su retraso de replicación (ver MonitorReplicas).
+ */
+@Entity
+@Table(name = "latidos_replicacion")
+public class LatidoReplicacion {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "instante_ms", nullable = false)
+    private Long instanteMs; // Milisegundos epoch del último latido
+
+    // Constructores
+    public LatidoReplicacion() {
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getInstanteMs() {
+        return instanteMs;
+    }
+
+    public void setInstanteMs(Long instanteMs) {
+        this.instanteMs = instanteMs;
+    }
+}
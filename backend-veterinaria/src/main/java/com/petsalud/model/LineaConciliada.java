@@ -0,0 +1,135 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad LineaConciliada - Abono de un extracto bancario aplicado a un pago o factura
+ * La clave identifica la línea del extracto para no aplicarla dos veces
+ */
+@Entity
+@Table(name = "lineas_conciliadas", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_linea_clave", columnNames = {"clave"})
+}, indexes = {
+        @Index(name = "idx_linea_documento", columnList = "tipo_documento, id_documento")
+})
+public class LineaConciliada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_linea")
+    private Long idLinea;
+
+    @Column(name = "clave", nullable = false, length = 100)
+    private String clave;
+
+    @Column(name = "archivo", length = 255)
+    private String archivo;
+
+    @Column(name = "fila")
+    private Integer fila;
+
+    @Column(name = "fecha_movimiento", nullable = false)
+    private LocalDate fechaMovimiento;
+
+    @Column(name = "monto", nullable = false)
+    private Dinero monto;
+
+    @Column(name = "referencia", length = 100)
+    private String referencia;
+
+    @Column(name = "tipo_documento", nullable = false, length = 20)
+    private String tipoDocumento; // PAGO, FACTURA
+
+    @Column(name = "id_documento", nullable = false)
+    private Long idDocumento;
+
+    @Column(name = "fecha_conciliacion", nullable = false)
+    private LocalDateTime fechaConciliacion;
+
+    // Constructores
+    public LineaConciliada() {
+    }
+
+    // Getters y Setters
+    public Long getIdLinea() {
+        return idLinea;
+    }
+
+    public void setIdLinea(Long idLinea) {
+        this.idLinea = idLinea;
+    }
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getArchivo() {
+        return archivo;
+    }
+
+    public void setArchivo(String archivo) {
+        this.archivo = archivo;
+    }
+
+    public Integer getFila() {
+        return fila;
+    }
+
+    public void setFila(Integer fila) {
+        this.fila = fila;
+    }
+
+    public LocalDate getFechaMovimiento() {
+        return fechaMovimiento;
+    }
+
+    public void setFechaMovimiento(LocalDate fechaMovimiento) {
+        this.fechaMovimiento = fechaMovimiento;
+    }
+
+    public Dinero getMonto() {
+        return monto;
+    }
+
+    public void setMonto(Dinero monto) {
+        this.monto = monto;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public String getTipoDocumento() {
+        return tipoDocumento;
+    }
+
+    public void setTipoDocumento(String tipoDocumento) {
+        this.tipoDocumento = tipoDocumento;
+    }
+
+    public Long getIdDocumento() {
+        return idDocumento;
+    }
+
+    public void setIdDocumento(Long idDocumento) {
+        this.idDocumento = idDocumento;
+    }
+
+    public LocalDateTime getFechaConciliacion() {
+        return fechaConciliacion;
+    }
+
+    public void setFechaConciliacion(LocalDateTime fechaConciliacion) {
+        this.fechaConciliacion = fechaConciliacion;
+    }
+}
@@ -0,0 +1,162 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad LoteFacturacion - Corrida de facturación por lotes y su punto de control
+ * Guarda el último dueño procesado para reanudar una corrida interrumpida
+ */
+@Entity
+@Table(name = "lotes_facturacion", indexes = {
+        @Index(name = "idx_lote_estado", columnList = "estado, fecha_desde, fecha_hasta")
+})
+public class LoteFacturacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_lote")
+    private Long idLote;
+
+    @Column(name = "fecha_desde", nullable = false)
+    private LocalDate fechaDesde;
+
+    @Column(name = "fecha_hasta", nullable = false)
+    private LocalDate fechaHasta;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; // EN_CURSO, COMPLETADO, FALLIDO
+
+    @Column(name = "ultimo_dueno", nullable = false)
+    private Long ultimoDueno = 0L; // Punto de control: dueños ya procesados (id <= ultimoDueno)
+
+    @Column(name = "facturas_generadas", nullable = false)
+    private Integer facturasGeneradas = 0;
+
+    @Column(name = "ordenes_facturadas", nullable = false)
+    private Integer ordenesFacturadas = 0;
+
+    @Column(name = "total_facturado", nullable = false)
+    private Dinero totalFacturado = Dinero.CERO;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "fecha_fin")
+    private LocalDateTime fechaFin;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    // Constructores
+    public LoteFacturacion() {
+    }
+
+    public LoteFacturacion(LocalDate fechaDesde, LocalDate fechaHasta) {
+        this.fechaDesde = fechaDesde;
+        this.fechaHasta = fechaHasta;
+        this.estado = "EN_CURSO";
+        this.fechaInicio = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getIdLote() {
+        return idLote;
+    }
+
+    public void setIdLote(Long idLote) {
+        this.idLote = idLote;
+    }
+
+    public LocalDate getFechaDesde() {
+        return fechaDesde;
+    }
+
+    public void setFechaDesde(LocalDate fechaDesde) {
+        this.fechaDesde = fechaDesde;
+    }
+
+    public LocalDate getFechaHasta() {
+        return fechaHasta;
+    }
+
+    public void setFechaHasta(LocalDate fechaHasta) {
+        this.fechaHasta = fechaHasta;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Long getUltimoDueno() {
+        return ultimoDueno;
+    }
+
+    public void setUltimoDueno(Long ultimoDueno) {
+        this.ultimoDueno = ultimoDueno;
+    }
+
+    public Integer getFacturasGeneradas() {
+        return facturasGeneradas;
+    }
+
+    public void setFacturasGeneradas(Integer facturasGeneradas) {
+        this.facturasGeneradas = facturasGeneradas;
+    }
+
+    public Integer getOrdenesFacturadas() {
+        return ordenesFacturadas;
+    }
+
+    public void setOrdenesFacturadas(Integer ordenesFacturadas) {
+        this.ordenesFacturadas = ordenesFacturadas;
+    }
+
+    public Dinero getTotalFacturado() {
+        return totalFacturado;
+    }
+
+    public void setTotalFacturado(Dinero totalFacturado) {
+        this.totalFacturado = totalFacturado;
+    }
+
+    public LocalDateTime getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDateTime fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) {
+        this.fechaActualizacion = fechaActualizacion;
+    }
+
+    public LocalDateTime getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDateTime fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+}
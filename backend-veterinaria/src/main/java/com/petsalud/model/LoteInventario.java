@@ -0,0 +1,117 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad LoteInventario - Lote recibido de un producto con su propio vencimiento
+ * Las ventas consumen primero el lote que vence antes (FEFO).
+ */
+@Entity
+@Table(name = "lotes_inventario", indexes = {
+        @Index(name = "idx_lote_producto_vencimiento", columnList = "id_inventario, fecha_vencimiento"),
+        @Index(name = "idx_lote_vencimiento", columnList = "fecha_vencimiento, cantidad_disponible")
+})
+public class LoteInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_lote")
+    private Long idLote;
+
+    @Column(name = "id_inventario", nullable = false)
+    private Long idInventario;
+
+    @Column(name = "codigo_lote", nullable = false, length = 50)
+    private String codigoLote;
+
+    @Column(name = "fecha_vencimiento", nullable = false)
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "cantidad_inicial", nullable = false)
+    private Integer cantidadInicial;
+
+    @Column(name = "cantidad_disponible", nullable = false)
+    private Integer cantidadDisponible;
+
+    @Column(name = "costo_unitario")
+    private Double costoUnitario;
+
+    @Column(name = "fecha_ingreso", nullable = false)
+    private LocalDateTime fechaIngreso;
+
+    // Constructores
+    public LoteInventario() {
+    }
+
+    // Getters y Setters
+    public Long getIdLote() {
+        return idLote;
+    }
+
+    public void setIdLote(Long idLote) {
+        this.idLote = idLote;
+    }
+
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public String getCodigoLote() {
+        return codigoLote;
+    }
+
+    public void setCodigoLote(String codigoLote) {
+        this.codigoLote = codigoLote;
+    }
+
+    public LocalDate getFechaVencimiento() {
+        return fechaVencimiento;
+    }
+
+    public void setFechaVencimiento(LocalDate fechaVencimiento) {
+        this.fechaVencimiento = fechaVencimiento;
+    }
+
+    public Integer getCantidadInicial() {
+        return cantidadInicial;
+    }
+
+    public void setCantidadInicial(Integer cantidadInicial) {
+        this.cantidadInicial = cantidadInicial;
+    }
+
+    public Integer getCantidadDisponible() {
+        return cantidadDisponible;
+    }
+
+    public void setCantidadDisponible(Integer cantidadDisponible) {
+        this.cantidadDisponible = cantidadDisponible;
+    }
+
+    public Double getCostoUnitario() {
+        return costoUnitario;
+    }
+
+    public void setCostoUnitario(Double costoUnitario) {
+        this.costoUnitario = costoUnitario;
+    }
+
+    public LocalDateTime getFechaIngreso() {
+        return fechaIngreso;
+    }
+
+    public void setFechaIngreso(LocalDateTime fechaIngreso) {
+        this.fechaIngreso = fechaIngreso;
+    }
+
+    // Métodos de utilidad
+    public boolean estaVencido() {
+        return fechaVencimiento.isBefore(LocalDate.now());
+    }
+}
@@ -0,0 +1,117 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad MovimientoInventario - Libro de movimientos de stock (solo se agregan registros)
+ * La cantidad lleva signo: positiva para ingresos, negativa para salidas.
+ */
+@Entity
+@Table(name = "movimientos_inventario", indexes = {
+        @Index(name = "idx_mov_inv_producto", columnList = "id_inventario, id_movimiento"),
+        @Index(name = "idx_mov_inv_fecha", columnList = "fecha")
+})
+public class MovimientoInventario {
+
+    public static final String SALDO_INICIAL = "SALDO_INICIAL";
+    public static final String ENTRADA = "ENTRADA";
+    public static final String VENTA = "VENTA";
+    public static final String AJUSTE = "AJUSTE";
+    public static final String VENCIMIENTO = "VENCIMIENTO";
+    public static final String RESERVA = "RESERVA";
+    public static final String LIBERACION = "LIBERACION";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimiento")
+    private Long idMovimiento;
+
+    @Column(name = "id_inventario", nullable = false)
+    private Long idInventario;
+
+    @Column(name = "tipo", nullable = false, length = 20)
+    private String tipo;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "costo_unitario")
+    private Dinero costoUnitario;
+
+    @Column(name = "referencia", length = 100)
+    private String referencia;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    // Constructores
+    public MovimientoInventario() {
+    }
+
+    public MovimientoInventario(Long idInventario, String tipo, Integer cantidad, Dinero costoUnitario, String referencia) {
+        this.idInventario = idInventario;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.costoUnitario = costoUnitario;
+        this.referencia = referencia;
+        this.fecha = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getIdMovimiento() {
+        return idMovimiento;
+    }
+
+    public void setIdMovimiento(Long idMovimiento) {
+        this.idMovimiento = idMovimiento;
+    }
+
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Dinero getCostoUnitario() {
+        return costoUnitario;
+    }
+
+    public void setCostoUnitario(Dinero costoUnitario) {
+        this.costoUnitario = costoUnitario;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+}
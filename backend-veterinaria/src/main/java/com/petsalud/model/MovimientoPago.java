@@ -0,0 +1,98 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad MovimientoPago - Abono registrado sobre un pago
+ * La clave de idempotencia evita registrar dos veces el mismo abono (reintentos del cliente)
+ */
+@Entity
+@Table(name = "movimientos_pago", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_movimiento_clave", columnNames = {"clave_idempotencia"})
+}, indexes = {
+        @Index(name = "idx_movimiento_pago", columnList = "id_pago")
+})
+public class MovimientoPago {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimiento")
+    private Long idMovimiento;
+
+    @Column(name = "id_pago", nullable = false)
+    private Long idPago;
+
+    @Column(name = "monto", nullable = false)
+    private Dinero monto;
+
+    @Column(name = "metodo_pago", length = 50)
+    private String metodoPago;
+
+    @Column(name = "clave_idempotencia", length = 100)
+    private String claveIdempotencia;
+
+    @Column(name = "fecha_registro", nullable = false)
+    private LocalDateTime fechaRegistro;
+
+    // Constructores
+    public MovimientoPago() {
+    }
+
+    public MovimientoPago(Long idPago, Dinero monto, String metodoPago, String claveIdempotencia) {
+        this.idPago = idPago;
+        this.monto = monto;
+        this.metodoPago = metodoPago;
+        this.claveIdempotencia = claveIdempotencia;
+        this.fechaRegistro = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getIdMovimiento() {
+        return idMovimiento;
+    }
+
+    public void setIdMovimiento(Long idMovimiento) {
+        this.idMovimiento = idMovimiento;
+    }
+
+    public Long getIdPago() {
+        return idPago;
+    }
+
+    public void setIdPago(Long idPago) {
+        this.idPago = idPago;
+    }
+
+    public Dinero getMonto() {
+        return monto;
+    }
+
+    public void setMonto(Dinero monto) {
+        this.monto = monto;
+    }
+
+    public String getMetodoPago() {
+        return metodoPago;
+    }
+
+    public void setMetodoPago(String metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public String getClaveIdempotencia() {
+        return claveIdempotencia;
+    }
+
+    public void setClaveIdempotencia(String claveIdempotencia) {
+        this.claveIdempotencia = claveIdempotencia;
+    }
+
+    public LocalDateTime getFechaRegistro() {
+        return fechaRegistro;
+    }
+
+    public void setFechaRegistro(LocalDateTime fechaRegistro) {
+        this.fechaRegistro = fechaRegistro;
+    }
+}
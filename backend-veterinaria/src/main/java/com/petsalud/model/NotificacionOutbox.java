@@ -0,0 +1,211 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad NotificacionOutbox - Bandeja de salida de notificaciones
+ * Se escribe en la misma transacción que el cambio de negocio y la despacha
+ * un proceso en segundo plano (patrón transactional outbox)
+ */
+@Entity
+@Table(name = "notificaciones_outbox", indexes = {
+        @Index(name = "idx_outbox_estado_proximo", columnList = "estado, proximo_intento"),
+        @Index(name = "idx_outbox_destino", columnList = "destino"),
+        @Index(name = "idx_outbox_reserva", columnList = "reserva")
+})
+public class NotificacionOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_notificacion")
+    private Long idNotificacion;
+
+    @Column(name = "clave_idempotencia", nullable = false, unique = true, length = 255)
+    private String claveIdempotencia;
+
+    @Column(name = "tipo", nullable = false, length = 50)
+    private String tipo; // ORDEN_NUEVA, ORDEN_ESTADO, TOMA_PROGRAMADA, RESULTADO_VALIDADO, etc.
+
+    @Column(name = "referencia", length = 100)
+    private String referencia; // Entidad de origen, p. ej. ORDEN:15
+
+    @Column(name = "canal", nullable = false, length = 20)
+    private String canal; // EMAIL, SMS
+
+    @Column(name = "destinatario_tipo", length = 20)
+    private String destinatarioTipo; // DUENO, VETERINARIO, TECNICO
+
+    @Column(name = "destino", nullable = false, length = 150)
+    private String destino; // Email o teléfono
+
+    @Column(name = "asunto", length = 200)
+    private String asunto;
+
+    @Column(name = "mensaje", nullable = false, columnDefinition = "TEXT")
+    private String mensaje;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado = "PENDIENTE"; // PENDIENTE, EN_PROCESO, ENVIADA, DESCARTADA, FALLIDA
+
+    @Column(name = "intentos")
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "reserva", length = 36)
+    private String reserva; // Identificador de la pasada del despachador que la reservó
+
+    // Constructores
+    public NotificacionOutbox() {
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaCreacion == null) {
+            fechaCreacion = LocalDateTime.now();
+        }
+        if (proximoIntento == null) {
+            proximoIntento = fechaCreacion;
+        }
+    }
+
+    // Getters y Setters
+    public Long getIdNotificacion() {
+        return idNotificacion;
+    }
+
+    public void setIdNotificacion(Long idNotificacion) {
+        this.idNotificacion = idNotificacion;
+    }
+
+    public String getClaveIdempotencia() {
+        return claveIdempotencia;
+    }
+
+    public void setClaveIdempotencia(String claveIdempotencia) {
+        this.claveIdempotencia = claveIdempotencia;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public String getCanal() {
+        return canal;
+    }
+
+    public void setCanal(String canal) {
+        this.canal = canal;
+    }
+
+    public String getDestinatarioTipo() {
+        return destinatarioTipo;
+    }
+
+    public void setDestinatarioTipo(String destinatarioTipo) {
+        this.destinatarioTipo = destinatarioTipo;
+    }
+
+    public String getDestino() {
+        return destino;
+    }
+
+    public void setDestino(String destino) {
+        this.destino = destino;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Integer getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getFechaEnvio() {
+        return fechaEnvio;
+    }
+
+    public void setFechaEnvio(LocalDateTime fechaEnvio) {
+        this.fechaEnvio = fechaEnvio;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    public String getReserva() {
+        return reserva;
+    }
+
+    public void setReserva(String reserva) {
+        this.reserva = reserva;
+    }
+}
@@ -11,7 +11,9 @@ import java.util.List;
  * RF-02: Registro de órdenes veterinarias
  */
 @Entity
-@Table(name = "ordenes_veterinarias")
+@Table(name = "ordenes_veterinarias", indexes = {
+        @Index(name = "idx_orden_facturacion", columnList = "estado, id_factura, fecha_orden")
+})
 public class OrdenVeterinaria {
 
     @Id
@@ -40,6 +42,10 @@ public class OrdenVeterinaria {
     @Column(name = "sintomas", columnDefinition = "TEXT")
     private String sintomas;
 
+    // Factura que cubrió la orden (la asigna la facturación por lotes, solo lectura en JPA)
+    @Column(name = "id_factura", insertable = false, updatable = false)
+    private Long idFactura;
+
     // Relación N:1 con Mascota
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_mascota", nullable = false)
@@ -117,6 +123,14 @@ public class OrdenVeterinaria {
         this.estado = estado;
     }
 
+    public Long getIdFactura() {
+        return idFactura;
+    }
+
+    public void setIdFactura(Long idFactura) {
+        this.idFactura = idFactura;
+    }
+
     public String getObservaciones() {
         return observaciones;
     }
@@ -38,7 +38,7 @@ public class Pago {
     private String tipoPago; // Consulta, Internamiento, Cirugía, Medicamento, etc.
 
     @Column(name = "monto", nullable = false)
-    private Double monto;
+    private Dinero monto;
 
     @Column(name = "metodo_pago", length = 50)
     private String metodoPago; // Efectivo, Tarjeta, Transferencia, Yape, Plin
@@ -56,7 +56,7 @@ public class Pago {
     private LocalDateTime fechaPago;
 
     @Column(name = "monto_pagado")
-    private Double montoPagado = 0.0;
+    private Dinero montoPagado = Dinero.CERO;
 
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
@@ -75,13 +75,18 @@ public class Pago {
     private Integer diasInternamiento;
 
     @Column(name = "costo_dia_internamiento")
-    private Double costoDiaInternamiento;
+    private Dinero costoDiaInternamiento;
+
+    // Control de concurrencia optimista (abonos simultáneos sobre el mismo pago)
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
 
     // Constructores
     public Pago() {
     }
 
-    public Pago(Dueno dueno, String concepto, Double monto, String estado) {
+    public Pago(Dueno dueno, String concepto, Dinero monto, String estado) {
         this.dueno = dueno;
         this.concepto = concepto;
         this.monto = monto;
@@ -138,11 +143,11 @@ public class Pago {
         this.tipoPago = tipoPago;
     }
 
-    public Double getMonto() {
+    public Dinero getMonto() {
         return monto;
     }
 
-    public void setMonto(Double monto) {
+    public void setMonto(Dinero monto) {
         this.monto = monto;
     }
 
@@ -186,11 +191,11 @@ public class Pago {
         this.fechaPago = fechaPago;
     }
 
-    public Double getMontoPagado() {
+    public Dinero getMontoPagado() {
         return montoPagado;
     }
 
-    public void setMontoPagado(Double montoPagado) {
+    public void setMontoPagado(Dinero montoPagado) {
         this.montoPagado = montoPagado;
     }
 
@@ -234,17 +239,25 @@ public class Pago {
         this.diasInternamiento = diasInternamiento;
     }
 
-    public Double getCostoDiaInternamiento() {
+    public Dinero getCostoDiaInternamiento() {
         return costoDiaInternamiento;
     }
 
-    public void setCostoDiaInternamiento(Double costoDiaInternamiento) {
+    public void setCostoDiaInternamiento(Dinero costoDiaInternamiento) {
         this.costoDiaInternamiento = costoDiaInternamiento;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Métodos de negocio
-    public Double calcularSaldo() {
-        return monto - (montoPagado != null ? montoPagado : 0.0);
+    public Dinero calcularSaldo() {
+        return monto.restar(montoPagado);
     }
 
     public boolean estaPagado() {
@@ -260,7 +273,7 @@ public class Pago {
     public void calcularCostoInternamiento() {
         if (esInternamiento != null && esInternamiento && 
             diasInternamiento != null && costoDiaInternamiento != null) {
-            this.monto = diasInternamiento * costoDiaInternamiento;
+            this.monto = costoDiaInternamiento.multiplicar(diasInternamiento);
         }
     }
 
@@ -0,0 +1,122 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad PartidaCobro - Documento con saldo pendiente de un dueño (factura o cargo)
+ * Guarda el tramo de antigüedad en que está contabilizado dentro de saldos_duenos
+ */
+@Entity
+@Table(name = "partidas_cobro", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_partida_origen", columnNames = {"origen", "id_origen"})
+}, indexes = {
+        @Index(name = "idx_partida_dueno", columnList = "id_dueno, fecha_vencimiento"),
+        @Index(name = "idx_partida_vencimiento", columnList = "fecha_vencimiento")
+})
+public class PartidaCobro {
+
+    public static final String ORIGEN_FACTURA = "FACTURA";
+    public static final String ORIGEN_PAGO = "PAGO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_partida")
+    private Long idPartida;
+
+    @Column(name = "origen", nullable = false, length = 20)
+    private String origen; // FACTURA, PAGO
+
+    @Column(name = "id_origen", nullable = false)
+    private Long idOrigen;
+
+    @Column(name = "id_dueno", nullable = false)
+    private Long idDueno;
+
+    @Column(name = "saldo", nullable = false)
+    private Dinero saldo;
+
+    @Column(name = "fecha_vencimiento", nullable = false)
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "tramo", nullable = false)
+    private Integer tramo; // Ver SaldoDueno.TRAMO_*
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public PartidaCobro() {
+    }
+
+    public PartidaCobro(String origen, Long idOrigen) {
+        this.origen = origen;
+        this.idOrigen = idOrigen;
+    }
+
+    // Getters y Setters
+    public Long getIdPartida() {
+        return idPartida;
+    }
+
+    public void setIdPartida(Long idPartida) {
+        this.idPartida = idPartida;
+    }
+
+    public String getOrigen() {
+        return origen;
+    }
+
+    public void setOrigen(String origen) {
+        this.origen = origen;
+    }
+
+    public Long getIdOrigen() {
+        return idOrigen;
+    }
+
+    public void setIdOrigen(Long idOrigen) {
+        this.idOrigen = idOrigen;
+    }
+
+    public Long getIdDueno() {
+        return idDueno;
+    }
+
+    public void setIdDueno(Long idDueno) {
+        this.idDueno = idDueno;
+    }
+
+    public Dinero getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(Dinero saldo) {
+        this.saldo = saldo;
+    }
+
+    public LocalDate getFechaVencimiento() {
+        return fechaVencimiento;
+    }
+
+    public void setFechaVencimiento(LocalDate fechaVencimiento) {
+        this.fechaVencimiento = fechaVencimiento;
+    }
+
+    public Integer getTramo() {
+        return tramo;
+    }
+
+    public void setTramo(Integer tramo) {
+        this.tramo = tramo;
+    }
+
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) {
+        this.fechaActualizacion = fechaActualizacion;
+    }
+}
@@ -0,0 +1,64 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad PronosticoInventario - Consumo diario suavizado (promedio móvil exponencial) de un producto
+ * Se actualiza cada noche solo con los días nuevos del libro de movimientos.
+ */
+@Entity
+@Table(name = "pronosticos_inventario")
+public class PronosticoInventario {
+
+    @Id
+    @Column(name = "id_inventario")
+    private Long idInventario;
+
+    @Column(name = "tasa_diaria", nullable = false)
+    private Double tasaDiaria;
+
+    @Column(name = "ultimo_dia", nullable = false)
+    private LocalDate ultimoDia; // Último día incorporado a la tasa
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public PronosticoInventario() {
+    }
+
+    // Getters y Setters
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public Double getTasaDiaria() {
+        return tasaDiaria;
+    }
+
+    public void setTasaDiaria(Double tasaDiaria) {
+        this.tasaDiaria = tasaDiaria;
+    }
+
+    public LocalDate getUltimoDia() {
+        return ultimoDia;
+    }
+
+    public void setUltimoDia(LocalDate ultimoDia) {
+        this.ultimoDia = ultimoDia;
+    }
+
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) {
+        this.fechaActualizacion = fechaActualizacion;
+    }
+}
@@ -0,0 +1,84 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad RangoNumeracionLiberado - Números reservados que no llegaron a emitirse
+ * (resto de un bloque al detener un nodo o número de una transacción revertida).
+ * Se vuelven a asignar antes de reservar números nuevos para no dejar huecos en la serie.
+ */
+@Entity
+@Table(name = "numeracion_liberada", indexes = {
+        @Index(name = "idx_numeracion_liberada_serie", columnList = "serie, anio, desde")
+})
+public class RangoNumeracionLiberado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_rango")
+    private Long idRango;
+
+    @Column(name = "serie", nullable = false, length = 10)
+    private String serie;
+
+    @Column(name = "anio", nullable = false)
+    private Integer anio;
+
+    @Column(name = "desde", nullable = false)
+    private Long desde;
+
+    @Column(name = "hasta", nullable = false)
+    private Long hasta;
+
+    // Constructores
+    public RangoNumeracionLiberado() {
+    }
+
+    public RangoNumeracionLiberado(String serie, Integer anio, Long desde, Long hasta) {
+        this.serie = serie;
+        this.anio = anio;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    // Getters y Setters
+    public Long getIdRango() {
+        return idRango;
+    }
+
+    public void setIdRango(Long idRango) {
+        this.idRango = idRango;
+    }
+
+    public String getSerie() {
+        return serie;
+    }
+
+    public void setSerie(String serie) {
+        this.serie = serie;
+    }
+
+    public Integer getAnio() {
+        return anio;
+    }
+
+    public void setAnio(Integer anio) {
+        this.anio = anio;
+    }
+
+    public Long getDesde() {
+        return desde;
+    }
+
+    public void setDesde(Long desde) {
+        this.desde = desde;
+    }
+
+    public Long getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(Long hasta) {
+        this.hasta = hasta;
+    }
+}
@@ -0,0 +1,125 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad ReservaStock - Stock apartado para una factura abierta
+ * La cantidad se descuenta del stock al reservar; si la reserva vence o se libera, se devuelve.
+ */
+@Entity
+@Table(name = "reservas_stock", indexes = {
+        @Index(name = "idx_reserva_referencia", columnList = "referencia, estado"),
+        @Index(name = "idx_reserva_expiracion", columnList = "estado, fecha_expiracion"),
+        @Index(name = "idx_reserva_cierre", columnList = "estado, fecha_cierre")
+})
+public class ReservaStock {
+
+    public static final String ACTIVA = "ACTIVA";
+    public static final String CONFIRMADA = "CONFIRMADA";
+    public static final String LIBERADA = "LIBERADA";
+    public static final String EXPIRADA = "EXPIRADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @Column(name = "referencia", nullable = false, length = 100)
+    private String referencia; // Número de factura u otro identificador de la venta
+
+    @Column(name = "id_inventario", nullable = false)
+    private Long idInventario;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado = ACTIVA;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    @Column(name = "fecha_cierre")
+    private LocalDateTime fechaCierre;
+
+    // Constructores
+    public ReservaStock() {
+    }
+
+    public ReservaStock(String referencia, Long idInventario, Integer cantidad, LocalDateTime fechaExpiracion) {
+        this.referencia = referencia;
+        this.idInventario = idInventario;
+        this.cantidad = cantidad;
+        this.fechaCreacion = LocalDateTime.now();
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    // Getters y Setters
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    public LocalDateTime getFechaCierre() {
+        return fechaCierre;
+    }
+
+    public void setFechaCierre(LocalDateTime fechaCierre) {
+        this.fechaCierre = fechaCierre;
+    }
+}
@@ -0,0 +1,213 @@
+package com.petsalud.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Entidad SaldoDueno - Saldo por cobrar de un dueño con antigüedad de deuda
+ * Se actualiza en la misma transacción que facturas y pagos; los tramos se
+ * avanzan una vez al día (fechaCorte).
+ */
+@Entity
+@Table(name = "saldos_duenos", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_saldo_dueno", columnNames = {"id_dueno"})
+}, indexes = {
+        @Index(name = "idx_saldo_vencido", columnList = "saldo_vencido")
+})
+public class SaldoDueno {
+
+    // Tramos de antigüedad (días vencidos a la fecha de corte)
+    public static final int TRAMO_POR_VENCER = 0;
+    public static final int TRAMO_0_30 = 1;
+    public static final int TRAMO_31_60 = 2;
+    public static final int TRAMO_61_90 = 3;
+    public static final int TRAMO_MAS_90 = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_saldo")
+    private Long idSaldo;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_dueno", nullable = false)
+    @JsonIgnoreProperties({"mascotas", "facturas"})
+    private Dueno dueno;
+
+    @Column(name = "saldo_total", nullable = false)
+    private Dinero saldoTotal = Dinero.CERO;
+
+    @Column(name = "saldo_facturas", nullable = false)
+    private Dinero saldoFacturas = Dinero.CERO;
+
+    @Column(name = "saldo_cargos", nullable = false)
+    private Dinero saldoCargos = Dinero.CERO; // Pagos (cargos) pendientes o parciales
+
+    @Column(name = "por_vencer", nullable = false)
+    private Dinero porVencer = Dinero.CERO;
+
+    @Column(name = "vencido_0_30", nullable = false)
+    private Dinero vencido0a30 = Dinero.CERO;
+
+    @Column(name = "vencido_31_60", nullable = false)
+    private Dinero vencido31a60 = Dinero.CERO;
+
+    @Column(name = "vencido_61_90", nullable = false)
+    private Dinero vencido61a90 = Dinero.CERO;
+
+    @Column(name = "vencido_mas_90", nullable = false)
+    private Dinero vencidoMas90 = Dinero.CERO;
+
+    @Column(name = "saldo_vencido", nullable = false)
+    private Dinero saldoVencido = Dinero.CERO;
+
+    @Column(name = "partidas_abiertas", nullable = false)
+    private Integer partidasAbiertas = 0;
+
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDate fechaCorte;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public SaldoDueno() {
+    }
+
+    /**
+     * Tramo de una partida según su vencimiento y la fecha de corte
+     */
+    public static int tramoPara(LocalDate fechaVencimiento, LocalDate fechaCorte) {
+        long diasVencido = ChronoUnit.DAYS.between(fechaVencimiento, fechaCorte);
+        if (diasVencido <= 0) return TRAMO_POR_VENCER;
+        if (diasVencido <= 30) return TRAMO_0_30;
+        if (diasVencido <= 60) return TRAMO_31_60;
+        if (diasVencido <= 90) return TRAMO_61_90;
+        return TRAMO_MAS_90;
+    }
+
+    /**
+     * Sumar una partida al saldo y a su tramo
+     */
+    public void agregar(PartidaCobro partida) {
+        aplicar(partida.getOrigen(), partida.getTramo(), partida.getSaldo());
+        partidasAbiertas++;
+    }
+
+    /**
+     * Restar una partida del saldo y de su tramo
+     */
+    public void quitar(PartidaCobro partida) {
+        aplicar(partida.getOrigen(), partida.getTramo(), partida.getSaldo().negar());
+        partidasAbiertas--;
+    }
+
+    /**
+     * Mover el saldo de una partida a otro tramo
+     */
+    public void moverTramo(PartidaCobro partida, int nuevoTramo) {
+        sumarTramo(partida.getTramo(), partida.getSaldo().negar());
+        sumarTramo(nuevoTramo, partida.getSaldo());
+        partida.setTramo(nuevoTramo);
+        fechaActualizacion = LocalDateTime.now();
+    }
+
+    private void aplicar(String origen, int tramo, Dinero importe) {
+        saldoTotal = saldoTotal.sumar(importe);
+        if (PartidaCobro.ORIGEN_FACTURA.equals(origen)) {
+            saldoFacturas = saldoFacturas.sumar(importe);
+        } else {
+            saldoCargos = saldoCargos.sumar(importe);
+        }
+        sumarTramo(tramo, importe);
+        fechaActualizacion = LocalDateTime.now();
+    }
+
+    private void sumarTramo(int tramo, Dinero importe) {
+        switch (tramo) {
+            case TRAMO_POR_VENCER -> porVencer = porVencer.sumar(importe);
+            case TRAMO_0_30 -> vencido0a30 = vencido0a30.sumar(importe);
+            case TRAMO_31_60 -> vencido31a60 = vencido31a60.sumar(importe);
+            case TRAMO_61_90 -> vencido61a90 = vencido61a90.sumar(importe);
+            default -> vencidoMas90 = vencidoMas90.sumar(importe);
+        }
+        if (tramo != TRAMO_POR_VENCER) {
+            saldoVencido = saldoVencido.sumar(importe);
+        }
+    }
+
+    // Getters y Setters
+    public Long getIdSaldo() {
+        return idSaldo;
+    }
+
+    public void setIdSaldo(Long idSaldo) {
+        this.idSaldo = idSaldo;
+    }
+
+    public Dueno getDueno() {
+        return dueno;
+    }
+
+    public void setDueno(Dueno dueno) {
+        this.dueno = dueno;
+    }
+
+    public Dinero getSaldoTotal() {
+        return saldoTotal;
+    }
+
+    public Dinero getSaldoFacturas() {
+        return saldoFacturas;
+    }
+
+    public Dinero getSaldoCargos() {
+        return saldoCargos;
+    }
+
+    public Dinero getPorVencer() {
+        return porVencer;
+    }
+
+    public Dinero getVencido0a30() {
+        return vencido0a30;
+    }
+
+    public Dinero getVencido31a60() {
+        return vencido31a60;
+    }
+
+    public Dinero getVencido61a90() {
+        return vencido61a90;
+    }
+
+    public Dinero getVencidoMas90() {
+        return vencidoMas90;
+    }
+
+    public Dinero getSaldoVencido() {
+        return saldoVencido;
+    }
+
+    public Integer getPartidasAbiertas() {
+        return partidasAbiertas;
+    }
+
+    public LocalDate getFechaCorte() {
+        return fechaCorte;
+    }
+
+    public void setFechaCorte(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) {
+        this.fechaActualizacion = fechaActualizacion;
+    }
+}
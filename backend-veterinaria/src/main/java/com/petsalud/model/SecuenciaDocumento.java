@@ -0,0 +1,71 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad SecuenciaDocumento - Contador de numeración por serie y año
+ * Cada nodo reserva bloques de números incrementando "siguiente" bajo bloqueo de fila
+ */
+@Entity
+@Table(name = "secuencias_documento", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_secuencia_serie_anio", columnNames = {"serie", "anio"})
+})
+public class SecuenciaDocumento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_secuencia")
+    private Long idSecuencia;
+
+    @Column(name = "serie", nullable = false, length = 10)
+    private String serie;
+
+    @Column(name = "anio", nullable = false)
+    private Integer anio;
+
+    @Column(name = "siguiente", nullable = false)
+    private Long siguiente;
+
+    // Constructores
+    public SecuenciaDocumento() {
+    }
+
+    public SecuenciaDocumento(String serie, Integer anio, Long siguiente) {
+        this.serie = serie;
+        this.anio = anio;
+        this.siguiente = siguiente;
+    }
+
+    // Getters y Setters
+    public Long getIdSecuencia() {
+        return idSecuencia;
+    }
+
+    public void setIdSecuencia(Long idSecuencia) {
+        this.idSecuencia = idSecuencia;
+    }
+
+    public String getSerie() {
+        return serie;
+    }
+
+    public void setSerie(String serie) {
+        this.serie = serie;
+    }
+
+    public Integer getAnio() {
+        return anio;
+    }
+
+    public void setAnio(Integer anio) {
+        this.anio = anio;
+    }
+
+    public Long getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(Long siguiente) {
+        this.siguiente = siguiente;
+    }
+}
@@ -0,0 +1,88 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad SnapshotInventario - Stock y valor de un producto al corte de un movimiento
+ * El stock en cualquier fecha es el último snapshot anterior más los movimientos posteriores a él.
+ */
+@Entity
+@Table(name = "snapshots_inventario", indexes = {
+        @Index(name = "idx_snapshot_producto_fecha", columnList = "id_inventario, fecha")
+})
+public class SnapshotInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_snapshot")
+    private Long idSnapshot;
+
+    @Column(name = "id_inventario", nullable = false)
+    private Long idInventario;
+
+    @Column(name = "id_ultimo_movimiento", nullable = false)
+    private Long idUltimoMovimiento;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    @Column(name = "valor", nullable = false)
+    private Dinero valor;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    // Constructores
+    public SnapshotInventario() {
+    }
+
+    // Getters y Setters
+    public Long getIdSnapshot() {
+        return idSnapshot;
+    }
+
+    public void setIdSnapshot(Long idSnapshot) {
+        this.idSnapshot = idSnapshot;
+    }
+
+    public Long getIdInventario() {
+        return idInventario;
+    }
+
+    public void setIdInventario(Long idInventario) {
+        this.idInventario = idInventario;
+    }
+
+    public Long getIdUltimoMovimiento() {
+        return idUltimoMovimiento;
+    }
+
+    public void setIdUltimoMovimiento(Long idUltimoMovimiento) {
+        this.idUltimoMovimiento = idUltimoMovimiento;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Dinero getValor() {
+        return valor;
+    }
+
+    public void setValor(Dinero valor) {
+        this.valor = valor;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+}
@@ -0,0 +1,94 @@
+package com.petsalud.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad TarifaServicio - Catálogo de precios por tipo de examen o servicio
+ * Usado por la facturación por lotes de órdenes completadas
+ */
+@Entity
+@Table(name = "tarifas_servicio", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tarifa_codigo", columnNames = {"codigo"})
+})
+public class TarifaServicio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_tarifa")
+    private Long idTarifa;
+
+    @Column(name = "codigo", nullable = false, length = 100)
+    private String codigo; // Coincide con OrdenVeterinaria.tipoExamen (sin distinguir mayúsculas)
+
+    @Column(name = "descripcion", length = 200)
+    private String descripcion;
+
+    @Column(name = "tipo_servicio", length = 100)
+    private String tipoServicio; // EXAMEN, CONSULTA, etc.
+
+    @Column(name = "precio", nullable = false)
+    private Dinero precio;
+
+    @Column(name = "activo")
+    private Boolean activo = true;
+
+    // Constructores
+    public TarifaServicio() {
+    }
+
+    public TarifaServicio(String codigo, String descripcion, String tipoServicio, Dinero precio) {
+        this.codigo = codigo;
+        this.descripcion = descripcion;
+        this.tipoServicio = tipoServicio;
+        this.precio = precio;
+    }
+
+    // Getters y Setters
+    public Long getIdTarifa() {
+        return idTarifa;
+    }
+
+    public void setIdTarifa(Long idTarifa) {
+        this.idTarifa = idTarifa;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public String getTipoServicio() {
+        return tipoServicio;
+    }
+
+    public void setTipoServicio(String tipoServicio) {
+        this.tipoServicio = tipoServicio;
+    }
+
+    public Dinero getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(Dinero precio) {
+        this.precio = precio;
+    }
+
+    public Boolean getActivo() {
+        return activo;
+    }
+
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+}
@@ -13,6 +13,9 @@ import java.time.LocalDateTime;
 @Table(name = "usuarios")
 public class Usuario {
 
+    // Intentos fallidos consecutivos que bloquean la cuenta
+    public static final int MAX_INTENTOS_FALLIDOS = 3;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_usuario")
@@ -52,6 +55,11 @@ public class Usuario {
     @Column(name = "bloqueado")
     private Boolean bloqueado = false;
 
+    // Tokens emitidos antes de este instante (ms) no son válidos; solo se escribe con UsuarioRepository.revocarTokens
+    @Column(name = "tokens_validos_desde", updatable = false)
+    @JsonIgnore
+    private Long tokensValidosDesde;
+
     // Constructores
     public Usuario() {
         this.fechaCreacion = LocalDateTime.now();
@@ -179,7 +187,7 @@ public class Usuario {
 
     public void registrarIntentoFallido() {
         this.intentosFallidos++;
-        if (this.intentosFallidos >= 3) {
+        if (this.intentosFallidos >= MAX_INTENTOS_FALLIDOS) {
             this.bloqueado = true;
         }
     }
@@ -199,4 +207,12 @@ public class Usuario {
                 ", activo=" + activo +
                 '}';
     }
-}
\ No newline at end of file
+
+    public Long getTokensValidosDesde() {
+        return tokensValidosDesde;
+    }
+
+    public void setTokensValidosDesde(Long tokensValidosDesde) {
+        this.tokensValidosDesde = tokensValidosDesde;
+    }
+}
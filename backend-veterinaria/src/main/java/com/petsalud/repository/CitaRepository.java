@@ -1,7 +1,9 @@
 package com.petsalud.repository;
 
 import com.petsalud.model.Cita;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -66,6 +68,66 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
     @Query("SELECT c FROM Cita c WHERE c.recordatorioEnviado = false AND c.fechaHora > :ahora AND c.estado != 'CANCELADA'")
     List<Cita> findCitasSinRecordatorio(@Param("ahora") LocalDateTime ahora);
 
+    /**
+     * Buscar citas con recordatorio pendiente en [desde, hasta], paginando por ID (keyset)
+     */
+    @Query("SELECT c FROM Cita c JOIN FETCH c.mascota m JOIN FETCH m.dueno LEFT JOIN FETCH c.veterinario WHERE c.recordatorioEnviado = false AND c.fechaHora BETWEEN :desde AND :hasta AND c.estado != 'CANCELADA' AND c.idCita > :ultimoId ORDER BY c.idCita ASC")
+    List<Cita> findCitasParaRecordatorio(@Param("desde") LocalDateTime desde,
+                                         @Param("hasta") LocalDateTime hasta,
+                                         @Param("ultimoId") Long ultimoId,
+                                         Pageable pageable);
+
+    /**
+     * Contar citas con recordatorio pendiente en [desde, hasta]
+     */
+    @Query("SELECT COUNT(c) FROM Cita c WHERE c.recordatorioEnviado = false AND c.fechaHora BETWEEN :desde AND :hasta AND c.estado != 'CANCELADA'")
+    long countCitasParaRecordatorio(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Fecha de la cita más antigua con recordatorio pendiente en [desde, hasta]
+     */
+    @Query("SELECT MIN(c.fechaHora) FROM Cita c WHERE c.recordatorioEnviado = false AND c.fechaHora BETWEEN :desde AND :hasta AND c.estado != 'CANCELADA'")
+    LocalDateTime findFechaMasAntiguaSinRecordatorio(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Marcar recordatorios enviados en un solo UPDATE
+     */
+    @Modifying
+    @Query("UPDATE Cita c SET c.recordatorioEnviado = true WHERE c.idCita IN :ids AND c.recordatorioEnviado = false")
+    int marcarRecordatoriosEnviados(@Param("ids") List<Long> ids);
+
+    /**
+     * Buscar citas activas en una ventana [inicio, fin) con mascota y veterinario cargados
+     */
+    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.mascota LEFT JOIN FETCH c.veterinario WHERE c.fechaHora >= :inicio AND c.fechaHora < :fin AND c.estado != 'CANCELADA'")
+    List<Cita> findCitasActivasEnVentana(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    /**
+     * Intervalos agendados por veterinario desde una fecha: [idCita, idVeterinario, fechaHora, duracionMinutos]
+     */
+    @Query("SELECT c.idCita, c.veterinario.idVeterinario, c.fechaHora, c.duracionMinutos FROM Cita c WHERE c.veterinario IS NOT NULL AND c.fechaHora >= :desde AND c.estado != 'CANCELADA'")
+    List<Object[]> findIntervalosAgendados(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Duración máxima de las citas activas de un veterinario que empiezan antes de una fecha
+     */
+    @Query("SELECT MAX(c.duracionMinutos) FROM Cita c WHERE c.veterinario.idVeterinario = :idVeterinario AND c.fechaHora < :hasta AND c.estado != 'CANCELADA'")
+    Integer findDuracionMaximaVeterinario(@Param("idVeterinario") Long idVeterinario, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Intervalos de un veterinario que empiezan en [desde, hasta): [idCita, fechaHora, duracionMinutos]
+     */
+    @Query("SELECT c.idCita, c.fechaHora, c.duracionMinutos FROM Cita c WHERE c.veterinario.idVeterinario = :idVeterinario AND c.fechaHora >= :desde AND c.fechaHora < :hasta AND c.estado != 'CANCELADA'")
+    List<Object[]> findIntervalosVeterinario(@Param("idVeterinario") Long idVeterinario,
+                                             @Param("desde") LocalDateTime desde,
+                                             @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Buscar cita por ID con mascota y veterinario cargados
+     */
+    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.mascota LEFT JOIN FETCH c.veterinario WHERE c.idCita = :idCita")
+    Cita findConDetalleById(@Param("idCita") Long idCita);
+
     /**
      * Contar citas por estado
      */
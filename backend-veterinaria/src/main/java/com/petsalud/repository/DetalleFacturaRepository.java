@@ -44,7 +44,7 @@ public interface DetalleFacturaRepository extends JpaRepository<DetalleFactura,
     /**
      * Calcular total por tipo de servicio
      */
-    @Query("SELECT d.tipoServicio, SUM(d.subtotal) FROM DetalleFactura d GROUP BY d.tipoServicio")
+    @Query("SELECT d.tipoServicio, SUM(CAST(d.subtotal AS double)) FROM DetalleFactura d GROUP BY d.tipoServicio")
     List<Object[]> calcularTotalPorTipoServicio();
 
     /**
@@ -56,7 +56,7 @@ public interface DetalleFacturaRepository extends JpaRepository<DetalleFactura,
     /**
      * Obtener productos/servicios más vendidos
      */
-    @Query("SELECT d.descripcion, COUNT(d) as cantidad, SUM(d.subtotal) as total FROM DetalleFactura d GROUP BY d.descripcion ORDER BY cantidad DESC")
+    @Query("SELECT d.descripcion, COUNT(d) as cantidad, SUM(CAST(d.subtotal AS double)) as total FROM DetalleFactura d GROUP BY d.descripcion ORDER BY cantidad DESC")
     List<Object[]> findProductosMasVendidos();
 
     /**
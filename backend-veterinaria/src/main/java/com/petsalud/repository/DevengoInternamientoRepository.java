@@ -0,0 +1,68 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.DevengoInternamiento;
+import com.petsalud.model.Pago;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para el devengo diario de internamientos
+ */
+@Repository
+public interface DevengoInternamientoRepository extends JpaRepository<DevengoInternamiento, Long> {
+
+    /**
+     * Historial de devengos de un pago
+     */
+    List<DevengoInternamiento> findByIdPagoOrderByDiaAsc(Long idPago);
+
+    /**
+     * Registrar el día cumplido de todos los internamientos activos en una sola sentencia
+     * Los días se cuentan en periodos completos de 24 h desde el ingreso (mínimo 1), igual que PagoService;
+     * la restricción única (pago, día) hace que repetir la corrida dentro del mismo día no registre nada.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO devengos_internamiento " +
+                   "(id_pago, dia, costo_dia, monto_acumulado, fecha_registro) " +
+                   "SELECT t.id_pago, t.dias, t.costo_dia_internamiento, ROUND(t.costo_dia_internamiento * t.dias, 2), :ahora " +
+                   "FROM (SELECT id_pago, costo_dia_internamiento, " +
+                   "      GREATEST(TIMESTAMPDIFF(DAY, fecha_inicio_internamiento, :ahora), 1) AS dias " +
+                   "      FROM pagos WHERE es_internamiento = 1 AND fecha_fin_internamiento IS NULL " +
+                   "      AND fecha_inicio_internamiento <= :ahora AND costo_dia_internamiento IS NOT NULL " +
+                   "      AND (estado IS NULL OR estado <> 'CANCELADO')) t", nativeQuery = true)
+    int registrarDevengos(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Aplicar a los pagos los devengos registrados en una corrida
+     * Un pago ya cancelado vuelve a PARCIAL si el nuevo monto supera lo pagado; la versión se incrementa
+     * para que un abono concurrente con el monto anterior falle y se reintente.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE pagos p JOIN devengos_internamiento d " +
+                   "ON d.id_pago = p.id_pago AND d.fecha_registro = :ahora SET " +
+                   "p.estado = CASE WHEN p.estado = 'PAGADO' AND COALESCE(p.monto_pagado, 0) < d.monto_acumulado " +
+                   "                THEN 'PARCIAL' ELSE p.estado END, " +
+                   "p.dias_internamiento = d.dia, p.monto = d.monto_acumulado, " +
+                   "p.version = COALESCE(p.version, 0) + 1", nativeQuery = true)
+    int aplicarDevengos(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Pagos actualizados en una corrida (para sincronizar las cuentas por cobrar)
+     */
+    @Query("SELECT p FROM Pago p WHERE p.idPago IN " +
+           "(SELECT d.idPago FROM DevengoInternamiento d WHERE d.fechaRegistro = :ahora)")
+    List<Pago> findPagosDevengados(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Internamientos activos y costo acumulado al último devengo
+     */
+    @Query("SELECT COUNT(p), SUM(CAST(p.monto AS double)), SUM(CAST(p.costoDiaInternamiento AS double)) " +
+           "FROM Pago p WHERE p.esInternamiento = true AND p.fechaFinInternamiento IS NULL")
+    List<Object[]> resumirActivos();
+}
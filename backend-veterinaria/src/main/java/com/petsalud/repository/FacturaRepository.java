@@ -82,13 +82,13 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     /**
      * Calcular total facturado en un período
      */
-    @Query("SELECT SUM(f.total) FROM Factura f WHERE f.fechaEmision BETWEEN :inicio AND :fin")
+    @Query("SELECT SUM(CAST(f.total AS double)) FROM Factura f WHERE f.fechaEmision BETWEEN :inicio AND :fin")
     Double calcularTotalFacturado(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
 
     /**
      * Calcular total cobrado (facturas pagadas) en un período
      */
-    @Query("SELECT SUM(f.total) FROM Factura f WHERE f.estado = 'PAGADA' AND f.fechaPago BETWEEN :inicio AND :fin")
+    @Query("SELECT SUM(CAST(f.total AS double)) FROM Factura f WHERE f.estado = 'PAGADA' AND f.fechaPago BETWEEN :inicio AND :fin")
     Double calcularTotalCobrado(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
 
     /**
@@ -106,13 +106,13 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     /**
      * Obtener top clientes por monto facturado
      */
-    @Query("SELECT f.dueno, SUM(f.total) as total FROM Factura f WHERE f.estado = 'PAGADA' GROUP BY f.dueno ORDER BY total DESC")
+    @Query("SELECT f.dueno, SUM(CAST(f.total AS double)) as total FROM Factura f WHERE f.estado = 'PAGADA' GROUP BY f.dueno ORDER BY total DESC")
     List<Object[]> findTopClientes();
 
     /**
      * Estadísticas de facturación por método de pago
      */
-    @Query("SELECT f.metodoPago, COUNT(f), SUM(f.total) FROM Factura f WHERE f.estado = 'PAGADA' GROUP BY f.metodoPago")
+    @Query("SELECT f.metodoPago, COUNT(f), SUM(CAST(f.total AS double)) FROM Factura f WHERE f.estado = 'PAGADA' GROUP BY f.metodoPago")
     List<Object[]> getEstadisticasPorMetodoPago();
 
     /**
@@ -124,6 +124,26 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     /**
      * Calcular total pendiente por dueño
      */
-    @Query("SELECT SUM(f.total) FROM Factura f WHERE f.dueno.idDueno = :idDueno AND f.estado = 'PENDIENTE'")
+    @Query("SELECT SUM(CAST(f.total AS double)) FROM Factura f WHERE f.dueno.idDueno = :idDueno AND f.estado = 'PENDIENTE'")
     Double calcularTotalPendienteByDueno(@Param("idDueno") Long idDueno);
-}
\ No newline at end of file
+
+    /**
+     * Facturas pendientes para conciliación
+     * Columnas: idFactura, numeroFactura, total, fechaEmision, fechaVencimiento
+     */
+    @Query("SELECT f.idFactura, f.numeroFactura, f.total, f.fechaEmision, f.fechaVencimiento " +
+           "FROM Factura f WHERE f.estado = 'PENDIENTE'")
+    List<Object[]> findPendientesParaConciliar();
+
+    /**
+     * Mayor número de factura emitido con un prefijo (p. ej. "F2025-%")
+     */
+    @Query("SELECT MAX(f.numeroFactura) FROM Factura f WHERE f.numeroFactura LIKE :prefijo")
+    String findMaxNumeroFactura(@Param("prefijo") String prefijo);
+
+    /**
+     * Números de factura emitidos con un prefijo (auditoría de huecos)
+     */
+    @Query("SELECT f.numeroFactura FROM Factura f WHERE f.numeroFactura LIKE :prefijo")
+    List<String> findNumerosFactura(@Param("prefijo") String prefijo);
+}
@@ -2,11 +2,14 @@ package com.petsalud.repository;
 
 import com.petsalud.model.Inventario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -21,6 +24,11 @@ public interface InventarioRepository extends JpaRepository<Inventario, Long> {
      */
     Inventario findByCodigo(String codigo);
 
+    /**
+     * Buscar varios productos por código (lectura de un carrito)
+     */
+    List<Inventario> findByCodigoIn(Collection<String> codigos);
+
     /**
      * Buscar por nombre (contiene)
      */
@@ -72,6 +80,84 @@ public interface InventarioRepository extends JpaRepository<Inventario, Long> {
     /**
      * Calcular valor total del inventario
      */
-    @Query("SELECT SUM(i.precioCompra * i.stockActual) FROM Inventario i WHERE i.activo = true")
+    @Query("SELECT SUM(ROUND(i.precioCompra, 2) * i.stockActual) FROM Inventario i WHERE i.activo = true")
     Double calcularValorTotalInventario();
-}
\ No newline at end of file
+
+    /**
+     * Stock, precio de compra y estado de un producto (antes de una edición)
+     */
+    @Query("SELECT i.stockActual, i.precioCompra, i.activo FROM Inventario i WHERE i.idInventario = :id")
+    List<Object[]> findEstadoValorizado(@Param("id") Long id);
+
+    /**
+     * Bloquear la fila del producto (SELECT ... FOR UPDATE)
+     * Orden de bloqueo en todo el inventario: primero el producto y después sus lotes.
+     */
+    @Query(value = "SELECT id_inventario FROM inventario WHERE id_inventario = :id FOR UPDATE", nativeQuery = true)
+    Long bloquear(@Param("id") Long id);
+
+    /**
+     * Stock actual leído de la base (no de la entidad en memoria)
+     */
+    @Query("SELECT i.stockActual FROM Inventario i WHERE i.idInventario = :id")
+    Integer findStockActual(@Param("id") Long id);
+
+    /**
+     * Actualizar el vencimiento del producto con el de su próximo lote con saldo (null si no quedan lotes)
+     */
+    @Modifying
+    @Query("UPDATE Inventario i SET i.fechaVencimiento = :fecha WHERE i.idInventario = :idInventario")
+    int actualizarVencimiento(@Param("idInventario") Long idInventario, @Param("fecha") LocalDate fecha);
+
+    /**
+     * Descontar stock solo si alcanza (la condición y el descuento son una sola sentencia)
+     * Devuelve 0 si el producto no existe o el stock es insuficiente.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventario i SET i.stockActual = i.stockActual - :cantidad " +
+           "WHERE i.idInventario = :id AND i.stockActual >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Sumar stock en una sola sentencia
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventario i SET i.stockActual = i.stockActual + :cantidad WHERE i.idInventario = :id")
+    int agregarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Descontar en una sola sentencia los productos de todas las líneas de una factura
+     * Solo se actualizan los productos con stock suficiente; si el número de filas no coincide con
+     * el de productos distintos, quien llama debe deshacer la transacción.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE inventario SET stock_actual = stock_actual - (" +
+                   "  SELECT SUM(d.cantidad) FROM detalle_facturas d " +
+                   "  WHERE d.id_factura = :idFactura AND d.id_inventario = inventario.id_inventario) " +
+                   "WHERE id_inventario IN (" +
+                   "  SELECT d.id_inventario FROM detalle_facturas d WHERE d.id_factura = :idFactura) " +
+                   "AND stock_actual >= (" +
+                   "  SELECT SUM(d.cantidad) FROM detalle_facturas d " +
+                   "  WHERE d.id_factura = :idFactura AND d.id_inventario = inventario.id_inventario)", nativeQuery = true)
+    int descontarStockFactura(@Param("idFactura") Long idFactura);
+
+    /**
+     * Número de productos distintos en las líneas de una factura
+     */
+    @Query(value = "SELECT COUNT(DISTINCT id_inventario) FROM detalle_facturas " +
+                   "WHERE id_factura = :idFactura AND id_inventario IS NOT NULL", nativeQuery = true)
+    int contarProductosFactura(@Param("idFactura") Long idFactura);
+
+    /**
+     * Devolver al stock las reservas cerradas en una corrida de expiración
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE inventario SET stock_actual = stock_actual + (" +
+                   "  SELECT SUM(r.cantidad) FROM reservas_stock r " +
+                   "  WHERE r.estado = 'EXPIRADA' AND r.fecha_cierre = :fechaCierre " +
+                   "  AND r.id_inventario = inventario.id_inventario) " +
+                   "WHERE id_inventario IN (" +
+                   "  SELECT r.id_inventario FROM reservas_stock r " +
+                   "  WHERE r.estado = 'EXPIRADA' AND r.fecha_cierre = :fechaCierre)", nativeQuery = true)
+    int devolverReservasExpiradas(@Param("fechaCierre") LocalDateTime fechaCierre);
+}
@@ -0,0 +1,23 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.LineaConciliada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para las líneas de extractos ya conciliadas
+ */
+@Repository
+public interface LineaConciliadaRepository extends JpaRepository<LineaConciliada, Long> {
+
+    /**
+     * Claves de un grupo de líneas que ya fueron conciliadas
+     */
+    @Query("SELECT l.clave FROM LineaConciliada l WHERE l.clave IN :claves")
+    List<String> findClavesExistentes(@Param("claves") Collection<String> claves);
+}
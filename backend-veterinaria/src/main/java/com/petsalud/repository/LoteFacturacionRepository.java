@@ -0,0 +1,26 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.LoteFacturacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para las corridas de facturación por lotes
+ */
+@Repository
+public interface LoteFacturacionRepository extends JpaRepository<LoteFacturacion, Long> {
+
+    /**
+     * Corrida sin terminar para un rango (punto de reanudación)
+     */
+    LoteFacturacion findFirstByFechaDesdeAndFechaHastaAndEstadoInOrderByIdLoteDesc(
+            LocalDate fechaDesde, LocalDate fechaHasta, List<String> estados);
+
+    /**
+     * Últimas corridas
+     */
+    List<LoteFacturacion> findTop20ByOrderByIdLoteDesc();
+}
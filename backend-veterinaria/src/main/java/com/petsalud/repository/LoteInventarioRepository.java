@@ -0,0 +1,94 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.LoteInventario;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para los lotes de inventario
+ * Los índices (producto, vencimiento) y (vencimiento, saldo) resuelven el orden FEFO y las
+ * alertas de vencimiento como lecturas de rango.
+ */
+@Repository
+public interface LoteInventarioRepository extends JpaRepository<LoteInventario, Long> {
+
+    /**
+     * Lotes de un producto del que vence antes al que vence después
+     */
+    List<LoteInventario> findByIdInventarioOrderByFechaVencimientoAscIdLoteAsc(Long idInventario);
+
+    /**
+     * Lotes vigentes (vencen hoy o después) con saldo de un producto en orden FEFO, bloqueados para consumirlos
+     * Se leen de a pocos: el consumo se detiene al cubrir la cantidad.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoteInventario l WHERE l.idInventario = :idInventario AND l.cantidadDisponible > 0 " +
+           "AND l.fechaVencimiento >= :hoy ORDER BY l.fechaVencimiento ASC, l.idLote ASC")
+    List<LoteInventario> findParaConsumir(@Param("idInventario") Long idInventario,
+                                          @Param("hoy") LocalDate hoy,
+                                          Pageable pageable);
+
+    /**
+     * Lotes con saldo de un producto en orden FEFO, vencidos incluidos (bajas por vencimiento)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoteInventario l WHERE l.idInventario = :idInventario AND l.cantidadDisponible > 0 " +
+           "ORDER BY l.fechaVencimiento ASC, l.idLote ASC")
+    List<LoteInventario> findParaBajaPorVencimiento(@Param("idInventario") Long idInventario, Pageable pageable);
+
+    /**
+     * Unidades en lotes vencidos de un producto
+     */
+    @Query("SELECT COALESCE(SUM(l.cantidadDisponible), 0) FROM LoteInventario l " +
+           "WHERE l.idInventario = :idInventario AND l.fechaVencimiento < :hoy AND l.cantidadDisponible > 0")
+    long sumarSaldoVencido(@Param("idInventario") Long idInventario, @Param("hoy") LocalDate hoy);
+
+    /**
+     * Producto de un lote (sin cargar ni bloquear el lote)
+     */
+    @Query("SELECT l.idInventario FROM LoteInventario l WHERE l.idLote = :idLote")
+    Long findIdInventario(@Param("idLote") Long idLote);
+
+    /**
+     * Lote bloqueado para actualizarlo
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoteInventario l WHERE l.idLote = :idLote")
+    LoteInventario findParaActualizar(@Param("idLote") Long idLote);
+
+    /**
+     * Vencimiento del próximo lote con saldo de un producto
+     */
+    @Query("SELECT MIN(l.fechaVencimiento) FROM LoteInventario l " +
+           "WHERE l.idInventario = :idInventario AND l.cantidadDisponible > 0")
+    LocalDate findProximoVencimiento(@Param("idInventario") Long idInventario);
+
+    /**
+     * Lotes con saldo que vencen dentro de un rango de fechas
+     */
+    @Query("SELECT l FROM LoteInventario l WHERE l.fechaVencimiento BETWEEN :desde AND :hasta " +
+           "AND l.cantidadDisponible > 0 ORDER BY l.fechaVencimiento ASC, l.idLote ASC")
+    List<LoteInventario> findConSaldoEntre(@Param("desde") LocalDate desde,
+                                           @Param("hasta") LocalDate hasta,
+                                           Pageable pageable);
+
+    /**
+     * Lotes con saldo ya vencidos (del más antiguo al más reciente)
+     */
+    @Query("SELECT l FROM LoteInventario l WHERE l.fechaVencimiento < :fecha AND l.cantidadDisponible > 0 " +
+           "ORDER BY l.fechaVencimiento ASC, l.idLote ASC")
+    List<LoteInventario> findVencidosConSaldo(@Param("fecha") LocalDate fecha, Pageable pageable);
+
+    /**
+     * Verificar si el producto se controla por lotes
+     */
+    boolean existsByIdInventario(Long idInventario);
+}
@@ -0,0 +1,48 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.MovimientoInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para el libro de movimientos de inventario
+ */
+@Repository
+public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
+
+    /**
+     * Últimos movimientos de un producto
+     */
+    List<MovimientoInventario> findTop100ByIdInventarioOrderByIdMovimientoDesc(Long idInventario);
+
+    /**
+     * Último movimiento registrado antes de una fecha (corte de los snapshots)
+     */
+    @Query("SELECT MAX(m.idMovimiento) FROM MovimientoInventario m WHERE m.fecha < :fecha")
+    Long findUltimoIdAntesDe(@Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Suma de movimientos de un producto posteriores a un corte y hasta una fecha
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoInventario m " +
+           "WHERE m.idInventario = :idInventario AND m.idMovimiento > :desdeId AND m.fecha <= :hasta")
+    Long sumarDesde(@Param("idInventario") Long idInventario,
+                    @Param("desdeId") Long desdeId,
+                    @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Abrir el libro de los productos que aún no tienen movimientos (saldo inicial = stock actual)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movimientos_inventario (id_inventario, tipo, cantidad, costo_unitario, referencia, fecha) " +
+                   "SELECT i.id_inventario, 'SALDO_INICIAL', i.stock_actual, i.precio_compra, NULL, :fecha " +
+                   "FROM inventario i WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM movimientos_inventario m WHERE m.id_inventario = i.id_inventario)", nativeQuery = true)
+    int registrarSaldosIniciales(@Param("fecha") LocalDateTime fecha);
+}
@@ -0,0 +1,33 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.MovimientoPago;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para los abonos registrados sobre pagos
+ */
+@Repository
+public interface MovimientoPagoRepository extends JpaRepository<MovimientoPago, Long> {
+
+    /**
+     * Buscar abono por clave de idempotencia
+     */
+    MovimientoPago findByClaveIdempotencia(String claveIdempotencia);
+
+    /**
+     * Abonos de un pago
+     */
+    List<MovimientoPago> findByIdPagoOrderByIdMovimientoAsc(Long idPago);
+
+    /**
+     * Claves de idempotencia de un grupo que ya fueron registradas
+     */
+    @Query("SELECT m.claveIdempotencia FROM MovimientoPago m WHERE m.claveIdempotencia IN :claves")
+    List<String> findClavesExistentes(@Param("claves") Collection<String> claves);
+}
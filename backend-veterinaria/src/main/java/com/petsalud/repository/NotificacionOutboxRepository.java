@@ -0,0 +1,129 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.NotificacionOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para la bandeja de salida de notificaciones
+ */
+@Repository
+public interface NotificacionOutboxRepository extends JpaRepository<NotificacionOutbox, Long> {
+
+    /**
+     * Registrar una notificación salvo que ya exista su clave de idempotencia
+     * Un único INSERT IGNORE: dos operaciones concurrentes con la misma clave no fallan ni duplican.
+     * Retorna 1 si se registró y 0 si ya existía.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notificaciones_outbox (clave_idempotencia, tipo, referencia, canal, " +
+                   "destinatario_tipo, destino, asunto, mensaje, estado, intentos, proximo_intento, fecha_creacion) " +
+                   "VALUES (:#{#n.claveIdempotencia}, :#{#n.tipo}, :#{#n.referencia}, :#{#n.canal}, " +
+                   ":#{#n.destinatarioTipo}, :#{#n.destino}, :#{#n.asunto}, :#{#n.mensaje}, 'PENDIENTE', 0, " +
+                   ":#{#n.proximoIntento}, :#{#n.fechaCreacion})", nativeQuery = true)
+    int insertarSiNoExiste(@Param("n") NotificacionOutbox notificacion);
+
+    /**
+     * Notificaciones listas para despachar: pendientes o en proceso con la reserva vencida
+     */
+    @Query("SELECT n FROM NotificacionOutbox n " +
+           "WHERE n.estado IN ('PENDIENTE', 'EN_PROCESO') AND n.proximoIntento <= :ahora " +
+           "ORDER BY n.idNotificacion")
+    List<NotificacionOutbox> findListasParaEnvio(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    /**
+     * Pendientes de los destinos indicados que aún esperan su ventana de agrupación
+     */
+    @Query("SELECT n FROM NotificacionOutbox n " +
+           "WHERE n.estado = 'PENDIENTE' AND n.intentos = 0 AND n.destino IN :destinos " +
+           "AND n.proximoIntento > :ahora ORDER BY n.idNotificacion")
+    List<NotificacionOutbox> findEnEsperaPorDestinos(@Param("destinos") Collection<String> destinos,
+                                                     @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Reservar un lote para el despachador (un único UPDATE condicional)
+     * Solo toma las filas que siguen libres: listas para envío o pendientes en su ventana de agrupación.
+     * Si otra instancia las reservó entre la lectura y este UPDATE, no las vuelve a tomar; las que sí
+     * quedan marcadas con la reserva indicada se leen luego con findByReserva.
+     */
+    @Modifying
+    @Query("UPDATE NotificacionOutbox n SET n.estado = 'EN_PROCESO', n.proximoIntento = :reservaHasta, " +
+           "n.reserva = :reserva WHERE n.idNotificacion IN :ids AND (" +
+           "(n.estado IN ('PENDIENTE', 'EN_PROCESO') AND n.proximoIntento <= :ahora) " +
+           "OR (n.estado = 'PENDIENTE' AND n.intentos = 0 AND n.proximoIntento > :ahora))")
+    int reservar(@Param("ids") List<Long> ids, @Param("reserva") String reserva,
+                 @Param("ahora") LocalDateTime ahora, @Param("reservaHasta") LocalDateTime reservaHasta);
+
+    /**
+     * Notificaciones efectivamente reservadas por una pasada del despachador
+     */
+    @Query("SELECT n FROM NotificacionOutbox n WHERE n.reserva = :reserva AND n.estado = 'EN_PROCESO' " +
+           "ORDER BY n.idNotificacion")
+    List<NotificacionOutbox> findByReserva(@Param("reserva") String reserva);
+
+    /**
+     * Marcar un lote como enviado (un único UPDATE)
+     */
+    @Modifying
+    @Query("UPDATE NotificacionOutbox n SET n.estado = 'ENVIADA', n.fechaEnvio = :fecha, " +
+           "n.intentos = n.intentos + 1, n.ultimoError = NULL WHERE n.idNotificacion IN :ids")
+    int marcarEnviadas(@Param("ids") List<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Marcar como descartadas las notificaciones superadas por otra posterior
+     */
+    @Modifying
+    @Query("UPDATE NotificacionOutbox n SET n.estado = 'DESCARTADA', n.fechaEnvio = :fecha " +
+           "WHERE n.idNotificacion IN :ids")
+    int marcarDescartadas(@Param("ids") List<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Registrar un intento fallido (se reintenta o queda como FALLIDA)
+     */
+    @Modifying
+    @Query("UPDATE NotificacionOutbox n SET n.estado = :estado, n.intentos = n.intentos + 1, " +
+           "n.proximoIntento = :proximoIntento, n.ultimoError = :error WHERE n.idNotificacion = :id")
+    int registrarFallo(@Param("id") Long id, @Param("estado") String estado,
+                       @Param("proximoIntento") LocalDateTime proximoIntento, @Param("error") String error);
+
+    /**
+     * Reprogramar una entrega que el canal rechazó sin intentarla (no cuenta como intento)
+     */
+    @Modifying
+    @Query("UPDATE NotificacionOutbox n SET n.estado = 'PENDIENTE', n.proximoIntento = :proximoIntento, " +
+           "n.ultimoError = :error WHERE n.idNotificacion = :id")
+    int reprogramar(@Param("id") Long id, @Param("proximoIntento") LocalDateTime proximoIntento,
+                    @Param("error") String error);
+
+    /**
+     * Contar notificaciones aún no enviadas
+     */
+    @Query("SELECT COUNT(n) FROM NotificacionOutbox n WHERE n.estado IN ('PENDIENTE', 'EN_PROCESO')")
+    long countPendientes();
+
+    /**
+     * Fecha de creación de la notificación pendiente más antigua
+     */
+    @Query("SELECT MIN(n.fechaCreacion) FROM NotificacionOutbox n WHERE n.estado IN ('PENDIENTE', 'EN_PROCESO')")
+    LocalDateTime findFechaPendienteMasAntigua();
+
+    /**
+     * Buscar por estado
+     */
+    List<NotificacionOutbox> findByEstadoOrderByIdNotificacionDesc(String estado, Pageable pageable);
+
+    /**
+     * Depurar notificaciones enviadas o descartadas antiguas
+     */
+    @Modifying
+    @Query("DELETE FROM NotificacionOutbox n WHERE n.estado IN ('ENVIADA', 'DESCARTADA') AND n.fechaEnvio < :limite")
+    int eliminarEnviadasAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -1,6 +1,7 @@
 package com.petsalud.repository;
 
 import com.petsalud.model.OrdenVeterinaria;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -107,6 +108,32 @@ public interface OrdenRepository extends JpaRepository<OrdenVeterinaria, Long> {
             @Param("inicio") LocalDate inicio, 
             @Param("fin") LocalDate fin);
 
+    /**
+     * Dueños con órdenes completadas sin facturar en el rango, después de un punto de control
+     * (recorrido por claves, en orden ascendente de dueño)
+     */
+    @Query("SELECT DISTINCT m.dueno.idDueno FROM OrdenVeterinaria o JOIN o.mascota m " +
+           "WHERE o.estado = 'COMPLETADA' AND o.idFactura IS NULL AND o.fechaOrden BETWEEN :inicio AND :fin " +
+           "AND m.dueno.idDueno > :despuesDe ORDER BY m.dueno.idDueno")
+    List<Long> findDuenosPorFacturar(
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin,
+            @Param("despuesDe") Long despuesDe,
+            Pageable pageable);
+
+    /**
+     * Órdenes completadas sin facturar de un grupo de dueños (proyección para facturación por lotes)
+     * Columnas: idOrden, idDueno, tipoExamen, fechaOrden, nombre de la mascota
+     */
+    @Query("SELECT o.idOrden, m.dueno.idDueno, o.tipoExamen, o.fechaOrden, m.nombre " +
+           "FROM OrdenVeterinaria o JOIN o.mascota m " +
+           "WHERE o.estado = 'COMPLETADA' AND o.idFactura IS NULL AND o.fechaOrden BETWEEN :inicio AND :fin " +
+           "AND m.dueno.idDueno IN :duenos ORDER BY m.dueno.idDueno, o.idOrden")
+    List<Object[]> findOrdenesPorFacturar(
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin,
+            @Param("duenos") List<Long> duenos);
+
     /**
      * Estadísticas de órdenes por tipo de examen
      */
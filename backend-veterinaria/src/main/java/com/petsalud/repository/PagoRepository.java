@@ -2,11 +2,13 @@ package com.petsalud.repository;
 
 import com.petsalud.model.Pago;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -67,15 +69,44 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
     /**
      * Calcular total pendiente por dueño
      */
-    @Query("SELECT SUM(p.monto - p.montoPagado) FROM Pago p WHERE p.dueno.idDueno = :idDueno AND p.estado = 'PENDIENTE'")
+    @Query("SELECT SUM(CAST(p.monto AS double) - CAST(p.montoPagado AS double)) FROM Pago p WHERE p.dueno.idDueno = :idDueno AND p.estado = 'PENDIENTE'")
     Double calcularTotalPendientePorDueno(@Param("idDueno") Long idDueno);
 
     /**
      * Calcular total cobrado en un período
      */
-    @Query("SELECT SUM(p.montoPagado) FROM Pago p WHERE p.fechaPago BETWEEN :inicio AND :fin")
+    @Query("SELECT SUM(CAST(p.montoPagado AS double)) FROM Pago p WHERE p.fechaPago BETWEEN :inicio AND :fin")
     Double calcularTotalCobrado(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
 
+    /**
+     * Pagos con saldo pendiente para conciliación
+     * Columnas: idPago, numeroPago, monto, montoPagado, fechaEmision, fechaVencimiento
+     */
+    @Query("SELECT p.idPago, p.numeroPago, p.monto, p.montoPagado, p.fechaEmision, p.fechaVencimiento " +
+           "FROM Pago p WHERE p.estado IN ('PENDIENTE', 'PARCIAL')")
+    List<Object[]> findAbiertosParaConciliar();
+
+    /**
+     * Monto pagado y versión vigentes de un pago (las actualizaciones no pueden cambiar el monto pagado)
+     */
+    @Query("SELECT p.montoPagado, p.version FROM Pago p WHERE p.idPago = :idPago")
+    List<Object[]> findMontoPagadoYVersion(@Param("idPago") Long idPago);
+
+    /**
+     * Sumar un abono en una sola sentencia (sin leer antes el pago)
+     * El estado se calcula con el monto pagado anterior: MySQL evalúa las asignaciones en orden.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE pagos SET " +
+                   "estado = CASE WHEN ROUND(COALESCE(monto_pagado, 0) + :monto, 2) >= monto THEN 'PAGADO' ELSE 'PARCIAL' END, " +
+                   "monto_pagado = ROUND(COALESCE(monto_pagado, 0) + :monto, 2), " +
+                   "metodo_pago = :metodoPago, fecha_pago = :fechaPago, version = COALESCE(version, 0) + 1 " +
+                   "WHERE id_pago = :idPago AND (estado IS NULL OR estado <> 'CANCELADO')", nativeQuery = true)
+    int incrementarMontoPagado(@Param("idPago") Long idPago,
+                               @Param("monto") double monto,
+                               @Param("metodoPago") String metodoPago,
+                               @Param("fechaPago") LocalDateTime fechaPago);
+
     /**
      * Contar pagos por estado
      */
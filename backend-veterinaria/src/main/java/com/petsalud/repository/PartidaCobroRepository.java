@@ -0,0 +1,40 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.PartidaCobro;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para las partidas pendientes de cobro
+ */
+@Repository
+public interface PartidaCobroRepository extends JpaRepository<PartidaCobro, Long> {
+
+    /**
+     * Partida de un documento (factura o pago)
+     */
+    PartidaCobro findByOrigenAndIdOrigen(String origen, Long idOrigen);
+
+    /**
+     * Partidas abiertas de un dueño (estado de cuenta)
+     */
+    List<PartidaCobro> findByIdDuenoOrderByFechaVencimientoAsc(Long idDueno);
+
+    /**
+     * Partidas que cambian de tramo en una fecha (vencimientos en los límites de los tramos)
+     */
+    List<PartidaCobro> findByFechaVencimientoIn(Collection<LocalDate> fechas);
+
+    /**
+     * Recorrido por claves de todas las partidas (recálculo completo de tramos)
+     */
+    @Query("SELECT p FROM PartidaCobro p WHERE p.idPartida > :despuesDe ORDER BY p.idPartida")
+    List<PartidaCobro> findSiguientes(@Param("despuesDe") Long despuesDe, Pageable pageable);
+}
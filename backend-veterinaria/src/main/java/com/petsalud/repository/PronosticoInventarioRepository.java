@@ -0,0 +1,42 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.PronosticoInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para los pronósticos de consumo de inventario
+ */
+@Repository
+public interface PronosticoInventarioRepository extends JpaRepository<PronosticoInventario, Long> {
+
+    /**
+     * Consumo por producto y día en un rango (ventas y reservas netas de liberaciones)
+     * Columnas: idInventario, día, unidades consumidas.
+     */
+    @Query(value = "SELECT id_inventario, DATE(fecha) AS dia, -SUM(cantidad) AS consumo " +
+                   "FROM movimientos_inventario " +
+                   "WHERE fecha >= :desde AND fecha < :hasta AND tipo IN ('VENTA', 'RESERVA', 'LIBERACION') " +
+                   "GROUP BY id_inventario, DATE(fecha) ORDER BY id_inventario, dia", nativeQuery = true)
+    List<Object[]> sumarConsumoDiario(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Productos activos con los datos que necesita la reposición
+     * Columnas: id, código, nombre, stock, mínimo, máximo, proveedor, precio de compra.
+     */
+    @Query("SELECT i.idInventario, i.codigo, i.nombre, i.stockActual, i.stockMinimo, i.stockMaximo, " +
+           "i.proveedor, i.precioCompra FROM Inventario i WHERE i.activo = true")
+    List<Object[]> findProductosParaReposicion();
+
+    /**
+     * Último día ya incorporado a los pronósticos
+     */
+    @Query("SELECT MAX(p.ultimoDia) FROM PronosticoInventario p")
+    LocalDate findUltimoDia();
+}
@@ -0,0 +1,32 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.RangoNumeracionLiberado;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para los rangos de numeración liberados
+ */
+@Repository
+public interface RangoNumeracionLiberadoRepository extends JpaRepository<RangoNumeracionLiberado, Long> {
+
+    /**
+     * Rangos liberados de una serie y año, del menor al mayor, bloqueando las filas
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RangoNumeracionLiberado r WHERE r.serie = :serie AND r.anio = :anio ORDER BY r.desde")
+    List<RangoNumeracionLiberado> findParaReutilizar(@Param("serie") String serie, @Param("anio") Integer anio,
+                                                     Pageable pageable);
+
+    /**
+     * Rangos liberados de una serie y año (auditoría)
+     */
+    List<RangoNumeracionLiberado> findBySerieAndAnioOrderByDesde(String serie, Integer anio);
+}
@@ -0,0 +1,53 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.ReservaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para las reservas de stock
+ */
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    /**
+     * Reservas de una referencia
+     */
+    List<ReservaStock> findByReferenciaOrderByIdReservaAsc(String referencia);
+
+    /**
+     * Reservas de una referencia en un estado
+     */
+    List<ReservaStock> findByReferenciaAndEstado(String referencia, String estado);
+
+    /**
+     * Cerrar una reserva activa (solo una operación gana cada reserva)
+     */
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = :nuevoEstado, r.fechaCierre = :fechaCierre " +
+           "WHERE r.idReserva = :idReserva AND r.estado = 'ACTIVA'")
+    int cerrar(@Param("idReserva") Long idReserva,
+               @Param("nuevoEstado") String nuevoEstado,
+               @Param("fechaCierre") LocalDateTime fechaCierre);
+
+    /**
+     * Marcar como expiradas todas las reservas activas vencidas
+     */
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = 'EXPIRADA', r.fechaCierre = :ahora " +
+           "WHERE r.estado = 'ACTIVA' AND r.fechaExpiracion < :ahora")
+    int expirarVencidas(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Cantidades por producto de las reservas cerradas en un estado y momento
+     */
+    @Query("SELECT r.idInventario, SUM(r.cantidad) FROM ReservaStock r " +
+           "WHERE r.estado = :estado AND r.fechaCierre = :fechaCierre GROUP BY r.idInventario")
+    List<Object[]> sumarPorProducto(@Param("estado") String estado, @Param("fechaCierre") LocalDateTime fechaCierre);
+}
@@ -0,0 +1,71 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.SaldoDueno;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para los saldos por cobrar de los dueños
+ */
+@Repository
+public interface SaldoDuenoRepository extends JpaRepository<SaldoDueno, Long> {
+
+    /**
+     * Saldo de un dueño (lectura de una fila)
+     */
+    @Query("SELECT s FROM SaldoDueno s JOIN FETCH s.dueno WHERE s.dueno.idDueno = :idDueno")
+    SaldoDueno findByIdDueno(@Param("idDueno") Long idDueno);
+
+    /**
+     * Saldo de un dueño bloqueando la fila (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SaldoDueno s WHERE s.dueno.idDueno = :idDueno")
+    SaldoDueno findParaActualizar(@Param("idDueno") Long idDueno);
+
+    /**
+     * Crear la fila de saldo de un dueño si no existe (sin error si otra transacción la creó)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO saldos_duenos (id_dueno, saldo_total, saldo_facturas, saldo_cargos, " +
+                   "por_vencer, vencido_0_30, vencido_31_60, vencido_61_90, vencido_mas_90, saldo_vencido, " +
+                   "partidas_abiertas, fecha_corte, fecha_actualizacion) " +
+                   "VALUES (:idDueno, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, :fechaCorte, NOW())", nativeQuery = true)
+    int crearSiNoExiste(@Param("idDueno") Long idDueno, @Param("fechaCorte") LocalDate fechaCorte);
+
+    /**
+     * Lista de cobranza: dueños con deuda vencida, de mayor a menor
+     */
+    @Query("SELECT s FROM SaldoDueno s JOIN FETCH s.dueno WHERE s.saldoVencido > :minimo ORDER BY s.saldoVencido DESC")
+    List<SaldoDueno> findConDeudaVencida(@Param("minimo") Dinero minimo, Pageable pageable);
+
+    /**
+     * Fecha de corte más antigua (último avance diario de tramos)
+     */
+    @Query("SELECT MIN(s.fechaCorte) FROM SaldoDueno s")
+    LocalDate findFechaCorteMinima();
+
+    /**
+     * Avanzar la fecha de corte de todos los saldos
+     */
+    @Modifying
+    @Query("UPDATE SaldoDueno s SET s.fechaCorte = :fecha WHERE s.fechaCorte < :fecha")
+    int avanzarFechaCorte(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Eliminar el saldo de un dueño
+     */
+    @Modifying
+    @Query("DELETE FROM SaldoDueno s WHERE s.dueno.idDueno = :idDueno")
+    int eliminarPorDueno(@Param("idDueno") Long idDueno);
+}
@@ -0,0 +1,28 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.SecuenciaDocumento;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para los contadores de numeración de documentos
+ */
+@Repository
+public interface SecuenciaDocumentoRepository extends JpaRepository<SecuenciaDocumento, Long> {
+
+    /**
+     * Obtener el contador de una serie y año bloqueando la fila (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SecuenciaDocumento s WHERE s.serie = :serie AND s.anio = :anio")
+    SecuenciaDocumento findParaReservar(@Param("serie") String serie, @Param("anio") Integer anio);
+
+    /**
+     * Obtener el contador de una serie y año (sin bloqueo)
+     */
+    SecuenciaDocumento findBySerieAndAnio(String serie, Integer anio);
+}
@@ -0,0 +1,40 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.SnapshotInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio para los snapshots de inventario
+ */
+@Repository
+public interface SnapshotInventarioRepository extends JpaRepository<SnapshotInventario, Long> {
+
+    /**
+     * Último snapshot de un producto tomado hasta una fecha
+     */
+    SnapshotInventario findFirstByIdInventarioAndFechaLessThanEqualOrderByIdSnapshotDesc(Long idInventario, LocalDateTime fecha);
+
+    /**
+     * Tomar en una sola sentencia el snapshot de los productos con movimientos desde su último corte
+     * Stock = último snapshot + movimientos posteriores hasta el corte indicado.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO snapshots_inventario (id_inventario, id_ultimo_movimiento, stock, valor, fecha) " +
+                   "SELECT t.id_inventario, :corte, t.stock, ROUND(t.stock * t.precio_compra, 2), :fecha FROM (" +
+                   "  SELECT i.id_inventario, i.precio_compra, COALESCE(s.stock, 0) + (" +
+                   "    SELECT COALESCE(SUM(m.cantidad), 0) FROM movimientos_inventario m " +
+                   "    WHERE m.id_inventario = i.id_inventario " +
+                   "    AND m.id_movimiento > COALESCE(s.id_ultimo_movimiento, 0) AND m.id_movimiento <= :corte) AS stock " +
+                   "  FROM inventario i LEFT JOIN snapshots_inventario s ON s.id_snapshot = " +
+                   "    (SELECT MAX(s2.id_snapshot) FROM snapshots_inventario s2 WHERE s2.id_inventario = i.id_inventario) " +
+                   "  WHERE EXISTS (SELECT 1 FROM movimientos_inventario m2 WHERE m2.id_inventario = i.id_inventario " +
+                   "    AND m2.id_movimiento > COALESCE(s.id_ultimo_movimiento, 0) AND m2.id_movimiento <= :corte)" +
+                   ") t", nativeQuery = true)
+    int tomarSnapshots(@Param("corte") Long corte, @Param("fecha") LocalDateTime fecha);
+}
@@ -0,0 +1,24 @@
+package com.petsalud.repository;
+
+import com.petsalud.model.TarifaServicio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para el catálogo de tarifas de servicios
+ */
+@Repository
+public interface TarifaServicioRepository extends JpaRepository<TarifaServicio, Long> {
+
+    /**
+     * Tarifas vigentes
+     */
+    List<TarifaServicio> findByActivoTrue();
+
+    /**
+     * Buscar tarifa por código (case insensitive)
+     */
+    TarifaServicio findByCodigoIgnoreCase(String codigo);
+}
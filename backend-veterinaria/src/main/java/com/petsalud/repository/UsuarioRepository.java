@@ -2,6 +2,7 @@ package com.petsalud.repository;
 
 import com.petsalud.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -127,4 +128,49 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
      */
     @Query("SELECT u.rol, COUNT(u) FROM Usuario u GROUP BY u.rol")
     List<Object[]> getEstadisticasPorRol();
-}
\ No newline at end of file
+
+    /**
+     * Sumar un intento fallido y bloquear al llegar al máximo, en una sola sentencia
+     * (el bloqueo se evalúa con el valor anterior, antes de incrementarlo)
+     */
+    @Modifying
+    @Query(value = "UPDATE usuarios SET " +
+                   "bloqueado = CASE WHEN COALESCE(intentos_fallidos, 0) + 1 >= :maximo THEN TRUE ELSE bloqueado END, " +
+                   "intentos_fallidos = COALESCE(intentos_fallidos, 0) + 1 " +
+                   "WHERE id_usuario = :id", nativeQuery = true)
+    int registrarIntentoFallido(@Param("id") Long id, @Param("maximo") int maximo);
+
+    /**
+     * Reiniciar los intentos fallidos tras un acceso válido
+     * Solo si el usuario no está bloqueado y tiene intentos en la base (0 filas en otro caso)
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.intentosFallidos = 0 " +
+           "WHERE u.idUsuario = :id AND u.bloqueado = false AND u.intentosFallidos > 0")
+    int reiniciarIntentos(@Param("id") Long id);
+
+    /**
+     * Invalidar los tokens emitidos antes del instante indicado (ms)
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.tokensValidosDesde = :instante WHERE u.idUsuario = :id")
+    int revocarTokens(@Param("id") Long id, @Param("instante") long instante);
+
+    /**
+     * Instante desde el cual son válidos los tokens del usuario (0 si nunca se revocaron; null si no existe)
+     */
+    @Query("SELECT COALESCE(u.tokensValidosDesde, 0) FROM Usuario u WHERE u.idUsuario = :id")
+    Long findTokensValidosDesde(@Param("id") Long id);
+
+    /**
+     * Rol actual (sin cargar la entidad)
+     */
+    @Query("SELECT u.rol FROM Usuario u WHERE u.idUsuario = :id")
+    String findRolById(@Param("id") Long id);
+
+    /**
+     * Estado de bloqueo actual (sin cargar la entidad)
+     */
+    @Query("SELECT u.bloqueado FROM Usuario u WHERE u.idUsuario = :id")
+    Boolean findBloqueadoById(@Param("id") Long id);
+}
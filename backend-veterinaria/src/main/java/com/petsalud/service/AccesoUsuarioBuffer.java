@@ -0,0 +1,97 @@
+package com.petsalud.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffer de escritura diferida para el último acceso de los usuarios
+ *
+ * El último acceso es informativo: no hace falta un UPDATE por cada inicio de sesión.
+ * Se acumula en memoria (un valor por usuario, el más reciente) y se vuelca en un lote
+ * JDBC cada pocos segundos y al detener la aplicación. Si el proceso cae se pierden como
+ * máximo los accesos de un intervalo.
+ * Los intentos fallidos y el bloqueo NO pasan por aquí (UsuarioRepository.registrarIntentoFallido).
+ */
+@Service
+public class AccesoUsuarioBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccesoUsuarioBuffer.class);
+
+    // Nunca retrocede el valor guardado (volcados de otro nodo o fuera de orden)
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE usuarios SET ultimo_acceso = ? WHERE id_usuario = ? AND (ultimo_acceso IS NULL OR ultimo_acceso < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // idUsuario -> último acceso pendiente de guardar
+    private final Map<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+
+    /**
+     * Registrar un acceso (se conserva el más reciente por usuario)
+     */
+    public void registrar(Long idUsuario, LocalDateTime instante) {
+        if (idUsuario == null || instante == null) {
+            return;
+        }
+        pendientes.merge(idUsuario, instante, (actual, nuevo) -> nuevo.isAfter(actual) ? nuevo : actual);
+    }
+
+    /**
+     * Último acceso aún no guardado de un usuario (null si no hay)
+     */
+    public LocalDateTime obtenerPendiente(Long idUsuario) {
+        return pendientes.get(idUsuario);
+    }
+
+    /**
+     * Volcar los accesos pendientes en un solo lote
+     */
+    @Scheduled(fixedDelayString = "${petsalud.usuarios.accesos.intervalo-ms:5000}")
+    public synchronized int volcar() {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> filas = new ArrayList<>();
+        List<Map.Entry<Long, LocalDateTime>> tomados = new ArrayList<>();
+        for (Map.Entry<Long, LocalDateTime> entrada : pendientes.entrySet()) {
+            Long id = entrada.getKey();
+            LocalDateTime instante = entrada.getValue();
+            // Solo se retira si nadie lo actualizó mientras tanto
+            if (pendientes.remove(id, instante)) {
+                Timestamp valor = Timestamp.valueOf(instante);
+                filas.add(new Object[]{valor, id, valor});
+                tomados.add(Map.entry(id, instante));
+            }
+        }
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, filas);
+            return filas.size();
+        } catch (RuntimeException e) {
+            // Devolver al buffer para el siguiente intento
+            tomados.forEach(t -> registrar(t.getKey(), t.getValue()));
+            logger.warn("No se pudieron guardar {} accesos de usuario: {}", filas.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        volcar();
+    }
+}
@@ -0,0 +1,489 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Veterinario;
+import com.petsalud.repository.CitaRepository;
+import com.petsalud.repository.VeterinarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agenda en memoria de los veterinarios
+ * Detecta cruces de horario al reservar y calcula horarios libres sin consultar la BD
+ *
+ * Cada veterinario tiene un conjunto ordenado de intervalos [inicio, fin).
+ * Un intervalo que cruza [s, e) debe empezar en (s - duración máxima, e), por lo que
+ * la búsqueda de cruces solo recorre ese rango. Los bloqueos se reparten en franjas
+ * (striped locks) por veterinario: reservas de veterinarios distintos no compiten.
+ */
+@Component
+public class AgendaVeterinarioIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendaVeterinarioIndex.class);
+
+    private static final int FRANJAS_BLOQUEO = 64;
+
+    private static final Comparator<Reserva> ORDEN =
+            Comparator.comparing((Reserva r) -> r.inicio).thenComparingLong(r -> r.token);
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private VeterinarioRepository veterinarioRepository;
+
+    @Value("${petsalud.agenda.slot-minutos:30}")
+    private int slotMinutos;
+
+    @Value("${petsalud.agenda.hora-inicio:08:00}")
+    private String horaInicioTexto;
+
+    @Value("${petsalud.agenda.hora-fin:20:00}")
+    private String horaFinTexto;
+
+    @Value("${petsalud.agenda.horizonte-dias:30}")
+    private int horizonteDias;
+
+    private final Map<Long, AgendaVet> agendas = new ConcurrentHashMap<>();
+    private final Map<Long, Reserva> reservaPorCita = new ConcurrentHashMap<>();
+    private final Map<Long, Veterinario> veterinariosActivos = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] bloqueos = new ReentrantReadWriteLock[FRANJAS_BLOQUEO];
+    private final AtomicLong tokens = new AtomicLong();
+
+    private volatile boolean cargado = false;
+
+    public AgendaVeterinarioIndex() {
+        for (int i = 0; i < FRANJAS_BLOQUEO; i++) {
+            bloqueos[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Carga inicial de las citas agendadas y de los veterinarios activos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void cargar() {
+        if (cargado) {
+            return;
+        }
+        try {
+            veterinariosActivos.clear();
+            for (Veterinario veterinario : veterinarioRepository.findByActivoTrue()) {
+                veterinariosActivos.put(veterinario.getIdVeterinario(), veterinario);
+            }
+
+            List<Object[]> filas = citaRepository.findIntervalosAgendados(LocalDate.now().minusDays(1).atStartOfDay());
+            for (Object[] fila : filas) {
+                Long idCita = (Long) fila[0];
+                Long idVeterinario = (Long) fila[1];
+                LocalDateTime inicio = (LocalDateTime) fila[2];
+                Integer duracion = (Integer) fila[3];
+                Lock lock = bloqueo(idVeterinario).writeLock();
+                lock.lock();
+                try {
+                    if (!reservaPorCita.containsKey(idCita)) {
+                        Reserva reserva = new Reserva(tokens.incrementAndGet(), idVeterinario, inicio,
+                                inicio.plusMinutes(duracion != null ? duracion : slotMinutos));
+                        reserva.idCita = idCita;
+                        agregar(reserva);
+                        reservaPorCita.put(idCita, reserva);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            cargado = true;
+            logger.info("Agenda de veterinarios cargada: {} citas, {} veterinarios activos",
+                    filas.size(), veterinariosActivos.size());
+        } catch (Exception e) {
+            logger.warn("No se pudo cargar la agenda de veterinarios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reservar un intervalo para un veterinario de forma atómica
+     * Lanza RuntimeException si se cruza con otra cita del mismo veterinario
+     * Si la agenda no se pudo cargar, el cruce se verifica también contra la BD
+     *
+     * @param idCitaExistente cita que se está reprogramando (su intervalo actual no cuenta como cruce)
+     */
+    public Reserva reservar(Long idVeterinario, Long idCitaExistente, LocalDateTime inicio, int duracionMinutos) {
+        if (!cargado) {
+            cargar();
+        }
+        Reserva reserva = new Reserva(tokens.incrementAndGet(), idVeterinario, inicio, inicio.plusMinutes(duracionMinutos));
+        Lock lock = bloqueo(idVeterinario).writeLock();
+        lock.lock();
+        try {
+            Reserva cruce = buscarCruce(idVeterinario, inicio, reserva.fin, idCitaExistente);
+            if (cruce == null && !cargado) {
+                // Índice sin cargar: las citas ya guardadas solo están en la BD
+                cruce = buscarCruceEnBaseDatos(idVeterinario, inicio, reserva.fin, idCitaExistente);
+            }
+            if (cruce != null) {
+                throw new RuntimeException("El veterinario ya tiene una cita entre " +
+                        cruce.inicio.toLocalTime() + " y " + cruce.fin.toLocalTime() + " del " + cruce.inicio.toLocalDate());
+            }
+            agregar(reserva);
+        } finally {
+            lock.unlock();
+        }
+        return reserva;
+    }
+
+    /**
+     * Confirmar una reserva provisional con el ID de la cita guardada
+     * Reemplaza el intervalo anterior de la cita (si lo había)
+     */
+    public void confirmar(Reserva reserva, Long idCita) {
+        Reserva anterior = reservaPorCita.get(idCita);
+        if (anterior != null && anterior != reserva) {
+            quitar(anterior);
+        }
+        reserva.idCita = idCita;
+        reservaPorCita.put(idCita, reserva);
+    }
+
+    /**
+     * Descartar una reserva provisional (transacción revertida)
+     */
+    public void descartar(Reserva reserva) {
+        if (reserva.idCita == null) {
+            quitar(reserva);
+        }
+    }
+
+    /**
+     * Liberar el horario de una cita (cancelada, eliminada o sin veterinario)
+     */
+    public void liberar(Long idCita) {
+        Reserva reserva = reservaPorCita.remove(idCita);
+        if (reserva != null) {
+            quitar(reserva);
+        }
+    }
+
+    /**
+     * Actualizar los datos de un veterinario (alta, cambio de especialidad o estado)
+     */
+    public void actualizarVeterinario(Veterinario veterinario) {
+        if (veterinario == null || veterinario.getIdVeterinario() == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(veterinario.getActivo())) {
+            veterinariosActivos.put(veterinario.getIdVeterinario(), veterinario);
+        } else {
+            veterinariosActivos.remove(veterinario.getIdVeterinario());
+        }
+    }
+
+    /**
+     * Quitar un veterinario eliminado
+     */
+    public void eliminarVeterinario(Long idVeterinario) {
+        veterinariosActivos.remove(idVeterinario);
+        agendas.remove(idVeterinario);
+    }
+
+    /**
+     * Verificar si el veterinario está libre en [inicio, inicio + duración)
+     */
+    public boolean estaLibre(Long idVeterinario, LocalDateTime inicio, int duracionMinutos) {
+        Lock lock = bloqueo(idVeterinario).readLock();
+        lock.lock();
+        try {
+            return buscarCruce(idVeterinario, inicio, inicio.plusMinutes(duracionMinutos), null) == null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Veterinarios activos libres en [inicio, inicio + duración)
+     */
+    public List<Veterinario> veterinariosLibres(LocalDateTime inicio, int duracionMinutos) {
+        List<Veterinario> libres = new ArrayList<>();
+        for (Veterinario veterinario : veterinariosActivos.values()) {
+            if (estaLibre(veterinario.getIdVeterinario(), inicio, duracionMinutos)) {
+                libres.add(veterinario);
+            }
+        }
+        libres.sort(Comparator.comparing(Veterinario::getIdVeterinario));
+        return libres;
+    }
+
+    /**
+     * Próximos N horarios libres de un veterinario desde una fecha
+     */
+    public List<HorarioLibre> proximosHorariosLibres(Long idVeterinario, LocalDateTime desde, int cantidad, int duracionMinutos) {
+        List<HorarioLibre> horarios = new ArrayList<>();
+        LocalTime horaInicio = LocalTime.parse(horaInicioTexto);
+        LocalTime horaFin = LocalTime.parse(horaFinTexto);
+        LocalDateTime primero = redondearASlot(desde);
+        Veterinario veterinario = veterinariosActivos.get(idVeterinario);
+
+        Lock lock = bloqueo(idVeterinario).readLock();
+        lock.lock();
+        try {
+            for (int d = 0; d <= horizonteDias && horarios.size() < cantidad; d++) {
+                LocalDate dia = primero.toLocalDate().plusDays(d);
+                LocalDateTime t = dia.atTime(horaInicio);
+                if (t.isBefore(primero)) {
+                    t = primero;
+                }
+                LocalDateTime cierre = dia.atTime(horaFin);
+                while (!t.plusMinutes(duracionMinutos).isAfter(cierre) && horarios.size() < cantidad) {
+                    LocalDateTime fin = t.plusMinutes(duracionMinutos);
+                    Reserva cruce = buscarCruce(idVeterinario, t, fin, null);
+                    if (cruce == null) {
+                        horarios.add(new HorarioLibre(veterinario, idVeterinario, t, fin));
+                        t = t.plusMinutes(slotMinutos);
+                    } else {
+                        // Saltar directamente al final del intervalo ocupado
+                        t = redondearASlot(cruce.fin.isAfter(t) ? cruce.fin : t.plusMinutes(slotMinutos));
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return horarios;
+    }
+
+    /**
+     * Próximos N horarios libres entre todos los veterinarios activos de una especialidad
+     */
+    public List<HorarioLibre> proximosHorariosLibresPorEspecialidad(String especialidad, LocalDateTime desde,
+                                                                    int cantidad, int duracionMinutos) {
+        List<HorarioLibre> candidatos = new ArrayList<>();
+        for (Veterinario veterinario : veterinariosActivos.values()) {
+            if (especialidad == null || (veterinario.getEspecialidad() != null
+                    && veterinario.getEspecialidad().toLowerCase().contains(especialidad.toLowerCase()))) {
+                candidatos.addAll(proximosHorariosLibres(veterinario.getIdVeterinario(), desde, cantidad, duracionMinutos));
+            }
+        }
+        candidatos.sort(Comparator.comparing(HorarioLibre::getInicio).thenComparing(HorarioLibre::getIdVeterinario));
+        return candidatos.size() > cantidad ? new ArrayList<>(candidatos.subList(0, cantidad)) : candidatos;
+    }
+
+    /**
+     * Descartar los intervalos que terminaron antes de ayer
+     */
+    @Scheduled(cron = "${petsalud.agenda.limpieza-cron:0 15 0 * * *}")
+    public void limpiarIntervalosPasados() {
+        LocalDateTime limite = LocalDate.now().minusDays(1).atStartOfDay();
+        for (Map.Entry<Long, AgendaVet> entrada : agendas.entrySet()) {
+            Lock lock = bloqueo(entrada.getKey()).writeLock();
+            lock.lock();
+            try {
+                AgendaVet agenda = entrada.getValue();
+                Iterator<Reserva> it = agenda.reservas.iterator();
+                while (it.hasNext()) {
+                    Reserva reserva = it.next();
+                    if (!reserva.inicio.isBefore(limite)) {
+                        break;
+                    }
+                    if (reserva.fin.isBefore(limite)) {
+                        it.remove();
+                        if (reserva.idCita != null) {
+                            reservaPorCita.remove(reserva.idCita, reserva);
+                        }
+                    }
+                }
+                agenda.recalcularDuracionMaxima();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ==================== Métodos internos ====================
+
+    private Reserva buscarCruce(Long idVeterinario, LocalDateTime inicio, LocalDateTime fin, Long idCitaIgnorada) {
+        AgendaVet agenda = agendas.get(idVeterinario);
+        if (agenda == null || agenda.reservas.isEmpty()) {
+            return null;
+        }
+        Reserva desde = new Reserva(Long.MIN_VALUE, idVeterinario, inicio.minusMinutes(agenda.maxDuracionMinutos), null);
+        Reserva hasta = new Reserva(Long.MIN_VALUE, idVeterinario, fin, null);
+        for (Reserva reserva : agenda.reservas.subSet(desde, false, hasta, false)) {
+            if (idCitaIgnorada != null && idCitaIgnorada.equals(reserva.idCita)) {
+                continue;
+            }
+            if (reserva.inicio.isBefore(fin) && reserva.fin.isAfter(inicio)) {
+                return reserva;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verificar cruces con las citas guardadas cuando el índice no está cargado
+     * Si la consulta falla, la reserva se rechaza (nunca se acepta sin verificar)
+     */
+    private Reserva buscarCruceEnBaseDatos(Long idVeterinario, LocalDateTime inicio, LocalDateTime fin, Long idCitaIgnorada) {
+        List<Object[]> filas;
+        try {
+            Integer maxDuracion = citaRepository.findDuracionMaximaVeterinario(idVeterinario, fin);
+            int margen = Math.max(maxDuracion != null ? maxDuracion : 0, slotMinutos);
+            filas = citaRepository.findIntervalosVeterinario(idVeterinario, inicio.minusMinutes(margen), fin);
+        } catch (Exception e) {
+            logger.warn("No se pudo verificar la agenda del veterinario {}: {}", idVeterinario, e.getMessage());
+            throw new RuntimeException("No se pudo verificar la agenda del veterinario, intente nuevamente");
+        }
+        for (Object[] fila : filas) {
+            Long idCita = (Long) fila[0];
+            if (idCitaIgnorada != null && idCitaIgnorada.equals(idCita)) {
+                continue;
+            }
+            LocalDateTime inicioCita = (LocalDateTime) fila[1];
+            Integer duracion = (Integer) fila[2];
+            LocalDateTime finCita = inicioCita.plusMinutes(duracion != null ? duracion : slotMinutos);
+            if (inicioCita.isBefore(fin) && finCita.isAfter(inicio)) {
+                return new Reserva(Long.MIN_VALUE, idVeterinario, inicioCita, finCita);
+            }
+        }
+        return null;
+    }
+
+    private void agregar(Reserva reserva) {
+        AgendaVet agenda = agendas.computeIfAbsent(reserva.idVeterinario, k -> new AgendaVet());
+        agenda.reservas.add(reserva);
+        long minutos = ChronoUnit.MINUTES.between(reserva.inicio, reserva.fin);
+        if (minutos > agenda.maxDuracionMinutos) {
+            agenda.maxDuracionMinutos = minutos;
+        }
+    }
+
+    private void quitar(Reserva reserva) {
+        Lock lock = bloqueo(reserva.idVeterinario).writeLock();
+        lock.lock();
+        try {
+            AgendaVet agenda = agendas.get(reserva.idVeterinario);
+            if (agenda != null) {
+                agenda.reservas.remove(reserva);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock bloqueo(Long idVeterinario) {
+        return bloqueos[Long.hashCode(idVeterinario) & (FRANJAS_BLOQUEO - 1)];
+    }
+
+    private LocalDateTime redondearASlot(LocalDateTime fecha) {
+        LocalDateTime base = fecha.truncatedTo(ChronoUnit.MINUTES);
+        if (base.isBefore(fecha)) {
+            base = base.plusMinutes(1);
+        }
+        int resto = (base.getHour() * 60 + base.getMinute()) % slotMinutos;
+        return resto == 0 ? base : base.plusMinutes(slotMinutos - resto);
+    }
+
+    /**
+     * Intervalos ocupados de un veterinario
+     */
+    private static class AgendaVet {
+        private final TreeSet<Reserva> reservas = new TreeSet<>(ORDEN);
+        private long maxDuracionMinutos = 0;
+
+        private void recalcularDuracionMaxima() {
+            long max = 0;
+            for (Reserva reserva : reservas) {
+                max = Math.max(max, ChronoUnit.MINUTES.between(reserva.inicio, reserva.fin));
+            }
+            maxDuracionMinutos = max;
+        }
+    }
+
+    /**
+     * Intervalo reservado en la agenda de un veterinario
+     */
+    public static class Reserva {
+        private final long token;
+        private final Long idVeterinario;
+        private final LocalDateTime inicio;
+        private final LocalDateTime fin;
+        private volatile Long idCita;
+
+        private Reserva(long token, Long idVeterinario, LocalDateTime inicio, LocalDateTime fin) {
+            this.token = token;
+            this.idVeterinario = idVeterinario;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        public Long getIdVeterinario() {
+            return idVeterinario;
+        }
+
+        public LocalDateTime getInicio() {
+            return inicio;
+        }
+
+        public LocalDateTime getFin() {
+            return fin;
+        }
+
+        public Long getIdCita() {
+            return idCita;
+        }
+    }
+
+    /**
+     * Horario libre para agendar
+     */
+    public static class HorarioLibre {
+        private Long idVeterinario;
+        private String veterinario;
+        private String especialidad;
+        private LocalDateTime inicio;
+        private LocalDateTime fin;
+
+        public HorarioLibre(Veterinario veterinario, Long idVeterinario, LocalDateTime inicio, LocalDateTime fin) {
+            this.idVeterinario = idVeterinario;
+            if (veterinario != null) {
+                this.veterinario = veterinario.getNombres() + " " + veterinario.getApellidos();
+                this.especialidad = veterinario.getEspecialidad();
+            }
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        public Long getIdVeterinario() {
+            return idVeterinario;
+        }
+
+        public String getVeterinario() {
+            return veterinario;
+        }
+
+        public String getEspecialidad() {
+            return especialidad;
+        }
+
+        public LocalDateTime getInicio() {
+            return inicio;
+        }
+
+        public LocalDateTime getFin() {
+            return fin;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buzón en memoria que simula un servidor SMTP / pasarela SMS
+ * Para pruebas y corridas de carga: guarda los últimos mensajes recibidos,
+ * descarta duplicados por clave de idempotencia y puede simular latencia y errores.
+ */
+@Component
+public class BuzonSimulado {
+
+    @Value("${petsalud.notificaciones.simulador.latencia-ms:0}")
+    private long latenciaMs;
+
+    // Proporción de entregas que fallan (0.0 - 1.0)
+    @Value("${petsalud.notificaciones.simulador.tasa-error:0.0}")
+    private double tasaError;
+
+    @Value("${petsalud.notificaciones.simulador.capacidad:500}")
+    private int capacidad;
+
+    private final Deque<MensajeRecibido> recientes = new ArrayDeque<>();
+    private final Set<String> clavesRecibidas = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> recibidosPorCanal = new ConcurrentHashMap<>();
+    private final AtomicLong duplicados = new AtomicLong();
+
+    /**
+     * Recibir un mensaje como lo haría el proveedor externo
+     */
+    public void recibir(NotificacionOutbox mensaje) throws InterruptedException {
+        if (latenciaMs > 0) {
+            Thread.sleep(latenciaMs);
+        }
+        if (tasaError > 0 && ThreadLocalRandom.current().nextDouble() < tasaError) {
+            throw new IllegalStateException("Error simulado del proveedor " + mensaje.getCanal());
+        }
+        String clave = mensaje.getClaveIdempotencia();
+        if (clave != null && !clavesRecibidas.add(clave)) {
+            duplicados.incrementAndGet();
+            return;
+        }
+        recibidosPorCanal.computeIfAbsent(mensaje.getCanal(), k -> new AtomicLong()).incrementAndGet();
+        synchronized (recientes) {
+            recientes.addFirst(new MensajeRecibido(mensaje.getCanal(), mensaje.getDestino(),
+                    mensaje.getAsunto(), mensaje.getMensaje(), clave));
+            while (recientes.size() > capacidad) {
+                MensajeRecibido antiguo = recientes.removeLast();
+                if (antiguo.getClave() != null) {
+                    clavesRecibidas.remove(antiguo.getClave());
+                }
+            }
+        }
+    }
+
+    /**
+     * Últimos mensajes recibidos (más recientes primero)
+     */
+    public List<MensajeRecibido> obtenerRecientes(int limite) {
+        synchronized (recientes) {
+            List<MensajeRecibido> resultado = new ArrayList<>();
+            Iterator<MensajeRecibido> it = recientes.iterator();
+            while (it.hasNext() && resultado.size() < limite) {
+                resultado.add(it.next());
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Mensajes recibidos por canal
+     */
+    public Map<String, Long> obtenerTotales() {
+        Map<String, Long> totales = new TreeMap<>();
+        recibidosPorCanal.forEach((canal, total) -> totales.put(canal, total.get()));
+        totales.put("DUPLICADOS", duplicados.get());
+        return totales;
+    }
+
+    /**
+     * Vaciar el buzón
+     */
+    public void limpiar() {
+        synchronized (recientes) {
+            recientes.clear();
+            clavesRecibidas.clear();
+        }
+        recibidosPorCanal.clear();
+        duplicados.set(0);
+    }
+
+    /**
+     * Mensaje recibido por el buzón
+     */
+    public static class MensajeRecibido {
+        private final String canal;
+        private final String destino;
+        private final String asunto;
+        private final String mensaje;
+        private final String clave;
+        private final LocalDateTime fecha = LocalDateTime.now();
+
+        public MensajeRecibido(String canal, String destino, String asunto, String mensaje, String clave) {
+            this.canal = canal;
+            this.destino = destino;
+            this.asunto = asunto;
+            this.mensaje = mensaje;
+            this.clave = clave;
+        }
+
+        public String getCanal() {
+            return canal;
+        }
+
+        public String getDestino() {
+            return destino;
+        }
+
+        public String getAsunto() {
+            return asunto;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+
+        public String getClave() {
+            return clave;
+        }
+
+        public LocalDateTime getFecha() {
+            return fecha;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canal de email
+ * Con petsalud.notificaciones.email.enabled=false solo se registra en el log (simulado);
+ * habilitado entrega al buzón simulado (petsalud.notificaciones.simulador.enabled) hasta configurar un proveedor SMTP real.
+ */
+@Component
+public class CanalEmail implements CanalNotificacion {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalEmail.class);
+
+    @Autowired
+    private BuzonSimulado buzonSimulado;
+
+    @Value("${petsalud.notificaciones.email.enabled:false}")
+    private boolean habilitado;
+
+    @Value("${petsalud.notificaciones.simulador.enabled:false}")
+    private boolean simulador;
+
+    @Override
+    public String getNombre() {
+        return "EMAIL";
+    }
+
+    @Override
+    public void enviar(NotificacionOutbox mensaje) throws Exception {
+        if (!habilitado) {
+            logger.info("EMAIL a {} ({}): {} - {}", mensaje.getDestino(),
+                    mensaje.getDestinatarioTipo(), mensaje.getAsunto(), mensaje.getMensaje());
+            return;
+        }
+        if (!simulador) {
+            throw new IllegalStateException("No hay proveedor SMTP configurado");
+        }
+        buzonSimulado.recibir(mensaje);
+    }
+}
@@ -0,0 +1,21 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+
+/**
+ * Canal de entrega de notificaciones (email, SMS, webhook)
+ * Cada implementación se registra como bean; CanalesNotificacion le añade
+ * limitación de tasa, pool de conexiones y circuit breaker.
+ */
+public interface CanalNotificacion {
+
+    /**
+     * Nombre del canal tal como se guarda en la bandeja de salida (EMAIL, SMS, WEBHOOK)
+     */
+    String getNombre();
+
+    /**
+     * Entregar un mensaje; cualquier excepción se considera un fallo reintentable
+     */
+    void enviar(NotificacionOutbox mensaje) throws Exception;
+}
@@ -0,0 +1,45 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canal de SMS
+ * Con petsalud.notificaciones.sms.enabled=false solo se registra en el log (simulado);
+ * habilitado entrega al buzón simulado (petsalud.notificaciones.simulador.enabled) hasta configurar una pasarela SMS real.
+ */
+@Component
+public class CanalSms implements CanalNotificacion {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalSms.class);
+
+    @Autowired
+    private BuzonSimulado buzonSimulado;
+
+    @Value("${petsalud.notificaciones.sms.enabled:false}")
+    private boolean habilitado;
+
+    @Value("${petsalud.notificaciones.simulador.enabled:false}")
+    private boolean simulador;
+
+    @Override
+    public String getNombre() {
+        return "SMS";
+    }
+
+    @Override
+    public void enviar(NotificacionOutbox mensaje) throws Exception {
+        if (!habilitado) {
+            logger.info("SMS a {}: {}", mensaje.getDestino(), mensaje.getMensaje());
+            return;
+        }
+        if (!simulador) {
+            throw new IllegalStateException("No hay proveedor SMS configurado");
+        }
+        buzonSimulado.recibir(mensaje);
+    }
+}
@@ -0,0 +1,62 @@
+package com.petsalud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petsalud.model.NotificacionOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Canal webhook: publica cada notificación como JSON (POST) en la URL configurada
+ * La cabecera Idempotency-Key permite al receptor descartar reintentos duplicados.
+ */
+@Component
+public class CanalWebhook implements CanalNotificacion {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${petsalud.notificaciones.webhook.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Override
+    public String getNombre() {
+        return "WEBHOOK";
+    }
+
+    @Override
+    public void enviar(NotificacionOutbox mensaje) throws Exception {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("tipo", mensaje.getTipo());
+        cuerpo.put("referencia", mensaje.getReferencia());
+        cuerpo.put("destinatarioTipo", mensaje.getDestinatarioTipo());
+        cuerpo.put("asunto", mensaje.getAsunto());
+        cuerpo.put("mensaje", mensaje.getMensaje());
+        cuerpo.put("fechaCreacion", String.valueOf(mensaje.getFechaCreacion()));
+
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(mensaje.getDestino()))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(cuerpo)));
+        if (mensaje.getClaveIdempotencia() != null) {
+            peticion.header("Idempotency-Key", mensaje.getClaveIdempotencia());
+        }
+
+        HttpResponse<Void> respuesta = httpClient.send(peticion.build(), HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Webhook respondió HTTP " + respuesta.statusCode());
+        }
+    }
+}
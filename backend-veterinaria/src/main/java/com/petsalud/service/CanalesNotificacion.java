@@ -0,0 +1,439 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de canales de notificación
+ * Envuelve cada CanalNotificacion con:
+ * - un limitador token bucket (mensajes por segundo con ráfaga),
+ * - un pool acotado de conexiones simultáneas,
+ * - un circuit breaker que deja de llamar al proveedor tras fallos consecutivos.
+ *
+ * La configuración es por canal: petsalud.notificaciones.canal.{email|sms|webhook}.*
+ * Los rechazos por estos límites lanzan EntregaRechazada: el mensaje no llegó al proveedor y
+ * el despachador lo reprograma sin contar un intento.
+ */
+@Component
+public class CanalesNotificacion {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalesNotificacion.class);
+
+    // Tope de hilos de una corrida de carga (el parámetro llega del API)
+    public static final int MAX_HILOS_PRUEBA = 32;
+
+    @Autowired
+    private List<CanalNotificacion> canales;
+
+    @Autowired
+    private BuzonSimulado buzonSimulado;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Duración máxima de una corrida de carga (el API puede pedir menos, no más)
+    @Value("${petsalud.notificaciones.prueba-carga.segundos-maximos:30}")
+    private int segundosMaximosPrueba;
+
+    private final Map<String, CanalProtegido> protegidos = new ConcurrentHashMap<>();
+    private final AtomicBoolean corridaEnCurso = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        for (CanalNotificacion canal : canales) {
+            CanalProtegido protegido = crear(canal.getNombre(), canal::enviar);
+            protegidos.put(canal.getNombre(), protegido);
+            registrarMetricas(protegido);
+        }
+        logger.info("Canales de notificación registrados: {}", protegidos.keySet());
+    }
+
+    /**
+     * Entregar un mensaje por su canal aplicando límites y circuit breaker
+     */
+    public void entregar(NotificacionOutbox mensaje) throws Exception {
+        CanalProtegido canal = protegidos.get(mensaje.getCanal());
+        if (canal == null) {
+            throw new IllegalArgumentException("Canal de notificación no registrado: " + mensaje.getCanal());
+        }
+        canal.entregar(mensaje);
+    }
+
+    /**
+     * Estado de cada canal (circuito, tokens, conexiones, contadores)
+     */
+    public List<Map<String, Object>> obtenerEstado() {
+        List<Map<String, Object>> estado = new ArrayList<>();
+        for (CanalProtegido canal : new TreeMap<>(protegidos).values()) {
+            estado.add(canal.resumen());
+        }
+        return estado;
+    }
+
+    /**
+     * Corrida de carga: envía mensajes sintéticos al buzón simulado con los mismos
+     * límites del canal (sin afectar su circuito real) y mide mensajes por segundo
+     *
+     * La corrida termina al enviar la cantidad pedida o al cumplirse el tiempo máximo
+     * (lo que ocurra primero); al vencer el plazo se interrumpen los envíos en curso.
+     * Solo se permite una corrida a la vez (IllegalStateException si ya hay una).
+     */
+    public Map<String, Object> medirRendimiento(String nombreCanal, int cantidad, int hilos, Integer segundos)
+            throws InterruptedException {
+        String nombre = nombreCanal.toUpperCase();
+        if (!protegidos.containsKey(nombre)) {
+            throw new IllegalArgumentException("Canal de notificación no registrado: " + nombreCanal);
+        }
+        if (!corridaEnCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una corrida de carga en curso");
+        }
+        try {
+            return ejecutarCorrida(nombre, cantidad, hilos, segundos);
+        } finally {
+            corridaEnCurso.set(false);
+        }
+    }
+
+    private Map<String, Object> ejecutarCorrida(String nombre, int cantidad, int hilos, Integer segundos)
+            throws InterruptedException {
+        CanalProtegido prueba = crear(nombre, buzonSimulado::recibir);
+        String corrida = UUID.randomUUID().toString();
+
+        int hilosEfectivos = Math.min(Math.max(1, hilos), MAX_HILOS_PRUEBA);
+        int segundosEfectivos = segundos == null || segundos <= 0 ? segundosMaximosPrueba
+                : Math.min(segundos, segundosMaximosPrueba);
+        ExecutorService pool = Executors.newFixedThreadPool(hilosEfectivos);
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicLong exitosos = new AtomicLong();
+        AtomicLong fallidos = new AtomicLong();
+        AtomicLong rechazados = new AtomicLong();
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.SECONDS.toNanos(segundosEfectivos);
+        boolean completa;
+        try {
+            for (int h = 0; h < hilosEfectivos; h++) {
+                pool.execute(() -> {
+                    int i;
+                    while (System.nanoTime() < limite && !Thread.currentThread().isInterrupted()
+                            && (i = siguiente.getAndIncrement()) < cantidad) {
+                        NotificacionOutbox mensaje = new NotificacionOutbox();
+                        mensaje.setCanal(nombre);
+                        mensaje.setTipo("PRUEBA_CARGA");
+                        mensaje.setDestino("prueba-" + (i % 100));
+                        mensaje.setAsunto("Prueba de carga");
+                        mensaje.setMensaje("Mensaje de prueba " + i);
+                        mensaje.setClaveIdempotencia("PRUEBA|" + corrida + "|" + i);
+                        try {
+                            prueba.entregar(mensaje);
+                            exitosos.incrementAndGet();
+                        } catch (EntregaRechazada e) {
+                            rechazados.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (Exception e) {
+                            fallidos.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            // Margen para que los envíos en curso terminen su espera del limitador
+            long restante = limite - System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prueba.esperaMs);
+            completa = pool.awaitTermination(Math.max(restante, 0), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!pool.isTerminated()) {
+                pool.shutdownNow();
+            }
+        }
+        if (!completa) {
+            logger.warn("Corrida de carga del canal {} interrumpida al vencer {} s", nombre, segundosEfectivos);
+        }
+        double transcurridos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        long procesados = exitosos.get() + fallidos.get() + rechazados.get();
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("canal", nombre);
+        resultado.put("mensajes", cantidad);
+        resultado.put("hilos", hilosEfectivos);
+        resultado.put("segundosMaximos", segundosEfectivos);
+        resultado.put("completa", completa && procesados == cantidad);
+        resultado.put("exitosos", exitosos.get());
+        resultado.put("rechazados", rechazados.get());
+        resultado.put("fallidos", fallidos.get());
+        resultado.put("noEnviados", Math.max(0, cantidad - procesados));
+        resultado.put("segundos", Math.round(transcurridos * 1000) / 1000.0);
+        resultado.put("mensajesPorSegundo", transcurridos > 0 ? Math.round(exitosos.get() / transcurridos) : exitosos.get());
+        return resultado;
+    }
+
+    // ==================== Métodos internos ====================
+
+    private CanalProtegido crear(String nombre, Entrega entrega) {
+        String prefijo = "petsalud.notificaciones.canal." + nombre.toLowerCase() + ".";
+        double tasa = environment.getProperty(prefijo + "tasa-por-segundo", Double.class, 20.0);
+        int rafaga = environment.getProperty(prefijo + "rafaga", Integer.class, 40);
+        int conexiones = environment.getProperty(prefijo + "conexiones", Integer.class, 4);
+        long esperaMs = environment.getProperty(prefijo + "espera-maxima-ms", Long.class, 5000L);
+        int umbralFallos = environment.getProperty(prefijo + "umbral-fallos", Integer.class, 5);
+        long aperturaMs = environment.getProperty(prefijo + "apertura-ms", Long.class, 30000L);
+        return new CanalProtegido(nombre, entrega, new TokenBucket(tasa, rafaga), conexiones, esperaMs,
+                new CircuitBreaker(umbralFallos, aperturaMs));
+    }
+
+    private void registrarMetricas(CanalProtegido canal) {
+        canal.enviados = Counter.builder("petsalud.notificaciones.canal.enviados")
+                .tag("canal", canal.nombre).register(meterRegistry);
+        canal.errores = Counter.builder("petsalud.notificaciones.canal.errores")
+                .tag("canal", canal.nombre).register(meterRegistry);
+        canal.rechazados = Counter.builder("petsalud.notificaciones.canal.rechazados")
+                .description("Entregas rechazadas por límite de tasa, pool lleno o circuito abierto")
+                .tag("canal", canal.nombre).register(meterRegistry);
+        canal.duracion = Timer.builder("petsalud.notificaciones.canal.duracion")
+                .tag("canal", canal.nombre).register(meterRegistry);
+        Gauge.builder("petsalud.notificaciones.canal.circuito.abierto", canal.circuito,
+                        c -> c.estaAbierto() ? 1 : 0)
+                .tag("canal", canal.nombre).register(meterRegistry);
+    }
+
+    /**
+     * Entrega no intentada por límite de tasa, pool lleno o circuito abierto
+     */
+    public static class EntregaRechazada extends RuntimeException {
+        public EntregaRechazada(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    /**
+     * Función de entrega subyacente de un canal
+     */
+    @FunctionalInterface
+    private interface Entrega {
+        void enviar(NotificacionOutbox mensaje) throws Exception;
+    }
+
+    /**
+     * Canal con limitación de tasa, pool de conexiones y circuit breaker
+     */
+    private static class CanalProtegido {
+        private final String nombre;
+        private final Entrega entrega;
+        private final TokenBucket limitador;
+        private final Semaphore conexiones;
+        private final int maxConexiones;
+        private final long esperaMs;
+        private final CircuitBreaker circuito;
+
+        private final AtomicLong totalEnviados = new AtomicLong();
+        private final AtomicLong totalErrores = new AtomicLong();
+        private final AtomicLong totalRechazados = new AtomicLong();
+
+        private Counter enviados;
+        private Counter errores;
+        private Counter rechazados;
+        private Timer duracion;
+
+        private CanalProtegido(String nombre, Entrega entrega, TokenBucket limitador, int maxConexiones,
+                               long esperaMs, CircuitBreaker circuito) {
+            this.nombre = nombre;
+            this.entrega = entrega;
+            this.limitador = limitador;
+            this.conexiones = new Semaphore(maxConexiones, true);
+            this.maxConexiones = maxConexiones;
+            this.esperaMs = esperaMs;
+            this.circuito = circuito;
+        }
+
+        private void entregar(NotificacionOutbox mensaje) throws Exception {
+            if (!circuito.permitir()) {
+                rechazar();
+                throw new EntregaRechazada("Circuito abierto para el canal " + nombre);
+            }
+            boolean conexion = false;
+            try {
+                if (!limitador.adquirir(esperaMs)) {
+                    rechazar();
+                    throw new EntregaRechazada("Límite de envíos alcanzado en el canal " + nombre);
+                }
+                conexion = conexiones.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+                if (!conexion) {
+                    rechazar();
+                    throw new EntregaRechazada("Sin conexiones libres en el canal " + nombre);
+                }
+
+                long inicio = System.nanoTime();
+                try {
+                    entrega.enviar(mensaje);
+                } catch (Exception e) {
+                    circuito.registrarFallo();
+                    totalErrores.incrementAndGet();
+                    if (errores != null) {
+                        errores.increment();
+                    }
+                    throw e;
+                }
+                circuito.registrarExito();
+                totalEnviados.incrementAndGet();
+                if (enviados != null) {
+                    enviados.increment();
+                    duracion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            } finally {
+                if (conexion) {
+                    conexiones.release();
+                }
+                circuito.liberarPrueba();
+            }
+        }
+
+        private void rechazar() {
+            totalRechazados.incrementAndGet();
+            if (rechazados != null) {
+                rechazados.increment();
+            }
+        }
+
+        private Map<String, Object> resumen() {
+            Map<String, Object> resumen = new LinkedHashMap<>();
+            resumen.put("canal", nombre);
+            resumen.put("circuito", circuito.getEstado());
+            resumen.put("tokensDisponibles", Math.floor(limitador.disponibles()));
+            resumen.put("conexionesEnUso", maxConexiones - conexiones.availablePermits());
+            resumen.put("maxConexiones", maxConexiones);
+            resumen.put("enviados", totalEnviados.get());
+            resumen.put("errores", totalErrores.get());
+            resumen.put("rechazados", totalRechazados.get());
+            return resumen;
+        }
+    }
+
+    /**
+     * Limitador token bucket: "tasa" tokens por segundo con capacidad "rafaga"
+     */
+    private static class TokenBucket {
+        private final double tasaPorNano;
+        private final double capacidad;
+        private double tokens;
+        private long ultimaRecarga;
+
+        private TokenBucket(double tasaPorSegundo, int rafaga) {
+            this.tasaPorNano = tasaPorSegundo / 1_000_000_000.0;
+            this.capacidad = Math.max(1, rafaga);
+            this.tokens = capacidad;
+            this.ultimaRecarga = System.nanoTime();
+        }
+
+        /**
+         * Tomar un token esperando como máximo esperaMs
+         */
+        private boolean adquirir(long esperaMs) throws InterruptedException {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+            while (true) {
+                long espera;
+                synchronized (this) {
+                    recargar();
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return true;
+                    }
+                    espera = (long) Math.ceil((1 - tokens) / tasaPorNano);
+                }
+                if (System.nanoTime() + espera > limite) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.sleep(espera);
+            }
+        }
+
+        private synchronized double disponibles() {
+            recargar();
+            return tokens;
+        }
+
+        private void recargar() {
+            long ahora = System.nanoTime();
+            tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * tasaPorNano);
+            ultimaRecarga = ahora;
+        }
+    }
+
+    /**
+     * Circuit breaker: se abre tras "umbral" fallos consecutivos y, pasado el tiempo
+     * de apertura, deja pasar una única llamada de prueba (semiabierto)
+     */
+    private static class CircuitBreaker {
+        private final int umbral;
+        private final long aperturaNanos;
+        private final AtomicInteger fallosConsecutivos = new AtomicInteger();
+        private final AtomicBoolean pruebaEnCurso = new AtomicBoolean(false);
+        private final ThreadLocal<Boolean> esPrueba = ThreadLocal.withInitial(() -> false);
+        private volatile long abiertoHasta = 0;
+
+        private CircuitBreaker(int umbral, long aperturaMs) {
+            this.umbral = Math.max(1, umbral);
+            this.aperturaNanos = TimeUnit.MILLISECONDS.toNanos(aperturaMs);
+        }
+
+        private boolean permitir() {
+            if (fallosConsecutivos.get() < umbral) {
+                return true;
+            }
+            if (System.nanoTime() < abiertoHasta) {
+                return false;
+            }
+            // Semiabierto: solo una llamada de prueba a la vez
+            if (pruebaEnCurso.compareAndSet(false, true)) {
+                esPrueba.set(true);
+                return true;
+            }
+            return false;
+        }
+
+        private void registrarExito() {
+            fallosConsecutivos.set(0);
+        }
+
+        private void registrarFallo() {
+            if (fallosConsecutivos.incrementAndGet() >= umbral) {
+                abiertoHasta = System.nanoTime() + aperturaNanos;
+            }
+        }
+
+        private void liberarPrueba() {
+            if (esPrueba.get()) {
+                esPrueba.set(false);
+                pruebaEnCurso.set(false);
+            }
+        }
+
+        private boolean estaAbierto() {
+            return fallosConsecutivos.get() >= umbral;
+        }
+
+        private String getEstado() {
+            if (fallosConsecutivos.get() < umbral) {
+                return "CERRADO";
+            }
+            return System.nanoTime() < abiertoHasta ? "ABIERTO" : "SEMIABIERTO";
+        }
+    }
+}
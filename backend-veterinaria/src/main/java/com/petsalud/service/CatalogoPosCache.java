@@ -0,0 +1,472 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Factura;
+import com.petsalud.model.Inventario;
+import com.petsalud.repository.InventarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Catálogo en memoria para el punto de venta, por código de barras
+ *
+ * - Lectura directa: un código que no está en memoria se lee de la BD y queda en el catálogo.
+ * - Invalidación en escritura: InventarioService quita el producto después de cada commit que
+ *   cambia su stock, precio o estado; la siguiente lectura trae el valor vigente.
+ * - Vencimiento por entrada: la invalidación solo llega a esta instancia, así que cada registro
+ *   se vuelve a leer de la BD pasados ttl-segundos (los cambios hechos en otras instancias se ven
+ *   como máximo con ese retraso).
+ * - Los registros son compactos (precio en céntimos, stock y categoría de IGV) y viven en una
+ *   tabla de direccionamiento abierto, sin un objeto por entrada.
+ */
+@Component
+public class CatalogoPosCache {
+
+    public static final String GRAVADO = "GRAVADO";
+    public static final String EXONERADO = "EXONERADO";
+    public static final String INAFECTO = "INAFECTO";
+
+    private static final String[] CATEGORIAS_IGV = {GRAVADO, EXONERADO, INAFECTO};
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${petsalud.inventario.pos.capacidad-maxima:50000}")
+    private int capacidadMaxima;
+
+    // 0 = sin vencimiento (solo invalidación local; válido con una única instancia)
+    @Value("${petsalud.inventario.pos.ttl-segundos:30}")
+    private long ttlSegundos;
+
+    private final StampedLock lock = new StampedLock();
+    private TablaAbierta tabla = new TablaAbierta(1024);
+
+    // idInventario -> código en el catálogo (para invalidar aunque cambie el código)
+    private final Map<Long, String> codigoPorId = new ConcurrentHashMap<>();
+
+    // Cambia con cada invalidación: una lectura de BD iniciada antes no se guarda
+    private final AtomicLong generacion = new AtomicLong();
+
+    private Counter aciertos;
+    private Counter fallos;
+    private Timer latencia;
+
+    @PostConstruct
+    public void init() {
+        aciertos = Counter.builder("petsalud.inventario.pos.aciertos")
+                .description("Lecturas del catálogo resueltas en memoria")
+                .register(meterRegistry);
+        fallos = Counter.builder("petsalud.inventario.pos.fallos")
+                .description("Lecturas del catálogo que consultaron la base de datos")
+                .register(meterRegistry);
+        latencia = Timer.builder("petsalud.inventario.pos.latencia")
+                .description("Tiempo de cada consulta al catálogo (un código o un carrito)")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.inventario.pos.productos", this, CatalogoPosCache::tamanio)
+                .description("Productos en el catálogo en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buscar un producto por código
+     */
+    public ProductoPos buscar(String codigo) {
+        long inicio = System.nanoTime();
+        try {
+            ProductoPos producto = leer(codigo);
+            if (producto != null) {
+                aciertos.increment();
+                return producto;
+            }
+            fallos.increment();
+            long vista = generacion.get();
+            long leido = System.nanoTime();
+            Inventario inventario = inventarioRepository.findByCodigo(codigo);
+            if (inventario == null || Boolean.FALSE.equals(inventario.getActivo())) {
+                return null;
+            }
+            return guardar(inventario, vista, leido);
+        } finally {
+            latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Buscar todos los códigos de un carrito (los que faltan se leen en una sola consulta)
+     * Devuelve código -> producto; los códigos inexistentes no aparecen.
+     */
+    public Map<String, ProductoPos> buscarVarios(Collection<String> codigos) {
+        long inicio = System.nanoTime();
+        try {
+            Map<String, ProductoPos> encontrados = new LinkedHashMap<>();
+            Set<String> faltantes = new LinkedHashSet<>();
+            for (String codigo : codigos) {
+                if (encontrados.containsKey(codigo) || faltantes.contains(codigo)) {
+                    continue;
+                }
+                ProductoPos producto = leer(codigo);
+                if (producto != null) {
+                    encontrados.put(codigo, producto);
+                } else {
+                    faltantes.add(codigo);
+                }
+            }
+            aciertos.increment(encontrados.size());
+            fallos.increment(faltantes.size());
+
+            if (!faltantes.isEmpty()) {
+                long vista = generacion.get();
+                long leido = System.nanoTime();
+                for (Inventario inventario : inventarioRepository.findByCodigoIn(faltantes)) {
+                    if (!Boolean.FALSE.equals(inventario.getActivo())) {
+                        encontrados.put(inventario.getCodigo(), guardar(inventario, vista, leido));
+                    }
+                }
+            }
+            return encontrados;
+        } finally {
+            latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Consultar un carrito completo: cada código escaneado suma una unidad
+     * Devuelve las líneas con precio, stock disponible e IGV según la categoría del producto.
+     */
+    public Map<String, Object> consultarCarrito(List<String> codigos) {
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        for (String codigo : codigos) {
+            if (codigo != null && !codigo.trim().isEmpty()) {
+                cantidades.merge(codigo.trim(), 1, Integer::sum);
+            }
+        }
+        Map<String, ProductoPos> productos = buscarVarios(cantidades.keySet());
+
+        List<Map<String, Object>> lineas = new ArrayList<>();
+        List<String> noEncontrados = new ArrayList<>();
+        Dinero.Acumulador subtotal = new Dinero.Acumulador();
+        Dinero.Acumulador gravado = new Dinero.Acumulador();
+        boolean stockSuficiente = true;
+        for (Map.Entry<String, Integer> item : cantidades.entrySet()) {
+            ProductoPos producto = productos.get(item.getKey());
+            if (producto == null) {
+                noEncontrados.add(item.getKey());
+                continue;
+            }
+            Dinero importe = producto.getPrecioVenta().multiplicar(item.getValue());
+            subtotal.agregar(importe);
+            if (producto.isGravado()) {
+                gravado.agregar(importe);
+            }
+            boolean disponible = producto.getStock() >= item.getValue();
+            stockSuficiente &= disponible;
+
+            Map<String, Object> linea = new LinkedHashMap<>();
+            linea.put("producto", producto);
+            linea.put("cantidad", item.getValue());
+            linea.put("importe", importe);
+            linea.put("stockSuficiente", disponible);
+            lineas.add(linea);
+        }
+
+        Dinero igv = gravado.total().porcentaje(Factura.TASA_IGV);
+        Map<String, Object> carrito = new LinkedHashMap<>();
+        carrito.put("lineas", lineas);
+        carrito.put("noEncontrados", noEncontrados);
+        carrito.put("subtotal", subtotal.total());
+        carrito.put("igv", igv);
+        carrito.put("total", subtotal.total().sumar(igv));
+        carrito.put("stockSuficiente", stockSuficiente);
+        return carrito;
+    }
+
+    /**
+     * Quitar un producto del catálogo (después del commit que lo modificó)
+     */
+    public void invalidar(Long idInventario) {
+        generacion.incrementAndGet();
+        String codigo = codigoPorId.remove(idInventario);
+        if (codigo != null) {
+            long sello = lock.writeLock();
+            try {
+                tabla.quitar(codigo);
+            } finally {
+                lock.unlockWrite(sello);
+            }
+        }
+    }
+
+    /**
+     * Vaciar el catálogo
+     */
+    public void limpiar() {
+        generacion.incrementAndGet();
+        long sello = lock.writeLock();
+        try {
+            tabla = new TablaAbierta(1024);
+            codigoPorId.clear();
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Aciertos, fallos y latencia del catálogo
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        double hits = aciertos.count();
+        double total = hits + fallos.count();
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("productos", tamanio());
+        estadisticas.put("aciertos", (long) hits);
+        estadisticas.put("fallos", (long) fallos.count());
+        estadisticas.put("tasaAciertos", total == 0 ? 0.0 : hits / total);
+        estadisticas.put("consultas", latencia.count());
+        estadisticas.put("latenciaPromedioMs", latencia.mean(TimeUnit.MILLISECONDS));
+        estadisticas.put("latenciaMaximaMs", latencia.max(TimeUnit.MILLISECONDS));
+        return estadisticas;
+    }
+
+    // ==================== Métodos internos ====================
+
+    private int tamanio() {
+        return tabla.tamanio;
+    }
+
+    /**
+     * Lectura optimista: sin bloqueo salvo que una escritura ocurra al mismo tiempo
+     * Un registro vencido cuenta como ausente (se vuelve a leer de la BD y se reemplaza).
+     */
+    private ProductoPos leer(String codigo) {
+        long sello = lock.tryOptimisticRead();
+        TablaAbierta actual = tabla;
+        int i = actual.indice(codigo);
+        ProductoPos producto = i < 0 || vencido(actual.cargados[i]) ? null : actual.producto(i);
+        if (!lock.validate(sello)) {
+            sello = lock.readLock();
+            try {
+                i = tabla.indice(codigo);
+                producto = i < 0 || vencido(tabla.cargados[i]) ? null : tabla.producto(i);
+            } finally {
+                lock.unlockRead(sello);
+            }
+        }
+        return producto;
+    }
+
+    private boolean vencido(long cargado) {
+        return ttlSegundos > 0 && System.nanoTime() - cargado > TimeUnit.SECONDS.toNanos(ttlSegundos);
+    }
+
+    /**
+     * Guardar un producto leído de la BD, salvo que haya habido invalidaciones mientras se leía
+     * El vencimiento se cuenta desde el inicio de la lectura ('leido', System.nanoTime()).
+     */
+    private ProductoPos guardar(Inventario inventario, long vista, long leido) {
+        long precio = Dinero.de(inventario.getPrecioVenta()).getCentimos();
+        int stock = inventario.getStockActual() != null ? inventario.getStockActual() : 0;
+        byte categoria = categoriaIgv(inventario.getCategoriaIgv());
+
+        long sello = lock.writeLock();
+        try {
+            if (generacion.get() == vista) {
+                if (tabla.tamanio >= capacidadMaxima && tabla.indice(inventario.getCodigo()) < 0) {
+                    // Catálogo lleno: se reinicia en lugar de desalojar entrada por entrada
+                    tabla = new TablaAbierta(1024);
+                    codigoPorId.clear();
+                }
+                tabla = tabla.poner(inventario.getCodigo(), inventario.getIdInventario(), inventario.getNombre(),
+                        precio, stock, categoria, leido);
+                codigoPorId.put(inventario.getIdInventario(), inventario.getCodigo());
+            }
+        } finally {
+            lock.unlockWrite(sello);
+        }
+        return new ProductoPos(inventario.getIdInventario(), inventario.getCodigo(), inventario.getNombre(),
+                precio, stock, CATEGORIAS_IGV[categoria]);
+    }
+
+    private byte categoriaIgv(String categoria) {
+        if (EXONERADO.equalsIgnoreCase(categoria)) return 1;
+        if (INAFECTO.equalsIgnoreCase(categoria)) return 2;
+        return 0;
+    }
+
+    /**
+     * Tabla de direccionamiento abierto (sondeo lineal) con columnas paralelas
+     * Se reemplaza por una el doble de grande al superar el 70% de ocupación.
+     */
+    private static class TablaAbierta {
+        private final String[] codigos;
+        private final long[] ids;
+        private final String[] nombres;
+        private final long[] precios;
+        private final int[] stocks;
+        private final byte[] categorias;
+        private final long[] cargados;
+        private final int mascara;
+        private int tamanio;
+
+        private TablaAbierta(int capacidad) {
+            codigos = new String[capacidad];
+            ids = new long[capacidad];
+            nombres = new String[capacidad];
+            precios = new long[capacidad];
+            stocks = new int[capacidad];
+            categorias = new byte[capacidad];
+            cargados = new long[capacidad];
+            mascara = capacidad - 1;
+        }
+
+        private int posicion(String codigo) {
+            int h = codigo.hashCode();
+            return (h ^ (h >>> 16)) & mascara;
+        }
+
+        /**
+         * Posición del código en la tabla, o -1 si no está
+         */
+        private int indice(String codigo) {
+            for (int i = posicion(codigo); ; i = (i + 1) & mascara) {
+                String actual = codigos[i];
+                if (actual == null) {
+                    return -1;
+                }
+                if (actual.equals(codigo)) {
+                    return i;
+                }
+            }
+        }
+
+        private ProductoPos producto(int i) {
+            return new ProductoPos(ids[i], codigos[i], nombres[i], precios[i], stocks[i], CATEGORIAS_IGV[categorias[i]]);
+        }
+
+        /**
+         * Insertar o reemplazar; devuelve la tabla a usar (otra si hubo que crecer)
+         */
+        private TablaAbierta poner(String codigo, long id, String nombre, long precio, int stock, byte categoria,
+                                   long cargado) {
+            if ((tamanio + 1) * 10 > codigos.length * 7) {
+                TablaAbierta mayor = new TablaAbierta(codigos.length * 2);
+                for (int i = 0; i < codigos.length; i++) {
+                    if (codigos[i] != null) {
+                        mayor.poner(codigos[i], ids[i], nombres[i], precios[i], stocks[i], categorias[i], cargados[i]);
+                    }
+                }
+                return mayor.poner(codigo, id, nombre, precio, stock, categoria, cargado);
+            }
+            int i = posicion(codigo);
+            while (codigos[i] != null && !codigos[i].equals(codigo)) {
+                i = (i + 1) & mascara;
+            }
+            if (codigos[i] == null) {
+                tamanio++;
+            }
+            ids[i] = id;
+            nombres[i] = nombre;
+            precios[i] = precio;
+            stocks[i] = stock;
+            categorias[i] = categoria;
+            cargados[i] = cargado;
+            codigos[i] = codigo;
+            return this;
+        }
+
+        /**
+         * Quitar con desplazamiento hacia atrás (sin marcas de borrado)
+         */
+        private void quitar(String codigo) {
+            int i = posicion(codigo);
+            while (codigos[i] != null && !codigos[i].equals(codigo)) {
+                i = (i + 1) & mascara;
+            }
+            if (codigos[i] == null) {
+                return;
+            }
+            codigos[i] = null;
+            nombres[i] = null;
+            tamanio--;
+            for (int j = (i + 1) & mascara; codigos[j] != null; j = (j + 1) & mascara) {
+                int ideal = posicion(codigos[j]);
+                // La entrada j puede ocupar el hueco i si su posición ideal no está entre i (excl.) y j (incl.)
+                if (((j - ideal) & mascara) >= ((j - i) & mascara)) {
+                    codigos[i] = codigos[j];
+                    ids[i] = ids[j];
+                    nombres[i] = nombres[j];
+                    precios[i] = precios[j];
+                    stocks[i] = stocks[j];
+                    categorias[i] = categorias[j];
+                    cargados[i] = cargados[j];
+                    codigos[j] = null;
+                    nombres[j] = null;
+                    i = j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Producto tal como lo necesita el punto de venta
+     */
+    public static class ProductoPos {
+        private final Long idInventario;
+        private final String codigo;
+        private final String nombre;
+        private final Dinero precioVenta;
+        private final int stock;
+        private final String categoriaIgv;
+
+        private ProductoPos(long idInventario, String codigo, String nombre, long precioCentimos, int stock, String categoriaIgv) {
+            this.idInventario = idInventario;
+            this.codigo = codigo;
+            this.nombre = nombre;
+            this.precioVenta = Dinero.deCentimos(precioCentimos);
+            this.stock = stock;
+            this.categoriaIgv = categoriaIgv;
+        }
+
+        public Long getIdInventario() {
+            return idInventario;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public Dinero getPrecioVenta() {
+            return precioVenta;
+        }
+
+        public int getStock() {
+            return stock;
+        }
+
+        public String getCategoriaIgv() {
+            return categoriaIgv;
+        }
+
+        public boolean isGravado() {
+            return GRAVADO.equals(categoriaIgv);
+        }
+    }
+}
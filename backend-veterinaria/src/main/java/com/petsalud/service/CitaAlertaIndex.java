@@ -0,0 +1,315 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Cita;
+import com.petsalud.repository.CitaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice en memoria de citas activas agrupadas por franjas de tiempo
+ * Permite resolver las alertas (críticas, próximas, del día) sin consultar la BD
+ *
+ * El índice cubre una ventana acotada [inicio del día, hoy + ventanaDias].
+ * Las escrituras de CitaService lo mantienen actualizado después del commit.
+ */
+@Component
+public class CitaAlertaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CitaAlertaIndex.class);
+
+    private static final Comparator<Cita> POR_FECHA_HORA =
+            Comparator.comparing(Cita::getFechaHora).thenComparing(Cita::getIdCita);
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.citas.alertas.ventana-dias:7}")
+    private int ventanaDias;
+
+    @Value("${petsalud.citas.alertas.franja-minutos:15}")
+    private int franjaMinutos;
+
+    // Franja (minutos desde epoch / franjaMinutos) -> citas de esa franja
+    private final ConcurrentSkipListMap<Long, Map<Long, Cita>> franjas = new ConcurrentSkipListMap<>();
+
+    // idCita -> franja en la que está registrada
+    private final Map<Long, Long> franjaPorCita = new ConcurrentHashMap<>();
+
+    // Citas eliminadas mientras se carga un tramo (evita reinsertar versiones obsoletas)
+    private final Set<Long> eliminadasDuranteCarga = new HashSet<>();
+
+    private final Object lock = new Object();
+
+    private volatile boolean cargado = false;
+    private volatile boolean cargando = false;
+    private volatile LocalDateTime inicioVentana;
+    private volatile LocalDateTime finVentana;
+
+    /**
+     * Carga inicial del índice al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarInicial() {
+        LocalDateTime inicio = LocalDate.now().atStartOfDay();
+        LocalDateTime fin = inicio.plusDays(ventanaDias + 1L);
+        synchronized (lock) {
+            franjas.clear();
+            franjaPorCita.clear();
+            inicioVentana = inicio;
+            finVentana = fin;
+        }
+        try {
+            cargarTramo(inicio, fin);
+            cargado = true;
+            logger.info("Índice de alertas de citas cargado: {} citas entre {} y {}",
+                    franjaPorCita.size(), inicio, fin);
+        } catch (Exception e) {
+            logger.warn("No se pudo cargar el índice de alertas de citas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Avanzar la ventana: descartar franjas de días anteriores y cargar el nuevo horizonte
+     */
+    @Scheduled(initialDelayString = "${petsalud.citas.alertas.avance-ms:900000}",
+               fixedDelayString = "${petsalud.citas.alertas.avance-ms:900000}")
+    public void avanzarVentana() {
+        if (!cargado) {
+            cargarInicial();
+            return;
+        }
+
+        LocalDateTime nuevoInicio = LocalDate.now().atStartOfDay();
+        LocalDateTime nuevoFin = nuevoInicio.plusDays(ventanaDias + 1L);
+
+        synchronized (lock) {
+            NavigableMap<Long, Map<Long, Cita>> antiguas = franjas.headMap(franja(nuevoInicio), false);
+            for (Map<Long, Cita> citas : antiguas.values()) {
+                citas.keySet().forEach(franjaPorCita::remove);
+            }
+            antiguas.clear();
+            inicioVentana = nuevoInicio;
+        }
+
+        LocalDateTime finAnterior = finVentana;
+        if (nuevoFin.isAfter(finAnterior)) {
+            // Ampliar primero la ventana para que las escrituras concurrentes del tramo se indexen
+            finVentana = nuevoFin;
+            try {
+                cargarTramo(finAnterior, nuevoFin);
+            } catch (Exception e) {
+                // Se vuelve a consultar la BD hasta la próxima recarga completa
+                cargado = false;
+                logger.warn("No se pudo ampliar el índice de alertas de citas: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registrar el estado actual de una cita (ya confirmada en BD)
+     */
+    public void actualizar(Cita cita) {
+        if (cita == null || cita.getIdCita() == null) {
+            return;
+        }
+        synchronized (lock) {
+            quitar(cita.getIdCita());
+            if (debeIndexarse(cita)) {
+                insertar(cita);
+            } else if (cargando) {
+                eliminadasDuranteCarga.add(cita.getIdCita());
+            }
+        }
+    }
+
+    /**
+     * Volver a leer una cita desde la BD (en una transacción nueva) y actualizar el índice
+     * Retorna la cita leída, o null si ya no existe o no se pudo leer
+     */
+    public Cita refrescar(Long idCita) {
+        if (idCita == null) {
+            return null;
+        }
+        try {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.setReadOnly(true);
+            Cita cita = template.execute(status -> citaRepository.findConDetalleById(idCita));
+            if (cita != null) {
+                actualizar(cita);
+            } else {
+                eliminar(idCita);
+            }
+            return cita;
+        } catch (Exception e) {
+            // Ante un fallo se invalida el índice para no servir datos desactualizados
+            cargado = false;
+            logger.warn("No se pudo refrescar la cita {} en el índice de alertas: {}", idCita, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reflejar en las citas indexadas un marcado masivo de recordatorios
+     */
+    public void marcarRecordatoriosEnviados(Collection<Long> idsCitas) {
+        for (Long idCita : idsCitas) {
+            Long clave = franjaPorCita.get(idCita);
+            Map<Long, Cita> citas = clave != null ? franjas.get(clave) : null;
+            Cita cita = citas != null ? citas.get(idCita) : null;
+            if (cita != null) {
+                cita.setRecordatorioEnviado(true);
+            }
+        }
+    }
+
+    /**
+     * Quitar una cita del índice
+     */
+    public void eliminar(Long idCita) {
+        synchronized (lock) {
+            quitar(idCita);
+            if (cargando) {
+                eliminadasDuranteCarga.add(idCita);
+            }
+        }
+    }
+
+    /**
+     * Indica si el índice puede responder consultas
+     */
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /**
+     * Citas activas cuya fecha está en [desde, hasta], ordenadas por fecha
+     */
+    public List<Cita> buscarEntre(LocalDateTime desde, LocalDateTime hasta) {
+        List<Cita> resultado = new ArrayList<>();
+        for (Map<Long, Cita> citas : franjas.subMap(franja(desde), true, franja(hasta), true).values()) {
+            for (Cita cita : citas.values()) {
+                LocalDateTime fecha = cita.getFechaHora();
+                if (!fecha.isBefore(desde) && !fecha.isAfter(hasta)) {
+                    resultado.add(cita);
+                }
+            }
+        }
+        resultado.sort(POR_FECHA_HORA);
+        return resultado;
+    }
+
+    /**
+     * Citas críticas (próxima hora)
+     */
+    public List<Cita> obtenerCriticas(LocalDateTime ahora) {
+        return buscarEntre(ahora, ahora.plusHours(1));
+    }
+
+    /**
+     * Citas en las próximas 6 horas
+     */
+    public List<Cita> obtenerProximasSeisHoras(LocalDateTime ahora) {
+        return buscarEntre(ahora, ahora.plusHours(6));
+    }
+
+    /**
+     * Citas en las próximas 24 horas
+     */
+    public List<Cita> obtenerProximas(LocalDateTime ahora) {
+        return buscarEntre(ahora, ahora.plusHours(24));
+    }
+
+    /**
+     * Citas activas del día
+     */
+    public List<Cita> obtenerDelDia(LocalDate fecha) {
+        return buscarEntre(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay().minusNanos(1));
+    }
+
+    /**
+     * Cantidad de citas indexadas
+     */
+    public int tamanio() {
+        return franjaPorCita.size();
+    }
+
+    // ==================== Métodos internos ====================
+
+    private void cargarTramo(LocalDateTime desde, LocalDateTime hasta) {
+        synchronized (lock) {
+            cargando = true;
+            eliminadasDuranteCarga.clear();
+        }
+        try {
+            List<Cita> citas = citaRepository.findCitasActivasEnVentana(desde, hasta);
+            synchronized (lock) {
+                for (Cita cita : citas) {
+                    // Las escrituras confirmadas durante la carga tienen prioridad
+                    if (!franjaPorCita.containsKey(cita.getIdCita())
+                            && !eliminadasDuranteCarga.contains(cita.getIdCita())) {
+                        insertar(cita);
+                    }
+                }
+            }
+        } finally {
+            synchronized (lock) {
+                cargando = false;
+                eliminadasDuranteCarga.clear();
+            }
+        }
+    }
+
+    private boolean debeIndexarse(Cita cita) {
+        LocalDateTime inicio = inicioVentana;
+        LocalDateTime fin = finVentana;
+        return cita.getFechaHora() != null
+                && !"CANCELADA".equalsIgnoreCase(cita.getEstado())
+                && inicio != null && fin != null
+                && !cita.getFechaHora().isBefore(inicio)
+                && cita.getFechaHora().isBefore(fin);
+    }
+
+    private void insertar(Cita cita) {
+        long clave = franja(cita.getFechaHora());
+        franjas.computeIfAbsent(clave, k -> new ConcurrentHashMap<>()).put(cita.getIdCita(), cita);
+        franjaPorCita.put(cita.getIdCita(), clave);
+    }
+
+    private void quitar(Long idCita) {
+        Long clave = franjaPorCita.remove(idCita);
+        if (clave != null) {
+            Map<Long, Cita> citas = franjas.get(clave);
+            if (citas != null) {
+                citas.remove(idCita);
+                if (citas.isEmpty()) {
+                    franjas.remove(clave);
+                }
+            }
+        }
+    }
+
+    private long franja(LocalDateTime fecha) {
+        long minutos = fecha.toEpochSecond(ZoneOffset.UTC) / 60;
+        return Math.floorDiv(minutos, franjaMinutos);
+    }
+}
@@ -2,13 +2,16 @@ package com.petsalud.service;
 
 import com.petsalud.model.Cita;
 import com.petsalud.repository.CitaRepository;
+import com.petsalud.util.TransaccionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Servicio para gestión de Citas
@@ -21,6 +24,15 @@ public class CitaService {
     @Autowired
     private CitaRepository citaRepository;
 
+    @Autowired
+    private CitaAlertaIndex citaAlertaIndex;
+
+    @Autowired
+    private AgendaVeterinarioIndex agendaVeterinarioIndex;
+
+    @Autowired
+    private EventoHub eventoHub;
+
     /**
      * Listar todas las citas
      */
@@ -68,6 +80,9 @@ public class CitaService {
      */
     public List<Cita> obtenerCitasProximas() {
         LocalDateTime ahora = LocalDateTime.now();
+        if (citaAlertaIndex.estaCargado()) {
+            return citaAlertaIndex.obtenerProximas(ahora);
+        }
         LocalDateTime limite = ahora.plusHours(24);
         return citaRepository.findCitasProximas(ahora, limite);
     }
@@ -77,29 +92,54 @@ public class CitaService {
      */
     public List<Cita> obtenerCitasCriticas() {
         LocalDateTime ahora = LocalDateTime.now();
+        if (citaAlertaIndex.estaCargado()) {
+            return citaAlertaIndex.obtenerCriticas(ahora);
+        }
         LocalDateTime limite = ahora.plusHours(1);
         return citaRepository.findCitasCriticas(ahora, limite);
     }
 
     /**
-     * Obtener citas con alertas
+     * Obtener citas con alertas (próximas 24 horas, no canceladas)
      */
     public List<Cita> obtenerCitasConAlertas() {
-        List<Cita> todasCitas = citaRepository.findAll();
-        return todasCitas.stream()
-                .filter(Cita::necesitaAlerta)
-                .collect(Collectors.toList());
+        LocalDateTime ahora = LocalDateTime.now();
+        if (citaAlertaIndex.estaCargado()) {
+            return citaAlertaIndex.obtenerProximas(ahora);
+        }
+        return citaRepository.findCitasProximas(ahora, ahora.plusHours(24));
+    }
+
+    /**
+     * Obtener citas en las próximas 6 horas
+     */
+    public List<Cita> obtenerCitasSeisHoras() {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (citaAlertaIndex.estaCargado()) {
+            return citaAlertaIndex.obtenerProximasSeisHoras(ahora);
+        }
+        return citaRepository.findCitasProximas(ahora, ahora.plusHours(6));
     }
 
     /**
      * Obtener dashboard de alertas
+     * Las listas por tiempo salen del índice en memoria con un único "ahora"
      */
     public CitaAlertas obtenerDashboardAlertas() {
+        LocalDateTime ahora = LocalDateTime.now();
         CitaAlertas alertas = new CitaAlertas();
-        alertas.setCitasCriticas(obtenerCitasCriticas());
-        alertas.setCitasProximas(obtenerCitasProximas());
-        alertas.setCitasDelDia(obtenerCitasDelDia());
-        alertas.setCitasPendientesConfirmacion(citaRepository.findCitasPendientesConfirmacion(LocalDateTime.now()));
+        if (citaAlertaIndex.estaCargado()) {
+            alertas.setCitasCriticas(citaAlertaIndex.obtenerCriticas(ahora));
+            alertas.setCitasProximasSeisHoras(citaAlertaIndex.obtenerProximasSeisHoras(ahora));
+            alertas.setCitasProximas(citaAlertaIndex.obtenerProximas(ahora));
+            alertas.setCitasDelDia(citaAlertaIndex.obtenerDelDia(ahora.toLocalDate()));
+        } else {
+            alertas.setCitasCriticas(citaRepository.findCitasCriticas(ahora, ahora.plusHours(1)));
+            alertas.setCitasProximasSeisHoras(citaRepository.findCitasProximas(ahora, ahora.plusHours(6)));
+            alertas.setCitasProximas(citaRepository.findCitasProximas(ahora, ahora.plusHours(24)));
+            alertas.setCitasDelDia(citaRepository.findCitasDelDia(ahora));
+        }
+        alertas.setCitasPendientesConfirmacion(citaRepository.findCitasPendientesConfirmacion(ahora));
         return alertas;
     }
 
@@ -117,6 +157,9 @@ public class CitaService {
         if (cita.getMotivo() == null || cita.getMotivo().trim().isEmpty()) {
             throw new RuntimeException("El motivo de la cita es obligatorio");
         }
+        if (cita.getDuracionMinutos() != null && cita.getDuracionMinutos() <= 0) {
+            throw new RuntimeException("La duración de la cita debe ser mayor a 0");
+        }
 
         // Validar que la fecha no sea pasada
         if (cita.getFechaHora().isBefore(LocalDateTime.now()) && cita.getIdCita() == null) {
@@ -136,7 +179,27 @@ public class CitaService {
             }
         }
 
-        return citaRepository.save(cita);
+        // Reservar el horario del veterinario (rechaza cruces de forma atómica)
+        AgendaVeterinarioIndex.Reserva reserva = null;
+        if (cita.getVeterinario() != null && cita.getVeterinario().getIdVeterinario() != null
+                && !"CANCELADA".equalsIgnoreCase(cita.getEstado())) {
+            int duracion = cita.getDuracionMinutos() != null ? cita.getDuracionMinutos() : 30;
+            reserva = agendaVeterinarioIndex.reservar(cita.getVeterinario().getIdVeterinario(),
+                    cita.getIdCita(), cita.getFechaHora(), duracion);
+        }
+
+        Cita guardada;
+        try {
+            guardada = citaRepository.save(cita);
+        } catch (RuntimeException e) {
+            if (reserva != null) {
+                agendaVeterinarioIndex.descartar(reserva);
+            }
+            throw e;
+        }
+        actualizarAgendaAlFinalizar(reserva, guardada.getIdCita());
+        actualizarIndiceAlConfirmar(guardada.getIdCita());
+        return guardada;
     }
 
     /**
@@ -148,7 +211,9 @@ public class CitaService {
             throw new RuntimeException("Cita no encontrada");
         }
         cita.setEstado("CONFIRMADA");
-        return citaRepository.save(cita);
+        Cita actualizada = citaRepository.save(cita);
+        actualizarIndiceAlConfirmar(idCita);
+        return actualizada;
     }
 
     /**
@@ -164,7 +229,10 @@ public class CitaService {
             String obs = cita.getObservaciones() != null ? cita.getObservaciones() + "\n" : "";
             cita.setObservaciones(obs + "Cancelada: " + motivo);
         }
-        return citaRepository.save(cita);
+        Cita cancelada = citaRepository.save(cita);
+        TransaccionUtil.despuesDelCommit(() -> agendaVeterinarioIndex.liberar(idCita));
+        actualizarIndiceAlConfirmar(idCita);
+        return cancelada;
     }
 
     /**
@@ -176,7 +244,9 @@ public class CitaService {
             throw new RuntimeException("Cita no encontrada");
         }
         cita.setEstado("COMPLETADA");
-        return citaRepository.save(cita);
+        Cita actualizada = citaRepository.save(cita);
+        actualizarIndiceAlConfirmar(idCita);
+        return actualizada;
     }
 
     /**
@@ -184,6 +254,11 @@ public class CitaService {
      */
     public void eliminar(Long id) {
         citaRepository.deleteById(id);
+        TransaccionUtil.despuesDelCommit(() -> {
+            agendaVeterinarioIndex.liberar(id);
+            citaAlertaIndex.eliminar(id);
+            eventoHub.publicar(EventoHub.TOPICO_CITAS, "CITA_ELIMINADA", id, Map.of("idCita", id));
+        });
     }
 
     /**
@@ -193,14 +268,91 @@ public class CitaService {
         Cita cita = obtenerPorId(idCita);
         if (cita != null) {
             cita.setRecordatorioEnviado(true);
-            return citaRepository.save(cita);
+            Cita actualizada = citaRepository.save(cita);
+            actualizarIndiceAlConfirmar(idCita);
+            return actualizada;
         }
         return null;
     }
 
+    /**
+     * Próximos horarios libres de un veterinario
+     */
+    public List<AgendaVeterinarioIndex.HorarioLibre> obtenerHorariosLibres(Long idVeterinario, LocalDateTime desde,
+                                                                          int cantidad, int duracionMinutos) {
+        return agendaVeterinarioIndex.proximosHorariosLibres(idVeterinario, desdeOAhora(desde), cantidad, duracionMinutos);
+    }
+
+    /**
+     * Próximos horarios libres entre los veterinarios de una especialidad
+     */
+    public List<AgendaVeterinarioIndex.HorarioLibre> obtenerHorariosLibresPorEspecialidad(String especialidad, LocalDateTime desde,
+                                                                                         int cantidad, int duracionMinutos) {
+        return agendaVeterinarioIndex.proximosHorariosLibresPorEspecialidad(especialidad, desdeOAhora(desde), cantidad, duracionMinutos);
+    }
+
+    private LocalDateTime desdeOAhora(LocalDateTime desde) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return desde == null || desde.isBefore(ahora) ? ahora : desde;
+    }
+
+    /**
+     * Marcar varios recordatorios como enviados con un único UPDATE
+     */
+    public int marcarRecordatoriosEnviados(List<Long> idsCitas) {
+        if (idsCitas == null || idsCitas.isEmpty()) {
+            return 0;
+        }
+        int actualizadas = citaRepository.marcarRecordatoriosEnviados(idsCitas);
+        TransaccionUtil.despuesDelCommit(() -> citaAlertaIndex.marcarRecordatoriosEnviados(idsCitas));
+        return actualizadas;
+    }
+
+    /**
+     * Refrescar la cita en el índice de alertas y notificar a los tableros una vez confirmada la transacción
+     */
+    private void actualizarIndiceAlConfirmar(Long idCita) {
+        TransaccionUtil.despuesDelCommit(() -> {
+            Cita cita = citaAlertaIndex.refrescar(idCita);
+            if (cita != null) {
+                eventoHub.publicar(EventoHub.TOPICO_CITAS, "CITA_ACTUALIZADA", idCita, cita);
+            }
+        });
+    }
+
+    /**
+     * Confirmar o descartar la reserva de agenda según el resultado de la transacción
+     */
+    private void actualizarAgendaAlFinalizar(AgendaVeterinarioIndex.Reserva reserva, Long idCita) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirmarAgenda(reserva, idCita);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    confirmarAgenda(reserva, idCita);
+                } else if (reserva != null) {
+                    agendaVeterinarioIndex.descartar(reserva);
+                }
+            }
+        });
+    }
+
+    private void confirmarAgenda(AgendaVeterinarioIndex.Reserva reserva, Long idCita) {
+        if (reserva != null) {
+            agendaVeterinarioIndex.confirmar(reserva, idCita);
+        } else {
+            // Cita cancelada o sin veterinario: ya no ocupa horario
+            agendaVeterinarioIndex.liberar(idCita);
+        }
+    }
+
     // Clase interna para dashboard de alertas
     public static class CitaAlertas {
         private List<Cita> citasCriticas;
+        private List<Cita> citasProximasSeisHoras;
         private List<Cita> citasProximas;
         private List<Cita> citasDelDia;
         private List<Cita> citasPendientesConfirmacion;
@@ -213,6 +365,14 @@ public class CitaService {
             this.citasCriticas = citasCriticas;
         }
 
+        public List<Cita> getCitasProximasSeisHoras() {
+            return citasProximasSeisHoras;
+        }
+
+        public void setCitasProximasSeisHoras(List<Cita> citasProximasSeisHoras) {
+            this.citasProximasSeisHoras = citasProximasSeisHoras;
+        }
+
         public List<Cita> getCitasProximas() {
             return citasProximas;
         }
@@ -0,0 +1,567 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.LineaConciliada;
+import com.petsalud.repository.FacturaRepository;
+import com.petsalud.repository.LineaConciliadaRepository;
+import com.petsalud.repository.MovimientoPagoRepository;
+import com.petsalud.repository.PagoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Conciliación de extractos bancarios y de billeteras (Yape/Plin) contra pagos y facturas
+ *
+ * - Los documentos con saldo se indexan una vez por corrida: por número (PAG-..., F2025-...)
+ *   y por saldo en céntimos.
+ * - Cada extracto de la carpeta de entrada se lee en streaming y se concilia en una sola pasada:
+ *   primero por referencia, luego por monto (con tolerancia) dentro de una ventana de fechas.
+ * - Las líneas se leen en lotes (tamanio-lote) y las claves ya conciliadas del lote se buscan con
+ *   una sola consulta. Cada coincidencia se aplica en su propia transacción (registrarPago /
+ *   marcar factura pagada) junto con su línea conciliada y su clave: si el proceso se detiene a
+ *   mitad de un extracto, volver a procesarlo no duplica abonos ni deja abonos sin clave.
+ * - Lo que no concilia se escribe en un reporte de discrepancias (CSV) junto al resultado.
+ */
+@Service
+public class ConciliacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConciliacionService.class);
+
+    public static final String TIPO_PAGO = "PAGO";
+    public static final String TIPO_FACTURA = "FACTURA";
+
+    private static final int MAX_RESULTADOS = 20;
+    private static final int MAX_DISCREPANCIAS_RESPUESTA = 100;
+    private static final DateTimeFormatter SELLO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private LectorExtractos lectorExtractos;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private LineaConciliadaRepository lineaConciliadaRepository;
+
+    @Autowired
+    private MovimientoPagoRepository movimientoPagoRepository;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private FacturaService facturaService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.conciliacion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${petsalud.conciliacion.carpeta:./conciliacion}")
+    private String carpeta;
+
+    @Value("${petsalud.conciliacion.tolerancia-centimos:0}")
+    private int toleranciaCentimos;
+
+    @Value("${petsalud.conciliacion.ventana-dias:10}")
+    private int ventanaDias;
+
+    @Value("${petsalud.conciliacion.tamanio-lote:500}")
+    private int tamanioLote;
+
+    private TransactionTemplate nuevaTransaccion;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private final Deque<Map<String, Object>> resultados = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() {
+        nuevaTransaccion = new TransactionTemplate(transactionManager);
+        nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Procesar la carpeta de entrada de forma programada
+     */
+    @Scheduled(cron = "${petsalud.conciliacion.cron:0 0 6 * * *}")
+    public void procesarProgramado() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            procesarCarpeta();
+        } catch (RuntimeException e) {
+            logger.error("Error en la conciliación de extractos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Conciliar todos los extractos de la carpeta de entrada
+     * Los archivos procesados se mueven a "procesados" y los reportes quedan en "reportes".
+     */
+    public List<Map<String, Object>> procesarCarpeta() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new RuntimeException("Ya hay una conciliación en ejecución");
+        }
+        try {
+            Path entrada = Paths.get(carpeta);
+            Path procesados = entrada.resolve("procesados");
+            Path reportes = entrada.resolve("reportes");
+            Files.createDirectories(procesados);
+            Files.createDirectories(reportes);
+
+            List<Path> archivos;
+            try (Stream<Path> listado = Files.list(entrada)) {
+                archivos = listado
+                        .filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().toLowerCase().matches(".*\\.(csv|txt|xlsx)$"))
+                        .sorted()
+                        .toList();
+            }
+            if (archivos.isEmpty()) {
+                return List.of();
+            }
+
+            // Un solo índice para toda la corrida: un documento no se concilia dos veces entre archivos
+            Indice indice = cargarIndice();
+            List<Map<String, Object>> corrida = new ArrayList<>();
+            for (Path archivo : archivos) {
+                Map<String, Object> resultado = conciliarArchivo(archivo, indice, reportes);
+                corrida.add(resultado);
+                registrarResultado(resultado);
+                if (!resultado.containsKey("error")) {
+                    Files.move(archivo, procesados.resolve(LocalDateTime.now().format(SELLO) + "-" + archivo.getFileName()),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return corrida;
+        } catch (IOException e) {
+            throw new RuntimeException("Error al acceder a la carpeta de conciliación: " + e.getMessage(), e);
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    /**
+     * Resultados de las últimas conciliaciones
+     */
+    public List<Map<String, Object>> listarResultados() {
+        synchronized (resultados) {
+            return new ArrayList<>(resultados);
+        }
+    }
+
+    // ==================== Índice ====================
+
+    private Indice cargarIndice() {
+        Indice indice = new Indice();
+        for (Object[] fila : pagoRepository.findAbiertosParaConciliar()) {
+            Dinero monto = (Dinero) fila[2];
+            Dinero pagado = fila[3] != null ? (Dinero) fila[3] : Dinero.CERO;
+            indice.agregar(new Candidato(TIPO_PAGO, (Long) fila[0], (String) fila[1],
+                    monto.restar(pagado), (LocalDate) fila[4], (LocalDate) fila[5]));
+        }
+        for (Object[] fila : facturaRepository.findPendientesParaConciliar()) {
+            indice.agregar(new Candidato(TIPO_FACTURA, (Long) fila[0], (String) fila[1],
+                    (Dinero) fila[2], (LocalDate) fila[3], (LocalDate) fila[4]));
+        }
+        return indice;
+    }
+
+    // ==================== Conciliación ====================
+
+    private Map<String, Object> conciliarArchivo(Path archivo, Indice indice, Path reportes) {
+        long inicio = System.currentTimeMillis();
+        String nombre = archivo.getFileName().toString();
+        Resumen resumen = new Resumen(nombre, metodoPara(nombre));
+        List<LectorExtractos.Linea> lote = new ArrayList<>();
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("archivo", nombre);
+        try {
+            int filas = lectorExtractos.leer(archivo, linea -> {
+                lote.add(linea);
+                if (lote.size() >= tamanioLote) {
+                    procesarLote(lote, indice, resumen);
+                    lote.clear();
+                }
+            });
+            procesarLote(lote, indice, resumen);
+            resultado.put("filas", filas);
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudo conciliar el extracto {}: {}", nombre, e.getMessage());
+            resultado.put("error", e.getMessage());
+        }
+
+        resultado.put("abonos", resumen.abonos);
+        resultado.put("conciliadas", resumen.conciliadas);
+        resultado.put("yaConciliadas", resumen.yaConciliadas);
+        resultado.put("montoConciliado", resumen.montoConciliado.total());
+        resultado.put("discrepancias", resumen.discrepancias.size());
+        resultado.put("reporte", escribirReporte(reportes, nombre, resumen.discrepancias));
+        resultado.put("detalleDiscrepancias", resumen.discrepancias.subList(0,
+                Math.min(MAX_DISCREPANCIAS_RESPUESTA, resumen.discrepancias.size())));
+        resultado.put("duracionMs", System.currentTimeMillis() - inicio);
+        resultado.put("fecha", LocalDateTime.now());
+        logger.info("Extracto {} conciliado: {} de {} abonos, {} discrepancias",
+                nombre, resumen.conciliadas, resumen.abonos, resumen.discrepancias.size());
+        return resultado;
+    }
+
+    /**
+     * Emparejar un lote de líneas contra el índice y aplicar las coincidencias
+     */
+    private void procesarLote(List<LectorExtractos.Linea> lineas, Indice indice, Resumen resumen) {
+        if (lineas.isEmpty()) {
+            return;
+        }
+        Map<LectorExtractos.Linea, String> claves = new LinkedHashMap<>();
+        for (LectorExtractos.Linea linea : lineas) {
+            if (linea.getError() == null) {
+                claves.put(linea, resumen.clavePara(linea));
+            }
+        }
+        Set<String> existentes = new HashSet<>();
+        if (!claves.isEmpty()) {
+            existentes.addAll(lineaConciliadaRepository.findClavesExistentes(claves.values()));
+            existentes.addAll(movimientoPagoRepository.findClavesExistentes(claves.values()));
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        for (LectorExtractos.Linea linea : lineas) {
+            resumen.abonos++;
+            if (linea.getError() != null) {
+                resumen.discrepancia(linea, "FILA_INVALIDA", linea.getError());
+                continue;
+            }
+            String clave = claves.get(linea);
+            if (existentes.contains(clave)) {
+                resumen.yaConciliadas++;
+                continue;
+            }
+            Coincidencia coincidencia = emparejar(linea, clave, indice, resumen);
+            if (coincidencia != null) {
+                coincidencias.add(coincidencia);
+            }
+        }
+        aplicar(coincidencias, indice, resumen);
+    }
+
+    private Coincidencia emparejar(LectorExtractos.Linea linea, String clave, Indice indice, Resumen resumen) {
+        Dinero monto = linea.getMonto();
+
+        // 1. Por referencia (número de pago o de factura en la referencia o la glosa)
+        Candidato porReferencia = indice.buscarPorNumero(linea.getReferencia() + " " + linea.getDescripcion());
+        if (porReferencia != null) {
+            if (!porReferencia.saldo.esPositivo()) {
+                resumen.discrepancia(linea, "DUPLICADO", porReferencia.numero + " ya fue conciliado en esta corrida");
+                return null;
+            }
+            long diferencia = monto.getCentimos() - porReferencia.saldo.getCentimos();
+            if (diferencia > toleranciaCentimos) {
+                resumen.discrepancia(linea, "SOBREPAGO", porReferencia.numero + " tiene saldo " + porReferencia.saldo);
+                return null;
+            }
+            if (TIPO_FACTURA.equals(porReferencia.tipo) && -diferencia > toleranciaCentimos) {
+                resumen.discrepancia(linea, "PAGO_PARCIAL_FACTURA", porReferencia.numero + " tiene saldo " + porReferencia.saldo);
+                return null;
+            }
+            return reservar(linea, clave, porReferencia, indice);
+        }
+
+        // 2. Por monto dentro de la ventana de fechas
+        List<Candidato> cercanos = indice.buscarPorMonto(monto, toleranciaCentimos, linea.getFecha(), ventanaDias);
+        if (cercanos.isEmpty()) {
+            resumen.discrepancia(linea, "SIN_COINCIDENCIA", "Sin documento pendiente por " + monto);
+            return null;
+        }
+        if (cercanos.size() > 1 && cercanos.get(0).distancia(linea.getFecha()) == cercanos.get(1).distancia(linea.getFecha())) {
+            resumen.discrepancia(linea, "AMBIGUO", cercanos.get(0).numero + ", " + cercanos.get(1).numero
+                    + (cercanos.size() > 2 ? " y otros" : ""));
+            return null;
+        }
+        return reservar(linea, clave, cercanos.get(0), indice);
+    }
+
+    private Coincidencia reservar(LectorExtractos.Linea linea, String clave, Candidato candidato, Indice indice) {
+        Dinero aplicado = candidato.saldo.min(linea.getMonto());
+        if (TIPO_FACTURA.equals(candidato.tipo)) {
+            aplicado = candidato.saldo;
+        }
+        indice.descontar(candidato, aplicado);
+        return new Coincidencia(linea, clave, candidato, aplicado);
+    }
+
+    /**
+     * Aplicar las coincidencias del lote; cada línea conciliada se guarda en la transacción de su abono
+     * Si la aplicación falla, el saldo reservado vuelve al candidato (otra línea puede conciliarlo).
+     */
+    private void aplicar(List<Coincidencia> coincidencias, Indice indice, Resumen resumen) {
+        for (Coincidencia c : coincidencias) {
+            LineaConciliada linea = c.aLinea(resumen.archivo);
+            try {
+                if (TIPO_PAGO.equals(c.candidato.tipo)) {
+                    pagoService.registrarPago(c.candidato.id, c.monto, resumen.metodoPago, c.clave,
+                            () -> lineaConciliadaRepository.save(linea));
+                } else {
+                    nuevaTransaccion.executeWithoutResult(status -> {
+                        facturaService.marcarComoPagada(c.candidato.id);
+                        lineaConciliadaRepository.save(linea);
+                    });
+                }
+                resumen.conciliadas++;
+                resumen.montoConciliado.agregar(c.monto);
+            } catch (RuntimeException e) {
+                indice.devolver(c.candidato, c.monto);
+                resumen.discrepancia(c.linea, "ERROR_APLICACION", c.candidato.numero + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // ==================== Métodos internos ====================
+
+    private String metodoPara(String archivo) {
+        String nombre = archivo.toLowerCase();
+        if (nombre.contains("yape")) return "YAPE";
+        if (nombre.contains("plin")) return "PLIN";
+        return "TRANSFERENCIA";
+    }
+
+    private String escribirReporte(Path reportes, String archivo, List<Map<String, Object>> discrepancias) {
+        if (discrepancias.isEmpty()) {
+            return null;
+        }
+        Path reporte = reportes.resolve(archivo.replaceAll("\\.[^.]+$", "") + "-discrepancias-"
+                + LocalDateTime.now().format(SELLO) + ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(reporte, StandardCharsets.UTF_8)) {
+            writer.write("fila,fecha,monto,referencia,tipo,detalle");
+            writer.newLine();
+            for (Map<String, Object> d : discrepancias) {
+                writer.write(d.get("fila") + "," + valor(d.get("fecha")) + "," + valor(d.get("monto")) + ","
+                        + csv(d.get("referencia")) + "," + d.get("tipo") + "," + csv(d.get("detalle")));
+                writer.newLine();
+            }
+            return reporte.toString();
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir el reporte de discrepancias: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String valor(Object valor) {
+        return valor != null ? valor.toString() : "";
+    }
+
+    private String csv(Object valor) {
+        return "\"" + valor(valor).replace("\"", "\"\"") + "\"";
+    }
+
+    private void registrarResultado(Map<String, Object> resultado) {
+        synchronized (resultados) {
+            resultados.addFirst(resultado);
+            while (resultados.size() > MAX_RESULTADOS) {
+                resultados.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Documento con saldo pendiente
+     */
+    private static class Candidato {
+        private final String tipo;
+        private final Long id;
+        private final String numero;
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private Dinero saldo;
+
+        private Candidato(String tipo, Long id, String numero, Dinero saldo, LocalDate emision, LocalDate vencimiento) {
+            this.tipo = tipo;
+            this.id = id;
+            this.numero = numero;
+            this.saldo = saldo;
+            this.desde = emision != null ? emision : LocalDate.now();
+            this.hasta = vencimiento != null && vencimiento.isAfter(this.desde) ? vencimiento : this.desde;
+        }
+
+        /**
+         * Días entre la fecha del abono y el periodo emisión-vencimiento del documento
+         */
+        private long distancia(LocalDate fecha) {
+            if (fecha.isBefore(desde)) return ChronoUnit.DAYS.between(fecha, desde);
+            if (fecha.isAfter(hasta)) return ChronoUnit.DAYS.between(hasta, fecha);
+            return 0;
+        }
+    }
+
+    /**
+     * Índices en memoria por número de documento y por saldo (céntimos)
+     */
+    private static class Indice {
+        private final Map<String, Candidato> porNumero = new HashMap<>();
+        private final Map<Long, List<Candidato>> porMonto = new HashMap<>();
+
+        private void agregar(Candidato candidato) {
+            if (!candidato.saldo.esPositivo()) {
+                return;
+            }
+            if (candidato.numero != null) {
+                porNumero.put(normalizarNumero(candidato.numero), candidato);
+            }
+            porMonto.computeIfAbsent(candidato.saldo.getCentimos(), k -> new ArrayList<>()).add(candidato);
+        }
+
+        private Candidato buscarPorNumero(String texto) {
+            for (String token : texto.split("[^A-Za-z0-9-]+")) {
+                String numero = normalizarNumero(token);
+                if (numero.length() >= 4) {
+                    Candidato candidato = porNumero.get(numero);
+                    if (candidato != null) {
+                        return candidato;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Candidatos con saldo dentro de la tolerancia y fecha dentro de la ventana, del más cercano al más lejano
+         */
+        private List<Candidato> buscarPorMonto(Dinero monto, int tolerancia, LocalDate fecha, int ventana) {
+            List<Candidato> encontrados = new ArrayList<>();
+            for (long c = monto.getCentimos() - tolerancia; c <= monto.getCentimos() + tolerancia; c++) {
+                for (Candidato candidato : porMonto.getOrDefault(c, List.of())) {
+                    if (candidato.distancia(fecha) <= ventana) {
+                        encontrados.add(candidato);
+                    }
+                }
+            }
+            encontrados.sort(Comparator.comparingLong(candidato -> candidato.distancia(fecha)));
+            return encontrados;
+        }
+
+        private void descontar(Candidato candidato, Dinero aplicado) {
+            ajustarSaldo(candidato, candidato.saldo.restar(aplicado));
+        }
+
+        /**
+         * Reponer un monto descontado cuyo abono no se pudo aplicar
+         */
+        private void devolver(Candidato candidato, Dinero aplicado) {
+            ajustarSaldo(candidato, candidato.saldo.sumar(aplicado));
+        }
+
+        private void ajustarSaldo(Candidato candidato, Dinero saldo) {
+            List<Candidato> lista = porMonto.get(candidato.saldo.getCentimos());
+            if (lista != null) {
+                lista.remove(candidato);
+            }
+            candidato.saldo = saldo;
+            if (candidato.saldo.esPositivo()) {
+                porMonto.computeIfAbsent(candidato.saldo.getCentimos(), k -> new ArrayList<>()).add(candidato);
+            }
+        }
+
+        private static String normalizarNumero(String numero) {
+            return numero.replaceAll("[^A-Za-z0-9]", "").toUpperCase();
+        }
+    }
+
+    /**
+     * Línea del extracto emparejada con un documento
+     */
+    private static class Coincidencia {
+        private final LectorExtractos.Linea linea;
+        private final String clave;
+        private final Candidato candidato;
+        private final Dinero monto;
+
+        private Coincidencia(LectorExtractos.Linea linea, String clave, Candidato candidato, Dinero monto) {
+            this.linea = linea;
+            this.clave = clave;
+            this.candidato = candidato;
+            this.monto = monto;
+        }
+
+        private LineaConciliada aLinea(String archivo) {
+            LineaConciliada conciliada = new LineaConciliada();
+            conciliada.setClave(clave);
+            conciliada.setArchivo(archivo);
+            conciliada.setFila(linea.getFila());
+            conciliada.setFechaMovimiento(linea.getFecha());
+            conciliada.setMonto(monto);
+            String referencia = linea.getReferencia();
+            conciliada.setReferencia(referencia != null && referencia.length() > 100 ? referencia.substring(0, 100) : referencia);
+            conciliada.setTipoDocumento(candidato.tipo);
+            conciliada.setIdDocumento(candidato.id);
+            conciliada.setFechaConciliacion(LocalDateTime.now());
+            return conciliada;
+        }
+    }
+
+    /**
+     * Acumulados y discrepancias de un archivo
+     */
+    private static class Resumen {
+        private final String archivo;
+        private final String metodoPago;
+        private final Map<String, Integer> ocurrencias = new HashMap<>();
+        private final List<Map<String, Object>> discrepancias = new ArrayList<>();
+        private final Dinero.Acumulador montoConciliado = new Dinero.Acumulador();
+        private int abonos;
+        private int conciliadas;
+        private int yaConciliadas;
+
+        private Resumen(String archivo, String metodoPago) {
+            this.archivo = archivo;
+            this.metodoPago = metodoPago;
+        }
+
+        /**
+         * Clave estable de una línea: su contenido y cuántas líneas idénticas la preceden en el archivo
+         */
+        private String clavePara(LectorExtractos.Linea linea) {
+            String contenido = linea.getFecha() + "|" + linea.getMonto().getCentimos() + "|"
+                    + LectorExtractos.normalizar(linea.getReferencia()) + "|"
+                    + LectorExtractos.normalizar(linea.getDescripcion());
+            int ocurrencia = ocurrencias.merge(contenido, 1, Integer::sum);
+            return "CONC:" + UUID.nameUUIDFromBytes((contenido + "|" + ocurrencia).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void discrepancia(LectorExtractos.Linea linea, String tipo, String detalle) {
+            Map<String, Object> d = new LinkedHashMap<>();
+            d.put("fila", linea.getFila());
+            d.put("fecha", linea.getFecha());
+            d.put("monto", linea.getMonto());
+            d.put("referencia", linea.getReferencia());
+            d.put("tipo", tipo);
+            d.put("detalle", detalle);
+            discrepancias.add(d);
+        }
+    }
+}
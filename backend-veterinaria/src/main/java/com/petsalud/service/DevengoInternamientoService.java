@@ -0,0 +1,96 @@
+package com.petsalud.service;
+
+import com.petsalud.model.DevengoInternamiento;
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Pago;
+import com.petsalud.repository.DevengoInternamientoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Devengo diario del costo de internamientos
+ * Cada corrida registra en una sola sentencia el día cumplido de todos los internamientos activos
+ * y actualiza días y monto de sus pagos, de modo que las consultas leen el costo vigente sin recalcularlo.
+ */
+@Service
+@Transactional
+public class DevengoInternamientoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DevengoInternamientoService.class);
+
+    @Autowired
+    private DevengoInternamientoRepository devengoRepository;
+
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
+    @Value("${petsalud.internamientos.devengo.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Corrida programada
+     * Los días se cumplen a la hora de ingreso de cada mascota, por eso la corrida es horaria;
+     * cada internamiento se actualiza una sola vez por día cumplido.
+     */
+    @Scheduled(cron = "${petsalud.internamientos.devengo.cron:0 10 * * * *}")
+    public void devengoProgramado() {
+        if (enabled) {
+            devengar();
+        }
+    }
+
+    /**
+     * Devengar el día cumplido de los internamientos activos
+     */
+    public Map<String, Object> devengar() {
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        int registrados = devengoRepository.registrarDevengos(ahora);
+        int actualizados = registrados > 0 ? devengoRepository.aplicarDevengos(ahora) : 0;
+        if (registrados > 0) {
+            // Las cuentas por cobrar siguen al nuevo monto de cada pago devengado
+            for (Pago pago : devengoRepository.findPagosDevengados(ahora)) {
+                saldoDuenoService.sincronizarPago(pago);
+            }
+            logger.info("Devengo de internamientos: {} días registrados", registrados);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fecha", ahora);
+        resultado.put("devengosRegistrados", registrados);
+        resultado.put("pagosActualizados", actualizados);
+        return resultado;
+    }
+
+    /**
+     * Historial de devengos de un internamiento
+     */
+    @Transactional(readOnly = true)
+    public List<DevengoInternamiento> listarPorPago(Long idPago) {
+        return devengoRepository.findByIdPagoOrderByDiaAsc(idPago);
+    }
+
+    /**
+     * Internamientos activos y costo acumulado al último devengo
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerResumenActivos() {
+        Object[] fila = devengoRepository.resumirActivos().get(0);
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("internamientosActivos", fila[0]);
+        resumen.put("costoAcumulado", Dinero.de((Double) fila[1]));
+        resumen.put("costoDiario", Dinero.de((Double) fila[2]));
+        return resumen;
+    }
+}
@@ -19,6 +19,9 @@ public class DuenoService {
     @Autowired
     private DuenoRepository duenoRepository;
 
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
     /**
      * Listar todos los dueños
      */
@@ -79,6 +82,7 @@ public class DuenoService {
             if (!dueno.getMascotas().isEmpty()) {
                 throw new RuntimeException("No se puede eliminar el dueño porque tiene mascotas asociadas");
             }
+            saldoDuenoService.eliminarCuenta(id);
             duenoRepository.deleteById(id);
         }
     }
@@ -0,0 +1,310 @@
+package com.petsalud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central de eventos en tiempo real (Server-Sent Events)
+ * Un único flujo interno de cambios que se reparte a los clientes suscritos
+ *
+ * - Los eventos de un mismo tópico y entidad se fusionan (gana el último) dentro de
+ *   cada intervalo de envío.
+ * - Cada cliente tiene un buffer acotado; si se llena se descarta lo más antiguo y se
+ *   le envía un evento RESYNC para que vuelva a consultar el estado completo.
+ * - Los envíos (bloqueantes) se hacen en un pool propio, con a lo sumo un envío en curso por
+ *   cliente: un cliente lento no detiene el hilo de tareas programadas ni a los demás clientes.
+ */
+@Component
+public class EventoHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventoHub.class);
+
+    public static final String TOPICO_CITAS = "citas";
+    public static final String TOPICO_ORDENES = "ordenes";
+    public static final String TOPICO_INVENTARIO = "inventario";
+
+    public static final Set<String> TOPICOS = Set.of(TOPICO_CITAS, TOPICO_ORDENES, TOPICO_INVENTARIO);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${petsalud.eventos.buffer-cliente:256}")
+    private int bufferCliente;
+
+    @Value("${petsalud.eventos.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${petsalud.eventos.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    @Value("${petsalud.eventos.hilos-envio:4}")
+    private int hilosEnvio;
+
+    private ExecutorService envios;
+
+    // Eventos pendientes por tópico, fusionados por entidad (orden de llegada)
+    private final Map<String, LinkedHashMap<String, Evento>> pendientes = new HashMap<>();
+
+    private final List<Cliente> clientes = new CopyOnWriteArrayList<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private volatile long ultimoHeartbeat = System.currentTimeMillis();
+
+    private Counter publicados;
+    private Counter fusionados;
+    private Counter descartados;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(Math.max(1, hilosEnvio), r -> {
+            Thread hilo = new Thread(r, "eventos-sse-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        for (String topico : TOPICOS) {
+            pendientes.put(topico, new LinkedHashMap<>());
+        }
+        publicados = Counter.builder("petsalud.eventos.publicados").register(meterRegistry);
+        fusionados = Counter.builder("petsalud.eventos.fusionados").register(meterRegistry);
+        descartados = Counter.builder("petsalud.eventos.descartados").register(meterRegistry);
+        Gauge.builder("petsalud.eventos.clientes", clientes, List::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        envios.shutdownNow();
+    }
+
+    /**
+     * Suscribir un cliente a uno o más tópicos
+     */
+    public SseEmitter suscribir(Set<String> topicos) {
+        Set<String> validos = new HashSet<>(topicos);
+        validos.retainAll(TOPICOS);
+        if (validos.isEmpty()) {
+            validos.addAll(TOPICOS);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Cliente cliente = new Cliente(emitter, validos, bufferCliente);
+        clientes.add(cliente);
+
+        emitter.onCompletion(() -> clientes.remove(cliente));
+        emitter.onTimeout(() -> clientes.remove(cliente));
+        emitter.onError(e -> clientes.remove(cliente));
+
+        // Evento inicial para que el cliente cargue el estado completo
+        cliente.encolar(new Evento(secuencia.incrementAndGet(), "sistema", "RESYNC", null,
+                Map.of("topicos", validos)));
+        return emitter;
+    }
+
+    /**
+     * Publicar un cambio; no bloquea al llamador
+     *
+     * @param clave identificador de la entidad (los eventos con la misma clave se fusionan)
+     */
+    public void publicar(String topico, String tipo, Object clave, Object datos) {
+        LinkedHashMap<String, Evento> cola = pendientes.get(topico);
+        if (cola == null) {
+            throw new IllegalArgumentException("Tópico no válido: " + topico);
+        }
+        String claveFusion = tipo + ":" + clave;
+        Evento evento = new Evento(secuencia.incrementAndGet(), topico, tipo, clave, datos);
+        synchronized (cola) {
+            if (cola.remove(claveFusion) != null) {
+                fusionados.increment();
+            }
+            cola.put(claveFusion, evento);
+        }
+        publicados.increment();
+    }
+
+    /**
+     * Repartir los eventos fusionados a los clientes y enviarlos
+     */
+    @Scheduled(fixedDelayString = "${petsalud.eventos.intervalo-ms:500}")
+    public void despachar() {
+        List<Evento> lote = new ArrayList<>();
+        for (LinkedHashMap<String, Evento> cola : pendientes.values()) {
+            synchronized (cola) {
+                lote.addAll(cola.values());
+                cola.clear();
+            }
+        }
+        lote.sort(Comparator.comparingLong(Evento::getSecuencia));
+
+        long ahora = System.currentTimeMillis();
+        boolean heartbeat = ahora - ultimoHeartbeat >= heartbeatMs;
+        if (heartbeat) {
+            ultimoHeartbeat = ahora;
+        }
+
+        for (Cliente cliente : clientes) {
+            for (Evento evento : lote) {
+                if (cliente.topicos.contains(evento.getTopico())) {
+                    cliente.encolar(evento);
+                }
+            }
+            if (heartbeat) {
+                cliente.ping.set(true);
+            }
+            programarEnvio(cliente);
+        }
+    }
+
+    /**
+     * Cantidad de clientes conectados
+     */
+    public int getClientesConectados() {
+        return clientes.size();
+    }
+
+    // ==================== Métodos internos ====================
+
+    /**
+     * Encargar el envío al pool si el cliente tiene algo pendiente y no hay otro envío en curso
+     */
+    private void programarEnvio(Cliente cliente) {
+        if (!cliente.tienePendientes() || !cliente.enviando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            envios.execute(() -> {
+                try {
+                    enviar(cliente);
+                } finally {
+                    cliente.enviando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cliente.enviando.set(false);
+        }
+    }
+
+    private void enviar(Cliente cliente) {
+        try {
+            if (cliente.desbordado.getAndSet(false)) {
+                cliente.emitter.send(SseEmitter.event()
+                        .name("RESYNC")
+                        .data(Map.of("motivo", "buffer lleno")));
+            }
+            Evento evento;
+            while ((evento = cliente.buffer.poll()) != null) {
+                cliente.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(evento.getSecuencia()))
+                        .name(evento.getTipo())
+                        .data(evento));
+            }
+            if (cliente.ping.getAndSet(false)) {
+                cliente.emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            desconectar(cliente);
+        }
+    }
+
+    private void desconectar(Cliente cliente) {
+        clientes.remove(cliente);
+        try {
+            cliente.emitter.complete();
+        } catch (Exception e) {
+            logger.debug("Cliente SSE ya cerrado: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cliente suscrito con su buffer acotado
+     */
+    private class Cliente {
+        private final SseEmitter emitter;
+        private final Set<String> topicos;
+        private final BlockingQueue<Evento> buffer;
+        private final AtomicBoolean desbordado = new AtomicBoolean(false);
+        private final AtomicBoolean ping = new AtomicBoolean(false);
+        private final AtomicBoolean enviando = new AtomicBoolean(false);
+
+        private Cliente(SseEmitter emitter, Set<String> topicos, int capacidad) {
+            this.emitter = emitter;
+            this.topicos = topicos;
+            this.buffer = new ArrayBlockingQueue<>(capacidad);
+        }
+
+        private boolean tienePendientes() {
+            return !buffer.isEmpty() || desbordado.get() || ping.get();
+        }
+
+        private void encolar(Evento evento) {
+            while (!buffer.offer(evento)) {
+                if (buffer.poll() != null) {
+                    descartados.increment();
+                    desbordado.set(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evento enviado a los clientes
+     */
+    public static class Evento {
+        private final long secuencia;
+        private final String topico;
+        private final String tipo;
+        private final Object clave;
+        private final Object datos;
+        private final LocalDateTime fecha;
+
+        public Evento(long secuencia, String topico, String tipo, Object clave, Object datos) {
+            this.secuencia = secuencia;
+            this.topico = topico;
+            this.tipo = tipo;
+            this.clave = clave;
+            this.datos = datos;
+            this.fecha = LocalDateTime.now();
+        }
+
+        public long getSecuencia() {
+            return secuencia;
+        }
+
+        public String getTopico() {
+            return topico;
+        }
+
+        public String getTipo() {
+            return tipo;
+        }
+
+        public Object getClave() {
+            return clave;
+        }
+
+        public Object getDatos() {
+            return datos;
+        }
+
+        public LocalDateTime getFecha() {
+            return fecha;
+        }
+    }
+}
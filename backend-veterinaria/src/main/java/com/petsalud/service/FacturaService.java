@@ -1,6 +1,11 @@
 package com.petsalud.service;
 
+import com.petsalud.model.DetalleFactura;
+import com.petsalud.model.Dinero;
 import com.petsalud.model.Factura;
+import com.petsalud.model.Inventario;
+import com.petsalud.model.PartidaCobro;
+import com.petsalud.model.ReservaStock;
 import com.petsalud.repository.FacturaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -8,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio para gestión de Facturas
@@ -20,6 +26,15 @@ public class FacturaService {
     @Autowired
     private FacturaRepository facturaRepository;
 
+    @Autowired
+    private NumeracionService numeracionService;
+
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
     /**
      * Listar todas las facturas
      */
@@ -103,7 +118,7 @@ public class FacturaService {
         if (factura.getIdFactura() == null) {
             // Generar número de factura si no existe
             if (factura.getNumeroFactura() == null || factura.getNumeroFactura().trim().isEmpty()) {
-                factura.setNumeroFactura(generarNumeroFactura());
+                factura.setNumeroFactura(numeracionService.asignarNumeroFactura());
             }
             
             // Establecer fecha de emisión si no existe
@@ -117,10 +132,32 @@ public class FacturaService {
             }
         }
         
+        // La categoría de IGV de las líneas de productos la decide el inventario, no el cliente
+        for (DetalleFactura detalle : factura.getDetalles()) {
+            if (detalle.getIdInventario() != null) {
+                Inventario producto = inventarioService.obtenerPorId(detalle.getIdInventario());
+                if (producto == null) {
+                    throw new RuntimeException("Producto no encontrado: " + detalle.getIdInventario());
+                }
+                detalle.setCategoriaIgv(producto.getCategoriaIgv());
+            } else if (detalle.getCategoriaIgv() == null || detalle.getCategoriaIgv().trim().isEmpty()) {
+                detalle.setCategoriaIgv(CatalogoPosCache.GRAVADO);
+            } else {
+                String categoria = detalle.getCategoriaIgv().trim().toUpperCase();
+                if (!List.of(CatalogoPosCache.GRAVADO, CatalogoPosCache.EXONERADO, CatalogoPosCache.INAFECTO).contains(categoria)) {
+                    throw new RuntimeException("Categoría de IGV no válida: " + detalle.getCategoriaIgv()
+                            + " (GRAVADO, EXONERADO o INAFECTO)");
+                }
+                detalle.setCategoriaIgv(categoria);
+            }
+        }
+
         // Calcular totales
         factura.calcularTotales();
         
-        return facturaRepository.save(factura);
+        Factura guardada = facturaRepository.save(factura);
+        saldoDuenoService.sincronizarFactura(guardada);
+        return guardada;
     }
 
     /**
@@ -132,6 +169,7 @@ public class FacturaService {
             if ("PAGADA".equalsIgnoreCase(factura.getEstado())) {
                 throw new RuntimeException("No se puede eliminar una factura pagada");
             }
+            saldoDuenoService.cerrar(PartidaCobro.ORIGEN_FACTURA, id);
             facturaRepository.deleteById(id);
         }
     }
@@ -145,49 +183,57 @@ public class FacturaService {
             if ("PAGADA".equalsIgnoreCase(factura.getEstado())) {
                 throw new RuntimeException("La factura ya está pagada");
             }
-            
+
+            // Los productos vendidos salen del stock al pagarse la factura (o se confirma su reserva)
+            inventarioService.descontarStockFactura(factura);
+
             factura.setEstado("PAGADA");
             factura.setFechaPago(LocalDate.now());
+            saldoDuenoService.sincronizarFactura(factura);
             
             return facturaRepository.save(factura);
         }
         return null;
     }
 
+    /**
+     * Reservar el stock de los productos de una factura pendiente
+     */
+    public List<ReservaStock> reservarStock(Long id, Integer minutos) {
+        Factura factura = obtenerPorId(id);
+        if (factura == null) {
+            throw new RuntimeException("Factura no encontrada");
+        }
+        return inventarioService.reservarFactura(factura, minutos);
+    }
+
     /**
      * Calcular ventas del día
      */
-    public Double calcularVentasDia(LocalDate fecha) {
+    public Dinero calcularVentasDia(LocalDate fecha) {
         List<Factura> facturas = facturaRepository.findByFechaEmisionAndEstadoIgnoreCase(fecha, "PAGADA");
-        return facturas.stream()
-                .mapToDouble(Factura::getTotal)
-                .sum();
+        return Dinero.sumar(facturas, Factura::getTotal);
     }
 
     /**
      * Calcular ventas del mes
      */
-    public Double calcularVentasMes(int mes, int anio) {
+    public Dinero calcularVentasMes(int mes, int anio) {
         LocalDate inicio = LocalDate.of(anio, mes, 1);
         LocalDate fin = inicio.withDayOfMonth(inicio.lengthOfMonth());
         
         List<Factura> facturas = facturaRepository.findByFechaEmisionBetweenAndEstadoIgnoreCase(
                 inicio, fin, "PAGADA");
         
-        return facturas.stream()
-                .mapToDouble(Factura::getTotal)
-                .sum();
+        return Dinero.sumar(facturas, Factura::getTotal);
     }
 
     /**
-     * Generar número de factura único
+     * Auditoría de la numeración de facturas de un año
      */
-    private String generarNumeroFactura() {
-        String prefijo = "F";
-        String anio = String.valueOf(LocalDate.now().getYear());
-        long contador = facturaRepository.count() + 1;
-        String numero = String.format("%06d", contador);
-        return prefijo + anio + "-" + numero;
+    @Transactional(readOnly = true)
+    public Map<String, Object> auditarNumeracion(int anio) {
+        return numeracionService.auditarFacturas(anio);
     }
 
     /**
@@ -207,21 +253,17 @@ public class FacturaService {
     /**
      * Calcular total de ingresos (facturas pagadas)
      */
-    public Double calcularTotalIngresos() {
+    public Dinero calcularTotalIngresos() {
         List<Factura> facturasPagadas = obtenerFacturasPagadas();
-        return facturasPagadas.stream()
-                .mapToDouble(Factura::getTotal)
-                .sum();
+        return Dinero.sumar(facturasPagadas, Factura::getTotal);
     }
 
     /**
      * Calcular total pendiente de cobro
      */
-    public Double calcularTotalPendiente() {
+    public Dinero calcularTotalPendiente() {
         List<Factura> facturasPendientes = obtenerFacturasPendientes();
-        return facturasPendientes.stream()
-                .mapToDouble(Factura::getTotal)
-                .sum();
+        return Dinero.sumar(facturasPendientes, Factura::getTotal);
     }
 
     /**
@@ -233,9 +275,13 @@ public class FacturaService {
             if ("ANULADA".equalsIgnoreCase(factura.getEstado())) {
                 throw new RuntimeException("La factura ya está anulada");
             }
-            
+
+            // Una factura anulada no retiene stock
+            inventarioService.liberarReservas(factura.getNumeroFactura());
+
             factura.setEstado("ANULADA");
             factura.setObservaciones("ANULADA - Motivo: " + motivo);
+            saldoDuenoService.sincronizarFactura(factura);
             
             return facturaRepository.save(factura);
         }
@@ -0,0 +1,442 @@
+package com.petsalud.service;
+
+import com.petsalud.model.DetalleFactura;
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Factura;
+import com.petsalud.model.LoteFacturacion;
+import com.petsalud.model.PartidaCobro;
+import com.petsalud.model.TarifaServicio;
+import com.petsalud.repository.LoteFacturacionRepository;
+import com.petsalud.repository.OrdenRepository;
+import com.petsalud.repository.TarifaServicioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Facturación por lotes de órdenes completadas
+ * Genera una factura por dueño con todas sus órdenes COMPLETADA sin facturar del rango:
+ *
+ * - Recorre los dueños por id ascendente en bloques; cada bloque es una transacción corta
+ *   que inserta facturas y detalles con lotes JDBC y marca las órdenes como facturadas.
+ * - Al confirmar cada bloque se guarda el último dueño procesado (lotes_facturacion), por lo que
+ *   una corrida interrumpida se reanuda desde ahí sin duplicar facturas.
+ * - Los precios salen del catálogo tarifas_servicio (por tipo de examen) o de la tarifa por defecto.
+ * - La corrida se ejecuta en un hilo propio ("facturacion-lotes"): ni el cron ni el endpoint esperan
+ *   a que termine; el avance se consulta en lotes_facturacion por el id devuelto al iniciarla.
+ */
+@Service
+public class FacturacionLoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacturacionLoteService.class);
+
+    private static final List<String> ESTADOS_REANUDABLES = List.of("EN_CURSO", "FALLIDO");
+
+    private static final String SQL_INSERTAR_FACTURA =
+            "INSERT INTO facturas (numero_factura, fecha_emision, fecha_vencimiento, subtotal, igv, total, " +
+            "estado, observaciones, id_dueno) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERTAR_DETALLE =
+            "INSERT INTO detalle_facturas (descripcion, cantidad, precio_unitario, subtotal, tipo_servicio, id_factura) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_MARCAR_ORDEN =
+            "UPDATE ordenes_veterinarias SET id_factura = ? WHERE id_orden = ? AND id_factura IS NULL";
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private TarifaServicioRepository tarifaRepository;
+
+    @Autowired
+    private LoteFacturacionRepository loteRepository;
+
+    @Autowired
+    private NumeracionService numeracionService;
+
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.facturacion.lote.enabled:true}")
+    private boolean enabled;
+
+    @Value("${petsalud.facturacion.lote.duenos-por-bloque:200}")
+    private int duenosPorBloque;
+
+    @Value("${petsalud.facturacion.lote.dias-atras:0}")
+    private int diasAtras;
+
+    @Value("${petsalud.facturacion.lote.dias-vencimiento:30}")
+    private int diasVencimiento;
+
+    @Value("${petsalud.facturacion.lote.tarifa-por-defecto:50.00}")
+    private String tarifaPorDefecto;
+
+    private TransactionTemplate transaccionBloque;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+    // Una corrida a la vez, fuera del scheduler y de los hilos de Tomcat
+    private ExecutorService ejecutor;
+
+    @PostConstruct
+    public void init() {
+        transaccionBloque = new TransactionTemplate(transactionManager);
+        transaccionBloque.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ejecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "facturacion-lotes"));
+    }
+
+    /**
+     * Detener el hilo de la corrida; un bloque interrumpido se reanuda desde el punto de control
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Corrida nocturna: factura las órdenes completadas del día (y de los días anteriores configurados)
+     */
+    @Scheduled(cron = "${petsalud.facturacion.lote.cron:0 30 23 * * *}")
+    public void facturarOrdenesDelDia() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate hoy = LocalDate.now();
+        try {
+            iniciar(hoy.minusDays(diasAtras), hoy);
+        } catch (RuntimeException e) {
+            logger.error("Error en la facturación por lotes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Iniciar (o reanudar) la facturación de un rango de fechas en segundo plano
+     * Retorna la corrida EN_CURSO; si existe una sin terminar para el mismo rango, se reanuda
+     * desde su punto de control.
+     */
+    public LoteFacturacion iniciar(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta)) {
+            throw new RuntimeException("Rango de fechas no válido");
+        }
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new RuntimeException("Ya hay una facturación por lotes en ejecución");
+        }
+        try {
+            LoteFacturacion lote = iniciarOReanudar(desde, hasta);
+            ejecutor.execute(() -> {
+                try {
+                    ejecutar(lote, desde, hasta);
+                } catch (RuntimeException e) {
+                    logger.error("Error en la facturación por lotes #{}: {}", lote.getIdLote(), e.getMessage());
+                } finally {
+                    enEjecucion.set(false);
+                }
+            });
+            return lote;
+        } catch (RuntimeException e) {
+            // No llegó a encolarse (RejectedExecutionException al detener) o falló el registro de la corrida
+            enEjecucion.set(false);
+            if (e instanceof RejectedExecutionException) {
+                throw new RuntimeException("La facturación por lotes no está disponible (aplicación deteniéndose)");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Facturar las órdenes completadas sin facturar del rango, bloque a bloque
+     */
+    private LoteFacturacion ejecutar(LoteFacturacion inicial, LocalDate desde, LocalDate hasta) {
+        LoteFacturacion lote = inicial;
+        Long idLote = lote.getIdLote();
+        Map<String, TarifaServicio> catalogo = cargarCatalogo();
+        Dinero precioPorDefecto = Dinero.de(tarifaPorDefecto);
+
+        long inicio = System.currentTimeMillis();
+        while (true) {
+            List<Long> duenos = ordenRepository.findDuenosPorFacturar(
+                    desde, hasta, lote.getUltimoDueno(), PageRequest.of(0, duenosPorBloque));
+            if (duenos.isEmpty()) {
+                break;
+            }
+            try {
+                lote = transaccionBloque.execute(status ->
+                        procesarBloque(idLote, desde, hasta, duenos, catalogo, precioPorDefecto));
+            } catch (RuntimeException e) {
+                registrarFallo(idLote, e);
+                throw new RuntimeException("Facturación por lotes interrumpida después del dueño "
+                        + lote.getUltimoDueno() + ": " + e.getMessage(), e);
+            }
+        }
+
+        lote.setEstado("COMPLETADO");
+        lote.setFechaFin(LocalDateTime.now());
+        lote = loteRepository.save(lote);
+        logger.info("Facturación por lotes #{} completada: {} facturas, {} órdenes en {} ms",
+                idLote, lote.getFacturasGeneradas(), lote.getOrdenesFacturadas(),
+                System.currentTimeMillis() - inicio);
+        return lote;
+    }
+
+    /**
+     * Listar las últimas corridas
+     */
+    public List<LoteFacturacion> listarLotes() {
+        return loteRepository.findTop20ByOrderByIdLoteDesc();
+    }
+
+    /**
+     * Obtener corrida por ID
+     */
+    public LoteFacturacion obtenerLote(Long idLote) {
+        return loteRepository.findById(idLote).orElse(null);
+    }
+
+    /**
+     * Listar el catálogo de tarifas
+     */
+    public List<TarifaServicio> listarTarifas() {
+        return tarifaRepository.findAll();
+    }
+
+    /**
+     * Guardar o actualizar una tarifa (por código)
+     */
+    public TarifaServicio guardarTarifa(TarifaServicio tarifa) {
+        if (tarifa.getCodigo() == null || tarifa.getCodigo().trim().isEmpty()) {
+            throw new RuntimeException("El código de la tarifa es obligatorio");
+        }
+        if (tarifa.getPrecio() == null || tarifa.getPrecio().esNegativo()) {
+            throw new RuntimeException("El precio de la tarifa no puede ser negativo");
+        }
+        tarifa.setCodigo(tarifa.getCodigo().trim());
+        TarifaServicio existente = tarifaRepository.findByCodigoIgnoreCase(tarifa.getCodigo());
+        if (existente != null) {
+            tarifa.setIdTarifa(existente.getIdTarifa());
+        }
+        if (tarifa.getActivo() == null) {
+            tarifa.setActivo(true);
+        }
+        return tarifaRepository.save(tarifa);
+    }
+
+    // ==================== Métodos internos ====================
+
+    private LoteFacturacion iniciarOReanudar(LocalDate desde, LocalDate hasta) {
+        LoteFacturacion lote = loteRepository.findFirstByFechaDesdeAndFechaHastaAndEstadoInOrderByIdLoteDesc(
+                desde, hasta, ESTADOS_REANUDABLES);
+        if (lote == null) {
+            return loteRepository.save(new LoteFacturacion(desde, hasta));
+        }
+        logger.info("Reanudando facturación por lotes #{} después del dueño {}", lote.getIdLote(), lote.getUltimoDueno());
+        lote.setEstado("EN_CURSO");
+        lote.setUltimoError(null);
+        return loteRepository.save(lote);
+    }
+
+    private Map<String, TarifaServicio> cargarCatalogo() {
+        Map<String, TarifaServicio> catalogo = new HashMap<>();
+        for (TarifaServicio tarifa : tarifaRepository.findByActivoTrue()) {
+            catalogo.put(tarifa.getCodigo().trim().toLowerCase(), tarifa);
+        }
+        return catalogo;
+    }
+
+    /**
+     * Un bloque de dueños en una sola transacción: facturas, detalles, órdenes y punto de control
+     */
+    private LoteFacturacion procesarBloque(Long idLote, LocalDate desde, LocalDate hasta, List<Long> duenos,
+                                           Map<String, TarifaServicio> catalogo, Dinero precioPorDefecto) {
+        LoteFacturacion lote = loteRepository.findById(idLote)
+                .orElseThrow(() -> new RuntimeException("Lote de facturación no encontrado"));
+
+        // Agrupar las órdenes por dueño (vienen ordenadas por dueño y orden)
+        Map<Long, FacturaLote> porDueno = new LinkedHashMap<>();
+        for (Object[] fila : ordenRepository.findOrdenesPorFacturar(desde, hasta, duenos)) {
+            Long idOrden = (Long) fila[0];
+            Long idDueno = (Long) fila[1];
+            String tipoExamen = (String) fila[2];
+            LocalDate fechaOrden = (LocalDate) fila[3];
+            String mascota = (String) fila[4];
+
+            FacturaLote pendiente = porDueno.computeIfAbsent(idDueno, id -> new FacturaLote(id, nuevaFactura(idLote)));
+            TarifaServicio tarifa = tipoExamen != null ? catalogo.get(tipoExamen.trim().toLowerCase()) : null;
+            Dinero precio = tarifa != null ? tarifa.getPrecio() : precioPorDefecto;
+            String tipoServicio = tarifa != null && tarifa.getTipoServicio() != null ? tarifa.getTipoServicio() : "EXAMEN";
+            String nombre = tarifa != null && tarifa.getDescripcion() != null ? tarifa.getDescripcion() : tipoExamen;
+
+            DetalleFactura detalle = new DetalleFactura(
+                    recortar(nombre + " - " + mascota + " (orden #" + idOrden + ", " + fechaOrden + ")", 200),
+                    1, precio, tipoServicio);
+            detalle.setFactura(pendiente.factura);
+            pendiente.factura.getDetalles().add(detalle);
+            pendiente.ordenes.add(idOrden);
+        }
+
+        List<FacturaLote> facturas = new ArrayList<>(porDueno.values());
+        Dinero.Acumulador total = new Dinero.Acumulador();
+        int ordenes = 0;
+        for (FacturaLote pendiente : facturas) {
+            pendiente.factura.calcularTotales();
+            pendiente.factura.setObservaciones(pendiente.factura.getObservaciones() + " - órdenes: "
+                    + pendiente.ordenes.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+            total.agregar(pendiente.factura.getTotal());
+            ordenes += pendiente.ordenes.size();
+        }
+
+        if (!facturas.isEmpty()) {
+            insertarFacturas(facturas);
+            insertarDetalles(facturas);
+            marcarOrdenes(facturas);
+            for (FacturaLote pendiente : facturas) {
+                Factura factura = pendiente.factura;
+                saldoDuenoService.sincronizar(PartidaCobro.ORIGEN_FACTURA, factura.getIdFactura(),
+                        pendiente.idDueno, factura.getTotal(), factura.getFechaVencimiento());
+            }
+        }
+
+        lote.setUltimoDueno(duenos.get(duenos.size() - 1));
+        lote.setFacturasGeneradas(lote.getFacturasGeneradas() + facturas.size());
+        lote.setOrdenesFacturadas(lote.getOrdenesFacturadas() + ordenes);
+        lote.setTotalFacturado(lote.getTotalFacturado().sumar(total.total()));
+        lote.setFechaActualizacion(LocalDateTime.now());
+        return loteRepository.save(lote);
+    }
+
+    private Factura nuevaFactura(Long idLote) {
+        LocalDate hoy = LocalDate.now();
+        Factura factura = new Factura();
+        factura.setNumeroFactura(numeracionService.asignarNumeroFactura());
+        factura.setFechaEmision(hoy);
+        factura.setFechaVencimiento(hoy.plusDays(diasVencimiento));
+        factura.setEstado("PENDIENTE");
+        factura.setObservaciones("Facturación por lotes #" + idLote);
+        return factura;
+    }
+
+    private void insertarFacturas(List<FacturaLote> facturas) {
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_FACTURA, facturas, facturas.size(), (ps, pendiente) -> {
+            Factura factura = pendiente.factura;
+            ps.setString(1, factura.getNumeroFactura());
+            ps.setDate(2, Date.valueOf(factura.getFechaEmision()));
+            ps.setDate(3, Date.valueOf(factura.getFechaVencimiento()));
+            ps.setDouble(4, factura.getSubtotal().aDouble());
+            ps.setDouble(5, factura.getIgv().aDouble());
+            ps.setDouble(6, factura.getTotal().aDouble());
+            ps.setString(7, factura.getEstado());
+            ps.setString(8, factura.getObservaciones());
+            ps.setLong(9, pendiente.idDueno);
+        });
+
+        // Recuperar los IDs generados por número de factura (una sola consulta por bloque)
+        Map<String, FacturaLote> porNumero = new HashMap<>();
+        for (FacturaLote pendiente : facturas) {
+            porNumero.put(pendiente.factura.getNumeroFactura(), pendiente);
+        }
+        namedJdbcTemplate.query(
+                "SELECT id_factura, numero_factura FROM facturas WHERE numero_factura IN (:numeros)",
+                Map.of("numeros", porNumero.keySet()),
+                rs -> {
+                    porNumero.get(rs.getString("numero_factura")).factura.setIdFactura(rs.getLong("id_factura"));
+                });
+    }
+
+    private void insertarDetalles(List<FacturaLote> facturas) {
+        List<DetalleFactura> detalles = new ArrayList<>();
+        for (FacturaLote pendiente : facturas) {
+            detalles.addAll(pendiente.factura.getDetalles());
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_DETALLE, detalles, detalles.size(), (ps, detalle) -> {
+            ps.setString(1, detalle.getDescripcion());
+            ps.setInt(2, detalle.getCantidad());
+            ps.setDouble(3, detalle.getPrecioUnitario().aDouble());
+            ps.setDouble(4, detalle.getSubtotal().aDouble());
+            ps.setString(5, detalle.getTipoServicio());
+            ps.setLong(6, detalle.getFactura().getIdFactura());
+        });
+    }
+
+    private void marcarOrdenes(List<FacturaLote> facturas) {
+        List<long[]> pares = new ArrayList<>();
+        for (FacturaLote pendiente : facturas) {
+            for (Long idOrden : pendiente.ordenes) {
+                pares.add(new long[]{pendiente.factura.getIdFactura(), idOrden});
+            }
+        }
+        int[][] resultados = jdbcTemplate.batchUpdate(SQL_MARCAR_ORDEN, pares, pares.size(), (ps, par) -> {
+            ps.setLong(1, par[0]);
+            ps.setLong(2, par[1]);
+        });
+        // Una orden ya facturada por otra corrida revierte el bloque completo
+        for (int[] lote : resultados) {
+            for (int filas : lote) {
+                if (filas == 0) {
+                    throw new RuntimeException("Otra corrida facturó órdenes de este bloque");
+                }
+            }
+        }
+    }
+
+    private void registrarFallo(Long idLote, RuntimeException error) {
+        try {
+            loteRepository.findById(idLote).ifPresent(lote -> {
+                lote.setEstado("FALLIDO");
+                lote.setUltimoError(recortar(String.valueOf(error.getMessage()), 500));
+                lote.setFechaActualizacion(LocalDateTime.now());
+                loteRepository.save(lote);
+            });
+        } catch (RuntimeException e) {
+            logger.error("No se pudo registrar el fallo del lote #{}: {}", idLote, e.getMessage());
+        }
+    }
+
+    private String recortar(String texto, int maximo) {
+        return texto.length() <= maximo ? texto : texto.substring(0, maximo);
+    }
+
+    /**
+     * Factura en construcción de un dueño y las órdenes que cubre
+     */
+    private static class FacturaLote {
+        private final Long idDueno;
+        private final Factura factura;
+        private final List<Long> ordenes = new ArrayList<>();
+
+        private FacturaLote(Long idDueno, Factura factura) {
+            this.idDueno = idDueno;
+            this.factura = factura;
+        }
+    }
+}
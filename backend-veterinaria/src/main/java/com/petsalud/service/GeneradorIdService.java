@@ -0,0 +1,166 @@
+package com.petsalud.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de identificadores únicos ordenados por tiempo (estilo Snowflake)
+ *
+ * Estructura de 63 bits: 41 bits de milisegundos desde 2024-01-01, 10 bits de nodo
+ * y 12 bits de secuencia (4096 ids por milisegundo y nodo). Sin bloqueos: el estado
+ * (milisegundo + secuencia) avanza con CAS y nunca retrocede aunque el reloj lo haga.
+ *
+ * La forma de texto es base 32 de Crockford con ancho fijo (13 caracteres), de modo que
+ * el orden alfabético coincide con el orden temporal y es apta para códigos de barras.
+ */
+@Service
+public class GeneradorIdService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorIdService.class);
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCA = 1704067200000L;
+
+    private static final int BITS_NODO = 10;
+    private static final int BITS_SECUENCIA = 12;
+    private static final long MAX_NODO = (1L << BITS_NODO) - 1;
+
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LARGO_TEXTO = 13;
+
+    // -1: derivar del nombre del host
+    @Value("${petsalud.nodo.id:-1}")
+    private long nodoConfigurado;
+
+    private long nodo;
+
+    // (milisegundos desde EPOCA << BITS_SECUENCIA) | secuencia del último id emitido
+    private final AtomicLong estado = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (nodoConfigurado >= 0 && nodoConfigurado <= MAX_NODO) {
+            nodo = nodoConfigurado;
+        } else {
+            nodo = nodoDesdeHost();
+            logger.warn("petsalud.nodo.id no configurado; se usa {} derivado del host. " +
+                    "Configure un id distinto (0-{}) en cada nodo.", nodo, MAX_NODO);
+        }
+    }
+
+    /**
+     * Siguiente identificador numérico
+     */
+    public long siguienteId() {
+        long ahora = System.currentTimeMillis() - EPOCA;
+        while (true) {
+            long anterior = estado.get();
+            long siguiente = (anterior >>> BITS_SECUENCIA) < ahora
+                    ? ahora << BITS_SECUENCIA
+                    // Mismo milisegundo (o reloj atrasado): la secuencia avanza y al desbordarse
+                    // pasa al milisegundo siguiente
+                    : anterior + 1;
+            if (estado.compareAndSet(anterior, siguiente)) {
+                long milis = siguiente >>> BITS_SECUENCIA;
+                long secuencia = siguiente & ((1L << BITS_SECUENCIA) - 1);
+                return (milis << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+            }
+        }
+    }
+
+    /**
+     * Siguiente identificador en texto base 32 (13 caracteres)
+     */
+    public String siguienteTexto() {
+        return aTexto(siguienteId());
+    }
+
+    /**
+     * Siguiente código con prefijo, p. ej. "PAG-01HV3K9Q2M7XA"
+     */
+    public String siguienteCodigo(String prefijo) {
+        return prefijo + "-" + siguienteTexto();
+    }
+
+    /**
+     * Convertir un id a texto base 32 de ancho fijo
+     */
+    public static String aTexto(long id) {
+        char[] texto = new char[LARGO_TEXTO];
+        long valor = id;
+        for (int i = LARGO_TEXTO - 1; i >= 0; i--) {
+            texto[i] = BASE32[(int) (valor & 31)];
+            valor >>>= 5;
+        }
+        return new String(texto);
+    }
+
+    /**
+     * Convertir un texto base 32 a id (acepta minúsculas y las confusiones O/0, I/L/1)
+     */
+    public static long desdeTexto(String texto) {
+        long valor = 0;
+        for (char c : texto.toUpperCase().toCharArray()) {
+            int digito;
+            if (c == 'O') {
+                digito = 0;
+            } else if (c == 'I' || c == 'L') {
+                digito = 1;
+            } else {
+                digito = indice(c);
+            }
+            if (digito < 0) {
+                throw new IllegalArgumentException("Carácter no válido en el código: " + c);
+            }
+            valor = (valor << 5) | digito;
+        }
+        return valor;
+    }
+
+    /**
+     * Fecha de generación de un id
+     */
+    public static LocalDateTime fechaDe(long id) {
+        long milis = (id >>> (BITS_NODO + BITS_SECUENCIA)) + EPOCA;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Nodo que generó un id
+     */
+    public static long nodoDe(long id) {
+        return (id >>> BITS_SECUENCIA) & MAX_NODO;
+    }
+
+    public long getNodo() {
+        return nodo;
+    }
+
+    // ==================== Métodos internos ====================
+
+    private static int indice(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long nodoDesdeHost() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & 0x7fffffff) % (MAX_NODO + 1);
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.petsalud.service;
 
+import com.petsalud.model.DetalleFactura;
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Factura;
 import com.petsalud.model.Inventario;
+import com.petsalud.model.LoteInventario;
+import com.petsalud.model.MovimientoInventario;
+import com.petsalud.model.ReservaStock;
 import com.petsalud.repository.InventarioRepository;
+import com.petsalud.repository.ReservaStockRepository;
+import com.petsalud.util.TransaccionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Servicio para gestión de Inventario
@@ -20,6 +36,27 @@ public class InventarioService {
     @Autowired
     private InventarioRepository inventarioRepository;
 
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private MovimientoInventarioService movimientoService;
+
+    @Autowired
+    private LoteInventarioService loteService;
+
+    @Autowired
+    private CatalogoPosCache catalogoPos;
+
+    @Autowired
+    private EventoHub eventoHub;
+
+    @Value("${petsalud.inventario.reservas.minutos:30}")
+    private int minutosReserva;
+
+    @Value("${petsalud.eventos.inventario.dias-vencimiento:30}")
+    private int diasVencimiento;
+
     /**
      * Listar todos los productos
      */
@@ -87,6 +124,7 @@ public class InventarioService {
 
     /**
      * Guardar o actualizar producto
+     * Al editar se conserva el stock guardado: el stock solo cambia con actualizarStock, reservas, ventas y lotes.
      */
     public Inventario guardar(Inventario inventario) {
         // Validaciones
@@ -102,9 +140,19 @@ public class InventarioService {
         if (inventario.getPrecioVenta() == null || inventario.getPrecioVenta() < 0) {
             throw new RuntimeException("El precio de venta debe ser mayor o igual a 0");
         }
-        if (inventario.getStockActual() == null || inventario.getStockActual() < 0) {
+        if (inventario.getIdInventario() == null
+                && (inventario.getStockActual() == null || inventario.getStockActual() < 0)) {
             throw new RuntimeException("El stock actual debe ser mayor o igual a 0");
         }
+        if (inventario.getCategoriaIgv() == null || inventario.getCategoriaIgv().trim().isEmpty()) {
+            inventario.setCategoriaIgv(CatalogoPosCache.GRAVADO);
+        }
+        String categoriaIgv = inventario.getCategoriaIgv().trim().toUpperCase();
+        if (!List.of(CatalogoPosCache.GRAVADO, CatalogoPosCache.EXONERADO, CatalogoPosCache.INAFECTO).contains(categoriaIgv)) {
+            throw new RuntimeException("Categoría de IGV no válida: " + inventario.getCategoriaIgv()
+                    + " (GRAVADO, EXONERADO o INAFECTO)");
+        }
+        inventario.setCategoriaIgv(categoriaIgv);
 
         // Verificar código duplicado
         if (inventario.getIdInventario() == null) {
@@ -113,30 +161,217 @@ public class InventarioService {
             }
         }
 
-        return inventarioRepository.save(inventario);
+        // Estado anterior (con la fila bloqueada) para conservar el stock y registrar el ajuste de valorización
+        Object[] anterior = null;
+        if (inventario.getIdInventario() != null) {
+            inventarioRepository.bloquear(inventario.getIdInventario());
+            anterior = inventarioRepository.findEstadoValorizado(inventario.getIdInventario()).stream()
+                    .findFirst().orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+            inventario.setStockActual((Integer) anterior[0]);
+        }
+
+        Inventario guardado = inventarioRepository.save(inventario);
+        if (anterior == null) {
+            movimientoService.registrar(guardado, MovimientoInventario.SALDO_INICIAL, guardado.getStockActual(), "ALTA");
+        } else {
+            int stockAnterior = (Integer) anterior[0];
+            Dinero valorAnterior = Boolean.FALSE.equals(anterior[2]) ? Dinero.CERO
+                    : Dinero.de((Double) anterior[1]).multiplicar(stockAnterior);
+            movimientoService.registrar(guardado.getIdInventario(), MovimientoInventario.AJUSTE,
+                    0, Dinero.de(guardado.getPrecioCompra()), "EDICION",
+                    valorizar(guardado).restar(valorAnterior));
+        }
+        publicarEstadoStock(guardado);
+        return guardado;
     }
 
     /**
      * Actualizar stock
+     * El descuento es condicional en la base de datos: dos ventas simultáneas no pueden dejar stock negativo.
      */
     public Inventario actualizarStock(Long id, Integer cantidad, String operacion) {
-        Inventario producto = obtenerPorId(id);
-        if (producto == null) {
-            throw new RuntimeException("Producto no encontrado");
+        if (cantidad == null || cantidad <= 0) {
+            throw new RuntimeException("La cantidad debe ser mayor a 0");
         }
 
+        String tipo;
+        int movimiento;
         if ("AGREGAR".equalsIgnoreCase(operacion)) {
-            producto.setStockActual(producto.getStockActual() + cantidad);
-        } else if ("RESTAR".equalsIgnoreCase(operacion)) {
-            if (producto.getStockActual() < cantidad) {
-                throw new RuntimeException("Stock insuficiente. Stock actual: " + producto.getStockActual());
+            if (inventarioRepository.agregarStock(id, cantidad) == 0) {
+                throw new RuntimeException("Producto no encontrado");
+            }
+            tipo = MovimientoInventario.ENTRADA;
+            movimiento = cantidad;
+        } else if ("RESTAR".equalsIgnoreCase(operacion) || "VENCIMIENTO".equalsIgnoreCase(operacion)) {
+            descontar(id, cantidad);
+            if ("RESTAR".equalsIgnoreCase(operacion)) {
+                loteService.consumir(id, cantidad);
+            } else {
+                loteService.consumirVencidos(id, cantidad);
             }
-            producto.setStockActual(producto.getStockActual() - cantidad);
+            tipo = "RESTAR".equalsIgnoreCase(operacion) ? MovimientoInventario.AJUSTE : MovimientoInventario.VENCIMIENTO;
+            movimiento = -cantidad;
         } else {
-            throw new RuntimeException("Operación no válida. Use AGREGAR o RESTAR");
+            throw new RuntimeException("Operación no válida. Use AGREGAR, RESTAR o VENCIMIENTO");
         }
 
-        return inventarioRepository.save(producto);
+        Inventario actualizado = obtenerPorId(id);
+        movimientoService.registrar(actualizado, tipo, movimiento, null);
+        publicarEstadoStock(actualizado);
+        return actualizado;
+    }
+
+    /**
+     * Reservar stock de varios productos para una referencia (todo o nada)
+     * El stock reservado se descuenta de inmediato y vuelve al inventario si la reserva vence o se libera.
+     */
+    public List<ReservaStock> reservar(String referencia, Map<Long, Integer> items, Integer minutos) {
+        if (referencia == null || referencia.trim().isEmpty()) {
+            throw new RuntimeException("La referencia de la reserva es obligatoria");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("La reserva debe incluir al menos un producto");
+        }
+        int duracion = minutos != null && minutos > 0 ? minutos : minutosReserva;
+        LocalDateTime expiracion = LocalDateTime.now().plusMinutes(duracion);
+
+        // Orden fijo por producto: dos reservas con los mismos productos no se bloquean mutuamente
+        List<ReservaStock> reservas = new ArrayList<>();
+        Map<Long, Integer> salidas = new TreeMap<>();
+        for (Map.Entry<Long, Integer> item : new TreeMap<>(items).entrySet()) {
+            if (item.getValue() == null || item.getValue() <= 0) {
+                throw new RuntimeException("La cantidad a reservar debe ser mayor a 0");
+            }
+            descontar(item.getKey(), item.getValue());
+            reservas.add(new ReservaStock(referencia.trim(), item.getKey(), item.getValue(), expiracion));
+            salidas.put(item.getKey(), -item.getValue());
+        }
+        List<ReservaStock> guardadas = reservaStockRepository.saveAll(reservas);
+        registrarMovimientos(salidas, MovimientoInventario.RESERVA, referencia.trim());
+        return guardadas;
+    }
+
+    /**
+     * Reservar los productos de una factura abierta (referencia: número de factura)
+     */
+    public List<ReservaStock> reservarFactura(Factura factura, Integer minutos) {
+        if (!"PENDIENTE".equalsIgnoreCase(factura.getEstado())) {
+            throw new RuntimeException("Solo se puede reservar stock para facturas pendientes");
+        }
+        if (!reservaStockRepository.findByReferenciaAndEstado(factura.getNumeroFactura(), ReservaStock.ACTIVA).isEmpty()) {
+            throw new RuntimeException("La factura ya tiene stock reservado");
+        }
+        return reservar(factura.getNumeroFactura(), productosDe(factura), minutos);
+    }
+
+    /**
+     * Confirmar las reservas activas de una referencia (el stock ya fue descontado)
+     */
+    public List<ReservaStock> confirmarReservas(String referencia) {
+        List<ReservaStock> confirmadas = cerrarReservas(referencia, ReservaStock.CONFIRMADA);
+        if (confirmadas.isEmpty()) {
+            throw new RuntimeException("No hay reservas activas para: " + referencia);
+        }
+        consumirLotes(confirmadas);
+        return confirmadas;
+    }
+
+    /**
+     * Liberar las reservas activas de una referencia y devolver su stock
+     */
+    public List<ReservaStock> liberarReservas(String referencia) {
+        List<ReservaStock> liberadas = cerrarReservas(referencia, ReservaStock.LIBERADA);
+        Map<Long, Integer> devueltos = new TreeMap<>();
+        for (ReservaStock reserva : liberadas) {
+            inventarioRepository.agregarStock(reserva.getIdInventario(), reserva.getCantidad());
+            devueltos.merge(reserva.getIdInventario(), reserva.getCantidad(), Integer::sum);
+        }
+        registrarMovimientos(devueltos, MovimientoInventario.LIBERACION, referencia);
+        return liberadas;
+    }
+
+    /**
+     * Reservas de una referencia
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaStock> listarReservas(String referencia) {
+        return reservaStockRepository.findByReferenciaOrderByIdReservaAsc(referencia);
+    }
+
+    /**
+     * Devolver al stock las reservas vencidas (dos sentencias, sin recorrer las reservas)
+     */
+    @Scheduled(cron = "${petsalud.inventario.reservas.cron-expiracion:30 * * * * *}")
+    public int expirarReservas() {
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        int expiradas = reservaStockRepository.expirarVencidas(ahora);
+        if (expiradas > 0) {
+            inventarioRepository.devolverReservasExpiradas(ahora);
+            Map<Long, Integer> devueltos = new TreeMap<>();
+            for (Object[] fila : reservaStockRepository.sumarPorProducto(ReservaStock.EXPIRADA, ahora)) {
+                devueltos.put((Long) fila[0], ((Number) fila[1]).intValue());
+            }
+            registrarMovimientos(devueltos, MovimientoInventario.LIBERACION, "EXPIRACION");
+        }
+        return expiradas;
+    }
+
+    /**
+     * Descontar el stock vendido en una factura
+     * Si la factura tenía stock reservado se confirma la reserva; si no, todas sus líneas se descuentan
+     * en una sola sentencia y la operación falla completa si algún producto no alcanza.
+     */
+    public void descontarStockFactura(Factura factura) {
+        if (factura.getNumeroFactura() != null) {
+            List<ReservaStock> confirmadas = cerrarReservas(factura.getNumeroFactura(), ReservaStock.CONFIRMADA);
+            if (!confirmadas.isEmpty()) {
+                consumirLotes(confirmadas);
+                return;
+            }
+        }
+        int productos = inventarioRepository.contarProductosFactura(factura.getIdFactura());
+        if (productos == 0) {
+            return;
+        }
+        if (inventarioRepository.descontarStockFactura(factura.getIdFactura()) != productos) {
+            throw new RuntimeException("Stock insuficiente para los productos de la factura " + factura.getNumeroFactura());
+        }
+        Map<Long, Integer> vendidos = new TreeMap<>();
+        productosDe(factura).forEach((id, cantidad) -> {
+            loteService.consumir(id, cantidad);
+            vendidos.put(id, -cantidad);
+        });
+        registrarMovimientos(vendidos, MovimientoInventario.VENTA, factura.getNumeroFactura());
+    }
+
+    /**
+     * Ingresar un lote de un producto (suma su cantidad al stock)
+     */
+    public LoteInventario ingresarLote(Long idInventario, LoteInventario datos) {
+        Inventario producto = obtenerPorId(idInventario);
+        if (producto == null) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+        LoteInventario lote = loteService.ingresar(idInventario, datos.getCodigoLote(), datos.getFechaVencimiento(),
+                datos.getCantidadDisponible() != null ? datos.getCantidadDisponible() : datos.getCantidadInicial(),
+                datos.getCostoUnitario() != null ? datos.getCostoUnitario() : producto.getPrecioCompra());
+        inventarioRepository.agregarStock(idInventario, lote.getCantidadInicial());
+        registrarMovimientos(Map.of(idInventario, lote.getCantidadInicial()), MovimientoInventario.ENTRADA,
+                "LOTE " + lote.getCodigoLote());
+        return lote;
+    }
+
+    /**
+     * Dar de baja el saldo de un lote vencido o dañado
+     */
+    public LoteInventario darDeBajaLote(Long idLote) {
+        LoteInventario lote = loteService.obtenerParaBaja(idLote);
+        int cantidad = lote.getCantidadDisponible();
+        descontar(lote.getIdInventario(), cantidad);
+        loteService.cerrar(lote);
+        registrarMovimientos(Map.of(lote.getIdInventario(), -cantidad), MovimientoInventario.VENCIMIENTO,
+                "LOTE " + lote.getCodigoLote());
+        return lote;
     }
 
     /**
@@ -145,17 +380,20 @@ public class InventarioService {
     public void eliminar(Long id) {
         Inventario producto = obtenerPorId(id);
         if (producto != null) {
+            Dinero valorAnterior = valorizar(producto);
             producto.setActivo(false);
             inventarioRepository.save(producto);
+            movimientoService.registrar(id, MovimientoInventario.AJUSTE, 0, Dinero.de(producto.getPrecioCompra()), "BAJA",
+                    valorAnterior.negar());
+            TransaccionUtil.despuesDelCommit(() -> catalogoPos.invalidar(id));
         }
     }
 
     /**
-     * Calcular valor total del inventario
+     * Calcular valor total del inventario (valorización en curso del libro de movimientos)
      */
-    public Double calcularValorTotal() {
-        Double valor = inventarioRepository.calcularValorTotalInventario();
-        return valor != null ? valor : 0.0;
+    public Dinero calcularValorTotal() {
+        return movimientoService.valorTotal();
     }
 
     /**
@@ -176,6 +414,118 @@ public class InventarioService {
         return alertas;
     }
 
+    /**
+     * Publicar a los tableros los productos vencidos y próximos a vencer (una vez al día)
+     */
+    @Scheduled(cron = "${petsalud.eventos.inventario.cron-vencimientos:0 5 0 * * *}")
+    @Transactional(readOnly = true)
+    public void publicarVencimientos() {
+        for (Inventario producto : obtenerProductosVencidos()) {
+            eventoHub.publicar(EventoHub.TOPICO_INVENTARIO, "VENCIDO", producto.getIdInventario(), resumen(producto));
+        }
+        for (Inventario producto : obtenerProductosProximosAVencer(diasVencimiento)) {
+            if (!producto.estaVencido()) {
+                eventoHub.publicar(EventoHub.TOPICO_INVENTARIO, "PROXIMO_A_VENCER",
+                        producto.getIdInventario(), resumen(producto));
+            }
+        }
+    }
+
+    /**
+     * Descuento condicional de un producto
+     */
+    private void descontar(Long id, int cantidad) {
+        if (inventarioRepository.descontarStock(id, cantidad) == 0) {
+            Inventario producto = obtenerPorId(id);
+            if (producto == null) {
+                throw new RuntimeException("Producto no encontrado: " + id);
+            }
+            throw new RuntimeException("Stock insuficiente para " + producto.getNombre()
+                    + ". Stock actual: " + producto.getStockActual());
+        }
+    }
+
+    /**
+     * Cerrar las reservas activas de una referencia; cada reserva la cierra una sola operación
+     */
+    private List<ReservaStock> cerrarReservas(String referencia, String estado) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<ReservaStock> cerradas = new ArrayList<>();
+        for (ReservaStock reserva : reservaStockRepository.findByReferenciaAndEstado(referencia, ReservaStock.ACTIVA)) {
+            if (reservaStockRepository.cerrar(reserva.getIdReserva(), estado, ahora) == 1) {
+                reserva.setEstado(estado);
+                reserva.setFechaCierre(ahora);
+                cerradas.add(reserva);
+            }
+        }
+        return cerradas;
+    }
+
+    /**
+     * Sacar de los lotes (FEFO) las unidades de reservas confirmadas
+     */
+    private void consumirLotes(List<ReservaStock> reservas) {
+        for (ReservaStock reserva : reservas) {
+            loteService.consumir(reserva.getIdInventario(), reserva.getCantidad());
+        }
+    }
+
+    /**
+     * Cantidades por producto de las líneas de una factura
+     */
+    private Map<Long, Integer> productosDe(Factura factura) {
+        Map<Long, Integer> productos = new TreeMap<>();
+        for (DetalleFactura detalle : factura.getDetalles()) {
+            if (detalle.getIdInventario() != null && detalle.getCantidad() != null) {
+                productos.merge(detalle.getIdInventario(), detalle.getCantidad(), Integer::sum);
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * Registrar en el libro los movimientos de varios productos y publicar su estado de stock
+     */
+    private void registrarMovimientos(Map<Long, Integer> cantidades, String tipo, String referencia) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        for (Inventario producto : inventarioRepository.findAllById(cantidades.keySet())) {
+            movimientoService.registrar(producto, tipo, cantidades.get(producto.getIdInventario()), referencia);
+            publicarEstadoStock(producto);
+        }
+    }
+
+    private Dinero valorizar(Inventario producto) {
+        if (Boolean.FALSE.equals(producto.getActivo()) || producto.getPrecioCompra() == null || producto.getStockActual() == null) {
+            return Dinero.CERO;
+        }
+        return Dinero.de(producto.getPrecioCompra()).multiplicar(producto.getStockActual());
+    }
+
+    /**
+     * Publicar el estado de stock de un producto una vez confirmada la transacción
+     */
+    private void publicarEstadoStock(Inventario producto) {
+        String tipo = producto.necesitaReposicion() ? "STOCK_BAJO" : "STOCK_ACTUALIZADO";
+        Map<String, Object> datos = resumen(producto);
+        TransaccionUtil.despuesDelCommit(() -> {
+            catalogoPos.invalidar(producto.getIdInventario());
+            eventoHub.publicar(EventoHub.TOPICO_INVENTARIO, tipo, producto.getIdInventario(), datos);
+        });
+    }
+
+    private Map<String, Object> resumen(Inventario producto) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("idInventario", producto.getIdInventario());
+        datos.put("codigo", producto.getCodigo());
+        datos.put("nombre", producto.getNombre());
+        datos.put("stockActual", producto.getStockActual());
+        datos.put("stockMinimo", producto.getStockMinimo());
+        datos.put("fechaVencimiento", producto.getFechaVencimiento());
+        return datos;
+    }
+
     // Clase interna para alertas
     public static class InventarioAlertas {
         private List<Inventario> productosStockBajo;
@@ -0,0 +1,347 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Lector de extractos bancarios y de billeteras (Yape/Plin) en CSV o XLSX
+ * Lee fila por fila sin cargar el archivo completo en memoria y entrega cada abono
+ * (montos positivos) al consumidor.
+ *
+ * Las columnas se reconocen por el encabezado: fecha, monto/importe/abono,
+ * referencia/operación y descripción/glosa/concepto.
+ */
+@Component
+public class LectorExtractos {
+
+    private static final Map<String, String> ALIAS_COLUMNAS = new HashMap<>();
+
+    static {
+        for (String alias : List.of("fecha", "fecha operacion", "fecha de operacion", "fecha movimiento", "date")) {
+            ALIAS_COLUMNAS.put(alias, "fecha");
+        }
+        for (String alias : List.of("monto", "importe", "abono", "amount", "monto s")) {
+            ALIAS_COLUMNAS.put(alias, "monto");
+        }
+        for (String alias : List.of("referencia", "nro operacion", "numero operacion", "n operacion",
+                "operacion", "codigo", "nro referencia")) {
+            ALIAS_COLUMNAS.put(alias, "referencia");
+        }
+        for (String alias : List.of("descripcion", "glosa", "concepto", "detalle", "mensaje", "nombre", "origen")) {
+            ALIAS_COLUMNAS.putIfAbsent(alias, "descripcion");
+        }
+    }
+
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/yyyy"),
+            DateTimeFormatter.ofPattern("d-M-yyyy"),
+            DateTimeFormatter.ofPattern("d/M/yy"),
+            DateTimeFormatter.ofPattern("d.M.yyyy"));
+
+    /**
+     * Leer un extracto; devuelve la cantidad de filas leídas (incluidas las descartadas)
+     */
+    public int leer(Path archivo, Consumer<Linea> consumidor) throws IOException {
+        String nombre = archivo.getFileName().toString().toLowerCase();
+        if (nombre.endsWith(".xlsx")) {
+            return leerXlsx(archivo, consumidor);
+        }
+        if (nombre.endsWith(".csv") || nombre.endsWith(".txt")) {
+            return leerCsv(archivo, consumidor);
+        }
+        throw new IOException("Formato de extracto no soportado: " + archivo.getFileName());
+    }
+
+    // ==================== CSV ====================
+
+    private int leerCsv(Path archivo, Consumer<Linea> consumidor) throws IOException {
+        var decodificador = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(archivo), decodificador))) {
+            String encabezado = reader.readLine();
+            if (encabezado == null) {
+                return 0;
+            }
+            if (encabezado.startsWith("\uFEFF")) {
+                encabezado = encabezado.substring(1);
+            }
+            char separador = contar(encabezado, ';') > contar(encabezado, ',') ? ';' : ',';
+            Map<String, Integer> columnas = mapearColumnas(dividir(encabezado, separador));
+
+            int fila = 1;
+            String texto;
+            while ((texto = reader.readLine()) != null) {
+                fila++;
+                if (!texto.isBlank()) {
+                    emitir(fila, dividir(texto, separador), columnas, consumidor);
+                }
+            }
+            return fila - 1;
+        }
+    }
+
+    /**
+     * Dividir una línea CSV respetando comillas ("" dentro de comillas es una comilla)
+     */
+    private List<String> dividir(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == separador && !entreComillas) {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    private int contar(String texto, char caracter) {
+        int total = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == caracter) total++;
+        }
+        return total;
+    }
+
+    // ==================== XLSX ====================
+
+    private int leerXlsx(Path archivo, Consumer<Linea> consumidor) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(paquete);
+            StylesTable estilos = reader.getStylesTable();
+            Iterator<InputStream> hojas = reader.getSheetsData();
+            if (!hojas.hasNext()) {
+                return 0;
+            }
+            ManejadorHoja manejador = new ManejadorHoja(consumidor);
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(estilos, null, textos, manejador, new FormatoCeldas(), false));
+                parser.parse(new InputSource(hoja));
+            }
+            return manejador.filas;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("No se pudo leer el extracto " + archivo.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Las fechas de Excel se entregan en ISO (yyyy-MM-dd) sin depender del formato de la celda
+     */
+    private static class FormatoCeldas extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double valor, int indiceFormato, String formato) {
+            if (org.apache.poi.ss.usermodel.DateUtil.isADateFormat(indiceFormato, formato)
+                    && org.apache.poi.ss.usermodel.DateUtil.isValidExcelDate(valor)) {
+                return org.apache.poi.ss.usermodel.DateUtil.getLocalDateTime(valor).toLocalDate().toString();
+            }
+            return super.formatRawCellContents(valor, indiceFormato, formato);
+        }
+    }
+
+    private class ManejadorHoja implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<Linea> consumidor;
+        private final List<String> celdas = new ArrayList<>();
+        private Map<String, Integer> columnas;
+        private int filas;
+
+        private ManejadorHoja(Consumer<Linea> consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void startRow(int numeroFila) {
+            celdas.clear();
+        }
+
+        @Override
+        public void endRow(int numeroFila) {
+            if (columnas == null) {
+                columnas = mapearColumnas(celdas);
+                return;
+            }
+            filas++;
+            emitir(numeroFila + 1, celdas, columnas, consumidor);
+        }
+
+        @Override
+        public void cell(String referencia, String valor, XSSFComment comentario) {
+            int columna = new CellReference(referencia).getCol();
+            while (celdas.size() <= columna) {
+                celdas.add("");
+            }
+            celdas.set(columna, valor != null ? valor.trim() : "");
+        }
+    }
+
+    // ==================== Comunes ====================
+
+    private Map<String, Integer> mapearColumnas(List<String> encabezado) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            String campo = ALIAS_COLUMNAS.get(normalizar(encabezado.get(i)));
+            if (campo != null) {
+                columnas.putIfAbsent(campo, i);
+            }
+        }
+        if (!columnas.containsKey("fecha") || !columnas.containsKey("monto")) {
+            throw new IllegalArgumentException("El extracto debe tener columnas de fecha y monto");
+        }
+        return columnas;
+    }
+
+    private void emitir(int fila, List<String> campos, Map<String, Integer> columnas, Consumer<Linea> consumidor) {
+        String textoFecha = campo(campos, columnas, "fecha");
+        String textoMonto = campo(campos, columnas, "monto");
+        Linea linea = new Linea(fila, campo(campos, columnas, "referencia"), campo(campos, columnas, "descripcion"));
+        try {
+            linea.fecha = parsearFecha(textoFecha);
+            linea.monto = parsearMonto(textoMonto);
+        } catch (RuntimeException e) {
+            linea.error = "Fila con fecha o monto no válido: " + textoFecha + " / " + textoMonto;
+        }
+        if (linea.error == null && (linea.monto == null || !linea.monto.esPositivo())) {
+            return; // Cargos y filas vacías no se concilian
+        }
+        consumidor.accept(linea);
+    }
+
+    private String campo(List<String> campos, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        return indice != null && indice < campos.size() ? campos.get(indice) : "";
+    }
+
+    private LocalDate parsearFecha(String texto) {
+        String valor = texto.trim();
+        int espacio = valor.indexOf(' ');
+        if (espacio > 0) {
+            valor = valor.substring(0, espacio); // Descartar la hora
+        }
+        if (valor.length() > 10 && valor.charAt(10) == 'T') {
+            valor = valor.substring(0, 10);
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(valor, formato);
+            } catch (DateTimeParseException e) {
+                // Probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha no válida: " + texto);
+    }
+
+    /**
+     * Montos con o sin símbolo de moneda y con separador decimal "." o ","
+     */
+    private Dinero parsearMonto(String texto) {
+        String valor = texto.replaceAll("[^0-9,.\\-]", "");
+        if (valor.isEmpty()) {
+            return null;
+        }
+        int punto = valor.lastIndexOf('.');
+        int coma = valor.lastIndexOf(',');
+        if (punto >= 0 && coma >= 0) {
+            // El último separador es el decimal
+            valor = punto > coma ? valor.replace(",", "") : valor.replace(".", "").replace(',', '.');
+        } else if (coma >= 0) {
+            valor = valor.length() - coma == 3 ? valor.replace(',', '.') : valor.replace(",", "");
+        }
+        return Dinero.de(valor);
+    }
+
+    /**
+     * Normalizar texto para comparar (minúsculas, sin tildes ni signos)
+     */
+    static String normalizar(String texto) {
+        String sinTildes = Normalizer.normalize(texto == null ? "" : texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    /**
+     * Abono leído de un extracto
+     */
+    public static class Linea {
+        private final int fila;
+        private final String referencia;
+        private final String descripcion;
+        private LocalDate fecha;
+        private Dinero monto;
+        private String error;
+
+        private Linea(int fila, String referencia, String descripcion) {
+            this.fila = fila;
+            this.referencia = referencia;
+            this.descripcion = descripcion;
+        }
+
+        public int getFila() {
+            return fila;
+        }
+
+        public String getReferencia() {
+            return referencia;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        public LocalDate getFecha() {
+            return fecha;
+        }
+
+        public Dinero getMonto() {
+            return monto;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.petsalud.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite adaptativo de peticiones simultáneas por grupo de rutas costosas
+ *
+ * Algoritmo de gradiente sobre la latencia observada:
+ * - Se mantiene una latencia de referencia de largo plazo (promedio exponencial lento).
+ * - Cada respuesta compara la referencia con su latencia: gradiente = tolerancia * referencia / latencia,
+ *   acotado a [0.5, 1]. Si la latencia sube (cola en la base de datos) el límite baja; si se mantiene,
+ *   el límite crece con una holgura de raíz cuadrada del límite actual.
+ * - Los errores reducen el límite de forma multiplicativa.
+ * Una petición que excede el límite se rechaza de inmediato en lugar de esperar una conexión del pool.
+ */
+@Service
+public class LimitadorConcurrencia {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Grupo> grupos = new ConcurrentHashMap<>();
+
+    /**
+     * Intentar ocupar un lugar en el grupo; null si se excede el límite
+     */
+    public Permiso adquirir(String grupo, int limiteInicial, int limiteMinimo, int limiteMaximo) {
+        Grupo g = grupos.computeIfAbsent(grupo, nombre -> registrar(nombre, limiteInicial, limiteMinimo, limiteMaximo));
+        int enVuelo = g.enVuelo.incrementAndGet();
+        if (enVuelo > (int) g.limite) {
+            g.enVuelo.decrementAndGet();
+            g.rechazadas.incrementAndGet();
+            return null;
+        }
+        return new Permiso(g, System.nanoTime(), enVuelo);
+    }
+
+    /**
+     * Estado de cada grupo (límite actual, en curso, latencia de referencia)
+     */
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        grupos.forEach((nombre, g) -> {
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("limite", (int) g.limite);
+            datos.put("enVuelo", g.enVuelo.get());
+            datos.put("latenciaReferenciaMs", Math.round(g.referenciaNanos / 1_000_000.0));
+            datos.put("rechazadas", g.rechazadas.get());
+            estado.put(nombre, datos);
+        });
+        return estado;
+    }
+
+    private Grupo registrar(String nombre, int limiteInicial, int limiteMinimo, int limiteMaximo) {
+        Grupo g = new Grupo(limiteInicial, limiteMinimo, limiteMaximo);
+        Gauge.builder("petsalud.limites.concurrencia.limite", g, x -> x.limite)
+                .tag("grupo", nombre)
+                .description("Peticiones simultáneas permitidas")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.limites.concurrencia.en-vuelo", g.enVuelo, AtomicInteger::get)
+                .tag("grupo", nombre)
+                .description("Peticiones en curso")
+                .register(meterRegistry);
+        return g;
+    }
+
+    /**
+     * Lugar ocupado; debe liberarse siempre al terminar la petición
+     */
+    public static class Permiso {
+        private final Grupo grupo;
+        private final long inicio;
+        private final int enVuelo;
+
+        private Permiso(Grupo grupo, long inicio, int enVuelo) {
+            this.grupo = grupo;
+            this.inicio = inicio;
+            this.enVuelo = enVuelo;
+        }
+
+        public void liberar(boolean exitosa) {
+            grupo.enVuelo.decrementAndGet();
+            grupo.ajustar(System.nanoTime() - inicio, enVuelo, exitosa);
+        }
+
+        /**
+         * Liberar sin ajustar el límite (la petición fue rechazada por saturación, no procesada)
+         */
+        public void descartar() {
+            grupo.enVuelo.decrementAndGet();
+        }
+    }
+
+    private static class Grupo {
+        private static final double TOLERANCIA = 1.5;
+        private static final double SUAVIZADO = 0.2;
+        private static final double PESO_REFERENCIA = 0.05;
+        private static final double REDUCCION_ERROR = 0.9;
+
+        private final int minimo;
+        private final int maximo;
+        private final AtomicInteger enVuelo = new AtomicInteger();
+        private final AtomicInteger rechazadas = new AtomicInteger();
+        private volatile double limite;
+        private double referenciaNanos;
+
+        private Grupo(int inicial, int minimo, int maximo) {
+            this.minimo = Math.max(1, minimo);
+            this.maximo = Math.max(this.minimo, maximo);
+            this.limite = Math.min(this.maximo, Math.max(this.minimo, inicial));
+        }
+
+        private synchronized void ajustar(long latenciaNanos, int enVueloAlIniciar, boolean exitosa) {
+            double nuevo;
+            if (!exitosa) {
+                nuevo = limite * REDUCCION_ERROR;
+            } else {
+                referenciaNanos = referenciaNanos == 0
+                        ? latenciaNanos
+                        : referenciaNanos * (1 - PESO_REFERENCIA) + latenciaNanos * PESO_REFERENCIA;
+                // Con poca carga la latencia no dice nada del límite: no crecer sin uso
+                if (enVueloAlIniciar * 2 < limite) {
+                    return;
+                }
+                double gradiente = Math.max(0.5, Math.min(1.0, TOLERANCIA * referenciaNanos / latenciaNanos));
+                nuevo = limite * gradiente + Math.sqrt(limite);
+                nuevo = limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO;
+            }
+            limite = Math.min(maximo, Math.max(minimo, nuevo));
+        }
+    }
+}
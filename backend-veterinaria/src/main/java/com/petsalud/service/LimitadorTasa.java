@@ -0,0 +1,146 @@
+package com.petsalud.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador de tasa por cliente y grupo de rutas (cubetas de fichas)
+ *
+ * - Cada par cliente|grupo tiene una cubeta con capacidad (ráfaga) y recarga por segundo.
+ * - Las cubetas viven en un mapa dividido en franjas, cada una con su propio candado:
+ *   las peticiones de clientes distintos casi nunca compiten por el mismo candado.
+ * - Las cubetas llenas que no se usan hace tiempo se eliminan periódicamente.
+ */
+@Service
+public class LimitadorTasa {
+
+    private static final int FRANJAS = 64;
+
+    @Value("${petsalud.limites.tasa.max-cubetas-por-franja:2000}")
+    private int maxCubetasPorFranja;
+
+    @Value("${petsalud.limites.tasa.inactividad-segundos:600}")
+    private long inactividadSegundos;
+
+    private final Franja[] franjas = new Franja[FRANJAS];
+
+    public LimitadorTasa() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja();
+        }
+    }
+
+    /**
+     * Consumir una ficha de la cubeta del cliente en el grupo
+     * Retorna 0 si se permite, o los milisegundos hasta que haya una ficha disponible.
+     */
+    public long intentar(String cliente, String grupo, double capacidad, double porSegundo) {
+        String clave = cliente + "|" + grupo;
+        Franja franja = franjas[(clave.hashCode() & 0x7fffffff) % FRANJAS];
+        long ahora = System.nanoTime();
+
+        franja.candado.lock();
+        try {
+            Cubeta cubeta = franja.cubetas.get(clave);
+            if (cubeta == null) {
+                if (franja.cubetas.size() >= maxCubetasPorFranja) {
+                    franja.purgar(ahora, 0);
+                }
+                cubeta = new Cubeta(capacidad, ahora);
+                franja.cubetas.put(clave, cubeta);
+            }
+            cubeta.recargar(ahora, capacidad, porSegundo);
+            if (cubeta.fichas >= 1.0) {
+                cubeta.fichas -= 1.0;
+                return 0;
+            }
+            return (long) Math.ceil((1.0 - cubeta.fichas) / porSegundo * 1000);
+        } finally {
+            franja.candado.unlock();
+        }
+    }
+
+    /**
+     * Eliminar cubetas inactivas
+     */
+    @Scheduled(fixedDelayString = "${petsalud.limites.tasa.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        long inactividad = TimeUnit.SECONDS.toNanos(inactividadSegundos);
+        for (Franja franja : franjas) {
+            franja.candado.lock();
+            try {
+                franja.purgar(ahora, inactividad);
+            } finally {
+                franja.candado.unlock();
+            }
+        }
+    }
+
+    /**
+     * Cantidad de cubetas activas
+     */
+    public int contarCubetas() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            franja.candado.lock();
+            try {
+                total += franja.cubetas.size();
+            } finally {
+                franja.candado.unlock();
+            }
+        }
+        return total;
+    }
+
+    private static class Franja {
+        private final ReentrantLock candado = new ReentrantLock();
+        private final Map<String, Cubeta> cubetas = new HashMap<>();
+
+        /**
+         * Quitar las cubetas llenas sin uso durante 'inactividad' nanosegundos
+         */
+        private void purgar(long ahora, long inactividad) {
+            Iterator<Cubeta> it = cubetas.values().iterator();
+            while (it.hasNext()) {
+                Cubeta cubeta = it.next();
+                // Una cubeta llena equivale a no tenerla: se puede olvidar sin perder nada
+                if (ahora - cubeta.ultimaRecarga >= inactividad && cubeta.fichasEn(ahora) >= cubeta.capacidad) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class Cubeta {
+        private double fichas;
+        private double capacidad;
+        private double porSegundo;
+        private long ultimaRecarga;
+
+        private Cubeta(double capacidad, long ahora) {
+            this.fichas = capacidad;
+            this.capacidad = capacidad;
+            this.ultimaRecarga = ahora;
+        }
+
+        private void recargar(long ahora, double capacidad, double porSegundo) {
+            this.capacidad = capacidad;
+            this.porSegundo = porSegundo;
+            fichas = fichasEn(ahora);
+            ultimaRecarga = ahora;
+        }
+
+        private double fichasEn(long ahora) {
+            double transcurrido = (ahora - ultimaRecarga) / 1_000_000_000.0;
+            return Math.min(capacidad, fichas + transcurrido * porSegundo);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.petsalud.service;
+
+import com.petsalud.model.LoteInventario;
+import com.petsalud.repository.InventarioRepository;
+import com.petsalud.repository.LoteInventarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio para los lotes de inventario
+ * Consumo FEFO (primero el lote que vence antes) y alertas de vencimiento por lote.
+ * El stock del producto sigue en Inventario.stockActual; los lotes registran de qué lote sale cada unidad.
+ * Orden de bloqueo: siempre la fila del producto antes que sus lotes (igual que las ventas, que
+ * descuentan el stock y después consumen los lotes), para no cruzarse en un interbloqueo.
+ */
+@Service
+@Transactional
+public class LoteInventarioService {
+
+    private static final int LOTES_POR_LECTURA = 20;
+
+    @Autowired
+    private LoteInventarioRepository loteRepository;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    /**
+     * Registrar un lote recibido
+     */
+    public LoteInventario ingresar(Long idInventario, String codigoLote, LocalDate fechaVencimiento,
+                                   Integer cantidad, Double costoUnitario) {
+        if (codigoLote == null || codigoLote.trim().isEmpty()) {
+            throw new RuntimeException("El código de lote es obligatorio");
+        }
+        if (fechaVencimiento == null) {
+            throw new RuntimeException("La fecha de vencimiento del lote es obligatoria");
+        }
+        if (cantidad == null || cantidad <= 0) {
+            throw new RuntimeException("La cantidad del lote debe ser mayor a 0");
+        }
+
+        inventarioRepository.bloquear(idInventario);
+        LoteInventario lote = new LoteInventario();
+        lote.setIdInventario(idInventario);
+        lote.setCodigoLote(codigoLote.trim());
+        lote.setFechaVencimiento(fechaVencimiento);
+        lote.setCantidadInicial(cantidad);
+        lote.setCantidadDisponible(cantidad);
+        lote.setCostoUnitario(costoUnitario);
+        lote.setFechaIngreso(LocalDateTime.now());
+        LoteInventario guardado = loteRepository.save(lote);
+        refrescarVencimiento(idInventario);
+        return guardado;
+    }
+
+    /**
+     * Consumir una cantidad vendida o ajustada de los lotes vigentes de un producto en orden FEFO
+     * Devuelve lo tomado de cada lote (código -> cantidad). Si los lotes no cubren toda la cantidad,
+     * el resto corresponde a stock sin lote (anterior al control por lotes); si ese resto solo puede
+     * salir de lotes vencidos la operación se rechaza (se dan de baja con VENCIMIENTO o darDeBajaLote).
+     * Se llama después de descontar Inventario.stockActual, en la misma transacción.
+     */
+    public Map<String, Integer> consumir(Long idInventario, int cantidad) {
+        return consumir(idInventario, cantidad, false);
+    }
+
+    /**
+     * Consumir una baja por vencimiento en orden FEFO, empezando por los lotes vencidos
+     */
+    public Map<String, Integer> consumirVencidos(Long idInventario, int cantidad) {
+        return consumir(idInventario, cantidad, true);
+    }
+
+    /**
+     * Lote con saldo bloqueado para darlo de baja (vencido o dañado)
+     */
+    public LoteInventario obtenerParaBaja(Long idLote) {
+        Long idInventario = loteRepository.findIdInventario(idLote);
+        if (idInventario == null) {
+            throw new RuntimeException("Lote no encontrado");
+        }
+        inventarioRepository.bloquear(idInventario);
+        LoteInventario lote = loteRepository.findParaActualizar(idLote);
+        if (lote == null) {
+            throw new RuntimeException("Lote no encontrado");
+        }
+        if (lote.getCantidadDisponible() == 0) {
+            throw new RuntimeException("El lote no tiene saldo");
+        }
+        return lote;
+    }
+
+    /**
+     * Cerrar el saldo de un lote dado de baja
+     */
+    public void cerrar(LoteInventario lote) {
+        lote.setCantidadDisponible(0);
+        loteRepository.saveAndFlush(lote);
+        refrescarVencimiento(lote.getIdInventario());
+    }
+
+    /**
+     * Lotes de un producto (del que vence antes al que vence después)
+     */
+    @Transactional(readOnly = true)
+    public List<LoteInventario> listarPorProducto(Long idInventario) {
+        return loteRepository.findByIdInventarioOrderByFechaVencimientoAscIdLoteAsc(idInventario);
+    }
+
+    /**
+     * Lotes con saldo que vencen en los próximos días
+     */
+    @Transactional(readOnly = true)
+    public List<LoteInventario> obtenerProximosAVencer(int dias, int limite) {
+        LocalDate hoy = LocalDate.now();
+        return loteRepository.findConSaldoEntre(hoy, hoy.plusDays(dias), PageRequest.of(0, limite));
+    }
+
+    /**
+     * Lotes con saldo ya vencidos
+     */
+    @Transactional(readOnly = true)
+    public List<LoteInventario> obtenerVencidos(int limite) {
+        return loteRepository.findVencidosConSaldo(LocalDate.now(), PageRequest.of(0, limite));
+    }
+
+    private Map<String, Integer> consumir(Long idInventario, int cantidad, boolean incluirVencidos) {
+        Map<String, Integer> consumido = new LinkedHashMap<>();
+        if (cantidad <= 0 || !loteRepository.existsByIdInventario(idInventario)) {
+            return consumido;
+        }
+        inventarioRepository.bloquear(idInventario);
+        LocalDate hoy = LocalDate.now();
+        int pendiente = cantidad;
+        while (pendiente > 0) {
+            List<LoteInventario> lotes = incluirVencidos
+                    ? loteRepository.findParaBajaPorVencimiento(idInventario, PageRequest.of(0, LOTES_POR_LECTURA))
+                    : loteRepository.findParaConsumir(idInventario, hoy, PageRequest.of(0, LOTES_POR_LECTURA));
+            if (lotes.isEmpty()) {
+                break;
+            }
+            for (LoteInventario lote : lotes) {
+                int tomado = Math.min(pendiente, lote.getCantidadDisponible());
+                lote.setCantidadDisponible(lote.getCantidadDisponible() - tomado);
+                consumido.merge(lote.getCodigoLote(), tomado, Integer::sum);
+                pendiente -= tomado;
+                if (pendiente == 0) {
+                    break;
+                }
+            }
+            loteRepository.flush();
+        }
+        if (pendiente > 0 && !incluirVencidos) {
+            // El stock que queda debe seguir cubriendo las unidades vencidas (aún no dadas de baja)
+            long vencido = loteRepository.sumarSaldoVencido(idInventario, hoy);
+            Integer stock = inventarioRepository.findStockActual(idInventario);
+            if (stock == null || stock < vencido) {
+                throw new RuntimeException("Stock vigente insuficiente: las unidades restantes del producto "
+                        + idInventario + " están vencidas");
+            }
+        }
+        refrescarVencimiento(idInventario);
+        return consumido;
+    }
+
+    /**
+     * El vencimiento del producto es el de su próximo lote con saldo
+     * Sin lotes con saldo, el stock restante no tiene vencimiento conocido y se deja vacío.
+     */
+    private void refrescarVencimiento(Long idInventario) {
+        inventarioRepository.actualizarVencimiento(idInventario, loteRepository.findProximoVencimiento(idInventario));
+    }
+}
@@ -0,0 +1,234 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Inventario;
+import com.petsalud.model.MovimientoInventario;
+import com.petsalud.model.SnapshotInventario;
+import com.petsalud.repository.InventarioRepository;
+import com.petsalud.repository.MovimientoInventarioRepository;
+import com.petsalud.repository.SnapshotInventarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Libro de movimientos de inventario, snapshots por producto y valorización en curso
+ *
+ * - Cada cambio de stock agrega un movimiento; los de una transacción se insertan juntos
+ *   (un lote JDBC) justo antes del commit.
+ * - Un snapshot periódico guarda stock y valor por producto: el stock en cualquier fecha es
+ *   el último snapshot anterior más los movimientos posteriores.
+ * - La valorización total se mantiene en memoria con los deltas confirmados y se reajusta
+ *   contra la tabla al tomar los snapshots. Costos y valores van en Dinero (céntimos), sin
+ *   acumular la deriva de redondeo de Double en cada movimiento.
+ */
+@Service
+@Transactional
+public class MovimientoInventarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimientoInventarioService.class);
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO movimientos_inventario (id_inventario, tipo, cantidad, costo_unitario, referencia, fecha) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private MovimientoInventarioRepository movimientoRepository;
+
+    @Autowired
+    private SnapshotInventarioRepository snapshotRepository;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${petsalud.inventario.snapshots.margen-minutos:5}")
+    private int margenMinutos;
+
+    private final AtomicLong valorCentimos = new AtomicLong();
+
+    /**
+     * Abrir el libro de los productos existentes y cargar la valorización
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarInicial() {
+        try {
+            int abiertos = movimientoRepository.registrarSaldosIniciales(LocalDateTime.now());
+            if (abiertos > 0) {
+                logger.info("Libro de inventario: saldo inicial de {} productos", abiertos);
+            }
+            recalcularValor();
+        } catch (Exception e) {
+            logger.warn("No se pudo inicializar el libro de inventario: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Registrar un movimiento de stock valorizado al precio de compra del producto
+     */
+    public void registrar(Inventario producto, String tipo, int cantidad, String referencia) {
+        Dinero costo = costo(producto);
+        Dinero delta = Boolean.FALSE.equals(producto.getActivo()) ? Dinero.CERO : costo.multiplicar(cantidad);
+        registrar(producto.getIdInventario(), tipo, cantidad, costo, referencia, delta);
+    }
+
+    /**
+     * Registrar un movimiento con un cambio de valorización explícito
+     * Con cantidad 0 solo se ajusta la valorización (cambio de precio, alta o baja del producto).
+     */
+    public void registrar(Long idInventario, String tipo, int cantidad, Dinero costoUnitario, String referencia, Dinero deltaValor) {
+        MovimientoInventario movimiento = cantidad != 0
+                ? new MovimientoInventario(idInventario, tipo, cantidad, costoUnitario, recortar(referencia))
+                : null;
+
+        Pendientes pendientes = pendientes();
+        if (pendientes == null) {
+            if (movimiento != null) {
+                insertar(List.of(movimiento));
+            }
+            valorCentimos.addAndGet(deltaValor != null ? deltaValor.getCentimos() : 0);
+            return;
+        }
+        if (movimiento != null) {
+            pendientes.movimientos.add(movimiento);
+        }
+        pendientes.delta.agregar(deltaValor);
+    }
+
+    /**
+     * Valorización total del inventario activo (sin recorrer la tabla)
+     */
+    @Transactional(readOnly = true)
+    public Dinero valorTotal() {
+        return Dinero.deCentimos(valorCentimos.get());
+    }
+
+    /**
+     * Stock de un producto en una fecha: último snapshot anterior más los movimientos posteriores
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> stockEn(Long idInventario, LocalDateTime fecha) {
+        SnapshotInventario snapshot = snapshotRepository
+                .findFirstByIdInventarioAndFechaLessThanEqualOrderByIdSnapshotDesc(idInventario, fecha);
+        long base = snapshot != null ? snapshot.getStock() : 0;
+        long desde = snapshot != null ? snapshot.getIdUltimoMovimiento() : 0;
+        long stock = base + movimientoRepository.sumarDesde(idInventario, desde, fecha);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("idInventario", idInventario);
+        resultado.put("fecha", fecha);
+        resultado.put("stock", stock);
+        resultado.put("fechaSnapshot", snapshot != null ? snapshot.getFecha() : null);
+        return resultado;
+    }
+
+    /**
+     * Últimos movimientos de un producto
+     */
+    @Transactional(readOnly = true)
+    public List<MovimientoInventario> listarMovimientos(Long idInventario) {
+        return movimientoRepository.findTop100ByIdInventarioOrderByIdMovimientoDesc(idInventario);
+    }
+
+    /**
+     * Tomar los snapshots de los productos con movimientos y reajustar la valorización
+     * El corte deja fuera los últimos minutos para no cortar transacciones aún abiertas.
+     */
+    @Scheduled(cron = "${petsalud.inventario.snapshots.cron:0 30 1 * * *}")
+    public int tomarSnapshots() {
+        LocalDateTime fechaCorte = LocalDateTime.now().minusMinutes(margenMinutos).truncatedTo(ChronoUnit.SECONDS);
+        Long corte = movimientoRepository.findUltimoIdAntesDe(fechaCorte);
+        int tomados = corte != null ? snapshotRepository.tomarSnapshots(corte, fechaCorte) : 0;
+        recalcularValor();
+        logger.info("Snapshots de inventario: {} productos al corte {}", tomados, fechaCorte);
+        return tomados;
+    }
+
+    // ==================== Métodos internos ====================
+
+    private void recalcularValor() {
+        Double valor = inventarioRepository.calcularValorTotalInventario();
+        valorCentimos.set(Dinero.de(valor).getCentimos());
+    }
+
+    /**
+     * Lote de la transacción actual; se inserta antes del commit y su delta se aplica después
+     */
+    private Pendientes pendientes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Pendientes pendientes) {
+                return pendientes;
+            }
+        }
+        Pendientes pendientes = new Pendientes();
+        TransactionSynchronizationManager.registerSynchronization(pendientes);
+        return pendientes;
+    }
+
+    private void insertar(List<MovimientoInventario> movimientos) {
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, movimientos, movimientos.size(), (ps, m) -> {
+            ps.setLong(1, m.getIdInventario());
+            ps.setString(2, m.getTipo());
+            ps.setInt(3, m.getCantidad());
+            if (m.getCostoUnitario() != null) {
+                ps.setBigDecimal(4, m.getCostoUnitario().aBigDecimal());
+            } else {
+                ps.setNull(4, Types.DECIMAL);
+            }
+            ps.setString(5, m.getReferencia());
+            ps.setTimestamp(6, Timestamp.valueOf(m.getFecha()));
+        });
+    }
+
+    private Dinero costo(Inventario producto) {
+        return Dinero.de(producto.getPrecioCompra());
+    }
+
+    private String recortar(String referencia) {
+        return referencia != null && referencia.length() > 100 ? referencia.substring(0, 100) : referencia;
+    }
+
+    /**
+     * Movimientos y cambio de valorización acumulados en una transacción
+     */
+    private class Pendientes implements TransactionSynchronization {
+        private final List<MovimientoInventario> movimientos = new ArrayList<>();
+        private final Dinero.Acumulador delta = new Dinero.Acumulador();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!movimientos.isEmpty()) {
+                insertar(movimientos);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            valorCentimos.addAndGet(delta.total().getCentimos());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Agrupador de notificaciones por destinatario
+ * Antes de entregar, junta los mensajes pendientes de un mismo destino (canal + email/teléfono)
+ * en un único resumen y descarta los cambios de estado que quedaron superados por uno posterior
+ * de la misma entidad.
+ *
+ * Los mensajes agrupables se registran con un retraso (ventana); cuando el primero vence,
+ * el despachador trae también los demás pendientes del mismo destino y se envían juntos.
+ */
+@Component
+public class NotificacionAgrupador {
+
+    // Tipos que nunca esperan la ventana ni se agrupan
+    private static final Set<String> TIPOS_INMEDIATOS = Set.of("RESULTADO_URGENTE");
+
+    // Tipos en los que solo interesa el último mensaje por entidad
+    private static final Set<String> TIPOS_REEMPLAZABLES = Set.of("ORDEN_ESTADO");
+
+    @Value("${petsalud.notificaciones.agrupacion.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${petsalud.notificaciones.agrupacion.ventana-segundos:120}")
+    private long ventanaSegundos;
+
+    @Value("${petsalud.notificaciones.agrupacion.max-por-resumen:20}")
+    private int maxPorResumen;
+
+    // Canales dirigidos a sistemas, no a personas: cada evento se entrega por separado
+    private static final Set<String> CANALES_SIN_AGRUPAR = Set.of("WEBHOOK");
+
+    /**
+     * Indica si una notificación de este tipo y canal puede esperar la ventana de agrupación
+     */
+    public boolean esAgrupable(String tipo, String canal) {
+        return habilitado && !TIPOS_INMEDIATOS.contains(tipo) && !CANALES_SIN_AGRUPAR.contains(canal);
+    }
+
+    /**
+     * Retraso con el que se registra una notificación de este tipo y canal
+     */
+    public long retrasoSegundos(String tipo, String canal) {
+        return esAgrupable(tipo, canal) ? ventanaSegundos : 0;
+    }
+
+    /**
+     * Construir los envíos a partir de las notificaciones reservadas
+     */
+    public Resultado agrupar(List<NotificacionOutbox> notificaciones) {
+        Resultado resultado = new Resultado();
+        Map<String, List<NotificacionOutbox>> porDestino = new LinkedHashMap<>();
+
+        for (NotificacionOutbox notificacion : notificaciones) {
+            if (!esAgrupable(notificacion.getTipo(), notificacion.getCanal())) {
+                resultado.envios.add(new Envio(List.of(notificacion), notificacion));
+            } else {
+                porDestino.computeIfAbsent(notificacion.getCanal() + "|" + notificacion.getDestino(),
+                        k -> new ArrayList<>()).add(notificacion);
+            }
+        }
+
+        for (List<NotificacionOutbox> grupo : porDestino.values()) {
+            grupo.sort(Comparator.comparing(NotificacionOutbox::getIdNotificacion));
+            List<NotificacionOutbox> vigentes = descartarSuperados(grupo, resultado.superadas);
+            for (int i = 0; i < vigentes.size(); i += maxPorResumen) {
+                List<NotificacionOutbox> parte = vigentes.subList(i, Math.min(i + maxPorResumen, vigentes.size()));
+                resultado.envios.add(new Envio(new ArrayList<>(parte),
+                        parte.size() == 1 ? parte.get(0) : resumen(parte)));
+            }
+        }
+        return resultado;
+    }
+
+    // ==================== Métodos internos ====================
+
+    /**
+     * Conservar solo el último cambio de estado por entidad (gana el de mayor id)
+     */
+    private List<NotificacionOutbox> descartarSuperados(List<NotificacionOutbox> grupo, List<NotificacionOutbox> superadas) {
+        Map<String, NotificacionOutbox> ultimos = new HashMap<>();
+        for (NotificacionOutbox notificacion : grupo) {
+            if (TIPOS_REEMPLAZABLES.contains(notificacion.getTipo()) && notificacion.getReferencia() != null) {
+                ultimos.put(notificacion.getTipo() + "|" + notificacion.getReferencia(), notificacion);
+            }
+        }
+        List<NotificacionOutbox> vigentes = new ArrayList<>();
+        for (NotificacionOutbox notificacion : grupo) {
+            NotificacionOutbox ultimo = ultimos.get(notificacion.getTipo() + "|" + notificacion.getReferencia());
+            if (ultimo != null && ultimo != notificacion) {
+                superadas.add(notificacion);
+            } else {
+                vigentes.add(notificacion);
+            }
+        }
+        return vigentes;
+    }
+
+    /**
+     * Mensaje resumen con todas las notificaciones del destino
+     */
+    private NotificacionOutbox resumen(List<NotificacionOutbox> parte) {
+        NotificacionOutbox primera = parte.get(0);
+        boolean esSms = "SMS".equals(primera.getCanal());
+
+        StringBuilder mensaje = new StringBuilder();
+        StringBuilder clave = new StringBuilder("RESUMEN");
+        for (NotificacionOutbox notificacion : parte) {
+            clave.append('|').append(notificacion.getIdNotificacion());
+            if (esSms) {
+                if (mensaje.length() > 0) {
+                    mensaje.append(" | ");
+                }
+                mensaje.append(notificacion.getMensaje());
+            } else {
+                mensaje.append("- ").append(notificacion.getAsunto()).append(": ")
+                        .append(notificacion.getMensaje()).append('\n');
+            }
+        }
+
+        NotificacionOutbox resumen = new NotificacionOutbox();
+        resumen.setClaveIdempotencia(clave.length() > 255
+                ? "RESUMEN|" + UUID.nameUUIDFromBytes(clave.toString().getBytes(StandardCharsets.UTF_8))
+                : clave.toString());
+        resumen.setTipo("RESUMEN");
+        resumen.setCanal(primera.getCanal());
+        resumen.setDestinatarioTipo(primera.getDestinatarioTipo());
+        resumen.setDestino(primera.getDestino());
+        resumen.setAsunto("Resumen de notificaciones (" + parte.size() + ")");
+        resumen.setMensaje(mensaje.toString());
+        resumen.setFechaCreacion(primera.getFechaCreacion());
+        return resumen;
+    }
+
+    /**
+     * Resultado de la agrupación: envíos a realizar y notificaciones superadas
+     */
+    public static class Resultado {
+        private final List<Envio> envios = new ArrayList<>();
+        private final List<NotificacionOutbox> superadas = new ArrayList<>();
+
+        public List<Envio> getEnvios() {
+            return envios;
+        }
+
+        public List<NotificacionOutbox> getSuperadas() {
+            return superadas;
+        }
+    }
+
+    /**
+     * Un envío a un destino: las notificaciones de origen y el mensaje a entregar
+     */
+    public static class Envio {
+        private final List<NotificacionOutbox> origen;
+        private final NotificacionOutbox mensaje;
+
+        public Envio(List<NotificacionOutbox> origen, NotificacionOutbox mensaje) {
+            this.origen = origen;
+            this.mensaje = mensaje;
+        }
+
+        public List<NotificacionOutbox> getOrigen() {
+            return origen;
+        }
+
+        public NotificacionOutbox getMensaje() {
+            return mensaje;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.petsalud.service;
+
+import com.petsalud.model.NotificacionOutbox;
+import com.petsalud.repository.NotificacionOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Despachador de la bandeja de salida de notificaciones
+ * Toma lotes de notificaciones pendientes, las agrupa por destinatario (NotificacionAgrupador),
+ * las entrega en un pool de trabajadores y registra el resultado con reintentos y backoff exponencial.
+ * Los rechazos del canal (límite de tasa, pool lleno, circuito abierto) no llegan al proveedor:
+ * se reprograman tras una espera corta sin consumir intentos.
+ *
+ * La entrega es "al menos una vez": si el proceso se detiene entre el envío y el
+ * marcado, la reserva vence y la notificación se reintenta con la misma clave de
+ * idempotencia, que se entrega al canal para que descarte duplicados.
+ */
+@Service
+public class NotificacionDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionDispatcher.class);
+
+    @Autowired
+    private NotificacionOutboxRepository outboxRepository;
+
+    @Autowired
+    private CanalesNotificacion canalesNotificacion;
+
+    @Autowired
+    private NotificacionAgrupador agrupador;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${petsalud.notificaciones.outbox.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${petsalud.notificaciones.outbox.tamanio-lote:50}")
+    private int tamanioLote;
+
+    @Value("${petsalud.notificaciones.outbox.max-lotes-por-ejecucion:20}")
+    private int maxLotesPorEjecucion;
+
+    @Value("${petsalud.notificaciones.outbox.trabajadores:4}")
+    private int trabajadores;
+
+    @Value("${petsalud.notificaciones.outbox.max-intentos:5}")
+    private int maxIntentos;
+
+    @Value("${petsalud.notificaciones.outbox.backoff-inicial-segundos:30}")
+    private long backoffInicialSegundos;
+
+    @Value("${petsalud.notificaciones.outbox.espera-rechazo-segundos:5}")
+    private long esperaRechazoSegundos;
+
+    // Tiempo tras el cual una notificación EN_PROCESO se considera abandonada
+    @Value("${petsalud.notificaciones.outbox.reserva-segundos:300}")
+    private long reservaSegundos;
+
+    @Value("${petsalud.notificaciones.outbox.timeout-entrega-segundos:30}")
+    private long timeoutEntregaSegundos;
+
+    @Value("${petsalud.notificaciones.outbox.retencion-dias:30}")
+    private int retencionDias;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService pool;
+
+    private Counter enviadas;
+    private Counter reintentos;
+    private Counter fallidas;
+    private Counter resumenes;
+    private Counter agrupadas;
+    private Counter superadas;
+    private Timer latencia;
+    private final AtomicLong pendientes = new AtomicLong();
+    private final AtomicLong retrasoSegundos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(trabajadores, trabajadores, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(tamanioLote, 1)),
+                r -> {
+                    Thread hilo = new Thread(r, "notificaciones-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        enviadas = Counter.builder("petsalud.notificaciones.enviadas")
+                .description("Notificaciones entregadas")
+                .register(meterRegistry);
+        reintentos = Counter.builder("petsalud.notificaciones.reintentos")
+                .description("Entregas fallidas que se reintentarán")
+                .register(meterRegistry);
+        fallidas = Counter.builder("petsalud.notificaciones.fallidas")
+                .description("Notificaciones descartadas tras agotar los reintentos")
+                .register(meterRegistry);
+        resumenes = Counter.builder("petsalud.notificaciones.resumenes")
+                .description("Resúmenes entregados (varias notificaciones en un solo mensaje)")
+                .register(meterRegistry);
+        agrupadas = Counter.builder("petsalud.notificaciones.agrupadas")
+                .description("Notificaciones entregadas dentro de un resumen")
+                .register(meterRegistry);
+        superadas = Counter.builder("petsalud.notificaciones.superadas")
+                .description("Cambios de estado descartados por uno posterior de la misma entidad")
+                .register(meterRegistry);
+        latencia = Timer.builder("petsalud.notificaciones.latencia")
+                .description("Tiempo entre el registro en la bandeja y la entrega")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.notificaciones.pendientes", pendientes, AtomicLong::get)
+                .description("Notificaciones en la bandeja de salida aún no entregadas")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.notificaciones.retraso.segundos", retrasoSegundos, AtomicLong::get)
+                .description("Antigüedad de la notificación pendiente más antigua")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ejecución programada del despachador
+     */
+    @Scheduled(fixedDelayString = "${petsalud.notificaciones.outbox.intervalo-ms:1000}",
+               initialDelayString = "${petsalud.notificaciones.outbox.intervalo-ms:1000}")
+    public void ejecutar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            despacharPendientes();
+        } catch (Exception e) {
+            logger.error("Error al despachar notificaciones: {}", e.getMessage());
+        } finally {
+            actualizarMetricas();
+        }
+    }
+
+    /**
+     * Despachar lotes hasta vaciar la bandeja o alcanzar el límite por ejecución
+     * Retorna la cantidad de notificaciones entregadas
+     */
+    public int despacharPendientes() {
+        int total = 0;
+        for (int i = 0; i < maxLotesPorEjecucion; i++) {
+            List<NotificacionOutbox> lote = reservarLote();
+            if (lote.isEmpty()) {
+                break;
+            }
+            total += procesarLote(lote);
+        }
+        return total;
+    }
+
+    /**
+     * Reservar un lote (EN_PROCESO con vencimiento) en una transacción corta
+     * Junto a las notificaciones listas se reservan las que aún esperan la ventana de
+     * agrupación para los mismos destinos, de modo que salgan en un único resumen.
+     */
+    private List<NotificacionOutbox> reservarLote() {
+        List<NotificacionOutbox> lote = transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<NotificacionOutbox> listas = new ArrayList<>(
+                    outboxRepository.findListasParaEnvio(ahora, PageRequest.of(0, tamanioLote)));
+            if (listas.isEmpty()) {
+                return listas;
+            }
+
+            Set<String> destinos = new HashSet<>();
+            for (NotificacionOutbox notificacion : listas) {
+                if (agrupador.esAgrupable(notificacion.getTipo(), notificacion.getCanal())) {
+                    destinos.add(notificacion.getDestino());
+                }
+            }
+            if (!destinos.isEmpty()) {
+                for (NotificacionOutbox enEspera : outboxRepository.findEnEsperaPorDestinos(destinos, ahora)) {
+                    if (agrupador.esAgrupable(enEspera.getTipo(), enEspera.getCanal())) {
+                        listas.add(enEspera);
+                    }
+                }
+            }
+
+            // La lectura anterior no bloquea: se reserva con un UPDATE condicional y se relee lo reservado
+            List<Long> ids = listas.stream().map(NotificacionOutbox::getIdNotificacion).collect(Collectors.toList());
+            String reserva = UUID.randomUUID().toString();
+            int reservadas = outboxRepository.reservar(ids, reserva, ahora, ahora.plusSeconds(reservaSegundos));
+            if (reservadas == 0) {
+                return List.<NotificacionOutbox>of();
+            }
+            return outboxRepository.findByReserva(reserva);
+        });
+        return lote != null ? lote : List.of();
+    }
+
+    /**
+     * Agrupar el lote por destino, entregarlo en el pool de trabajadores y registrar los resultados
+     */
+    private int procesarLote(List<NotificacionOutbox> lote) {
+        NotificacionAgrupador.Resultado agrupacion = agrupador.agrupar(lote);
+
+        Map<NotificacionAgrupador.Envio, Future<?>> entregas = new LinkedHashMap<>();
+        for (NotificacionAgrupador.Envio envio : agrupacion.getEnvios()) {
+            entregas.put(envio, pool.submit(() -> {
+                canalesNotificacion.entregar(envio.getMensaje());
+                return null;
+            }));
+        }
+
+        List<NotificacionOutbox> entregadas = new ArrayList<>();
+        Map<NotificacionOutbox, String> errores = new LinkedHashMap<>();
+        Map<NotificacionOutbox, String> rechazadas = new LinkedHashMap<>();
+        for (Map.Entry<NotificacionAgrupador.Envio, Future<?>> entrega : entregas.entrySet()) {
+            List<NotificacionOutbox> origen = entrega.getKey().getOrigen();
+            try {
+                entrega.getValue().get(timeoutEntregaSegundos, TimeUnit.SECONDS);
+                entregadas.addAll(origen);
+                if (origen.size() > 1) {
+                    resumenes.increment();
+                    agrupadas.increment(origen.size());
+                }
+            } catch (ExecutionException e) {
+                Map<NotificacionOutbox, String> destino =
+                        e.getCause() instanceof CanalesNotificacion.EntregaRechazada ? rechazadas : errores;
+                origen.forEach(n -> destino.put(n, mensajeError(e.getCause())));
+            } catch (TimeoutException e) {
+                entrega.getValue().cancel(true);
+                origen.forEach(n -> errores.put(n, "Tiempo de entrega agotado"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                origen.forEach(n -> errores.put(n, "Entrega interrumpida"));
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> idsSuperadas = agrupacion.getSuperadas().stream()
+                .map(NotificacionOutbox::getIdNotificacion).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!entregadas.isEmpty()) {
+                outboxRepository.marcarEnviadas(entregadas.stream()
+                        .map(NotificacionOutbox::getIdNotificacion).collect(Collectors.toList()), ahora);
+            }
+            if (!idsSuperadas.isEmpty()) {
+                outboxRepository.marcarDescartadas(idsSuperadas, ahora);
+            }
+            errores.forEach((notificacion, error) -> registrarFallo(notificacion, error, ahora));
+            rechazadas.forEach((notificacion, error) -> outboxRepository.reprogramar(
+                    notificacion.getIdNotificacion(), ahora.plusSeconds(esperaRechazoSegundos), error));
+        });
+
+        for (NotificacionOutbox notificacion : entregadas) {
+            latencia.record(Duration.between(notificacion.getFechaCreacion(), ahora));
+        }
+        enviadas.increment(entregadas.size());
+        superadas.increment(idsSuperadas.size());
+        return entregadas.size();
+    }
+
+    private void registrarFallo(NotificacionOutbox notificacion, String error, LocalDateTime ahora) {
+        int intentos = (notificacion.getIntentos() != null ? notificacion.getIntentos() : 0) + 1;
+        if (intentos >= maxIntentos) {
+            outboxRepository.registrarFallo(notificacion.getIdNotificacion(), "FALLIDA", ahora, error);
+            fallidas.increment();
+            logger.error("Notificación {} descartada tras {} intentos: {}",
+                    notificacion.getIdNotificacion(), intentos, error);
+        } else {
+            // Backoff exponencial: inicial * 2^(intentos-1)
+            long espera = backoffInicialSegundos << Math.min(intentos - 1, 16);
+            outboxRepository.registrarFallo(notificacion.getIdNotificacion(), "PENDIENTE",
+                    ahora.plusSeconds(espera), error);
+            reintentos.increment();
+            logger.warn("Notificación {} falló (intento {}), se reintentará en {}s: {}",
+                    notificacion.getIdNotificacion(), intentos, espera, error);
+        }
+    }
+
+    private String mensajeError(Throwable error) {
+        String mensaje = error != null && error.getMessage() != null ? error.getMessage() : String.valueOf(error);
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+
+    /**
+     * Depurar notificaciones ya enviadas (una vez al día)
+     */
+    @Scheduled(cron = "${petsalud.notificaciones.outbox.cron-depuracion:0 30 3 * * *}")
+    public void depurarEnviadas() {
+        Integer eliminadas = transactionTemplate.execute(status ->
+                outboxRepository.eliminarEnviadasAntesDe(LocalDateTime.now().minusDays(retencionDias)));
+        if (eliminadas != null && eliminadas > 0) {
+            logger.info("Notificaciones enviadas depuradas de la bandeja de salida: {}", eliminadas);
+        }
+    }
+
+    /**
+     * Actualizar las métricas de backlog y retraso
+     */
+    private void actualizarMetricas() {
+        try {
+            pendientes.set(outboxRepository.countPendientes());
+            LocalDateTime masAntigua = outboxRepository.findFechaPendienteMasAntigua();
+            retrasoSegundos.set(masAntigua == null ? 0
+                    : Math.max(0, Duration.between(masAntigua, LocalDateTime.now()).getSeconds()));
+        } catch (Exception e) {
+            logger.warn("No se pudieron actualizar las métricas de notificaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Notificaciones aún no entregadas (última medición)
+     */
+    public long getPendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Antigüedad en segundos de la notificación pendiente más antigua (última medición)
+     */
+    public long getRetrasoSegundos() {
+        return retrasoSegundos.get();
+    }
+}
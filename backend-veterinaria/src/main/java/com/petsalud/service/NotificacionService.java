@@ -1,15 +1,27 @@
 package com.petsalud.service;
 
 import com.petsalud.model.*;
+import com.petsalud.repository.NotificacionOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Servicio para gestión de Notificaciones
  * Sistema de notificaciones por email/SMS (simulado)
+ *
+ * Las notificaciones no se envían en la petición: se registran en la bandeja de salida
+ * (notificaciones_outbox) dentro de la transacción del llamador y las despacha
+ * NotificacionDispatcher en segundo plano.
  */
 @Service
 public class NotificacionService {
@@ -17,6 +29,18 @@ public class NotificacionService {
     private static final Logger logger = LoggerFactory.getLogger(NotificacionService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+    @Autowired
+    private NotificacionOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificacionAgrupador agrupador;
+
+    @Value("${petsalud.notificaciones.webhook.enabled:false}")
+    private boolean webhookHabilitado;
+
+    @Value("${petsalud.notificaciones.webhook.url:}")
+    private String webhookUrl;
+
     /**
      * Notificar nueva orden creada
      */
@@ -33,8 +57,8 @@ public class NotificacionService {
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
         // Notificar al dueño
-        enviarNotificacionDueno(orden.getMascota().getDueno(), 
-            "Nueva Orden Veterinaria", mensaje);
+        enviarNotificacionDueno(new Origen("ORDEN_NUEVA", "ORDEN:" + orden.getIdOrden()),
+            orden.getMascota().getDueno(), "Nueva Orden Veterinaria", mensaje);
     }
 
     /**
@@ -52,8 +76,9 @@ public class NotificacionService {
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
         // Notificar al dueño
-        enviarNotificacionDueno(orden.getMascota().getDueno(), 
-            "Actualización de Orden", mensaje);
+        enviarNotificacionDueno(new Origen("ORDEN_ESTADO", "ORDEN:" + orden.getIdOrden(),
+                estadoAnterior + ">" + orden.getEstado()),
+            orden.getMascota().getDueno(), "Actualización de Orden", mensaje);
     }
 
     /**
@@ -70,12 +95,15 @@ public class NotificacionService {
         
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
+        Origen origen = new Origen("TOMA_PROGRAMADA", "ORDEN:" + tomaMuestra.getOrden().getIdOrden(),
+                tomaMuestra.getCodigoMuestra());
+
         // Notificar al dueño
-        enviarNotificacionDueno(tomaMuestra.getOrden().getMascota().getDueno(), 
+        enviarNotificacionDueno(origen, tomaMuestra.getOrden().getMascota().getDueno(),
             "Toma de Muestra Programada", mensaje);
         
         // Notificar al técnico
-        enviarNotificacionTecnico(tomaMuestra.getTecnico(), 
+        enviarNotificacionTecnico(origen, tomaMuestra.getTecnico(),
             "Nueva Toma de Muestra Asignada", mensaje);
     }
 
@@ -92,8 +120,9 @@ public class NotificacionService {
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
         // Notificar al veterinario
-        enviarNotificacionVeterinario(tomaMuestra.getOrden().getVeterinario(), 
-            "Toma de Muestra Completada", mensaje);
+        enviarNotificacionVeterinario(new Origen("TOMA_REALIZADA", "ORDEN:" + tomaMuestra.getOrden().getIdOrden(),
+                tomaMuestra.getCodigoMuestra()),
+            tomaMuestra.getOrden().getVeterinario(), "Toma de Muestra Completada", mensaje);
     }
 
     /**
@@ -109,8 +138,9 @@ public class NotificacionService {
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
         // Notificar al veterinario
-        enviarNotificacionVeterinario(resultado.getOrden().getVeterinario(), 
-            "Nuevo Resultado Pendiente", mensaje);
+        enviarNotificacionVeterinario(new Origen("RESULTADO_NUEVO", "ORDEN:" + resultado.getOrden().getIdOrden(),
+                String.valueOf(resultado.getIdResultado())),
+            resultado.getOrden().getVeterinario(), "Nuevo Resultado Pendiente", mensaje);
     }
 
     /**
@@ -126,8 +156,9 @@ public class NotificacionService {
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
         // Notificar al dueño
-        enviarNotificacionDueno(resultado.getOrden().getMascota().getDueno(), 
-            "Resultados Disponibles", mensaje);
+        enviarNotificacionDueno(new Origen("RESULTADO_VALIDADO", "ORDEN:" + resultado.getOrden().getIdOrden(),
+                String.valueOf(resultado.getIdResultado())),
+            resultado.getOrden().getMascota().getDueno(), "Resultados Disponibles", mensaje);
     }
 
     /**
@@ -143,35 +174,73 @@ public class NotificacionService {
     }
 
     /**
-     * Enviar notificación al dueño (simulado)
+     * Encolar notificación al dueño
      */
-    private void enviarNotificacionDueno(Dueno dueno, String asunto, String mensaje) {
+    private void enviarNotificacionDueno(Origen origen, Dueno dueno, String asunto, String mensaje) {
         if (dueno.getEmail() != null && !dueno.getEmail().isEmpty()) {
-            logger.info("EMAIL a {}: {} - {}", dueno.getEmail(), asunto, mensaje);
+            encolar(origen, "DUENO", "EMAIL", dueno.getEmail(), asunto, mensaje);
         }
         
         if (dueno.getTelefono() != null && !dueno.getTelefono().isEmpty()) {
-            logger.info("SMS a {}: {}", dueno.getTelefono(), mensaje);
+            encolar(origen, "DUENO", "SMS", dueno.getTelefono(), asunto, mensaje);
         }
+        encolarWebhook(origen, "DUENO", asunto, mensaje);
     }
 
     /**
-     * Enviar notificación al veterinario (simulado)
+     * Encolar notificación al veterinario
      */
-    private void enviarNotificacionVeterinario(Veterinario veterinario, String asunto, String mensaje) {
+    private void enviarNotificacionVeterinario(Origen origen, Veterinario veterinario, String asunto, String mensaje) {
         if (veterinario.getEmail() != null && !veterinario.getEmail().isEmpty()) {
-            logger.info("EMAIL a {} (Veterinario): {} - {}", 
-                veterinario.getEmail(), asunto, mensaje);
+            encolar(origen, "VETERINARIO", "EMAIL", veterinario.getEmail(), asunto, mensaje);
         }
+        encolarWebhook(origen, "VETERINARIO", asunto, mensaje);
     }
 
     /**
-     * Enviar notificación al técnico (simulado)
+     * Encolar notificación al técnico
      */
-    private void enviarNotificacionTecnico(TecnicoVeterinario tecnico, String asunto, String mensaje) {
+    private void enviarNotificacionTecnico(Origen origen, TecnicoVeterinario tecnico, String asunto, String mensaje) {
         if (tecnico.getEmail() != null && !tecnico.getEmail().isEmpty()) {
-            logger.info("EMAIL a {} (Técnico): {} - {}", 
-                tecnico.getEmail(), asunto, mensaje);
+            encolar(origen, "TECNICO", "EMAIL", tecnico.getEmail(), asunto, mensaje);
+        }
+        encolarWebhook(origen, "TECNICO", asunto, mensaje);
+    }
+
+    /**
+     * Encolar copia para el webhook de integración (si está configurado)
+     */
+    private void encolarWebhook(Origen origen, String destinatarioTipo, String asunto, String mensaje) {
+        if (webhookHabilitado && webhookUrl != null && !webhookUrl.isBlank()) {
+            encolar(origen, destinatarioTipo, "WEBHOOK", webhookUrl, asunto, mensaje);
+        }
+    }
+
+    /**
+     * Registrar la notificación en la bandeja de salida (en la transacción del llamador)
+     * La clave de idempotencia evita duplicados si la misma operación se repite (INSERT IGNORE,
+     * sin carrera entre la verificación y la inserción)
+     */
+    private void encolar(Origen origen, String destinatarioTipo, String canal, String destino,
+                         String asunto, String mensaje) {
+        String clave = origen.clave() + "|" + destinatarioTipo + "|" + canal + "|" + destino;
+        if (clave.length() > 255) {
+            clave = origen.tipo + "|" + UUID.nameUUIDFromBytes(clave.getBytes(StandardCharsets.UTF_8));
+        }
+        NotificacionOutbox notificacion = new NotificacionOutbox();
+        notificacion.setClaveIdempotencia(clave);
+        notificacion.setTipo(origen.tipo);
+        notificacion.setReferencia(origen.referencia);
+        notificacion.setDestinatarioTipo(destinatarioTipo);
+        notificacion.setCanal(canal);
+        notificacion.setDestino(destino);
+        notificacion.setAsunto(asunto);
+        notificacion.setMensaje(mensaje);
+        // Los mensajes agrupables esperan la ventana para salir junto con otros del mismo destino
+        notificacion.setFechaCreacion(LocalDateTime.now());
+        notificacion.setProximoIntento(notificacion.getFechaCreacion().plusSeconds(agrupador.retrasoSegundos(origen.tipo, canal)));
+        if (outboxRepository.insertarSiNoExiste(notificacion) == 0) {
+            logger.debug("Notificación duplicada ignorada: {}", clave);
         }
     }
 
@@ -187,12 +256,15 @@ public class NotificacionService {
         
         logger.warn("NOTIFICACIÓN URGENTE - {}", mensaje);
         
+        Origen origen = new Origen("RESULTADO_URGENTE", "ORDEN:" + resultado.getOrden().getIdOrden(),
+                String.valueOf(resultado.getIdResultado()));
+
         // Notificar al veterinario
-        enviarNotificacionVeterinario(resultado.getOrden().getVeterinario(), 
+        enviarNotificacionVeterinario(origen, resultado.getOrden().getVeterinario(),
             "⚠️ RESULTADO URGENTE", mensaje);
         
         // Notificar al dueño
-        enviarNotificacionDueno(resultado.getOrden().getMascota().getDueno(), 
+        enviarNotificacionDueno(origen, resultado.getOrden().getMascota().getDueno(),
             "⚠️ Resultado Importante", 
             "Se ha detectado un resultado importante en los análisis de " + 
             resultado.getOrden().getMascota().getNombre() + 
@@ -212,8 +284,38 @@ public class NotificacionService {
         
         logger.info("RECORDATORIO - {}", mensaje);
         
-        enviarNotificacionVeterinario(orden.getVeterinario(), 
-            "Recordatorio de Orden Pendiente", mensaje);
+        enviarNotificacionVeterinario(new Origen("ORDEN_PENDIENTE", "ORDEN:" + orden.getIdOrden(),
+                LocalDate.now().toString()),
+            orden.getVeterinario(), "Recordatorio de Orden Pendiente", mensaje);
+    }
+
+    /**
+     * Recordatorio de cita al dueño
+     */
+    public void enviarRecordatorioCita(Cita cita) {
+        String mensaje = String.format(
+            "Recordatorio: %s tiene una cita de %s el %s. Motivo: %s",
+            cita.getMascota().getNombre(),
+            cita.getTipoCita() != null ? cita.getTipoCita() : "consulta",
+            cita.getFechaHora().format(DATE_FORMATTER),
+            cita.getMotivo()
+        );
+
+        logger.info("RECORDATORIO - {}", mensaje);
+
+        enviarNotificacionDueno(new Origen("RECORDATORIO_CITA", "CITA:" + cita.getIdCita(),
+                cita.getFechaHora().toString()),
+            cita.getMascota().getDueno(), "Recordatorio de Cita", mensaje);
+    }
+
+    /**
+     * Recordatorios de cita en lote
+     */
+    public void enviarRecordatoriosCita(List<Cita> citas) {
+        for (Cita cita : citas) {
+            enviarRecordatorioCita(cita);
+        }
+        logger.info("RECORDATORIOS - Lote de {} recordatorios de cita encolado", citas.size());
     }
 
     /**
@@ -223,14 +325,14 @@ public class NotificacionService {
         String mensaje = String.format(
             "Nueva factura #%s generada. Total: S/. %.2f. Estado: %s",
             factura.getNumeroFactura(),
-            factura.getTotal(),
+            factura.getTotal().aBigDecimal(),
             factura.getEstado()
         );
         
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
-        enviarNotificacionDueno(factura.getDueno(), 
-            "Nueva Factura Generada", mensaje);
+        enviarNotificacionDueno(new Origen("FACTURA_GENERADA", "FACTURA:" + factura.getIdFactura()),
+            factura.getDueno(), "Nueva Factura Generada", mensaje);
     }
 
     /**
@@ -240,13 +342,37 @@ public class NotificacionService {
         String mensaje = String.format(
             "Pago recibido para factura #%s. Monto: S/. %.2f. Método: %s",
             factura.getNumeroFactura(),
-            factura.getTotal(),
+            factura.getTotal().aBigDecimal(),
             factura.getMetodoPago()
         );
         
         logger.info("NOTIFICACIÓN - {}", mensaje);
         
-        enviarNotificacionDueno(factura.getDueno(), 
-            "Pago Recibido", mensaje);
+        enviarNotificacionDueno(new Origen("PAGO_RECIBIDO", "FACTURA:" + factura.getIdFactura(),
+                factura.getEstado()),
+            factura.getDueno(), "Pago Recibido", mensaje);
+    }
+
+    /**
+     * Origen de una notificación: tipo de evento y entidad que la produjo
+     */
+    private static class Origen {
+        private final String tipo;
+        private final String referencia;
+        private final String variante;
+
+        private Origen(String tipo, String referencia) {
+            this(tipo, referencia, null);
+        }
+
+        private Origen(String tipo, String referencia, String variante) {
+            this.tipo = tipo;
+            this.referencia = referencia;
+            this.variante = variante;
+        }
+
+        private String clave() {
+            return variante == null ? tipo + "|" + referencia : tipo + "|" + referencia + "|" + variante;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,313 @@
+package com.petsalud.service;
+
+import com.petsalud.model.RangoNumeracionLiberado;
+import com.petsalud.model.SecuenciaDocumento;
+import com.petsalud.repository.FacturaRepository;
+import com.petsalud.repository.RangoNumeracionLiberadoRepository;
+import com.petsalud.repository.SecuenciaDocumentoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio de numeración de documentos (facturas)
+ * Asigna números correlativos por serie y año sin COUNT ni reintentos:
+ *
+ * - Cada nodo reserva un bloque de números del contador (secuencias_documento) con
+ *   SELECT ... FOR UPDATE en una transacción corta, y los entrega desde un AtomicLong.
+ * - Si la transacción que usó un número se revierte, el número vuelve a una cola local
+ *   y es el próximo en asignarse, salvo que ya exista una factura con él (la reversión pudo
+ *   deberse justamente a la clave duplicada): se verifica al reutilizarlo y se descarta.
+ * - Al detener el nodo, el resto del bloque y los números devueltos se guardan en
+ *   numeracion_liberada, y cualquier nodo los reutiliza antes de reservar números nuevos.
+ * - Si el nodo termina sin @PreDestroy (caída, kill -9), el resto de su bloque en memoria
+ *   (hasta tamanio-bloque números) queda como hueco; auditarFacturas los lista para
+ *   justificarlos o anularlos.
+ *
+ * Con varios nodos los números son únicos pero no estrictamente crecientes en el tiempo.
+ */
+@Service
+public class NumeracionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumeracionService.class);
+
+    public static final String SERIE_FACTURA = "F";
+
+    @Autowired
+    private SecuenciaDocumentoRepository secuenciaRepository;
+
+    @Autowired
+    private RangoNumeracionLiberadoRepository rangoLiberadoRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.facturacion.numeracion.tamanio-bloque:20}")
+    private int tamanioBloque;
+
+    private TransactionTemplate nuevaTransaccion;
+
+    // serie|anio -> bloque en uso y números devueltos por transacciones revertidas
+    private final Map<String, Bloque> bloques = new ConcurrentHashMap<>();
+    private final Map<String, PriorityBlockingQueue<Long>> devueltos = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        nuevaTransaccion = new TransactionTemplate(transactionManager);
+        nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Asignar el siguiente número de factura (formato F2025-000123)
+     * Si la transacción actual se revierte, el número se devuelve para reutilizarse.
+     */
+    public String asignarNumeroFactura() {
+        int anio = LocalDate.now().getYear();
+        long numero = asignar(SERIE_FACTURA, anio);
+        devolverSiSeRevierte(SERIE_FACTURA, anio, numero);
+        return formatear(SERIE_FACTURA, anio, numero);
+    }
+
+    /**
+     * Asignar el siguiente número de una serie y año
+     */
+    public long asignar(String serie, int anio) {
+        String clave = clave(serie, anio);
+
+        PriorityBlockingQueue<Long> cola = devueltos.get(clave);
+        if (cola != null) {
+            Long devuelto;
+            while ((devuelto = cola.poll()) != null) {
+                if (!yaEmitido(serie, anio, devuelto)) {
+                    return devuelto;
+                }
+                logger.warn("Número devuelto {} descartado: ya existe un documento con él",
+                        formatear(serie, anio, devuelto));
+            }
+        }
+
+        while (true) {
+            Bloque bloque = bloques.get(clave);
+            if (bloque != null) {
+                long numero = bloque.siguiente.getAndIncrement();
+                if (numero <= bloque.hasta) {
+                    return numero;
+                }
+            }
+            synchronized (this) {
+                // Otro hilo pudo haber reservado el bloque mientras esperábamos
+                Bloque actual = bloques.get(clave);
+                if (actual == bloque || actual == null) {
+                    bloques.put(clave, reservarBloque(serie, anio));
+                }
+            }
+        }
+    }
+
+    /**
+     * Devolver un número que no llegó a emitirse
+     */
+    public void devolver(String serie, int anio, long numero) {
+        devueltos.computeIfAbsent(clave(serie, anio), k -> new PriorityBlockingQueue<>()).add(numero);
+    }
+
+    /**
+     * Formatear el número de documento
+     */
+    public String formatear(String serie, int anio, long numero) {
+        return serie + anio + "-" + String.format("%06d", numero);
+    }
+
+    /**
+     * Auditoría de la serie de facturas de un año
+     * Reporta los números reservados que no corresponden a una factura ni están pendientes de reutilizar
+     */
+    public Map<String, Object> auditarFacturas(int anio) {
+        String prefijo = SERIE_FACTURA + anio + "-";
+        SecuenciaDocumento secuencia = secuenciaRepository.findBySerieAndAnio(SERIE_FACTURA, anio);
+        long limite = secuencia != null ? secuencia.getSiguiente() - 1 : 0;
+
+        BitSet usados = new BitSet();
+        for (String numero : facturaRepository.findNumerosFactura(prefijo + "%")) {
+            long valor = parsear(numero, prefijo);
+            if (valor > 0 && valor <= Integer.MAX_VALUE) {
+                usados.set((int) valor);
+            }
+        }
+        List<RangoNumeracionLiberado> liberados = rangoLiberadoRepository.findBySerieAndAnioOrderByDesde(SERIE_FACTURA, anio);
+        for (RangoNumeracionLiberado rango : liberados) {
+            usados.set(rango.getDesde().intValue(), rango.getHasta().intValue() + 1);
+        }
+        // Números en memoria de este nodo (bloque en curso y devueltos)
+        Bloque bloque = bloques.get(clave(SERIE_FACTURA, anio));
+        if (bloque != null && bloque.siguiente.get() <= bloque.hasta) {
+            usados.set((int) bloque.siguiente.get(), (int) bloque.hasta + 1);
+        }
+        PriorityBlockingQueue<Long> cola = devueltos.get(clave(SERIE_FACTURA, anio));
+        if (cola != null) {
+            cola.forEach(n -> usados.set(n.intValue()));
+        }
+
+        List<Long> huecos = new ArrayList<>();
+        for (int i = usados.nextClearBit(1); i <= limite && huecos.size() < 1000; i = usados.nextClearBit(i + 1)) {
+            huecos.add((long) i);
+        }
+
+        Map<String, Object> auditoria = new LinkedHashMap<>();
+        auditoria.put("serie", SERIE_FACTURA);
+        auditoria.put("anio", anio);
+        auditoria.put("ultimoReservado", limite);
+        auditoria.put("rangosPendientesDeReutilizar", liberados.size());
+        auditoria.put("huecos", huecos);
+        return auditoria;
+    }
+
+    /**
+     * Al detener el nodo, guardar los números reservados que no se usaron
+     */
+    @PreDestroy
+    public void liberarReservas() {
+        try {
+            nuevaTransaccion.executeWithoutResult(status -> {
+                for (Map.Entry<String, Bloque> entrada : bloques.entrySet()) {
+                    Bloque bloque = entrada.getValue();
+                    long desde = bloque.siguiente.getAndSet(bloque.hasta + 1);
+                    if (desde <= bloque.hasta) {
+                        rangoLiberadoRepository.save(new RangoNumeracionLiberado(
+                                bloque.serie, bloque.anio, desde, bloque.hasta));
+                    }
+                }
+                for (Map.Entry<String, PriorityBlockingQueue<Long>> entrada : devueltos.entrySet()) {
+                    String[] partes = entrada.getKey().split("\\|");
+                    Long numero;
+                    while ((numero = entrada.getValue().poll()) != null) {
+                        rangoLiberadoRepository.save(new RangoNumeracionLiberado(
+                                partes[0], Integer.valueOf(partes[1]), numero, numero));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("No se pudieron guardar los números de documento sin usar: {}", e.getMessage());
+        }
+    }
+
+    // ==================== Métodos internos ====================
+
+    /**
+     * Reservar un bloque: primero un rango liberado, si no hay, números nuevos del contador
+     */
+    private Bloque reservarBloque(String serie, int anio) {
+        for (int intento = 0; ; intento++) {
+            try {
+                Bloque bloque = nuevaTransaccion.execute(status -> {
+                    List<RangoNumeracionLiberado> liberados =
+                            rangoLiberadoRepository.findParaReutilizar(serie, anio, PageRequest.of(0, 1));
+                    if (!liberados.isEmpty()) {
+                        RangoNumeracionLiberado rango = liberados.get(0);
+                        rangoLiberadoRepository.delete(rango);
+                        return new Bloque(serie, anio, rango.getDesde(), rango.getHasta());
+                    }
+
+                    SecuenciaDocumento secuencia = secuenciaRepository.findParaReservar(serie, anio);
+                    if (secuencia == null) {
+                        secuencia = secuenciaRepository.saveAndFlush(
+                                new SecuenciaDocumento(serie, anio, numeroInicial(serie, anio)));
+                        secuencia = secuenciaRepository.findParaReservar(serie, anio);
+                    }
+                    long desde = secuencia.getSiguiente();
+                    secuencia.setSiguiente(desde + tamanioBloque);
+                    return new Bloque(serie, anio, desde, desde + tamanioBloque - 1);
+                });
+                logger.debug("Bloque de numeración {}{} reservado: {}-{}", serie, anio, bloque.siguiente.get(), bloque.hasta);
+                return bloque;
+            } catch (DataIntegrityViolationException e) {
+                // Otro nodo creó el contador al mismo tiempo: reintentar con la fila existente
+                if (intento >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Primer número de un contador nuevo: continúa la numeración existente en facturas
+     */
+    private long numeroInicial(String serie, int anio) {
+        if (!SERIE_FACTURA.equals(serie)) {
+            return 1L;
+        }
+        String prefijo = serie + anio + "-";
+        String maximo = facturaRepository.findMaxNumeroFactura(prefijo + "%");
+        return maximo == null ? 1L : Math.max(1L, parsear(maximo, prefijo) + 1);
+    }
+
+    private long parsear(String numero, String prefijo) {
+        try {
+            return Long.parseLong(numero.substring(prefijo.length()));
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Un número devuelto ya pertenece a un documento guardado (p. ej. la reversión fue por clave duplicada)
+     */
+    private boolean yaEmitido(String serie, int anio, long numero) {
+        return SERIE_FACTURA.equals(serie) && facturaRepository.existsByNumeroFactura(formatear(serie, anio, numero));
+    }
+
+    private void devolverSiSeRevierte(String serie, int anio, long numero) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    devolver(serie, anio, numero);
+                }
+            }
+        });
+    }
+
+    private String clave(String serie, int anio) {
+        return serie + "|" + anio;
+    }
+
+    /**
+     * Bloque de números reservado por este nodo
+     */
+    private static class Bloque {
+        private final String serie;
+        private final int anio;
+        private final AtomicLong siguiente;
+        private final long hasta;
+
+        private Bloque(String serie, int anio, long desde, long hasta) {
+            this.serie = serie;
+            this.anio = anio;
+            this.siguiente = new AtomicLong(desde);
+            this.hasta = hasta;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.petsalud.service;
 
 import com.petsalud.model.OrdenVeterinaria;
 import com.petsalud.repository.OrdenRepository;
+import com.petsalud.util.TransaccionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio para gestión de Órdenes Veterinarias
@@ -23,6 +26,9 @@ public class OrdenService {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private EventoHub eventoHub;
+
     /**
      * Listar todas las órdenes
      */
@@ -97,6 +103,8 @@ public class OrdenService {
      * Guardar o actualizar orden
      */
     public OrdenVeterinaria guardar(OrdenVeterinaria orden) {
+        boolean esNueva = orden.getIdOrden() == null;
+
         // Validaciones básicas
         if (orden.getTipoExamen() == null || orden.getTipoExamen().trim().isEmpty()) {
             throw new RuntimeException("El tipo de examen es obligatorio");
@@ -124,9 +132,10 @@ public class OrdenService {
         OrdenVeterinaria ordenGuardada = ordenRepository.save(orden);
         
         // Notificar creación de orden
-        if (orden.getIdOrden() == null) {
+        if (esNueva) {
             notificacionService.notificarNuevaOrden(ordenGuardada);
         }
+        publicarEvento(esNueva ? "ORDEN_CREADA" : "ORDEN_ACTUALIZADA", ordenGuardada, null);
         
         return ordenGuardada;
     }
@@ -157,6 +166,7 @@ public class OrdenService {
             
             // Notificar cambio de estado
             notificacionService.notificarCambioEstadoOrden(ordenActualizada, estadoAnterior);
+            publicarEvento("ORDEN_ESTADO", ordenActualizada, estadoAnterior);
             
             return ordenActualizada;
         }
@@ -197,4 +207,18 @@ public class OrdenService {
     public List<OrdenVeterinaria> obtenerOrdenesDelDia() {
         return ordenRepository.findByFechaOrden(LocalDate.now());
     }
-}
\ No newline at end of file
+
+    /**
+     * Publicar el cambio de la orden a los tableros una vez confirmada la transacción
+     */
+    void publicarEvento(String tipo, OrdenVeterinaria orden, String estadoAnterior) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("idOrden", orden.getIdOrden());
+        datos.put("estado", orden.getEstado());
+        datos.put("estadoAnterior", estadoAnterior);
+        datos.put("prioridad", orden.getPrioridad());
+        datos.put("tipoExamen", orden.getTipoExamen());
+        TransaccionUtil.despuesDelCommit(() ->
+                eventoHub.publicar(EventoHub.TOPICO_ORDENES, tipo, orden.getIdOrden(), datos));
+    }
+}
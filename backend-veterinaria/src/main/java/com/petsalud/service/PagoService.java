@@ -1,15 +1,32 @@
 package com.petsalud.service;
 
+import com.petsalud.model.Dinero;
 import com.petsalud.model.Pago;
+import com.petsalud.model.PartidaCobro;
+import com.petsalud.model.SaldoDueno;
+import com.petsalud.model.MovimientoPago;
+import com.petsalud.repository.MovimientoPagoRepository;
 import com.petsalud.repository.PagoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Servicio para gestión de Pagos
@@ -19,9 +36,37 @@ import java.util.List;
 @Transactional
 public class PagoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PagoService.class);
+
     @Autowired
     private PagoRepository pagoRepository;
 
+    @Autowired
+    private MovimientoPagoRepository movimientoPagoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.pagos.registro.max-reintentos:5}")
+    private int maxReintentos;
+
+    @Value("${petsalud.pagos.registro.incremento-atomico:false}")
+    private boolean incrementoAtomico;
+
+    private TransactionTemplate nuevaTransaccion;
+
+    @Autowired
+    private GeneradorIdService generadorIdService;
+
+    @Autowired
+    private SaldoDuenoService saldoDuenoService;
+
+    @PostConstruct
+    public void init() {
+        nuevaTransaccion = new TransactionTemplate(transactionManager);
+        nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     /**
      * Listar todos los pagos
      */
@@ -89,14 +134,14 @@ public class PagoService {
         if (pago.getConcepto() == null || pago.getConcepto().trim().isEmpty()) {
             throw new RuntimeException("El concepto del pago es obligatorio");
         }
-        if (pago.getMonto() == null || pago.getMonto() <= 0) {
+        if (pago.getMonto() == null || !pago.getMonto().esPositivo()) {
             throw new RuntimeException("El monto debe ser mayor a 0");
         }
 
         // Si es nuevo pago
         if (pago.getIdPago() == null) {
             if (pago.getNumeroPago() == null || pago.getNumeroPago().trim().isEmpty()) {
-                pago.setNumeroPago(generarNumeroPago());
+                pago.setNumeroPago(generadorIdService.siguienteCodigo("PAG"));
             }
             if (pago.getFechaEmision() == null) {
                 pago.setFechaEmision(LocalDate.now());
@@ -105,7 +150,18 @@ public class PagoService {
                 pago.setEstado("PENDIENTE");
             }
             if (pago.getMontoPagado() == null) {
-                pago.setMontoPagado(0.0);
+                pago.setMontoPagado(Dinero.CERO);
+            }
+        } else {
+            // Los abonos solo entran por registrarPago: se conserva el monto pagado guardado,
+            // leído junto con su versión (si otro abono se confirma antes del UPDATE, éste falla)
+            Object[] vigente = pagoRepository.findMontoPagadoYVersion(pago.getIdPago()).stream()
+                    .findFirst().orElseThrow(() -> new RuntimeException("Pago no encontrado"));
+            pago.setMontoPagado((Dinero) vigente[0]);
+            if (pago.getVersion() == null) {
+                pago.setVersion((Long) vigente[1]);
+            } else if (!pago.getVersion().equals(vigente[1])) {
+                throw new RuntimeException("El pago fue modificado por otra operación; recargue e intente nuevamente");
             }
         }
 
@@ -114,33 +170,154 @@ public class PagoService {
             calcularCostoInternamiento(pago);
         }
 
-        return pagoRepository.save(pago);
+        Pago guardado = pagoRepository.save(pago);
+        saldoDuenoService.sincronizarPago(guardado);
+        return guardado;
     }
 
     /**
      * Registrar pago
      */
-    public Pago registrarPago(Long idPago, Double montoPagado, String metodoPago) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Pago registrarPago(Long idPago, Dinero montoPagado, String metodoPago) {
+        return registrarPago(idPago, montoPagado, metodoPago, null);
+    }
+
+    /**
+     * Registrar un abono con clave de idempotencia opcional
+     * Cada intento es una transacción nueva; si otro abono modificó el pago al mismo tiempo
+     * (conflicto de versión) se reintenta con el estado actualizado.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Pago registrarPago(Long idPago, Dinero montoPagado, String metodoPago, String claveIdempotencia) {
+        return registrarPago(idPago, montoPagado, metodoPago, claveIdempotencia, null);
+    }
+
+    /**
+     * Registrar un abono y ejecutar 'enLaTransaccion' en la misma transacción que lo aplica
+     * (p. ej. la conciliación guarda así su línea: o quedan ambos o ninguno)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Pago registrarPago(Long idPago, Dinero montoPagado, String metodoPago, String claveIdempotencia,
+                              Runnable enLaTransaccion) {
+        if (montoPagado == null || !montoPagado.esPositivo()) {
+            throw new RuntimeException("El monto pagado debe ser mayor a 0");
+        }
+        String clave = claveIdempotencia != null && !claveIdempotencia.trim().isEmpty() ? claveIdempotencia.trim() : null;
+        if (clave != null && clave.length() > 100) {
+            throw new RuntimeException("La clave de idempotencia no puede superar 100 caracteres");
+        }
+        if (clave != null) {
+            Pago repetido = buscarRepetido(clave, idPago, montoPagado);
+            if (repetido != null) {
+                return repetido;
+            }
+        }
+
+        for (int intento = 1; ; intento++) {
+            try {
+                return nuevaTransaccion.execute(status -> {
+                    Pago pago = incrementoAtomico
+                            ? aplicarAbonoAtomico(idPago, montoPagado, metodoPago, clave)
+                            : aplicarAbono(idPago, montoPagado, metodoPago, clave);
+                    if (enLaTransaccion != null) {
+                        enLaTransaccion.run();
+                    }
+                    return pago;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= maxReintentos) {
+                    throw new RuntimeException("El pago fue modificado por otra operación; intente nuevamente");
+                }
+                logger.debug("Conflicto de versión en el pago {} (intento {})", idPago, intento);
+                esperar(intento);
+            } catch (DataIntegrityViolationException e) {
+                // Otra solicitud con la misma clave se confirmó primero
+                Pago repetido = clave != null ? buscarRepetido(clave, idPago, montoPagado) : null;
+                if (repetido != null) {
+                    return repetido;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Abonos registrados sobre un pago
+     */
+    public List<MovimientoPago> listarMovimientos(Long idPago) {
+        return movimientoPagoRepository.findByIdPagoOrderByIdMovimientoAsc(idPago);
+    }
+
+    /**
+     * Abono leyendo y guardando la entidad (la versión detecta escrituras concurrentes)
+     */
+    private Pago aplicarAbono(Long idPago, Dinero montoPagado, String metodoPago, String clave) {
         Pago pago = obtenerPorId(idPago);
         if (pago == null) {
             throw new RuntimeException("Pago no encontrado");
         }
+        if ("CANCELADO".equalsIgnoreCase(pago.getEstado())) {
+            throw new RuntimeException("No se puede registrar un abono en un pago cancelado");
+        }
 
-        double montoActual = pago.getMontoPagado() != null ? pago.getMontoPagado() : 0.0;
-        double nuevoMontoPagado = montoActual + montoPagado;
+        Dinero montoActual = pago.getMontoPagado() != null ? pago.getMontoPagado() : Dinero.CERO;
+        Dinero nuevoMontoPagado = montoActual.sumar(montoPagado);
 
         pago.setMontoPagado(nuevoMontoPagado);
         pago.setMetodoPago(metodoPago);
         pago.setFechaPago(LocalDateTime.now());
 
         // Actualizar estado
-        if (nuevoMontoPagado >= pago.getMonto()) {
+        if (nuevoMontoPagado.esMayorOIgualQue(pago.getMonto())) {
             pago.setEstado("PAGADO");
-        } else if (nuevoMontoPagado > 0) {
+        } else if (nuevoMontoPagado.esPositivo()) {
             pago.setEstado("PARCIAL");
         }
+        saldoDuenoService.sincronizarPago(pago);
+        movimientoPagoRepository.save(new MovimientoPago(idPago, montoPagado, metodoPago, clave));
 
-        return pagoRepository.save(pago);
+        return pagoRepository.saveAndFlush(pago);
+    }
+
+    /**
+     * Abono con un UPDATE atómico en la base de datos (sin leer antes el pago)
+     */
+    private Pago aplicarAbonoAtomico(Long idPago, Dinero montoPagado, String metodoPago, String clave) {
+        int filas = pagoRepository.incrementarMontoPagado(idPago, montoPagado.aDouble(), metodoPago, LocalDateTime.now());
+        if (filas == 0) {
+            throw new RuntimeException(pagoRepository.existsById(idPago)
+                    ? "No se puede registrar un abono en un pago cancelado"
+                    : "Pago no encontrado");
+        }
+        Pago pago = obtenerPorId(idPago);
+        saldoDuenoService.sincronizarPago(pago);
+        movimientoPagoRepository.saveAndFlush(new MovimientoPago(idPago, montoPagado, metodoPago, clave));
+        return pago;
+    }
+
+    /**
+     * Abono ya registrado con la misma clave; la clave no puede reutilizarse con otros datos
+     */
+    private Pago buscarRepetido(String clave, Long idPago, Dinero montoPagado) {
+        MovimientoPago previo = movimientoPagoRepository.findByClaveIdempotencia(clave);
+        if (previo == null) {
+            return null;
+        }
+        if (!previo.getIdPago().equals(idPago) || !previo.getMonto().equals(montoPagado)) {
+            throw new RuntimeException("La clave de idempotencia ya se usó para otro abono");
+        }
+        return obtenerPorId(idPago);
+    }
+
+    private void esperar(int intento) {
+        try {
+            // Espera creciente con variación aleatoria para no volver a chocar
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * intento + 6));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Registro de pago interrumpido");
+        }
     }
 
     /**
@@ -157,6 +334,7 @@ public class PagoService {
 
         pago.setFechaFinInternamiento(LocalDateTime.now());
         calcularCostoInternamiento(pago);
+        saldoDuenoService.sincronizarPago(pago);
 
         return pagoRepository.save(pago);
     }
@@ -173,37 +351,31 @@ public class PagoService {
             if (dias == 0) dias = 1; // Mínimo 1 día
             
             pago.setDiasInternamiento((int) dias);
-            pago.setMonto(dias * pago.getCostoDiaInternamiento());
+            pago.setMonto(pago.getCostoDiaInternamiento().multiplicar(dias));
         }
     }
 
-    /**
-     * Generar número de pago
-     */
-    private String generarNumeroPago() {
-        return "PAG-" + System.currentTimeMillis();
-    }
-
     /**
      * Eliminar pago
      */
     public void eliminar(Long id) {
+        saldoDuenoService.cerrar(PartidaCobro.ORIGEN_PAGO, id);
         pagoRepository.deleteById(id);
     }
 
     /**
      * Calcular total pendiente por dueño
      */
-    public Double calcularTotalPendientePorDueno(Long idDueno) {
-        Double total = pagoRepository.calcularTotalPendientePorDueno(idDueno);
-        return total != null ? total : 0.0;
+    public Dinero calcularTotalPendientePorDueno(Long idDueno) {
+        SaldoDueno saldo = saldoDuenoService.obtenerSaldo(idDueno);
+        return saldo != null ? saldo.getSaldoCargos() : Dinero.CERO;
     }
 
     /**
      * Calcular total cobrado en período
      */
-    public Double calcularTotalCobrado(LocalDate inicio, LocalDate fin) {
+    public Dinero calcularTotalCobrado(LocalDate inicio, LocalDate fin) {
         Double total = pagoRepository.calcularTotalCobrado(inicio, fin);
-        return total != null ? total : 0.0;
+        return Dinero.de(total);
     }
 }
\ No newline at end of file
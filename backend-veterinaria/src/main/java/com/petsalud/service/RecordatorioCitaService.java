@@ -0,0 +1,195 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Cita;
+import com.petsalud.repository.CitaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio programado de recordatorios de citas
+ * Envía recordatorios por lotes y los marca con un único UPDATE por lote
+ */
+@Service
+public class RecordatorioCitaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordatorioCitaService.class);
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private CitaAlertaIndex citaAlertaIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${petsalud.recordatorios.enabled:true}")
+    private boolean habilitado;
+
+    // Anticipación con la que se envía el recordatorio antes de la cita
+    @Value("${petsalud.recordatorios.anticipacion-horas:24}")
+    private int anticipacionHoras;
+
+    // No se envían recordatorios a citas que empiezan en menos de estos minutos
+    @Value("${petsalud.recordatorios.anticipacion-minima-minutos:0}")
+    private int anticipacionMinimaMinutos;
+
+    @Value("${petsalud.recordatorios.tamanio-lote:100}")
+    private int tamanioLote;
+
+    // Límite de recordatorios por ejecución (control de throughput)
+    @Value("${petsalud.recordatorios.max-por-ejecucion:1000}")
+    private int maxPorEjecucion;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter enviados;
+    private Counter lotes;
+    private final AtomicLong pendientes = new AtomicLong();
+    private final AtomicLong retrasoSegundos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        enviados = Counter.builder("petsalud.recordatorios.enviados")
+                .description("Recordatorios de cita enviados")
+                .register(meterRegistry);
+        lotes = Counter.builder("petsalud.recordatorios.lotes")
+                .description("Lotes de recordatorios procesados")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.recordatorios.pendientes", pendientes, AtomicLong::get)
+                .description("Recordatorios vencidos aún no enviados")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.recordatorios.retraso.segundos", retrasoSegundos, AtomicLong::get)
+                .description("Retraso del recordatorio pendiente más antiguo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecución programada del despachador de recordatorios
+     */
+    @Scheduled(fixedDelayString = "${petsalud.recordatorios.intervalo-ms:60000}",
+               initialDelayString = "${petsalud.recordatorios.intervalo-ms:60000}")
+    public void ejecutar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            int total = despacharPendientes();
+            if (total > 0) {
+                logger.info("Recordatorios de cita enviados en esta ejecución: {}", total);
+            }
+        } catch (Exception e) {
+            logger.error("Error al despachar recordatorios de cita: {}", e.getMessage());
+        } finally {
+            actualizarMetricas();
+        }
+    }
+
+    /**
+     * Recorrer las citas con recordatorio vencido y enviarlas por lotes
+     * Retorna la cantidad de recordatorios enviados
+     */
+    public int despacharPendientes() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime desde = ahora.plusMinutes(anticipacionMinimaMinutos);
+        LocalDateTime hasta = ahora.plusHours(anticipacionHoras);
+
+        int total = 0;
+        long ultimoId = 0L;
+        while (total < maxPorEjecucion) {
+            int limite = Math.min(tamanioLote, maxPorEjecucion - total);
+            long desdeId = ultimoId;
+            List<Long> idsLote = transactionTemplate.execute(status -> procesarLote(desde, hasta, desdeId, limite));
+            if (idsLote == null || idsLote.isEmpty()) {
+                break;
+            }
+            citaAlertaIndex.marcarRecordatoriosEnviados(idsLote);
+            total += idsLote.size();
+            ultimoId = idsLote.get(idsLote.size() - 1);
+            if (idsLote.size() < limite) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Procesar un lote dentro de una transacción: encolar en la bandeja de salida y marcar con un único UPDATE
+     */
+    private List<Long> procesarLote(LocalDateTime desde, LocalDateTime hasta, long ultimoId, int limite) {
+        List<Cita> lote = citaRepository.findCitasParaRecordatorio(desde, hasta, ultimoId, PageRequest.of(0, limite));
+        if (lote.isEmpty()) {
+            return List.of();
+        }
+
+        notificacionService.enviarRecordatoriosCita(lote);
+
+        List<Long> ids = lote.stream().map(Cita::getIdCita).collect(Collectors.toList());
+        citaRepository.marcarRecordatoriosEnviados(ids);
+
+        enviados.increment(lote.size());
+        lotes.increment();
+        return ids;
+    }
+
+    /**
+     * Actualizar las métricas de backlog y retraso
+     */
+    private void actualizarMetricas() {
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDateTime desde = ahora.plusMinutes(anticipacionMinimaMinutos);
+            LocalDateTime hasta = ahora.plusHours(anticipacionHoras);
+            pendientes.set(citaRepository.countCitasParaRecordatorio(desde, hasta));
+
+            LocalDateTime masAntigua = citaRepository.findFechaMasAntiguaSinRecordatorio(desde, hasta);
+            if (masAntigua == null) {
+                retrasoSegundos.set(0);
+            } else {
+                // El recordatorio debía salir "anticipacionHoras" antes de la cita
+                LocalDateTime vencimiento = masAntigua.minusHours(anticipacionHoras);
+                retrasoSegundos.set(Math.max(0, Duration.between(vencimiento, ahora).getSeconds()));
+            }
+        } catch (Exception e) {
+            logger.warn("No se pudieron actualizar las métricas de recordatorios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recordatorios vencidos aún no enviados (última medición)
+     */
+    public long getPendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Retraso en segundos del recordatorio pendiente más antiguo (última medición)
+     */
+    public long getRetrasoSegundos() {
+        return retrasoSegundos.get();
+    }
+}
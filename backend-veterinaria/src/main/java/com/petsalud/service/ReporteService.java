@@ -1,5 +1,6 @@
 package com.petsalud.service;
 
+import com.petsalud.config.PoolReportes;
 import com.petsalud.model.*;
 import com.petsalud.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +18,7 @@ import java.util.stream.Collectors;
  * RF-10: Reportes de laboratorio veterinario
  */
 @Service
+@PoolReportes
 @Transactional(readOnly = true)
 public class ReporteService {
 
@@ -259,19 +261,21 @@ public class ReporteService {
         
         List<Factura> facturas = facturaRepository.findByFechaEmisionBetween(inicio, fin);
         
-        double totalFacturado = facturas.stream()
-                .mapToDouble(Factura::getTotal)
-                .sum();
-        
-        double totalPagado = facturas.stream()
-                .filter(f -> "PAGADA".equalsIgnoreCase(f.getEstado()))
-                .mapToDouble(Factura::getTotal)
-                .sum();
-        
-        double totalPendiente = facturas.stream()
-                .filter(f -> "PENDIENTE".equalsIgnoreCase(f.getEstado()))
-                .mapToDouble(Factura::getTotal)
-                .sum();
+        // Una sola pasada acumulando céntimos
+        Dinero.Acumulador facturado = new Dinero.Acumulador();
+        Dinero.Acumulador pagado = new Dinero.Acumulador();
+        Dinero.Acumulador pendiente = new Dinero.Acumulador();
+        for (Factura factura : facturas) {
+            facturado.agregar(factura.getTotal());
+            if ("PAGADA".equalsIgnoreCase(factura.getEstado())) {
+                pagado.agregar(factura.getTotal());
+            } else if ("PENDIENTE".equalsIgnoreCase(factura.getEstado())) {
+                pendiente.agregar(factura.getTotal());
+            }
+        }
+        Dinero totalFacturado = facturado.total();
+        Dinero totalPagado = pagado.total();
+        Dinero totalPendiente = pendiente.total();
         
         reporte.put("periodoInicio", inicio);
         reporte.put("periodoFin", fin);
@@ -279,7 +283,8 @@ public class ReporteService {
         reporte.put("totalFacturado", totalFacturado);
         reporte.put("totalPagado", totalPagado);
         reporte.put("totalPendiente", totalPendiente);
-        reporte.put("tasaCobro", totalFacturado == 0 ? 0 : (totalPagado * 100) / totalFacturado);
+        reporte.put("tasaCobro", totalFacturado.esCero() ? 0
+                : totalPagado.getCentimos() * 100.0 / totalFacturado.getCentimos());
         
         return reporte;
     }
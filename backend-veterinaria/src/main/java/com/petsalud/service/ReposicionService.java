@@ -0,0 +1,300 @@
+package com.petsalud.service;
+
+import com.petsalud.model.PronosticoInventario;
+import com.petsalud.repository.PronosticoInventarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pronóstico de consumo y sugerencias de compra por proveedor
+ *
+ * - Cada producto tiene una tasa de consumo diaria suavizada (promedio móvil exponencial).
+ * - La corrida nocturna incorpora solo los días nuevos del libro de movimientos (ventas y reservas):
+ *   tasa = alfa * consumo del día + (1 - alfa) * tasa anterior; los días sin consumo la hacen decaer.
+ * - Con la tasa se proyecta la fecha de quiebre de stock y, si el stock no cubre el plazo de entrega
+ *   más la cobertura deseada, se sugiere una compra agrupada por proveedor.
+ * Todo el cálculo es en memoria sobre una lectura de productos y una de consumos agregados.
+ */
+@Service
+@Transactional
+public class ReposicionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReposicionService.class);
+
+    private static final String SQL_GUARDAR =
+            "INSERT INTO pronosticos_inventario (id_inventario, tasa_diaria, ultimo_dia, fecha_actualizacion) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE tasa_diaria = VALUES(tasa_diaria), ultimo_dia = VALUES(ultimo_dia), " +
+            "fecha_actualizacion = VALUES(fecha_actualizacion)";
+
+    private static final String SIN_PROVEEDOR = "SIN PROVEEDOR";
+
+    @Autowired
+    private PronosticoInventarioRepository pronosticoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${petsalud.inventario.reposicion.alfa:0.3}")
+    private double alfa;
+
+    @Value("${petsalud.inventario.reposicion.dias-historial-inicial:30}")
+    private int diasHistorialInicial;
+
+    @Value("${petsalud.inventario.reposicion.plazo-entrega-dias:7}")
+    private int plazoEntregaDias;
+
+    @Value("${petsalud.inventario.reposicion.cobertura-dias:14}")
+    private int coberturaDias;
+
+    // idInventario -> estado del pronóstico (se reemplaza completo en cada corrida)
+    private volatile Map<Long, Estado> estados = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private volatile Map<String, Object> ultimoResultado;
+
+    /**
+     * Cargar en memoria las tasas guardadas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarInicial() {
+        try {
+            recargarEstados();
+        } catch (Exception e) {
+            logger.warn("No se pudieron cargar los pronósticos de inventario: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Corrida nocturna
+     */
+    @Scheduled(cron = "${petsalud.inventario.reposicion.cron:0 0 2 * * *}")
+    public void ejecutarProgramado() {
+        try {
+            ejecutar();
+        } catch (RuntimeException e) {
+            logger.error("Error en el pronóstico de reposición: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Incorporar los días nuevos de consumo y generar las sugerencias de compra
+     */
+    public Map<String, Object> ejecutar() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new RuntimeException("Ya hay un pronóstico de reposición en ejecución");
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            // La base es la fuente de verdad: otro nodo pudo avanzar las tasas desde la corrida anterior
+            recargarEstados();
+            LocalDate hoy = LocalDate.now();
+            LocalDate hasta = hoy.minusDays(1);
+            LocalDate ultimo = pronosticoRepository.findUltimoDia();
+            LocalDate desde = ultimo != null ? ultimo.plusDays(1) : hoy.minusDays(diasHistorialInicial);
+
+            int dias = 0;
+            if (!desde.isAfter(hasta)) {
+                dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+                incorporarConsumos(desde, hasta);
+            }
+            Map<String, Object> resultado = generarSugerencias(hoy);
+            resultado.put("diasIncorporados", dias);
+            resultado.put("duracionMs", System.currentTimeMillis() - inicio);
+            ultimoResultado = resultado;
+            return resultado;
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    /**
+     * Última sugerencia de compras (se calcula si aún no hay una)
+     */
+    public Map<String, Object> obtenerSugerencias() {
+        Map<String, Object> resultado = ultimoResultado;
+        return resultado != null ? resultado : ejecutar();
+    }
+
+    /**
+     * Tasa de consumo y quiebre proyectado de un producto
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerPronostico(Long idInventario) {
+        Estado estado = estados.get(idInventario);
+        Map<String, Object> pronostico = new LinkedHashMap<>();
+        pronostico.put("idInventario", idInventario);
+        pronostico.put("tasaDiaria", estado != null ? redondear(estado.tasa) : 0.0);
+        pronostico.put("ultimoDia", estado != null ? estado.ultimoDia : null);
+        return pronostico;
+    }
+
+    // ==================== Métodos internos ====================
+
+    /**
+     * Reemplazar los estados en memoria por las tasas guardadas en pronosticos_inventario
+     */
+    private void recargarEstados() {
+        Map<Long, Estado> cargados = new ConcurrentHashMap<>();
+        for (PronosticoInventario pronostico : pronosticoRepository.findAll()) {
+            cargados.put(pronostico.getIdInventario(),
+                    new Estado(pronostico.getTasaDiaria(), pronostico.getUltimoDia()));
+        }
+        estados = cargados;
+    }
+
+    /**
+     * Aplicar a cada tasa los días [desde, hasta] y guardar los estados en un lote JDBC
+     */
+    private void incorporarConsumos(LocalDate desde, LocalDate hasta) {
+        // Consumos agregados por producto y día (ordenados por producto y día)
+        Map<Long, TreeMap<LocalDate, Double>> consumos = new HashMap<>();
+        for (Object[] fila : pronosticoRepository.sumarConsumoDiario(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay())) {
+            consumos.computeIfAbsent(((Number) fila[0]).longValue(), k -> new TreeMap<>())
+                    .put(aFecha(fila[1]), Math.max(0.0, ((Number) fila[2]).doubleValue()));
+        }
+
+        List<Object[]> filas = new ArrayList<>();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        for (Object[] producto : pronosticoRepository.findProductosParaReposicion()) {
+            Long id = (Long) producto[0];
+            Estado estado = estados.computeIfAbsent(id, k -> new Estado(0.0, desde.minusDays(1)));
+            estado.avanzar(consumos.getOrDefault(id, new TreeMap<>()), hasta, alfa);
+            filas.add(new Object[]{id, estado.tasa, Date.valueOf(estado.ultimoDia), ahora});
+        }
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_GUARDAR, filas);
+        }
+        logger.info("Pronóstico de consumo: {} productos actualizados hasta {}", filas.size(), hasta);
+    }
+
+    /**
+     * Proyectar quiebres y agrupar por proveedor las compras sugeridas
+     */
+    private Map<String, Object> generarSugerencias(LocalDate hoy) {
+        int horizonte = plazoEntregaDias + coberturaDias;
+        Map<String, List<Map<String, Object>>> porProveedor = new TreeMap<>();
+        Map<String, Double> costoPorProveedor = new HashMap<>();
+        int productos = 0;
+
+        for (Object[] fila : pronosticoRepository.findProductosParaReposicion()) {
+            productos++;
+            Long id = (Long) fila[0];
+            int stock = fila[3] != null ? (Integer) fila[3] : 0;
+            int minimo = fila[4] != null ? (Integer) fila[4] : 0;
+            Integer maximo = (Integer) fila[5];
+            Estado estado = estados.get(id);
+            double tasa = estado != null ? estado.tasa : 0.0;
+
+            // Unidades necesarias para llegar al fin del horizonte sin bajar del mínimo
+            int necesario = (int) Math.ceil(tasa * horizonte) + minimo - stock;
+            if (necesario <= 0 && stock > minimo) {
+                continue;
+            }
+            int cantidad = Math.max(necesario, 1);
+            if (maximo != null && maximo > stock) {
+                cantidad = Math.min(cantidad, maximo - stock);
+            }
+
+            String proveedor = fila[6] != null && !((String) fila[6]).trim().isEmpty() ? ((String) fila[6]).trim() : SIN_PROVEEDOR;
+            double precio = fila[7] != null ? (Double) fila[7] : 0.0;
+
+            Map<String, Object> linea = new LinkedHashMap<>();
+            linea.put("idInventario", id);
+            linea.put("codigo", fila[1]);
+            linea.put("nombre", fila[2]);
+            linea.put("stockActual", stock);
+            linea.put("stockMinimo", minimo);
+            linea.put("consumoDiario", redondear(tasa));
+            linea.put("fechaQuiebre", tasa > 0 ? hoy.plusDays((long) Math.floor(stock / tasa)) : null);
+            linea.put("cantidadSugerida", cantidad);
+            linea.put("costoEstimado", redondear(cantidad * precio));
+            porProveedor.computeIfAbsent(proveedor, k -> new ArrayList<>()).add(linea);
+            costoPorProveedor.merge(proveedor, cantidad * precio, Double::sum);
+        }
+
+        List<Map<String, Object>> ordenes = new ArrayList<>();
+        for (Map.Entry<String, List<Map<String, Object>>> entrada : porProveedor.entrySet()) {
+            // Primero lo que se agota antes
+            entrada.getValue().sort(Comparator.comparing(
+                    (Map<String, Object> l) -> (LocalDate) l.get("fechaQuiebre"),
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+            Map<String, Object> orden = new LinkedHashMap<>();
+            orden.put("proveedor", entrada.getKey());
+            orden.put("productos", entrada.getValue().size());
+            orden.put("costoEstimado", redondear(costoPorProveedor.get(entrada.getKey())));
+            orden.put("lineas", entrada.getValue());
+            ordenes.add(orden);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fecha", LocalDateTime.now());
+        resultado.put("productosEvaluados", productos);
+        resultado.put("plazoEntregaDias", plazoEntregaDias);
+        resultado.put("coberturaDias", coberturaDias);
+        resultado.put("ordenes", ordenes);
+        return resultado;
+    }
+
+    private LocalDate aFecha(Object valor) {
+        if (valor instanceof LocalDate fecha) {
+            return fecha;
+        }
+        return ((Date) valor).toLocalDate();
+    }
+
+    private double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    /**
+     * Tasa suavizada de un producto y último día incorporado
+     */
+    private static class Estado {
+        private double tasa;
+        private LocalDate ultimoDia;
+
+        private Estado(double tasa, LocalDate ultimoDia) {
+            this.tasa = tasa;
+            this.ultimoDia = ultimoDia;
+        }
+
+        /**
+         * Avanzar día a día hasta 'hasta'; los tramos sin consumo se aplican de una vez: tasa * (1 - alfa)^dias
+         */
+        private void avanzar(TreeMap<LocalDate, Double> consumos, LocalDate hasta, double alfa) {
+            for (Map.Entry<LocalDate, Double> dia : consumos.tailMap(ultimoDia, false).entrySet()) {
+                if (dia.getKey().isAfter(hasta)) {
+                    break;
+                }
+                long vacios = ChronoUnit.DAYS.between(ultimoDia, dia.getKey()) - 1;
+                tasa = tasa * Math.pow(1 - alfa, vacios);
+                tasa = alfa * dia.getValue() + (1 - alfa) * tasa;
+                ultimoDia = dia.getKey();
+            }
+            long restantes = ChronoUnit.DAYS.between(ultimoDia, hasta);
+            if (restantes > 0) {
+                tasa = tasa * Math.pow(1 - alfa, restantes);
+                ultimoDia = hasta;
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Factura;
+import com.petsalud.model.Pago;
+import com.petsalud.model.PartidaCobro;
+import com.petsalud.model.SaldoDueno;
+import com.petsalud.repository.FacturaRepository;
+import com.petsalud.repository.PagoRepository;
+import com.petsalud.repository.PartidaCobroRepository;
+import com.petsalud.repository.SaldoDuenoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Servicio de cuentas por cobrar por dueño
+ * Mantiene saldos_duenos y partidas_cobro al día con cada evento de facturas y pagos:
+ *
+ * - Cada documento pendiente es una partida con su saldo y su tramo de antigüedad; al crear,
+ *   pagar parcialmente, pagar, anular o eliminar el documento se ajusta la partida y la fila
+ *   del dueño (bloqueada) dentro de la misma transacción.
+ * - Una tarea diaria mueve entre tramos solo las partidas que cruzan un límite ese día
+ *   (vencen hoy, o cumplen 31, 61 o 91 días vencidas).
+ * - El estado de cuenta y la lista de cobranza se leen de saldos_duenos sin agregaciones.
+ */
+@Service
+@Transactional
+public class SaldoDuenoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaldoDuenoService.class);
+
+    private static final int TAMANIO_LOTE = 500;
+
+    // Días vencidos en que una partida entra a un nuevo tramo
+    private static final int[] LIMITES_TRAMO = {1, 31, 61, 91};
+
+    @Autowired
+    private SaldoDuenoRepository saldoRepository;
+
+    @Autowired
+    private PartidaCobroRepository partidaRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${petsalud.cobranza.plazo-por-defecto-dias:30}")
+    private int plazoPorDefectoDias;
+
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    public void init() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Construir el libro de saldos la primera vez que arranca la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarInicial() {
+        try {
+            if (saldoRepository.count() == 0 && partidaRepository.count() == 0) {
+                reconstruir();
+            }
+        } catch (Exception e) {
+            logger.warn("No se pudo construir el libro de saldos: {}", e.getMessage());
+        }
+    }
+
+    // ==================== Eventos ====================
+
+    /**
+     * Reflejar el estado actual de una factura (PENDIENTE abre o ajusta la partida; PAGADA o ANULADA la cierra)
+     */
+    public void sincronizarFactura(Factura factura) {
+        Dinero saldo = "PENDIENTE".equalsIgnoreCase(factura.getEstado()) && factura.getTotal() != null
+                ? factura.getTotal() : Dinero.CERO;
+        sincronizar(PartidaCobro.ORIGEN_FACTURA, factura.getIdFactura(),
+                factura.getDueno() != null ? factura.getDueno().getIdDueno() : null,
+                saldo, vencimiento(factura.getFechaVencimiento(), factura.getFechaEmision()));
+    }
+
+    /**
+     * Reflejar el estado actual de un pago (PENDIENTE o PARCIAL por el saldo restante)
+     */
+    public void sincronizarPago(Pago pago) {
+        boolean abierto = "PENDIENTE".equalsIgnoreCase(pago.getEstado()) || "PARCIAL".equalsIgnoreCase(pago.getEstado());
+        Dinero saldo = abierto && pago.getMonto() != null ? pago.calcularSaldo() : Dinero.CERO;
+        sincronizar(PartidaCobro.ORIGEN_PAGO, pago.getIdPago(),
+                pago.getDueno() != null ? pago.getDueno().getIdDueno() : null,
+                saldo, vencimiento(pago.getFechaVencimiento(), pago.getFechaEmision()));
+    }
+
+    /**
+     * Cerrar la partida de un documento eliminado
+     */
+    public void cerrar(String origen, Long idOrigen) {
+        sincronizar(origen, idOrigen, null, Dinero.CERO, null);
+    }
+
+    /**
+     * Fijar el saldo pendiente de un documento; un saldo cero (o sin dueño) cierra la partida
+     */
+    public void sincronizar(String origen, Long idOrigen, Long idDueno, Dinero saldo, LocalDate fechaVencimiento) {
+        if (idOrigen == null) {
+            return;
+        }
+        boolean abierta = idDueno != null && saldo != null && saldo.esPositivo();
+        PartidaCobro partida = partidaRepository.findByOrigenAndIdOrigen(origen, idOrigen);
+
+        if (partida == null) {
+            if (!abierta) {
+                return;
+            }
+            partida = new PartidaCobro(origen, idOrigen);
+        } else {
+            if (abierta && partida.getIdDueno().equals(idDueno) && partida.getSaldo().equals(saldo)
+                    && partida.getFechaVencimiento().equals(fechaVencimiento)) {
+                return;
+            }
+            SaldoDueno anterior = bloquear(partida.getIdDueno());
+            anterior.quitar(partida);
+            if (!abierta) {
+                partidaRepository.delete(partida);
+                return;
+            }
+        }
+
+        SaldoDueno cuenta = bloquear(idDueno);
+        partida.setIdDueno(idDueno);
+        partida.setSaldo(saldo);
+        partida.setFechaVencimiento(fechaVencimiento);
+        partida.setTramo(SaldoDueno.tramoPara(fechaVencimiento, cuenta.getFechaCorte()));
+        partida.setFechaActualizacion(LocalDateTime.now());
+        partidaRepository.save(partida);
+        cuenta.agregar(partida);
+    }
+
+    // ==================== Consultas ====================
+
+    /**
+     * Saldo de un dueño (null si nunca tuvo deuda)
+     */
+    @Transactional(readOnly = true)
+    public SaldoDueno obtenerSaldo(Long idDueno) {
+        return saldoRepository.findByIdDueno(idDueno);
+    }
+
+    /**
+     * Estado de cuenta: saldo con tramos y partidas abiertas
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerEstadoCuenta(Long idDueno) {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("saldo", saldoRepository.findByIdDueno(idDueno));
+        estado.put("partidas", partidaRepository.findByIdDuenoOrderByFechaVencimientoAsc(idDueno));
+        return estado;
+    }
+
+    /**
+     * Lista de cobranza: dueños con deuda vencida, de mayor a menor
+     */
+    @Transactional(readOnly = true)
+    public List<SaldoDueno> listarCobranza(int limite) {
+        return saldoRepository.findConDeudaVencida(Dinero.CERO, PageRequest.of(0, Math.max(1, limite)));
+    }
+
+    /**
+     * Eliminar la cuenta de un dueño sin saldo pendiente (al eliminar el dueño)
+     */
+    public void eliminarCuenta(Long idDueno) {
+        SaldoDueno cuenta = saldoRepository.findParaActualizar(idDueno);
+        if (cuenta == null) {
+            return;
+        }
+        if (!cuenta.getSaldoTotal().esCero()) {
+            throw new RuntimeException("No se puede eliminar el dueño porque tiene saldo pendiente");
+        }
+        saldoRepository.eliminarPorDueno(idDueno);
+    }
+
+    // ==================== Antigüedad ====================
+
+    /**
+     * Avanzar los tramos de antigüedad hasta hoy (una transacción por día pendiente)
+     */
+    @Scheduled(cron = "${petsalud.cobranza.cron-antiguedad:0 15 0 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void avanzarTramos() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate corte = saldoRepository.findFechaCorteMinima();
+        if (corte == null || !corte.isBefore(hoy)) {
+            return;
+        }
+
+        int movidas = 0;
+        if (ChronoUnit.DAYS.between(corte, hoy) > LIMITES_TRAMO[LIMITES_TRAMO.length - 1]) {
+            movidas = recalcularTramos(hoy);
+        } else {
+            for (LocalDate dia = corte.plusDays(1); !dia.isAfter(hoy); dia = dia.plusDays(1)) {
+                LocalDate fecha = dia;
+                Integer movidasDia = transaccion.execute(status -> avanzarDia(fecha));
+                movidas += movidasDia != null ? movidasDia : 0;
+            }
+        }
+        transaccion.executeWithoutResult(status -> saldoRepository.avanzarFechaCorte(hoy));
+        logger.info("Antigüedad de saldos avanzada de {} a {}: {} partidas cambiaron de tramo", corte, hoy, movidas);
+    }
+
+    /**
+     * Reconstruir el libro de saldos desde las facturas y pagos pendientes
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> reconstruir() {
+        Integer partidas = transaccion.execute(status -> {
+            partidaRepository.deleteAllInBatch();
+            saldoRepository.deleteAllInBatch();
+            int total = 0;
+            for (Factura factura : facturaRepository.findByEstadoIgnoreCase("PENDIENTE")) {
+                sincronizarFactura(factura);
+                total++;
+            }
+            for (String estado : List.of("PENDIENTE", "PARCIAL")) {
+                for (Pago pago : pagoRepository.findByEstadoIgnoreCase(estado)) {
+                    sincronizarPago(pago);
+                    total++;
+                }
+            }
+            return total;
+        });
+        logger.info("Libro de saldos reconstruido: {} documentos pendientes", partidas);
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("documentos", partidas);
+        resultado.put("cuentas", saldoRepository.count());
+        return resultado;
+    }
+
+    // ==================== Métodos internos ====================
+
+    private LocalDate vencimiento(LocalDate fechaVencimiento, LocalDate fechaEmision) {
+        if (fechaVencimiento != null) {
+            return fechaVencimiento;
+        }
+        return (fechaEmision != null ? fechaEmision : LocalDate.now()).plusDays(plazoPorDefectoDias);
+    }
+
+    private SaldoDueno bloquear(Long idDueno) {
+        SaldoDueno cuenta = saldoRepository.findParaActualizar(idDueno);
+        if (cuenta == null) {
+            saldoRepository.crearSiNoExiste(idDueno, LocalDate.now());
+            cuenta = saldoRepository.findParaActualizar(idDueno);
+        }
+        return cuenta;
+    }
+
+    /**
+     * Mover las partidas que cruzan un límite de tramo en la fecha indicada
+     */
+    private int avanzarDia(LocalDate dia) {
+        List<LocalDate> vencimientos = new ArrayList<>();
+        for (int limite : LIMITES_TRAMO) {
+            vencimientos.add(dia.minusDays(limite));
+        }
+        return moverPartidas(partidaRepository.findByFechaVencimientoIn(vencimientos), dia);
+    }
+
+    /**
+     * Recalcular el tramo de todas las partidas (si la tarea estuvo detenida más de 91 días)
+     */
+    private int recalcularTramos(LocalDate hoy) {
+        int movidas = 0;
+        long ultimo = 0L;
+        while (true) {
+            long despuesDe = ultimo;
+            List<PartidaCobro> pagina = partidaRepository.findSiguientes(despuesDe, PageRequest.of(0, TAMANIO_LOTE));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            ultimo = pagina.get(pagina.size() - 1).getIdPartida();
+            List<Long> ids = pagina.stream().map(PartidaCobro::getIdPartida).toList();
+            Integer movidasPagina = transaccion.execute(status -> moverPartidas(partidaRepository.findAllById(ids), hoy));
+            movidas += movidasPagina != null ? movidasPagina : 0;
+        }
+        return movidas;
+    }
+
+    private int moverPartidas(List<PartidaCobro> partidas, LocalDate dia) {
+        Map<Long, List<PartidaCobro>> porDueno = new TreeMap<>();
+        for (PartidaCobro partida : partidas) {
+            porDueno.computeIfAbsent(partida.getIdDueno(), id -> new ArrayList<>()).add(partida);
+        }
+        int movidas = 0;
+        for (Map.Entry<Long, List<PartidaCobro>> entrada : porDueno.entrySet()) {
+            SaldoDueno cuenta = saldoRepository.findParaActualizar(entrada.getKey());
+            if (cuenta == null || cuenta.getFechaCorte().isAfter(dia)) {
+                continue;
+            }
+            for (PartidaCobro partida : entrada.getValue()) {
+                int tramo = SaldoDueno.tramoPara(partida.getFechaVencimiento(), dia);
+                if (tramo != partida.getTramo()) {
+                    cuenta.moverTramo(partida, tramo);
+                    movidas++;
+                }
+            }
+        }
+        return movidas;
+    }
+}
@@ -0,0 +1,282 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Usuario;
+import com.petsalud.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de sesión firmados (HMAC-SHA256)
+ *
+ * Formato: base64url(idUsuario:rol:emitido:expira:nombreUsuario) "." base64url(firma)
+ * - Verificar un token es un HMAC y una comparación en tiempo constante; no usa BCrypt y la tabla usuarios
+ *   solo se consulta para revalidar la revocación.
+ * - Los tokens ya verificados se guardan en una caché de sesiones, de modo que las llamadas
+ *   siguientes solo revisan la expiración.
+ * - Desactivar, eliminar, cambiar el rol o la contraseña de un usuario revoca los tokens emitidos antes:
+ *   el corte se guarda en usuarios.tokens_validos_desde y cada nodo lo relee como máximo cada
+ *   revalidar-ms, de modo que la revocación sobrevive reinicios y alcanza a todas las instancias.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    // Obligatorio; solo con el perfil dev o test puede quedar vacío (se genera uno aleatorio al iniciar)
+    @Value("${petsalud.auth.token.secreto:}")
+    private String secreto;
+
+    @Value("${petsalud.auth.token.minutos:480}")
+    private long minutosVigencia;
+
+    @Value("${petsalud.auth.token.cache-maxima:10000}")
+    private int cacheMaxima;
+
+    @Value("${petsalud.auth.token.revalidar-ms:60000}")
+    private long revalidarMs;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Environment environment;
+
+    private TransactionTemplate transactionTemplate;
+
+    private SecretKeySpec clave;
+    private ThreadLocal<Mac> mac;
+
+    // token -> sesión ya verificada
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    // idUsuario -> corte de validez leído de la base
+    private final Map<Long, Corte> cortes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        byte[] bytes;
+        if (secreto == null || secreto.isBlank()) {
+            if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                // Una clave aleatoria por proceso invalida los tokens al reiniciar y entre instancias
+                throw new IllegalStateException(
+                        "petsalud.auth.token.secreto es obligatorio (solo puede quedar vacío con el perfil dev o test)");
+            }
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            logger.warn("petsalud.auth.token.secreto no configurado: se usa una clave aleatoria");
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        clave = new SecretKeySpec(bytes, ALGORITMO);
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instancia = Mac.getInstance(ALGORITMO);
+                instancia.init(clave);
+                return instancia;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No se pudo inicializar " + ALGORITMO, e);
+            }
+        });
+    }
+
+    /**
+     * Emitir un token para el usuario autenticado
+     */
+    public Map<String, Object> emitir(Usuario usuario) {
+        long emitido = System.currentTimeMillis();
+        long expira = emitido + minutosVigencia * 60_000L;
+        String contenido = usuario.getIdUsuario() + ":" + usuario.getRol() + ":" + emitido + ":" + expira
+                + ":" + usuario.getNombreUsuario();
+        String cuerpo = CODIFICADOR.encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+        String token = cuerpo + "." + CODIFICADOR.encodeToString(firmar(cuerpo));
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("token", token);
+        resultado.put("tipo", "Bearer");
+        resultado.put("expiraEn", minutosVigencia * 60);
+        return resultado;
+    }
+
+    /**
+     * Validar un token; retorna la sesión o null si es inválido, expiró o fue revocado
+     */
+    public Sesion validar(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long ahora = System.currentTimeMillis();
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            sesion = decodificar(token);
+            if (sesion == null) {
+                return null;
+            }
+            if (sesiones.size() >= cacheMaxima) {
+                purgarExpiradas();
+            }
+            if (sesiones.size() < cacheMaxima) {
+                sesiones.put(token, sesion);
+            }
+        }
+        if (sesion.getExpira() <= ahora) {
+            sesiones.remove(token);
+            return null;
+        }
+        if (sesion.getEmitido() < validosDesde(sesion.getIdUsuario(), ahora)) {
+            sesiones.remove(token);
+            return null;
+        }
+        return sesion;
+    }
+
+    /**
+     * Invalidar los tokens emitidos hasta ahora para un usuario
+     * Se guarda en la transacción del llamador (si la hay); los demás nodos lo ven al revalidar.
+     */
+    public void revocar(Long idUsuario) {
+        if (idUsuario == null) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> usuarioRepository.revocarTokens(idUsuario, ahora));
+        cortes.put(idUsuario, new Corte(ahora, ahora));
+        sesiones.values().removeIf(s -> s.getIdUsuario().equals(idUsuario));
+    }
+
+    /**
+     * Limpiar sesiones expiradas y revocaciones que ya no afectan a ningún token vigente
+     */
+    @Scheduled(fixedDelayString = "${petsalud.auth.token.limpieza-ms:300000}")
+    public void purgarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        sesiones.values().removeIf(s -> s.getExpira() <= ahora);
+        cortes.values().removeIf(corte -> corte.leido + revalidarMs <= ahora);
+    }
+
+    // ==================== Métodos internos ====================
+
+    /**
+     * Corte de validez del usuario; se relee de la base si la copia local tiene más de revalidar-ms
+     * Usuario inexistente: ningún token es válido. Si la base no responde se usa la copia anterior
+     * y, sin copia, se rechaza el token.
+     */
+    private long validosDesde(Long idUsuario, long ahora) {
+        Corte corte = cortes.get(idUsuario);
+        if (corte != null && ahora - corte.leido < revalidarMs) {
+            return corte.valor;
+        }
+        try {
+            Long valor = usuarioRepository.findTokensValidosDesde(idUsuario);
+            corte = new Corte(valor != null ? valor : Long.MAX_VALUE, ahora);
+            cortes.put(idUsuario, corte);
+            return corte.valor;
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo revalidar los tokens del usuario {}: {}", idUsuario, e.getMessage());
+            return corte != null ? corte.valor : Long.MAX_VALUE;
+        }
+    }
+
+    private Sesion decodificar(String token) {
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) {
+            return null;
+        }
+        try {
+            String cuerpo = token.substring(0, punto);
+            byte[] firma = DECODIFICADOR.decode(token.substring(punto + 1));
+            if (!MessageDigest.isEqual(firma, firmar(cuerpo))) {
+                return null;
+            }
+            String[] partes = new String(DECODIFICADOR.decode(cuerpo), StandardCharsets.UTF_8).split(":", 5);
+            if (partes.length != 5) {
+                return null;
+            }
+            return new Sesion(Long.valueOf(partes[0]), partes[4], partes[1],
+                    Long.parseLong(partes[2]), Long.parseLong(partes[3]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] firmar(String cuerpo) {
+        return mac.get().doFinal(cuerpo.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static class Corte {
+        private final long valor;
+        private final long leido;
+
+        private Corte(long valor, long leido) {
+            this.valor = valor;
+            this.leido = leido;
+        }
+    }
+
+    /**
+     * Usuario autenticado por token
+     */
+    public static class Sesion {
+        private final Long idUsuario;
+        private final String nombreUsuario;
+        private final String rol;
+        private final long emitido;
+        private final long expira;
+
+        public Sesion(Long idUsuario, String nombreUsuario, String rol, long emitido, long expira) {
+            this.idUsuario = idUsuario;
+            this.nombreUsuario = nombreUsuario;
+            this.rol = rol;
+            this.emitido = emitido;
+            this.expira = expira;
+        }
+
+        public Long getIdUsuario() {
+            return idUsuario;
+        }
+
+        public String getNombreUsuario() {
+            return nombreUsuario;
+        }
+
+        public String getRol() {
+            return rol;
+        }
+
+        public long getEmitido() {
+            return emitido;
+        }
+
+        public long getExpira() {
+            return expira;
+        }
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Servicio para gestión de Toma de Muestras
@@ -26,6 +25,12 @@ public class TomaMuestraService {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private OrdenService ordenService;
+
+    @Autowired
+    private GeneradorIdService generadorIdService;
+
     /**
      * Listar todas las tomas de muestra
      */
@@ -109,7 +114,7 @@ public class TomaMuestraService {
         // Si es una nueva toma, generar código único
         if (tomaMuestra.getIdToma() == null) {
             if (tomaMuestra.getCodigoMuestra() == null) {
-                tomaMuestra.setCodigoMuestra(generarCodigoMuestra());
+                tomaMuestra.setCodigoMuestra(generadorIdService.siguienteCodigo("TM"));
             }
             if (tomaMuestra.getEstado() == null) {
                 tomaMuestra.setEstado("PROGRAMADA");
@@ -120,7 +125,11 @@ public class TomaMuestraService {
         
         // Actualizar estado de la orden a EN_PROCESO
         if (tomaMuestra.getOrden() != null) {
+            String estadoAnterior = tomaMuestra.getOrden().getEstado();
             tomaMuestra.getOrden().setEstado("EN_PROCESO");
+            if (!"EN_PROCESO".equalsIgnoreCase(estadoAnterior)) {
+                ordenService.publicarEvento("ORDEN_ESTADO", tomaMuestra.getOrden(), estadoAnterior);
+            }
         }
         
         // Notificar programación de toma
@@ -166,16 +175,6 @@ public class TomaMuestraService {
         return null;
     }
 
-    /**
-     * Generar código único de muestra
-     */
-    private String generarCodigoMuestra() {
-        String prefijo = "TM";
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        return prefijo + "-" + timestamp.substring(timestamp.length() - 6) + "-" + uuid;
-    }
-
     /**
      * Obtener tomas de muestra del día
      */
@@ -3,10 +3,13 @@ package com.petsalud.service;
 import com.petsalud.model.Usuario;
 import com.petsalud.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,7 +25,23 @@ public class UsuarioService {
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private VerificadorCredenciales verificadorCredenciales;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private AccesoUsuarioBuffer accesoBuffer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     /**
      * Listar todos los usuarios
@@ -95,10 +114,17 @@ public class UsuarioService {
             
             // Encriptar contraseña para nuevos usuarios
             if (usuario.getContrasena() != null) {
-                usuario.setContrasena(passwordEncoder.encode(usuario.getContrasena()));
+                usuario.setContrasena(verificadorCredenciales.codificar(usuario.getContrasena()));
             }
             
             usuario.setFechaCreacion(LocalDateTime.now());
+        } else {
+            // El rol viaja en el token: un cambio de rol o una desactivación invalida los emitidos
+            String rolAnterior = usuarioRepository.findRolById(usuario.getIdUsuario());
+            if ((rolAnterior != null && !rolAnterior.equalsIgnoreCase(usuario.getRol()))
+                    || Boolean.FALSE.equals(usuario.getActivo())) {
+                tokenService.revocar(usuario.getIdUsuario());
+            }
         }
         
         return usuarioRepository.save(usuario);
@@ -118,12 +144,14 @@ public class UsuarioService {
                 }
             }
             usuarioRepository.deleteById(id);
+            tokenService.revocar(id);
         }
     }
 
     /**
      * Autenticar usuario
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Usuario autenticar(String nombreUsuario, String contrasena) {
         Usuario usuario = usuarioRepository.findByNombreUsuario(nombreUsuario);
         
@@ -131,33 +159,55 @@ public class UsuarioService {
             return null;
         }
         
+        return verificarCredenciales(usuario, contrasena) ? usuario : null;
+    }
+
+    /**
+     * Verificar la contraseña de un usuario ya cargado y registrar el intento
+     * Fuera de transacción: no se retiene una conexión mientras se calcula BCrypt
+     * (VerificadorCredenciales, pool acotado).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean verificarCredenciales(Usuario usuario, String contrasena) {
         // Verificar si está bloqueado
-        if (usuario.getBloqueado()) {
+        if (Boolean.TRUE.equals(usuario.getBloqueado())) {
             throw new RuntimeException("Usuario bloqueado por múltiples intentos fallidos");
         }
         
         // Verificar si está activo
-        if (!usuario.getActivo()) {
+        if (!Boolean.TRUE.equals(usuario.getActivo())) {
             throw new RuntimeException("Usuario inactivo");
         }
         
         // Verificar contraseña
-        if (passwordEncoder.matches(contrasena, usuario.getContrasena())) {
-            // Login exitoso
+        Long id = usuario.getIdUsuario();
+        if (verificadorCredenciales.verificar(contrasena, usuario.getContrasena())) {
+            // Se decide con el estado de la base, no con la entidad cargada antes de BCrypt:
+            // un bloqueo por intentos en paralelo gana sobre la contraseña correcta
+            Boolean bloqueado = transactionTemplate.execute(status -> {
+                usuarioRepository.reiniciarIntentos(id);
+                return usuarioRepository.findBloqueadoById(id);
+            });
+            if (Boolean.TRUE.equals(bloqueado)) {
+                throw new RuntimeException("Usuario bloqueado por múltiples intentos fallidos");
+            }
+            // Login exitoso (el último acceso se guarda de forma diferida)
             usuario.registrarAcceso();
-            usuarioRepository.save(usuario);
-            return usuario;
+            accesoBuffer.registrar(id, usuario.getUltimoAcceso());
+            return true;
         } else {
-            // Login fallido
+            // Login fallido: conteo y bloqueo atómicos en la base de datos
+            transactionTemplate.executeWithoutResult(status ->
+                    usuarioRepository.registrarIntentoFallido(id, Usuario.MAX_INTENTOS_FALLIDOS));
             usuario.registrarIntentoFallido();
-            usuarioRepository.save(usuario);
-            return null;
+            return false;
         }
     }
 
     /**
      * Cambiar contraseña
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean cambiarContrasena(Long id, String contrasenaActual, String contrasenaNueva) {
         Usuario usuario = obtenerPorId(id);
         
@@ -166,13 +216,14 @@ public class UsuarioService {
         }
         
         // Verificar contraseña actual
-        if (!passwordEncoder.matches(contrasenaActual, usuario.getContrasena())) {
+        if (!verificadorCredenciales.verificar(contrasenaActual, usuario.getContrasena())) {
             return false;
         }
         
         // Actualizar contraseña
-        usuario.setContrasena(passwordEncoder.encode(contrasenaNueva));
+        usuario.setContrasena(verificadorCredenciales.codificar(contrasenaNueva));
         usuarioRepository.save(usuario);
+        tokenService.revocar(id);
         
         return true;
     }
@@ -196,6 +247,7 @@ public class UsuarioService {
         Usuario usuario = obtenerPorId(id);
         if (usuario != null) {
             usuario.setActivo(!usuario.getActivo());
+            tokenService.revocar(id);
             return usuarioRepository.save(usuario);
         }
         return null;
@@ -235,21 +287,18 @@ public class UsuarioService {
     public Usuario resetearContrasena(Long id, String nuevaContrasena) {
         Usuario usuario = obtenerPorId(id);
         if (usuario != null) {
-            usuario.setContrasena(passwordEncoder.encode(nuevaContrasena));
+            usuario.setContrasena(verificadorCredenciales.codificar(nuevaContrasena));
             usuario.desbloquear(); // Desbloquear al resetear
+            tokenService.revocar(id);
             return usuarioRepository.save(usuario);
         }
         return null;
     }
 
     /**
-     * Actualizar último acceso
+     * Actualizar último acceso (escritura diferida, ver AccesoUsuarioBuffer)
      */
     public void actualizarUltimoAcceso(Long id) {
-        Usuario usuario = obtenerPorId(id);
-        if (usuario != null) {
-            usuario.setUltimoAcceso(LocalDateTime.now());
-            usuarioRepository.save(usuario);
-        }
+        accesoBuffer.registrar(id, LocalDateTime.now());
     }
-}
\ No newline at end of file
+}
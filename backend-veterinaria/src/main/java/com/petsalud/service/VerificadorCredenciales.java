@@ -0,0 +1,151 @@
+package com.petsalud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificación y cifrado de contraseñas BCrypt en un pool acotado
+ *
+ * BCrypt(12) consume cerca de 250 ms de CPU por intento; ejecutarlo en los hilos de Tomcat
+ * hace que un pico de inicios de sesión (o de altas y cambios de contraseña) bloquee todo el API.
+ * Aquí se ejecuta en un pool propio con cola limitada:
+ * - Si la cola está llena se rechaza de inmediato (RejectedExecutionException).
+ * - Si una verificación esperó en cola más que el máximo permitido se descarta sin
+ *   calcular el hash: el cliente ya recibió el rechazo y no tiene sentido gastar la CPU.
+ */
+@Service
+public class VerificadorCredenciales {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = un hilo por procesador
+    @Value("${petsalud.auth.verificacion.hilos:0}")
+    private int hilos;
+
+    @Value("${petsalud.auth.verificacion.capacidad-cola:64}")
+    private int capacidadCola;
+
+    @Value("${petsalud.auth.verificacion.espera-maxima-ms:2000}")
+    private long esperaMaximaMs;
+
+    private ThreadPoolExecutor pool;
+
+    private Counter rechazadas;
+    private Counter vencidas;
+    private Timer espera;
+    private Timer duracion;
+
+    @PostConstruct
+    public void init() {
+        int tamanio = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(tamanio, tamanio, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(capacidadCola, 1)),
+                r -> {
+                    Thread hilo = new Thread(r, "credenciales-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        rechazadas = Counter.builder("petsalud.auth.verificacion.rechazadas")
+                .description("Verificaciones rechazadas por cola llena")
+                .register(meterRegistry);
+        vencidas = Counter.builder("petsalud.auth.verificacion.vencidas")
+                .description("Verificaciones descartadas por superar la espera máxima en cola")
+                .register(meterRegistry);
+        espera = Timer.builder("petsalud.auth.verificacion.espera")
+                .description("Tiempo en cola antes de calcular el hash")
+                .register(meterRegistry);
+        duracion = Timer.builder("petsalud.auth.verificacion.duracion")
+                .description("Tiempo de cálculo del hash")
+                .register(meterRegistry);
+        Gauge.builder("petsalud.auth.verificacion.cola", pool, p -> p.getQueue().size())
+                .description("Verificaciones en espera")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Comparar una contraseña en texto plano con su hash
+     * Lanza RejectedExecutionException si el pool está saturado o la espera se vence.
+     */
+    public boolean verificar(String contrasena, String hash) {
+        if (contrasena == null || hash == null) {
+            return false;
+        }
+        return ejecutar(() -> passwordEncoder.matches(contrasena, hash));
+    }
+
+    /**
+     * Cifrar una contraseña en texto plano (alta, cambio o reseteo)
+     * Lanza RejectedExecutionException si el pool está saturado o la espera se vence.
+     */
+    public String codificar(String contrasena) {
+        if (contrasena == null) {
+            return null;
+        }
+        return ejecutar(() -> passwordEncoder.encode(contrasena));
+    }
+
+    private <T> T ejecutar(Callable<T> calculo) {
+        long encolado = System.nanoTime();
+        Future<T> resultado;
+        try {
+            resultado = pool.submit(() -> {
+                long esperado = System.nanoTime() - encolado;
+                espera.record(esperado, TimeUnit.NANOSECONDS);
+                if (TimeUnit.NANOSECONDS.toMillis(esperado) > esperaMaximaMs) {
+                    vencidas.increment();
+                    throw new RejectedExecutionException("Espera máxima superada");
+                }
+                long inicio = System.nanoTime();
+                try {
+                    return calculo.call();
+                } finally {
+                    duracion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            throw new RejectedExecutionException("Servicio de autenticación saturado, intente nuevamente");
+        }
+
+        try {
+            // Espera máxima en cola más un margen para el propio cálculo
+            return resultado.get(esperaMaximaMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            vencidas.increment();
+            throw new RejectedExecutionException("Servicio de autenticación saturado, intente nuevamente");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new RejectedExecutionException("Servicio de autenticación saturado, intente nuevamente");
+            }
+            throw new RuntimeException("Error al procesar credenciales: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Procesamiento de credenciales interrumpido");
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +20,9 @@ public class VeterinarioService {
     @Autowired
     private VeterinarioRepository veterinarioRepository;
 
+    @Autowired
+    private AgendaVeterinarioIndex agendaVeterinarioIndex;
+
     /**
      * Listar todos los veterinarios
      */
@@ -82,7 +86,9 @@ public class VeterinarioService {
             throw new RuntimeException("Los apellidos del veterinario son obligatorios");
         }
         
-        return veterinarioRepository.save(veterinario);
+        Veterinario guardado = veterinarioRepository.save(veterinario);
+        agendaVeterinarioIndex.actualizarVeterinario(guardado);
+        return guardado;
     }
 
     /**
@@ -96,6 +102,7 @@ public class VeterinarioService {
                 throw new RuntimeException("No se puede eliminar el veterinario porque tiene órdenes asociadas");
             }
             veterinarioRepository.deleteById(id);
+            agendaVeterinarioIndex.eliminarVeterinario(id);
         }
     }
 
@@ -106,7 +113,9 @@ public class VeterinarioService {
         Veterinario veterinario = obtenerPorId(id);
         if (veterinario != null) {
             veterinario.setActivo(!veterinario.getActivo());
-            return veterinarioRepository.save(veterinario);
+            Veterinario actualizado = veterinarioRepository.save(veterinario);
+            agendaVeterinarioIndex.actualizarVeterinario(actualizado);
+            return actualizado;
         }
         return null;
     }
@@ -139,6 +148,13 @@ public class VeterinarioService {
         return veterinarioRepository.findByActivoTrue();
     }
 
+    /**
+     * Obtener veterinarios activos libres en un horario (agenda en memoria)
+     */
+    public List<Veterinario> obtenerDisponiblesEn(LocalDateTime fechaHora, int duracionMinutos) {
+        return agendaVeterinarioIndex.veterinariosLibres(fechaHora, duracionMinutos);
+    }
+
     /**
      * Verificar si existe por colegiatura
      */
@@ -7,6 +7,7 @@ import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.petsalud.model.Dinero;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -119,12 +120,12 @@ public class QRCodeUtil {
     /**
      * Generar código QR para factura
      */
-    public static BufferedImage generarQRParaFactura(String numeroFactura, Double total, String dueno) 
+    public static BufferedImage generarQRParaFactura(String numeroFactura, Dinero total, String dueno) 
             throws WriterException {
         String contenido = String.format(
             "PETSALUD-FACTURA\nNúmero: %s\nTotal: S/. %.2f\nCliente: %s\nFecha: %s",
             numeroFactura,
-            total,
+            total.aBigDecimal(),
             dueno,
             DateUtil.formatearFecha(DateUtil.obtenerFechaActual())
         );
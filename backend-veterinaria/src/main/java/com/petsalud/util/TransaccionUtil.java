@@ -0,0 +1,27 @@
+package com.petsalud.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para ejecutar acciones ligadas a la transacción actual
+ * Sistema de Gestión Veterinaria PetSalud
+ */
+public class TransaccionUtil {
+
+    /**
+     * Ejecutar una acción después del commit (o de inmediato si no hay transacción)
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
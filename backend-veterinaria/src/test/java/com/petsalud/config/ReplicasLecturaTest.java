@@ -0,0 +1,208 @@
+package com.petsalud.config;
+
+import com.petsalud.model.Veterinario;
+import com.petsalud.repository.VeterinarioRepository;
+import com.petsalud.service.ReporteService;
+import com.petsalud.service.TokenService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrutamiento a réplicas con dos bases H2: una principal y otra que hace de réplica
+ * La "replicación" de la prueba solo copia el latido; los datos de cada base son distintos a propósito,
+ * así cada lectura revela de qué base vino.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:petsalud-principal;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "petsalud.datasource.replicas.urls=" + ReplicasLecturaTest.URL_REPLICA,
+        "petsalud.datasource.replicas.intervalo-ms=100",
+        "petsalud.datasource.replicas.max-retraso-ms=1000"
+})
+@ActiveProfiles("test")
+class ReplicasLecturaTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:petsalud-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String CONTAR_MARCA = "SELECT COUNT(*) FROM veterinarios WHERE apellidos = 'Replica'";
+
+    private static boolean esquemaCopiado;
+
+    // Cada prueba es otro cliente: las escrituras de una no fijan a la principal las lecturas de otra
+    private static final AtomicLong usuarios = new AtomicLong();
+
+    @Autowired
+    @Qualifier("dataSourceOltp")
+    private DataSource principal;
+
+    @Autowired
+    @Qualifier("dataSourceEnrutador")
+    private EnrutadorDataSource enrutador;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReporteService reporteService;
+
+    @Autowired
+    private VeterinarioRepository veterinarioRepository;
+
+    private final JdbcTemplate jdbcReplica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    private ScheduledExecutorService replicacion;
+
+    @BeforeEach
+    void prepararReplica() throws InterruptedException {
+        if (!esquemaCopiado) {
+            // Mismo esquema que la principal; solo la réplica tiene el veterinario "Replica"
+            for (String sentencia : new JdbcTemplate(principal).queryForList("SCRIPT NODATA", String.class)) {
+                jdbcReplica.execute(sentencia);
+            }
+            jdbcReplica.update("INSERT INTO veterinarios (nombres, apellidos, activo) VALUES ('Solo', 'Replica', TRUE)");
+            esquemaCopiado = true;
+        }
+        autenticar();
+        iniciarReplicacion();
+        esperarDisponible(true);
+    }
+
+    @AfterEach
+    void detenerReplicacion() {
+        replicacion.shutdownNow();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void lecturasVanALaReplicaYEscriturasALaPrincipal() {
+        assertEquals(1, contarMarca(true));
+        assertEquals(0, contarMarca(false));
+    }
+
+    @Test
+    void reportesLeenDeLaReplica() {
+        // ReporteService usa el pool de reportes (PoolReportes); con réplicas, lee de ellas
+        assertEquals(1L, reporteService.obtenerKPIsGenerales().get("totalVeterinarios"));
+    }
+
+    @Test
+    void lecturaTrasEscrituraDelMismoClienteVaALaPrincipal() {
+        assertEquals(0, contarMarca(false));
+        assertEquals(0, contarMarca(true));
+
+        autenticar();
+        assertEquals(1, contarMarca(true));
+    }
+
+    @Test
+    void escrituraDespuesDeUnaLecturaEnLaMismaSolicitudVaALaPrincipal() {
+        // Como open-in-view: un EntityManager abierto durante toda la "solicitud"
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            long activos = lectura.execute(status -> veterinarioRepository.countByActivoTrue());
+            assertEquals(1L, activos);
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Veterinario veterinario = new Veterinario();
+                veterinario.setNombres("Escrito");
+                veterinario.setApellidos("Principal");
+                veterinarioRepository.save(veterinario);
+            });
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+        String contar = "SELECT COUNT(*) FROM veterinarios WHERE nombres = 'Escrito'";
+        assertTrue(new JdbcTemplate(principal).queryForObject(contar, Integer.class) >= 1);
+        assertEquals(0, jdbcReplica.queryForObject(contar, Integer.class));
+    }
+
+    @Test
+    void replicaAtrasadaDejaDeRecibirLecturas() throws InterruptedException {
+        replicacion.shutdownNow();
+        esperarDisponible(false);
+        assertEquals(0, contarMarca(true));
+    }
+
+    @Test
+    void replicaSinVerificacionRecienteNoEstaDisponible() throws InterruptedException {
+        EnrutadorDataSource.Replica replica = new EnrutadorDataSource.Replica("prueba", principal, principal, 50);
+        assertFalse(replica.isDisponible());
+        replica.actualizar(true, 0);
+        assertTrue(replica.isDisponible());
+        Thread.sleep(150);
+        assertFalse(replica.isDisponible());
+    }
+
+    private int contarMarca(boolean soloLectura) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(soloLectura);
+        return transaccion.execute(status -> jdbcTemplate.queryForObject(CONTAR_MARCA, Integer.class));
+    }
+
+    private void autenticar() {
+        long idUsuario = usuarios.incrementAndGet();
+        long ahora = System.currentTimeMillis();
+        TokenService.Sesion sesion = new TokenService.Sesion(idUsuario, "prueba" + idUsuario, "ADMIN", ahora, ahora + 60000);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(sesion, null, List.of()));
+    }
+
+    /**
+     * Copiar el latido de la principal a la réplica (lo único que "replica" la prueba)
+     */
+    private void iniciarReplicacion() {
+        JdbcTemplate jdbcPrincipal = new JdbcTemplate(principal);
+        replicacion = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "replicacion-prueba"));
+        replicacion.scheduleWithFixedDelay(() -> {
+            List<Long> latido = jdbcPrincipal.queryForList(
+                    "SELECT instante_ms FROM latidos_replicacion WHERE id = 1", Long.class);
+            if (!latido.isEmpty()) {
+                jdbcReplica.update("MERGE INTO latidos_replicacion (id, instante_ms) KEY (id) VALUES (1, ?)", latido.get(0));
+            }
+        }, 0, 50, TimeUnit.MILLISECONDS);
+    }
+
+    private void esperarDisponible(boolean disponible) throws InterruptedException {
+        EnrutadorDataSource.Replica replica = enrutador.getReplicas().get(0);
+        long limite = System.currentTimeMillis() + 10000;
+        while (replica.isDisponible() != disponible && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertEquals(disponible, replica.isDisponible());
+    }
+}
@@ -0,0 +1,102 @@
+package com.petsalud.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de agregación de importes: Double (como antes) frente a Dinero
+ *
+ * Simula el cálculo de subtotal + IGV de una lista de líneas de factura.
+ * No lo ejecuta surefire; para correrlo:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.petsalud.model.DineroBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DineroBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int lineas;
+
+    private List<Double> preciosDouble;
+    private List<Dinero> preciosDinero;
+    private int[] cantidades;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        preciosDouble = new ArrayList<>(lineas);
+        preciosDinero = new ArrayList<>(lineas);
+        cantidades = new int[lineas];
+        for (int i = 0; i < lineas; i++) {
+            long centimos = 50 + random.nextInt(50_000);
+            preciosDouble.add(centimos / 100.0);
+            preciosDinero.add(Dinero.deCentimos(centimos));
+            cantidades[i] = 1 + random.nextInt(10);
+        }
+    }
+
+    /**
+     * Forma anterior: suma en Double con redondeo al final
+     */
+    @Benchmark
+    public double sumarDouble() {
+        double subtotal = 0;
+        for (int i = 0; i < lineas; i++) {
+            subtotal += preciosDouble.get(i) * cantidades[i];
+        }
+        double igv = Math.round(subtotal * 0.18 * 100.0) / 100.0;
+        return subtotal + igv;
+    }
+
+    /**
+     * Dinero inmutable: un objeto por línea y por suma parcial
+     */
+    @Benchmark
+    public Dinero sumarDinero() {
+        Dinero subtotal = Dinero.CERO;
+        for (int i = 0; i < lineas; i++) {
+            subtotal = subtotal.sumar(preciosDinero.get(i).multiplicar(cantidades[i]));
+        }
+        return subtotal.sumar(subtotal.porcentaje(18));
+    }
+
+    /**
+     * Dinero con Acumulador (suma en long, sin objetos intermedios por suma parcial)
+     */
+    @Benchmark
+    public Dinero sumarAcumulador() {
+        Dinero.Acumulador acumulador = new Dinero.Acumulador();
+        for (int i = 0; i < lineas; i++) {
+            acumulador.agregar(preciosDinero.get(i).multiplicar(cantidades[i]));
+        }
+        Dinero subtotal = acumulador.total();
+        return subtotal.sumar(subtotal.porcentaje(18));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DineroBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
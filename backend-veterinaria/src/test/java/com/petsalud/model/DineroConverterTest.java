@@ -0,0 +1,36 @@
+package com.petsalud.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Conversión Dinero ↔ columna numérica en soles
+ */
+class DineroConverterTest {
+
+    private final DineroConverter converter = new DineroConverter();
+
+    @Test
+    void nuloSeConservaEnAmbosSentidos() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void escribeSolesYLeeRedondeandoAlCentimo() {
+        assertEquals(12.5, converter.convertToDatabaseColumn(Dinero.de("12.50")));
+        assertEquals(-0.3, converter.convertToDatabaseColumn(Dinero.de("-0.30")));
+        assertEquals(Dinero.de("0.30"), converter.convertToEntityAttribute(0.1 + 0.2));
+        assertEquals(Dinero.de("10.01"), converter.convertToEntityAttribute(10.005));
+    }
+
+    @Test
+    void idaYVueltaNoPierdeCentimos() {
+        for (long centimos = -100_000; centimos <= 1_000_000; centimos += 7) {
+            Dinero valor = Dinero.deCentimos(centimos);
+            assertEquals(valor, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(valor)));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.petsalud.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Redondeo, aritmética y JSON de Dinero
+ */
+class DineroTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void deDoubleRedondeaHalfUpAlCentimo() {
+        assertEquals(13, Dinero.de(0.125).getCentimos());
+        assertEquals(101, Dinero.de(1.005).getCentimos());
+        assertEquals(268, Dinero.de(2.675).getCentimos());
+        assertEquals(-13, Dinero.de(-0.125).getCentimos());
+        assertEquals(30, Dinero.de(0.1 + 0.2).getCentimos());
+        assertSame(Dinero.CERO, Dinero.de((Double) null));
+        assertSame(Dinero.CERO, Dinero.de(0.0));
+    }
+
+    @Test
+    void porcentajeRedondeaHalfUpSinPasarPorDouble() {
+        assertEquals(Dinero.de("18.00"), Dinero.de("100.00").porcentaje(18));
+        assertEquals(Dinero.de("15.26"), Dinero.de("84.75").porcentaje(18));
+        assertEquals(Dinero.de("0.05"), Dinero.de("0.25").porcentaje(18));
+        assertEquals(Dinero.de("0.01"), Dinero.de("0.03").porcentaje(18));
+        assertEquals(Dinero.CERO, Dinero.de("0.02").porcentaje(18));
+        assertEquals(Dinero.de("-0.05"), Dinero.de("-0.25").porcentaje(18));
+    }
+
+    @Test
+    void multiplicarYSumarSonExactos() {
+        assertEquals(Dinero.de("0.30"), Dinero.de("0.10").multiplicar(3));
+        assertEquals(Dinero.de("0.30"), Dinero.de("0.10").sumar(Dinero.de("0.20")));
+        assertEquals(Dinero.de("-12.50"), Dinero.de("12.50").multiplicar(-1));
+
+        Dinero total = Dinero.CERO;
+        for (int i = 0; i < 1000; i++) {
+            total = total.sumar(Dinero.de(0.1));
+        }
+        assertEquals(Dinero.de("100.00"), total);
+
+        assertThrows(ArithmeticException.class, () -> Dinero.deCentimos(Long.MAX_VALUE).multiplicar(2));
+    }
+
+    @Test
+    void sumarColeccionYAcumuladorIgnoranNulos() {
+        List<Dinero> importes = Arrays.asList(Dinero.de("1.10"), null, Dinero.de("2.20"));
+        assertEquals(Dinero.de("3.30"), Dinero.sumar(importes, d -> d));
+
+        Dinero.Acumulador acumulador = new Dinero.Acumulador();
+        importes.forEach(acumulador::agregar);
+        assertEquals(Dinero.de("3.30"), acumulador.total());
+    }
+
+    @Test
+    void serializaComoNumeroConDosDecimales() throws Exception {
+        assertEquals("12.50", mapper.writeValueAsString(Dinero.de("12.5")));
+        assertEquals("0.00", mapper.writeValueAsString(Dinero.CERO));
+        assertEquals("-0.30", mapper.writeValueAsString(Dinero.de(-0.1 - 0.2)));
+        assertEquals("{\"total\":118.00}", mapper.writeValueAsString(Map.of("total", Dinero.de("118"))));
+    }
+
+    @Test
+    void deserializaNumeroOTextoRedondeando() throws Exception {
+        assertEquals(Dinero.de("0.10"), mapper.readValue("0.1", Dinero.class));
+        assertEquals(Dinero.de("12.35"), mapper.readValue("12.345", Dinero.class));
+        assertEquals(Dinero.de("12.35"), mapper.readValue("\"12.345\"", Dinero.class));
+        assertEquals(Dinero.de("7.00"), mapper.readValue("7", Dinero.class));
+        assertNull(mapper.readValue("\" \"", Dinero.class));
+        assertNull(mapper.readValue("null", Dinero.class));
+
+        Dinero original = Dinero.de("84.75").porcentaje(18);
+        assertEquals(original, mapper.readValue(mapper.writeValueAsString(original), Dinero.class));
+    }
+}
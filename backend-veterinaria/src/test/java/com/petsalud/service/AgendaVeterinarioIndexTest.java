@@ -0,0 +1,74 @@
+package com.petsalud.service;
+
+import com.petsalud.repository.CitaRepository;
+import com.petsalud.repository.VeterinarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reservas con la agenda sin cargar: el cruce se verifica contra la BD
+ */
+class AgendaVeterinarioIndexTest {
+
+    private static final Long ID_VETERINARIO = 7L;
+    private static final LocalDateTime NUEVE = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    private final CitaRepository citaRepository = mock(CitaRepository.class);
+    private final VeterinarioRepository veterinarioRepository = mock(VeterinarioRepository.class);
+    private AgendaVeterinarioIndex index;
+
+    @BeforeEach
+    void preparar() {
+        index = new AgendaVeterinarioIndex();
+        ReflectionTestUtils.setField(index, "citaRepository", citaRepository);
+        ReflectionTestUtils.setField(index, "veterinarioRepository", veterinarioRepository);
+        ReflectionTestUtils.setField(index, "slotMinutos", 30);
+        when(veterinarioRepository.findByActivoTrue()).thenThrow(new RuntimeException("BD no disponible"));
+    }
+
+    @Test
+    void rechazaCruceConCitaGuardadaAunqueLaAgendaNoCargue() {
+        when(citaRepository.findDuracionMaximaVeterinario(eq(ID_VETERINARIO), any())).thenReturn(60);
+        when(citaRepository.findIntervalosVeterinario(eq(ID_VETERINARIO), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, NUEVE, 60}));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> index.reservar(ID_VETERINARIO, null, NUEVE.plusMinutes(30), 30));
+        assertEquals("El veterinario ya tiene una cita entre 09:00 y 10:00 del 2030-03-04", e.getMessage());
+
+        // Reprogramar la misma cita no cuenta como cruce
+        assertNotNull(index.reservar(ID_VETERINARIO, 1L, NUEVE.plusMinutes(30), 30));
+    }
+
+    @Test
+    void rechazaLaReservaSiNoSePuedeVerificar() {
+        when(citaRepository.findDuracionMaximaVeterinario(eq(ID_VETERINARIO), any()))
+                .thenThrow(new RuntimeException("BD no disponible"));
+
+        assertThrows(RuntimeException.class, () -> index.reservar(ID_VETERINARIO, null, NUEVE, 30));
+    }
+
+    @Test
+    void reservasProvisionalesSeCruzanEntreSi() {
+        when(citaRepository.findDuracionMaximaVeterinario(eq(ID_VETERINARIO), any())).thenReturn(null);
+        when(citaRepository.findIntervalosVeterinario(eq(ID_VETERINARIO), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        assertNotNull(index.reservar(ID_VETERINARIO, null, NUEVE, 30));
+        assertThrows(RuntimeException.class, () -> index.reservar(ID_VETERINARIO, null, NUEVE.plusMinutes(15), 30));
+        assertNotNull(index.reservar(ID_VETERINARIO, null, NUEVE.plusMinutes(30), 30));
+    }
+}
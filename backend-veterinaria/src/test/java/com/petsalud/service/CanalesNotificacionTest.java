@@ -0,0 +1,109 @@
+package com.petsalud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Corrida de carga acotada por tiempo, con rechazos del limitador informados aparte
+ */
+class CanalesNotificacionTest {
+
+    private final BuzonSimulado buzon = mock(BuzonSimulado.class);
+    private final MockEnvironment environment = new MockEnvironment();
+    private final ExecutorService clientes = Executors.newSingleThreadExecutor();
+    private CanalesNotificacion canales;
+
+    @AfterEach
+    void cerrar() {
+        clientes.shutdownNow();
+    }
+
+    @Test
+    void losRechazosDelLimitadorNoCuentanComoFallos() throws Exception {
+        iniciar(1, 5, 0, 10);
+
+        Map<String, Object> resultado = canales.medirRendimiento("sms", 20, 2, null);
+
+        long exitosos = (Long) resultado.get("exitosos");
+        assertTrue(exitosos >= 5 && exitosos < 20, resultado.toString());
+        assertEquals(20 - exitosos, resultado.get("rechazados"));
+        assertEquals(0L, resultado.get("fallidos"));
+        assertEquals(0L, resultado.get("noEnviados"));
+        assertEquals(true, resultado.get("completa"));
+    }
+
+    @Test
+    void laCorridaTerminaAlVencerElTiempoMaximo() throws Exception {
+        iniciar(20, 1, 5000, 10);
+
+        long inicio = System.nanoTime();
+        Map<String, Object> resultado = canales.medirRendimiento("sms", 100000, 4, 1);
+        long milis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertTrue(milis < 3000, "duró " + milis + " ms");
+        assertEquals(1, resultado.get("segundosMaximos"));
+        assertEquals(false, resultado.get("completa"));
+        assertTrue((Long) resultado.get("noEnviados") > 90000, resultado.toString());
+    }
+
+    @Test
+    void interrumpeEnviosColgadosYPermiteUnaCorridaALaVez() throws Exception {
+        iniciar(100, 100, 200, 1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        doAnswer(i -> {
+            enCurso.countDown();
+            Thread.sleep(60_000);
+            return null;
+        }).when(buzon).recibir(any());
+
+        long inicio = System.nanoTime();
+        Future<Map<String, Object>> corrida = clientes.submit(() -> canales.medirRendimiento("sms", 10, 2, 30));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> canales.medirRendimiento("sms", 1, 1, 1));
+
+        Map<String, Object> resultado = corrida.get(5, TimeUnit.SECONDS);
+        long milis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        // 30 s pedidos, pero el máximo configurado es 1 s: los envíos colgados se interrumpen
+        assertTrue(milis < 3000, "duró " + milis + " ms");
+        assertEquals(false, resultado.get("completa"));
+        assertEquals(0L, resultado.get("exitosos"));
+        assertEquals(10L, resultado.get("noEnviados"));
+    }
+
+    private void iniciar(double tasa, int rafaga, long esperaMs, int segundosMaximos) {
+        environment.setProperty("petsalud.notificaciones.canal.sms.tasa-por-segundo", String.valueOf(tasa));
+        environment.setProperty("petsalud.notificaciones.canal.sms.rafaga", String.valueOf(rafaga));
+        environment.setProperty("petsalud.notificaciones.canal.sms.espera-maxima-ms", String.valueOf(esperaMs));
+
+        CanalNotificacion sms = mock(CanalNotificacion.class);
+        when(sms.getNombre()).thenReturn("SMS");
+
+        canales = new CanalesNotificacion();
+        ReflectionTestUtils.setField(canales, "canales", List.of(sms));
+        ReflectionTestUtils.setField(canales, "buzonSimulado", buzon);
+        ReflectionTestUtils.setField(canales, "environment", environment);
+        ReflectionTestUtils.setField(canales, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(canales, "segundosMaximosPrueba", segundosMaximos);
+        canales.init();
+    }
+}
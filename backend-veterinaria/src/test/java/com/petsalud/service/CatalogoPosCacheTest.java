@@ -0,0 +1,84 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Inventario;
+import com.petsalud.repository.InventarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los productos del catálogo vencen y se releen (cambios hechos en otras instancias)
+ */
+class CatalogoPosCacheTest {
+
+    private final InventarioRepository inventarioRepository = mock(InventarioRepository.class);
+
+    @Test
+    void unProductoVencidoSeVuelveALeerDeLaBaseDeDatos() throws Exception {
+        CatalogoPosCache catalogo = crear(1);
+        when(inventarioRepository.findByCodigo("775001")).thenReturn(producto(10.0), producto(12.5));
+
+        assertEquals(Dinero.de("10.00"), catalogo.buscar("775001").getPrecioVenta());
+        assertEquals(Dinero.de("10.00"), catalogo.buscar("775001").getPrecioVenta());
+        verify(inventarioRepository, times(1)).findByCodigo("775001");
+
+        Thread.sleep(1100);
+
+        assertEquals(Dinero.de("12.50"), catalogo.buscar("775001").getPrecioVenta());
+        verify(inventarioRepository, times(2)).findByCodigo("775001");
+    }
+
+    @Test
+    void elCarritoTambienDescartaLosVencidos() throws Exception {
+        CatalogoPosCache catalogo = crear(1);
+        when(inventarioRepository.findByCodigoIn(Set.of("775001")))
+                .thenReturn(List.of(producto(10.0)), List.of(producto(12.5)));
+
+        assertEquals(Dinero.de("10.00"), catalogo.buscarVarios(List.of("775001")).get("775001").getPrecioVenta());
+        Thread.sleep(1100);
+        assertEquals(Dinero.de("12.50"), catalogo.buscarVarios(List.of("775001")).get("775001").getPrecioVenta());
+    }
+
+    @Test
+    void sinTtlSoloLaInvalidacionRefresca() {
+        CatalogoPosCache catalogo = crear(0);
+        when(inventarioRepository.findByCodigo("775001")).thenReturn(producto(10.0), producto(12.5));
+
+        catalogo.buscar("775001");
+        assertEquals(Dinero.de("10.00"), catalogo.buscar("775001").getPrecioVenta());
+
+        catalogo.invalidar(1L);
+        assertEquals(Dinero.de("12.50"), catalogo.buscar("775001").getPrecioVenta());
+    }
+
+    private CatalogoPosCache crear(long ttlSegundos) {
+        CatalogoPosCache catalogo = new CatalogoPosCache();
+        ReflectionTestUtils.setField(catalogo, "inventarioRepository", inventarioRepository);
+        ReflectionTestUtils.setField(catalogo, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalogo, "capacidadMaxima", 50000);
+        ReflectionTestUtils.setField(catalogo, "ttlSegundos", ttlSegundos);
+        catalogo.init();
+        return catalogo;
+    }
+
+    private static Inventario producto(double precio) {
+        Inventario inventario = new Inventario();
+        inventario.setIdInventario(1L);
+        inventario.setCodigo("775001");
+        inventario.setNombre("Antipulgas");
+        inventario.setPrecioVenta(precio);
+        inventario.setStockActual(20);
+        inventario.setActivo(true);
+        return inventario;
+    }
+}
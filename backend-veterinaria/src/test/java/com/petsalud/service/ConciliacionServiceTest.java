@@ -0,0 +1,82 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.repository.FacturaRepository;
+import com.petsalud.repository.LineaConciliadaRepository;
+import com.petsalud.repository.MovimientoPagoRepository;
+import com.petsalud.repository.PagoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un abono que no se pudo aplicar no consume el saldo del documento en la corrida
+ */
+class ConciliacionServiceTest {
+
+    @TempDir
+    Path carpeta;
+
+    private final PagoRepository pagoRepository = mock(PagoRepository.class);
+    private final FacturaRepository facturaRepository = mock(FacturaRepository.class);
+    private final PagoService pagoService = mock(PagoService.class);
+
+    @Test
+    void unErrorDeAplicacionDevuelveElSaldoAlCandidato() throws Exception {
+        LocalDate hoy = LocalDate.now();
+        when(pagoRepository.findAbiertosParaConciliar()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, "PAG-0001", Dinero.de("100.00"), null, hoy, hoy}));
+        when(pagoService.registrarPago(eq(1L), any(), anyString(), anyString(), any()))
+                .thenThrow(new RuntimeException("Bloqueo agotado"))
+                .thenReturn(null);
+        Files.writeString(carpeta.resolve("banco.csv"), String.join("\n",
+                "fecha,monto,referencia,descripcion",
+                hoy + ",100.00,OP1,Pago PAG-0001",
+                hoy + ",100.00,OP2,Pago PAG-0001"));
+
+        List<Map<String, Object>> corrida = crear().procesarCarpeta();
+
+        Map<String, Object> resultado = corrida.get(0);
+        assertEquals(1, resultado.get("conciliadas"));
+        assertEquals(1, resultado.get("discrepancias"));
+        assertEquals(Dinero.de("100.00"), resultado.get("montoConciliado"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> detalle = (List<Map<String, Object>>) resultado.get("detalleDiscrepancias");
+        assertEquals("ERROR_APLICACION", detalle.get(0).get("tipo"));
+        verify(pagoService, times(2)).registrarPago(eq(1L), eq(Dinero.de("100.00")), anyString(), anyString(), any());
+    }
+
+    private ConciliacionService crear() {
+        ConciliacionService service = new ConciliacionService();
+        ReflectionTestUtils.setField(service, "lectorExtractos", new LectorExtractos());
+        ReflectionTestUtils.setField(service, "pagoRepository", pagoRepository);
+        ReflectionTestUtils.setField(service, "facturaRepository", facturaRepository);
+        ReflectionTestUtils.setField(service, "lineaConciliadaRepository", mock(LineaConciliadaRepository.class));
+        ReflectionTestUtils.setField(service, "movimientoPagoRepository", mock(MovimientoPagoRepository.class));
+        ReflectionTestUtils.setField(service, "pagoService", pagoService);
+        ReflectionTestUtils.setField(service, "facturaService", mock(FacturaService.class));
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "carpeta", carpeta.toString());
+        ReflectionTestUtils.setField(service, "ventanaDias", 10);
+        // Lotes de una línea: la segunda se empareja después de aplicar (y fallar) la primera
+        ReflectionTestUtils.setField(service, "tamanioLote", 1);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,217 @@
+package com.petsalud.service;
+
+import com.petsalud.model.DetalleFactura;
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Dueno;
+import com.petsalud.model.Factura;
+import com.petsalud.model.Inventario;
+import com.petsalud.model.ReservaStock;
+import com.petsalud.repository.DuenoRepository;
+import com.petsalud.repository.FacturaRepository;
+import com.petsalud.repository.InventarioRepository;
+import com.petsalud.repository.ReservaStockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Descuentos simultáneos de stock (reservas, ajustes y facturas pagadas): el stock nunca queda negativo
+ * y se vende exactamente lo que había
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventarioServiceConcurrenciaTest {
+
+    private static final int STOCK_INICIAL = 20;
+    private static final int HILOS = 8;
+    private static final int RESERVAS_POR_HILO = 5;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private FacturaService facturaService;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private DuenoRepository duenoRepository;
+
+    @Test
+    void reservasParalelasNoSobrevendenElStock() throws Exception {
+        Inventario producto = inventarioRepository.save(
+                new Inventario("PRUEBA-041", "Producto de prueba", 5.0, 10.0, STOCK_INICIAL));
+        Long idProducto = producto.getIdInventario();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS + 1);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        AtomicBoolean enCurso = new AtomicBoolean(true);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            tareas.add(ejecutor.submit(() -> {
+                salida.await();
+                for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                    try {
+                        inventarioService.reservar("PRUEBA-041-" + hilo + "-" + i, Map.of(idProducto, 1), null);
+                        vendidas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        // Lector que vigila el stock mientras llegan las reservas
+        Future<Integer> minimo = ejecutor.submit(() -> {
+            salida.await();
+            int menor = Integer.MAX_VALUE;
+            while (enCurso.get()) {
+                menor = Math.min(menor, inventarioRepository.findById(idProducto).orElseThrow().getStockActual());
+            }
+            return menor;
+        });
+
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        enCurso.set(false);
+        assertTrue(minimo.get(10, TimeUnit.SECONDS) >= 0);
+        ejecutor.shutdown();
+        assertTrue(ejecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(STOCK_INICIAL, vendidas.get());
+        assertEquals(HILOS * RESERVAS_POR_HILO - STOCK_INICIAL, rechazadas.get());
+        assertEquals(0, inventarioRepository.findById(idProducto).orElseThrow().getStockActual());
+        long activas = reservaStockRepository.findAll().stream()
+                .filter(r -> idProducto.equals(r.getIdInventario()) && ReservaStock.ACTIVA.equals(r.getEstado()))
+                .count();
+        assertEquals(STOCK_INICIAL, activas);
+    }
+
+    @Test
+    void ajustesParalelosNoSobrevendenNiLosDeshaceUnaEdicion() throws Exception {
+        Inventario producto = inventarioRepository.save(
+                new Inventario("PRUEBA-041-R", "Producto de prueba", 5.0, 10.0, STOCK_INICIAL));
+        Long idProducto = producto.getIdInventario();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS + 1);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger vendidas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(ejecutor.submit(() -> {
+                salida.await();
+                for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                    try {
+                        inventarioService.actualizarStock(idProducto, 1, "RESTAR");
+                        vendidas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Stock insuficiente
+                    }
+                }
+                return null;
+            }));
+        }
+        // Ediciones del producto con el stock leído antes de las ventas
+        tareas.add(ejecutor.submit(() -> {
+            salida.await();
+            for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                Inventario edicion = new Inventario("PRUEBA-041-R", "Producto editado " + i, 5.0, 11.0, STOCK_INICIAL);
+                edicion.setIdInventario(idProducto);
+                inventarioService.guardar(edicion);
+            }
+            return null;
+        }));
+
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        ejecutor.shutdown();
+        assertTrue(ejecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(STOCK_INICIAL, vendidas.get());
+        assertEquals(0, inventarioRepository.findStockActual(idProducto));
+    }
+
+    @Test
+    void facturasPagadasEnParaleloNoSobrevenden() throws Exception {
+        int stockA = 10;
+        int stockB = 15;
+        int facturas = 25;
+        Long idA = inventarioRepository.save(new Inventario("PRUEBA-041-FA", "Producto A", 5.0, 10.0, stockA)).getIdInventario();
+        Long idB = inventarioRepository.save(new Inventario("PRUEBA-041-FB", "Producto B", 5.0, 10.0, stockB)).getIdInventario();
+        Dueno dueno = duenoRepository.save(new Dueno("70000041", "Prueba", "Facturas", "999000041"));
+
+        List<Long> ids = new ArrayList<>();
+        for (int f = 0; f < facturas; f++) {
+            Factura factura = new Factura("PRUEBA-041-F" + f, dueno);
+            factura.addDetalle(linea(idA));
+            factura.addDetalle(linea(idB));
+            ids.add(facturaService.guardar(factura).getIdFactura());
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger pagadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (Long idFactura : ids) {
+            tareas.add(ejecutor.submit(() -> {
+                salida.await();
+                try {
+                    facturaService.marcarComoPagada(idFactura);
+                    pagadas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Un producto no alcanza: la factura completa se deshace
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        ejecutor.shutdown();
+        assertTrue(ejecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // A limita las ventas; B solo baja por las facturas que se pagaron (sin descuentos parciales)
+        assertEquals(stockA, pagadas.get());
+        assertEquals(0, inventarioRepository.findStockActual(idA));
+        assertEquals(stockB - stockA, inventarioRepository.findStockActual(idB));
+        assertEquals(facturas - stockA, ids.stream()
+                .filter(id -> "PENDIENTE".equals(facturaRepository.findById(id).orElseThrow().getEstado()))
+                .count());
+    }
+
+    private DetalleFactura linea(Long idInventario) {
+        DetalleFactura detalle = new DetalleFactura("Producto " + idInventario, 1, Dinero.de(10.0), "PRODUCTO");
+        detalle.setIdInventario(idInventario);
+        return detalle;
+    }
+}
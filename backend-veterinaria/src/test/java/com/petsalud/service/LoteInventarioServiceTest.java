@@ -0,0 +1,90 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Inventario;
+import com.petsalud.model.LoteInventario;
+import com.petsalud.repository.InventarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Consumo FEFO: las ventas y ajustes no toman unidades de lotes vencidos
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LoteInventarioServiceTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private LoteInventarioService loteService;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Test
+    void ventasSaltanLosLotesVencidos() {
+        Long idProducto = crearProductoConLotes("PRUEBA-043-A");
+
+        inventarioService.actualizarStock(idProducto, 4, "RESTAR");
+
+        Map<String, Integer> saldos = saldosPorLote(idProducto);
+        assertEquals(5, saldos.get("VENCIDO"));
+        assertEquals(1, saldos.get("VIGENTE"));
+        assertEquals(6, inventarioRepository.findStockActual(idProducto));
+    }
+
+    @Test
+    void ventaQueSoloCubrenLotesVencidosSeRechaza() {
+        Long idProducto = crearProductoConLotes("PRUEBA-043-B");
+
+        assertThrows(RuntimeException.class, () -> inventarioService.actualizarStock(idProducto, 7, "RESTAR"));
+
+        // La operación completa se deshace: stock y lotes quedan como estaban
+        assertEquals(10, inventarioRepository.findStockActual(idProducto));
+        assertEquals(5, saldosPorLote(idProducto).get("VIGENTE"));
+    }
+
+    @Test
+    void bajaPorVencimientoEmpiezaPorLosLotesVencidos() {
+        Long idProducto = crearProductoConLotes("PRUEBA-043-C");
+
+        inventarioService.actualizarStock(idProducto, 5, "VENCIMIENTO");
+
+        Map<String, Integer> saldos = saldosPorLote(idProducto);
+        assertEquals(0, saldos.get("VENCIDO"));
+        assertEquals(5, saldos.get("VIGENTE"));
+    }
+
+    /**
+     * Producto con 5 unidades vencidas (ayer) y 5 vigentes (en un mes)
+     */
+    private Long crearProductoConLotes(String codigo) {
+        Inventario producto = inventarioRepository.save(new Inventario(codigo, "Producto " + codigo, 5.0, 10.0, 0));
+        inventarioService.ingresarLote(producto.getIdInventario(), lote("VENCIDO", LocalDate.now().minusDays(1)));
+        inventarioService.ingresarLote(producto.getIdInventario(), lote("VIGENTE", LocalDate.now().plusMonths(1)));
+        return producto.getIdInventario();
+    }
+
+    private LoteInventario lote(String codigo, LocalDate vencimiento) {
+        LoteInventario lote = new LoteInventario();
+        lote.setCodigoLote(codigo);
+        lote.setFechaVencimiento(vencimiento);
+        lote.setCantidadDisponible(5);
+        return lote;
+    }
+
+    private Map<String, Integer> saldosPorLote(Long idProducto) {
+        return loteService.listarPorProducto(idProducto).stream()
+                .collect(Collectors.toMap(LoteInventario::getCodigoLote, LoteInventario::getCantidadDisponible));
+    }
+}
@@ -0,0 +1,99 @@
+package com.petsalud.service;
+
+import com.petsalud.model.Dinero;
+import com.petsalud.model.Dueno;
+import com.petsalud.model.Pago;
+import com.petsalud.repository.DuenoRepository;
+import com.petsalud.repository.PagoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Abonos simultáneos sobre un mismo pago: ninguno se pierde, aunque haya ediciones del pago en paralelo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PagoServiceConcurrenciaTest {
+
+    private static final int HILOS = 8;
+    private static final int ABONOS_POR_HILO = 5;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private DuenoRepository duenoRepository;
+
+    @Test
+    void abonosParalelosSumanElMontoCompleto() throws Exception {
+        Dueno dueno = duenoRepository.save(new Dueno("70000038", "Prueba", "Abonos", "999000038"));
+        Pago pago = pagoService.guardar(new Pago(dueno, "Consulta", Dinero.de(1000.0), "PENDIENTE"));
+        Long idPago = pago.getIdPago();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS + 1);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger confirmados = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(ejecutor.submit(() -> {
+                salida.await();
+                for (int i = 0; i < ABONOS_POR_HILO; i++) {
+                    try {
+                        pagoService.registrarPago(idPago, Dinero.de(10.0), "Efectivo");
+                        confirmados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Reintentos agotados: el abono no se aplicó y el cliente recibe el error
+                    }
+                }
+                return null;
+            }));
+        }
+        // Ediciones del pago (sin versión, con monto pagado viejo) mientras llegan los abonos
+        tareas.add(ejecutor.submit(() -> {
+            salida.await();
+            for (int i = 0; i < ABONOS_POR_HILO; i++) {
+                Pago edicion = new Pago(dueno, "Consulta editada " + i, Dinero.de(1000.0), "PARCIAL");
+                edicion.setIdPago(idPago);
+                edicion.setNumeroPago(pago.getNumeroPago());
+                edicion.setFechaEmision(pago.getFechaEmision());
+                edicion.setMontoPagado(Dinero.CERO);
+                try {
+                    pagoService.guardar(edicion);
+                } catch (RuntimeException e) {
+                    // Conflicto con un abono confirmado: la edición se rechaza, el abono se conserva
+                }
+            }
+            return null;
+        }));
+
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        ejecutor.shutdown();
+        assertTrue(ejecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Cada abono confirmado está en el monto pagado, sin importar las ediciones
+        Pago finalizado = pagoRepository.findById(idPago).orElseThrow();
+        assertTrue(confirmados.get() > 0);
+        assertEquals(Dinero.de(10.0).multiplicar(confirmados.get()), finalizado.getMontoPagado());
+        assertEquals(confirmados.get(), pagoService.listarMovimientos(idPago).size());
+    }
+}
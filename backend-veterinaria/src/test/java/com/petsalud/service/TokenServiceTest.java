@@ -0,0 +1,47 @@
+package com.petsalud.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * El secreto de los tokens solo puede faltar con el perfil dev o test
+ */
+class TokenServiceTest {
+
+    @Test
+    void sinSecretoFallaFueraDeDevYTest() {
+        assertThrows(IllegalStateException.class, () -> crear("", new MockEnvironment()).init());
+        assertThrows(IllegalStateException.class, () -> crear(" ", perfil("prod")).init());
+    }
+
+    @Test
+    void sinSecretoUsaClaveAleatoriaEnDevYTest() {
+        assertDoesNotThrow(() -> crear("", perfil("dev")).init());
+        assertDoesNotThrow(() -> crear(null, perfil("test")).init());
+    }
+
+    @Test
+    void conSecretoIniciaEnCualquierPerfil() {
+        assertDoesNotThrow(() -> crear("un-secreto-largo-de-produccion", new MockEnvironment()).init());
+    }
+
+    private static TokenService crear(String secreto, MockEnvironment environment) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "secreto", secreto);
+        ReflectionTestUtils.setField(service, "environment", environment);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        return service;
+    }
+
+    private static MockEnvironment perfil(String perfil) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(perfil);
+        return environment;
+    }
+}
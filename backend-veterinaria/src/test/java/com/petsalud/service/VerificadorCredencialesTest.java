@@ -0,0 +1,85 @@
+package com.petsalud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * El cifrado de contraseñas usa el mismo pool acotado que la verificación
+ */
+class VerificadorCredencialesTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final VerificadorCredenciales verificador = new VerificadorCredenciales();
+    private final ExecutorService clientes = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void cerrar() {
+        clientes.shutdownNow();
+        verificador.detener();
+    }
+
+    @Test
+    void codificaEnElPoolDeCredenciales() {
+        iniciar(1, 1);
+        when(passwordEncoder.encode(anyString())).thenAnswer(i -> "hash@" + Thread.currentThread().getName());
+
+        String hash = verificador.codificar("secreta");
+
+        assertTrue(hash.startsWith("hash@credenciales-"), hash);
+        assertNull(verificador.codificar(null));
+    }
+
+    @Test
+    void rechazaCodificarConElPoolSaturado() throws Exception {
+        iniciar(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        when(passwordEncoder.encode(anyString())).thenAnswer(i -> {
+            enCurso.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+
+        // Uno en ejecución y otro en cola: el tercero se rechaza sin esperar
+        Future<String> primero = clientes.submit(() -> verificador.codificar("a"));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+        Future<String> segundo = clientes.submit(() -> verificador.codificar("b"));
+        while (((ThreadPoolExecutor) ReflectionTestUtils.getField(verificador, "pool")).getQueue().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> verificador.codificar("c"));
+
+        liberar.countDown();
+        assertEquals("hash", primero.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", segundo.get(5, TimeUnit.SECONDS));
+    }
+
+    private void iniciar(int hilos, int capacidadCola) {
+        ReflectionTestUtils.setField(verificador, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(verificador, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(verificador, "hilos", hilos);
+        ReflectionTestUtils.setField(verificador, "capacidadCola", capacidadCola);
+        ReflectionTestUtils.setField(verificador, "esperaMaximaMs", 2000L);
+        verificador.init();
+    }
+}